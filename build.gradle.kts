@@ -18,6 +18,7 @@ plugins {
   application
   id("com.github.johnrengelman.shadow") version "7.1.2"
   id("org.sonarqube") version "3.4.0.2513"
+  id("me.champeau.jmh") version "0.6.8"
 }
 
 repositories {
@@ -0,0 +1,95 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link Value} creation for bus traffic shaped like that of simulated designs.
+ *
+ * <p>The values are drawn from a working set of {@code liveValues} distinct bus values, which is
+ * about the number of values alive at once in the simulated design. Every miss of the interning
+ * table allocates one value, so running with {@code -prof gc} gives the hit rate through {@code
+ * gc.alloc.rate.norm}. Run it with {@code gradlew jmh}, against this and an older revision to
+ * compare.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValueCreateBenchmark {
+  private static final int TRACE_LENGTH = 1 << 16;
+
+  @Param({"16", "256", "4096", "65536"})
+  public int liveValues;
+
+  private final long[] trace = new long[TRACE_LENGTH];
+  private final Value[] partial = new Value[TRACE_LENGTH];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final var random = new Random(1);
+    final var workingSet = new long[liveValues];
+    // an RV32 program counter walks through neighbouring addresses, data words are spread out
+    for (var i = 0; i < liveValues; i++) {
+      workingSet[i] = (i & 1) == 0 ? 0x1000L + 4L * i : random.nextInt() & 0xffffffffL;
+    }
+    for (var i = 0; i < TRACE_LENGTH; i++) {
+      trace[i] = workingSet[random.nextInt(liveValues)];
+      partial[i] = Value.createKnown(24, trace[i]);
+    }
+  }
+
+  @Benchmark
+  public Value known8() {
+    return Value.createKnown(8, trace[next++ & (TRACE_LENGTH - 1)]);
+  }
+
+  @Benchmark
+  public Value known32() {
+    return Value.createKnown(32, trace[next++ & (TRACE_LENGTH - 1)]);
+  }
+
+  @Benchmark
+  public Value known64() {
+    final var word = trace[next++ & (TRACE_LENGTH - 1)];
+    return Value.createKnown(64, word << 32 | word);
+  }
+
+  /** A 24-bit value on a 32-bit bus, with the upper byte unknown. */
+  @Benchmark
+  public Value unknown32() {
+    return partial[next++ & (TRACE_LENGTH - 1)].extendWidth(32, Value.UNKNOWN);
+  }
+
+  /** Same as {@link #known32()}, from several simulation threads sharing the table. */
+  @Benchmark
+  @Threads(4)
+  public Value known32Shared() {
+    return Value.createKnown(32, trace[next++ & (TRACE_LENGTH - 1)]);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.designrulecheck;
+
+import com.cburch.logisim.circuit.Wire;
+import com.cburch.logisim.data.Location;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time taken by {@link Netlist} to group the wire segments of a sheet into nets.
+ *
+ * <p>The synthetic sheet is a grid of rows of {@code netLength} chained segments, each row making
+ * one net, with one vertical segment in ten joining two rows, like the buses and their taps of a
+ * large design. Run it with {@code gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetExtractionBenchmark {
+  @Param({"10000", "100000"})
+  public int wireCount;
+
+  @Param({"10", "1000"})
+  public int netLength;
+
+  private final HashSet<Wire> wires = new HashSet<>();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final var random = new Random(1);
+    wires.clear();
+    for (var i = 0; wires.size() < wireCount; i++) {
+      final var x = 10 * (i % netLength);
+      final var y = 20 * (i / netLength);
+      wires.add(Wire.create(Location.create(x, y, false), Location.create(x + 10, y, false)));
+      if (random.nextInt(10) == 0 && wires.size() < wireCount) {
+        wires.add(Wire.create(Location.create(x, y, false), Location.create(x, y + 20, false)));
+      }
+    }
+  }
+
+  @Benchmark
+  public List<Net> wireNets() {
+    return Netlist.getWireNets(wires);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of recording and reading back the history of a logged signal.
+ *
+ * <p>The signal is an 8-bit counter sampled once per clock cycle, {@code samples} samples long, the
+ * way an unlimited chronogram records it. {@code record} appends one cycle, {@code valueAt} and
+ * {@code iterateFrom} look a random time up as the chronogram does when painting. {@code
+ * drawSamples} and {@code drawPixels} go over the whole history the way a zoomed out chronogram
+ * draws it, sample by sample or a thousand pixels at a time. Run it with {@code gradlew jmh},
+ * with {@code -prof gc} for the memory taken by each sample.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignalBenchmark {
+  private static final int CYCLE = 10;
+  private static final int PIXELS = 1000;
+
+  @Param({"1000", "1000000"})
+  public int samples;
+
+  private SignalInfo info;
+  private Signal signal;
+  private final Random random = new Random(1);
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(8));
+    final Component pin = Pin.FACTORY.createComponent(Location.create(0, 0, false), attrs);
+    info = new SignalInfo(new Circuit("bench", null, null), new Component[] {pin}, null);
+    signal = new Signal(0, info, Value.createKnown(8, 0), CYCLE, 0, 0);
+    for (next = 1; next < samples; next++) signal.extend(Value.createKnown(8, next), CYCLE);
+  }
+
+  @Benchmark
+  public void record() {
+    signal.extend(Value.createKnown(8, next++), CYCLE);
+  }
+
+  @Benchmark
+  public Value valueAt() {
+    return signal.getValue((long) (random.nextDouble() * samples * CYCLE));
+  }
+
+  @Benchmark
+  public Value iterateFrom() {
+    final var cursor = signal.new Iterator((long) (random.nextDouble() * samples * CYCLE));
+    cursor.advance();
+    return cursor.value;
+  }
+
+  @Benchmark
+  public int drawSamples() {
+    final var cursor = signal.new Iterator(0);
+    var n = 0;
+    while (cursor.advance()) n++;
+    return n;
+  }
+
+  @Benchmark
+  public int drawPixels() {
+    final var cursor = signal.new Iterator(0);
+    final var step = Math.max(1, (signal.getEndTime() + PIXELS - 1) / PIXELS);
+    var kinds = 0;
+    for (var t = step; cursor.value != null; t += step) kinds |= cursor.skip(t);
+    return kinds;
+  }
+}
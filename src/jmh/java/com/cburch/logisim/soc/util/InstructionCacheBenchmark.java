@@ -0,0 +1,163 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.soc.bus.SocBus;
+import com.cburch.logisim.soc.bus.SocBusAttributes;
+import com.cburch.logisim.soc.data.SocBusInfo;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import com.cburch.logisim.soc.data.SocSimulationManager;
+import com.cburch.logisim.soc.gui.BreakpointPanel;
+import com.cburch.logisim.soc.memory.SocMemory;
+import com.cburch.logisim.soc.memory.SocMemoryAttributes;
+import com.cburch.logisim.soc.rv32im.RV32imAssembler;
+import com.cburch.logisim.soc.rv32im.RV32imAttributes;
+import com.cburch.logisim.soc.rv32im.RV32imState;
+import com.cburch.logisim.soc.rv32im.Rv32imRiscV;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Speed of an RV32IM processor running a program from a memory on a bus, in millions of
+ * instructions per second.
+ *
+ * <p>{@code uncached} executes each instruction the way the processor did before {@link
+ * InstructionCache}: its breakpoints looked up, fetched over the bus, handed to every execution
+ * unit of the assembler and the valid one searched for. {@code cached} lets the processor execute
+ * the same program, in bursts of {@value #BURST} instructions, fetching through its cache. Run it
+ * with {@code gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstructionCacheBenchmark {
+  private static final int BURST = 1000;
+
+  /* a loop loading, computing and storing, as compiled code does, that never ends */
+  private static final int[] PROGRAM = {
+    0x20000113, // addi x2, x0, 0x200
+    0x00012283, // loop: lw x5, 0(x2)
+    0x00108093, // addi x1, x1, 1
+    0x005081b3, // add x3, x1, x5
+    0x02118233, // mul x4, x3, x1
+    0x00412223, // sw x4, 4(x2)
+    0x03f0f313, // andi x6, x1, 63
+    0xfe0314e3, // bne x6, x0, loop
+    0xfe5ff06f, // j loop
+  };
+
+  private final AssemblerInterface assembler = new RV32imAssembler();
+  private CircuitState state;
+  private RV32imState.ProcessorState cpu;
+  private SocSimulationManager manager;
+  private String busId;
+
+  private static Component add(
+      CircuitMutation mutation, ComponentFactory factory, AttributeSet attrs, int x) {
+    final var comp = factory.createComponent(Location.create(x, 400, false), attrs);
+    mutation.add(comp);
+    return comp;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final var proj = new Project(LogisimFile.createNew(new Loader(null), null));
+    final var circuit = new Circuit("bench", proj.getLogisimFile(), proj);
+    final var mutation = new CircuitMutation(circuit);
+    final var busAttrs = new SocBus().createAttributeSet();
+    busId = busAttrs.getValue(SocBusAttributes.SOC_BUS_ID).getBusId();
+    add(mutation, new SocBus(), busAttrs, 200);
+    final var memory = new SocMemory();
+    final var memAttrs = memory.createAttributeSet();
+    memAttrs.setValue(SocMemoryAttributes.MEM_SIZE, BitWidth.create(12));
+    memAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, new SocBusInfo(busId));
+    add(mutation, memory, memAttrs, 1000);
+    final var riscv = new Rv32imRiscV();
+    final var cpuAttrs = riscv.createAttributeSet();
+    cpuAttrs.setValue(RV32imAttributes.INSTRUCTIONS_PER_CLOCK, BURST);
+    cpuAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, new SocBusInfo(busId));
+    final var cpuComp = add(mutation, riscv, cpuAttrs, 1400);
+    mutation.execute();
+    proj.getLogisimFile().addCircuit(circuit);
+    manager = circuit.getSocSimulationManager();
+    state = new CircuitState(proj, circuit);
+    state.getPropagator().propagate();
+    for (var i = 0; i < PROGRAM.length; i++) {
+      final var trans =
+          new SocBusTransaction(
+              SocBusTransaction.WRITE_TRANSACTION,
+              4 * i,
+              PROGRAM[i],
+              SocBusTransaction.WORD_ACCESS,
+              "bench");
+      trans.setAsHiddenTransaction();
+      manager.initializeTransaction(trans, busId, state);
+    }
+    cpu = (RV32imState.ProcessorState) state.getData(cpuComp);
+    cpu.simButtonPressed();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public int uncached() {
+    final var breakPoints = (BreakpointPanel) cpu.getAsmWindow();
+    for (var i = 0; i < BURST; i++) {
+      final var pc = cpu.getProgramCounter();
+      if (breakPoints.getBreakPoints().containsKey(pc)) break;
+      final var trans =
+          new SocBusTransaction(
+              SocBusTransaction.READ_TRANSACTION,
+              pc,
+              0,
+              SocBusTransaction.WORD_ACCESS,
+              cpu.getMasterComponent());
+      manager.initializeTransaction(trans, busId, state);
+      final var instruction = trans.getReadData();
+      assembler.decode(instruction);
+      final var exe = assembler.getExeUnit();
+      exe.execute(cpu, state);
+      cpu.getTrace().add(pc, instruction, false);
+      if (!exe.performedJump()) cpu.setProgramCounter(pc + 4);
+    }
+    return cpu.getProgramCounter();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public int cached() {
+    cpu.execute(state);
+    return cpu.getProgramCounter();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of formatting HDL lines with {@link LineBuffer}.
+ *
+ * <p>{@code regexFormat} is the formatter {@link LineBuffer} used before its templates, which
+ * compiled and ran one regular expression per pair, and is kept here as the reference for {@code
+ * format}. The buffer benchmarks format a line the way the HDL generators do, through a buffer
+ * holding the HDL pairs and, for VHDL, all its keywords. Run it with {@code gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineBufferBenchmark {
+  private static final String LINE = "   {{signal}} {{1}}{{2}} : {{3}};";
+  private static final String ASSIGN = "{{assign}} {{1}} {{=}} {{2}} {{and}} {{not}}({{3}});";
+
+  private int next;
+
+  private static String regexFormat(String format, LineBuffer.Pairs pairs) {
+    for (final var set : pairs.entrySet()) {
+      final var searchRegExp = String.format("\\{\\{\\s*%s\\s*\\}\\}", set.getKey());
+      final var replacement = Matcher.quoteReplacement(set.getValue().toString());
+      format = format.replaceAll(searchRegExp, replacement);
+    }
+    return format;
+  }
+
+  @Benchmark
+  public String format() {
+    return LineBuffer.format(LINE, "s_net" + (next++ & 1023), "   ", "std_logic");
+  }
+
+  @Benchmark
+  public String regexFormat() {
+    return regexFormat(
+        LINE, LineBuffer.Pairs.fromArgs("s_net" + (next++ & 1023), "   ", "std_logic"));
+  }
+
+  @Benchmark
+  public List<String> hdlBuffer() {
+    return LineBuffer.getHdlBuffer().add(ASSIGN, "s_a" + (next++ & 1023), "s_b", "s_c").get();
+  }
+
+  @Benchmark
+  public List<String> vhdlBuffer() {
+    return LineBuffer.getHdlBuffer()
+        .addVhdlKeywords()
+        .add(LINE, "s_net" + (next++ & 1023), "   ", "std_logic")
+        .get();
+  }
+}
@@ -13,7 +13,6 @@ import static com.cburch.logisim.analyze.Strings.S;
 
 import com.cburch.logisim.analyze.file.AnalyzerTexWriter;
 import com.cburch.logisim.analyze.model.AnalyzerModel;
-import com.cburch.logisim.analyze.model.Implicant;
 import com.cburch.logisim.analyze.model.Parser;
 import com.cburch.logisim.analyze.model.TruthTableEvent;
 import com.cburch.logisim.analyze.model.TruthTableListener;
@@ -29,6 +28,7 @@ import java.awt.event.ComponentEvent;
 import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
@@ -117,18 +117,14 @@ public class Analyzer extends LFrame.SubWindow {
       final var nrOfOutputs = tt.getOutputColumnCount();
       final var hasInputsAndOutputs = (nrOfInputs > 0) && (nrOfOutputs > 0);
       buildCircuit.setEnabled(hasInputsAndOutputs);
-      minimizeMinterms.setEnabled(hasInputsAndOutputs
-              && (nrOfInputs > Implicant.MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM));
-      minimizeMaxterms.setEnabled(hasInputsAndOutputs
-              && (nrOfInputs > Implicant.MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM));
+      minimizeMinterms.setEnabled(hasInputsAndOutputs);
+      minimizeMaxterms.setEnabled(hasInputsAndOutputs);
       exportTable.setEnabled(hasInputsAndOutputs);
       exportTex.setEnabled(hasInputsAndOutputs
               && tt.getRowCount() <= AnalyzerTexWriter.MAX_TRUTH_TABLE_ROWS);
       tabbedPane.setEnabledAt(TABLE_TAB, hasInputsAndOutputs);
-      tabbedPane.setEnabledAt(EXPRESSION_TAB, hasInputsAndOutputs
-              && (nrOfInputs <= Implicant.MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM));
-      tabbedPane.setEnabledAt(MINIMIZED_TAB, hasInputsAndOutputs
-              && (nrOfInputs <= Implicant.MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM));
+      tabbedPane.setEnabledAt(EXPRESSION_TAB, hasInputsAndOutputs);
+      tabbedPane.setEnabledAt(MINIMIZED_TAB, hasInputsAndOutputs);
       ioPanel.updateTab();
     }
   }
@@ -276,19 +272,40 @@ public class Analyzer extends LFrame.SubWindow {
 
     private final SwingWorker<T, Void> worker;
     private final java.awt.Component parentComponent;
+    private final boolean cancellable;
+    private Thread thread; // running doInBackground
 
     public abstract T doInBackground();
 
     private boolean alreadyFinished = false;
 
     public PleaseWait(String title, java.awt.Component parentComponent) {
+      this(title, parentComponent, false);
+    }
+
+    /**
+     * Creates the dialog, with a button to cancel the task if asked for. Cancelling interrupts the
+     * thread running doInBackground, which is expected to return early.
+     */
+    public PleaseWait(String title, java.awt.Component parentComponent, boolean cancellable) {
       super(null, title, ModalityType.APPLICATION_MODAL);
       this.parentComponent = parentComponent;
+      this.cancellable = cancellable;
       worker =
           new SwingWorker<>() {
             @Override
             protected T doInBackground() {
-              return PleaseWait.this.doInBackground();
+              synchronized (PleaseWait.this) {
+                thread = Thread.currentThread();
+              }
+              try {
+                return PleaseWait.this.doInBackground();
+              } finally {
+                synchronized (PleaseWait.this) {
+                  thread = null;
+                  Thread.interrupted(); // a late cancel must not reach the next task
+                }
+              }
             }
 
             @Override
@@ -302,6 +319,10 @@ public class Analyzer extends LFrame.SubWindow {
           };
     }
 
+    private synchronized void cancel() {
+      if (thread != null) thread.interrupt();
+    }
+
     public T get() {
       worker.execute();
       final var progressBar = new JProgressBar();
@@ -309,8 +330,13 @@ public class Analyzer extends LFrame.SubWindow {
       final var panel = new JPanel(new BorderLayout());
       panel.add(progressBar, BorderLayout.CENTER);
       panel.add(new JLabel(S.get("analyzePleaseWait")), BorderLayout.PAGE_START);
+      if (cancellable) {
+        final var cancelButton = new JButton(S.get("analyzeCancelButton"));
+        cancelButton.addActionListener(event -> cancel());
+        panel.add(cancelButton, BorderLayout.PAGE_END);
+      }
       add(panel);
-      setPreferredSize(new Dimension(300, 70));
+      setPreferredSize(new Dimension(300, cancellable ? 100 : 70));
       setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
       pack();
       setLocationRelativeTo(parentComponent);
@@ -23,7 +23,6 @@ import javax.swing.JTextArea;
 import javax.swing.text.DefaultCaret;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
-import com.cburch.logisim.gui.generic.OptionPane;
 
 public class MinimizeButton  extends JButton {
 
@@ -39,12 +38,6 @@ public class MinimizeButton  extends JButton {
   }
 
   void doOptimize() {
-    final var choice = OptionPane.showConfirmDialog(
-          parent, 
-          S.get("OptimizeLongTimeWarning"), 
-          S.get("minimizeFunctionTitle"), 
-          OptionPane.YES_NO_OPTION);
-    if (choice != OptionPane.YES_OPTION) return;
     final var info = new JTextArea(20, 80);
     info.setEditable(false);
     info.setFont(new Font("monospaced", Font.PLAIN, 12));
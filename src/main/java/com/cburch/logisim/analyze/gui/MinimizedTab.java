@@ -14,6 +14,7 @@ import static com.cburch.logisim.analyze.Strings.S;
 import com.cburch.logisim.analyze.data.ExpressionRenderData;
 import com.cburch.logisim.analyze.model.AnalyzerModel;
 import com.cburch.logisim.analyze.model.Expression.Notation;
+import com.cburch.logisim.analyze.model.Implicant;
 import com.cburch.logisim.analyze.model.OutputExpressions;
 import com.cburch.logisim.analyze.model.OutputExpressionsEvent;
 import com.cburch.logisim.analyze.model.OutputExpressionsListener;
@@ -45,6 +46,7 @@ import java.awt.event.MouseMotionAdapter;
 import java.awt.image.BufferedImage;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
+import java.util.List;
 import javax.swing.AbstractListModel;
 import javax.swing.ComboBoxModel;
 import javax.swing.JButton;
@@ -239,6 +241,8 @@ class MinimizedTab extends AnalyzerTab {
         final var model = (FormatModel) formatChoice.getModel();
         outputExprs.setMinimizedFormat(output, model.getSelectedFormat());
         karnaughMap.setFormat(model.getSelectedFormat());
+        // the minimal expression of a large table is computed by updateTab only
+        updateTab();
       } else if (event.getSource() == formatStyle) {
         final var model = (StyleModel) formatStyle.getModel();
         model.setStyle(karnaughMap);
@@ -436,15 +440,21 @@ class MinimizedTab extends AnalyzerTab {
   @Override
   void updateTab() {
     final var output = getCurrentVariable();
-    if (model.getTruthTable().getRowCount() > 4096) {
-      (new Analyzer.PleaseWait<Void>(S.get("expressionCalc"), this) {
-            @Override
-            public Void doInBackground() {
-              model.getOutputExpressions().getExpression(output);
-              return null;
-            }
-          })
-          .get();
+    final var nrOfInputs = model.getTruthTable().getInputColumnCount();
+    if (nrOfInputs > Implicant.MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM
+        && outputExprs.isMinimalExpressionUnknown(output)) {
+      // only the cover is computed in the background, the model changes on this thread
+      final var format = outputExprs.getMinimizedFormat(output);
+      final var implicants =
+          (new Analyzer.PleaseWait<List<Implicant>>(S.get("expressionCalc"), this, true) {
+                @Override
+                public List<Implicant> doInBackground() {
+                  return outputExprs.computeMinimalImplicants(output, format);
+                }
+              })
+              .get();
+      // null if cancelled, leaving the minimal expression unknown
+      if (implicants != null) outputExprs.setMinimalImplicants(output, format, implicants);
     }
     karnaughMap.setOutput(output);
     final var format = outputExprs.getMinimizedFormat(output);
@@ -0,0 +1,147 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The entries of one output column of a {@link TruthTable}, packed two bits per entry, 32 to a
+ * long. The low bit of an entry tells whether it is defined, the high bit holds its value, so that
+ * a new column is all don't cares and comparisons work a word at a time. An entry with only its
+ * high bit set is an error, which is an oscillation error if marked as such in a separate set,
+ * errors being rare.
+ */
+public final class EntryColumn {
+
+  private static final long DEFINED = 0x5555555555555555L;
+  private static final int DONT_CARE = 0;
+  private static final int ZERO = 1;
+  private static final int ERROR = 2;
+  private static final int ONE = 3;
+
+  private final int size;
+  private final long[] words;
+  private BitSet oscillating;
+
+  /** Creates a column of the given number of don't cares. */
+  public EntryColumn(int size) {
+    this.size = size;
+    words = new long[(size + 31) >>> 5];
+  }
+
+  /** Creates a column holding the given entries. */
+  public EntryColumn(Entry[] entries) {
+    this(entries.length);
+    for (var i = 0; i < entries.length; i++) set(i, entries[i]);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private int code(int idx) {
+    return (int) (words[idx >>> 5] >>> ((idx & 31) << 1)) & 3;
+  }
+
+  public Entry get(int idx) {
+    if (idx < 0 || idx >= size) throw new IndexOutOfBoundsException("bad row index");
+    return switch (code(idx)) {
+      case ZERO -> Entry.ZERO;
+      case ONE -> Entry.ONE;
+      case ERROR ->
+          oscillating != null && oscillating.get(idx) ? Entry.OSCILLATE_ERROR : Entry.BUS_ERROR;
+      default -> Entry.DONT_CARE;
+    };
+  }
+
+  /** Sets an entry, and returns whether it changed. */
+  public boolean set(int idx, Entry value) {
+    if (idx < 0 || idx >= size) throw new IndexOutOfBoundsException("bad row index");
+    final int code;
+    if (value == Entry.ZERO) code = ZERO;
+    else if (value == Entry.ONE) code = ONE;
+    else if (value == Entry.DONT_CARE) code = DONT_CARE;
+    else if (value == Entry.BUS_ERROR || value == Entry.OSCILLATE_ERROR) code = ERROR;
+    else throw new IllegalArgumentException("bad entry");
+    final var old = get(idx);
+    if (old == value) return false;
+    final var shift = (idx & 31) << 1;
+    words[idx >>> 5] = (words[idx >>> 5] & ~(3L << shift)) | ((long) code << shift);
+    if (value == Entry.OSCILLATE_ERROR) {
+      if (oscillating == null) oscillating = new BitSet();
+      oscillating.set(idx);
+    } else if (old == Entry.OSCILLATE_ERROR) {
+      oscillating.clear(idx);
+    }
+    return true;
+  }
+
+  /** Returns whether both entries are the same. */
+  public boolean same(int idx1, int idx2) {
+    return code(idx1) == code(idx2)
+        && (code(idx1) != ERROR || get(idx1) == get(idx2));
+  }
+
+  /** Returns whether any entry is a zero or a one. */
+  public boolean hasDefined() {
+    for (final var word : words) {
+      if ((word & DEFINED) != 0) return true;
+    }
+    return false;
+  }
+
+  /** Returns whether no entry is a zero in one column and a one in the other. */
+  public boolean agrees(EntryColumn other) {
+    if (size != other.size) return false;
+    for (var i = 0; i < words.length; i++) {
+      final var a = words[i];
+      final var b = other.words[i];
+      // both defined, with different values
+      if ((a & b & DEFINED & ((a ^ b) >>> 1)) != 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the index of the first entry at or after the given index that is a one, or a zero
+   * when looking for zeros, or -1 if there is none.
+   */
+  public int nextIndexOf(boolean one, int from) {
+    if (from >= size) return -1;
+    var w = from >>> 5;
+    var word = words[w] & (-1L << ((from & 31) << 1));
+    while (true) {
+      // entries whose code is that of a one, or of a zero
+      final var found = word & DEFINED & (one ? word >>> 1 : ~word >>> 1);
+      if (found != 0) {
+        final var idx = (w << 5) | (Long.numberOfTrailingZeros(found) >>> 1);
+        return idx < size ? idx : -1;
+      }
+      if (++w == words.length) return -1;
+      word = words[w];
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EntryColumn column
+        && size == column.size
+        && Arrays.equals(words, column.words)
+        && (oscillating == null || oscillating.isEmpty()
+            ? column.oscillating == null || column.oscillating.isEmpty()
+            : oscillating.equals(column.oscillating));
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(words);
+  }
+}
@@ -0,0 +1,503 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Finds a minimal sum of products covering the minterms of one output of a truth table, or its
+ * minimal product of sums by covering the maxterms instead. Cubes are kept as the mask of their
+ * unknown inputs and the values of the others, the way {@link Implicant} keeps them, and sets of
+ * minterms as bit vectors, so that checking a cube against the function takes a word at a time.
+ *
+ * <p>A heuristic search in the manner of Espresso always runs first: every minterm left to cover
+ * is expanded into a prime, the hardest to cover first, and the cover is then made irredundant
+ * and improved by reducing and expanding its cubes again. When the function is small enough, an
+ * exact search then looks for a cheaper cover among all the primes, which makes the cover
+ * minimal unless that search runs out of steps. The computation stops with a {@link
+ * CancellationException} when its thread is interrupted.
+ */
+final class Minimizer {
+
+  // limits of the exact search, beyond which the heuristic cover is kept
+  private static final int MAX_EXACT_TERMS = 1 << 10;
+  private static final int MAX_EXACT_IMPLICANTS = 1 << 13;
+  private static final int MAX_EXACT_NODES = 1 << 12;
+  // a cover with fewer cubes is always cheaper, then one with fewer literals
+  private static final int CUBE_COST = 1000;
+  private static final int IMPROVE_PASSES = 3;
+
+  private final int nrOfInputs;
+  private final int size;
+  private final long[] on; // minterms to cover
+  private final long[] off; // minterms not to cover
+  private final int[] coverCount; // number of cubes of the cover over each minterm to cover
+  private int nrOfPrimes = -1;
+  private boolean minimal;
+
+  /** Prepares the minimization of a column, covering its ones, or its zeros if not. */
+  Minimizer(EntryColumn column, int nrOfInputs, boolean ones) {
+    this.nrOfInputs = nrOfInputs;
+    size = 1 << nrOfInputs;
+    on = new long[(size + 63) >>> 6];
+    off = new long[on.length];
+    for (var i = column.nextIndexOf(ones, 0); i >= 0; i = column.nextIndexOf(ones, i + 1)) {
+      on[i >>> 6] |= 1L << i;
+    }
+    for (var i = column.nextIndexOf(!ones, 0); i >= 0; i = column.nextIndexOf(!ones, i + 1)) {
+      off[i >>> 6] |= 1L << i;
+    }
+    coverCount = new int[size];
+  }
+
+  /** Returns the number of primes of the function, or -1 if the exact search did not run. */
+  int getNrOfPrimes() {
+    return nrOfPrimes;
+  }
+
+  /** Returns whether the last cover found is known to be minimal. */
+  boolean isMinimal() {
+    return minimal;
+  }
+
+  /** Returns a cover of the function made of primes, as few of them as could be found. */
+  List<Implicant> minimize() {
+    var cover = expandAll();
+    irredundant(cover);
+    var cost = cost(cover);
+    for (var pass = 0; pass < IMPROVE_PASSES && cover.size() > 1; pass++) {
+      final var next = new ArrayList<>(cover);
+      reduceAndExpand(next);
+      irredundant(next);
+      final var nextCost = cost(next);
+      if (nextCost >= cost) break;
+      cover = next;
+      cost = nextCost;
+    }
+    minimal = cover.isEmpty();
+    if (!minimal) {
+      final var exact = exactCover(cost);
+      if (exact != null) cover = exact;
+    }
+    final var ret = new ArrayList<Implicant>(cover.size());
+    for (final var cube : cover) ret.add(new Implicant(unknowns(cube), values(cube)));
+    ret.sort(null);
+    return ret;
+  }
+
+  private static void checkCancelled() {
+    if (Thread.interrupted()) throw new CancellationException();
+  }
+
+  //
+  // cubes, as a long with the unknowns in the high word and the values in the low one
+  //
+  private static long cube(int unknowns, int values) {
+    return ((long) unknowns << 32) | (values & ~unknowns & 0xffffffffL);
+  }
+
+  private static int unknowns(long cube) {
+    return (int) (cube >>> 32);
+  }
+
+  private static int values(long cube) {
+    return (int) cube;
+  }
+
+  private int cost(long cube) {
+    return CUBE_COST + nrOfInputs - Integer.bitCount(unknowns(cube));
+  }
+
+  private int cost(List<Long> cover) {
+    var cost = 0;
+    for (final var cube : cover) cost += cost(cube);
+    return cost;
+  }
+
+  private static boolean contains(long[] set, int minterm) {
+    return (set[minterm >>> 6] & (1L << minterm)) != 0;
+  }
+
+  // The minterms of a cube that fall in one word of a set, the low six inputs selecting the bit.
+  private static long lowPattern(int unknowns, int values) {
+    final var low = unknowns & 63;
+    var pattern = 0L;
+    var sub = 0;
+    do {
+      pattern |= 1L << ((values & 63) | sub);
+      sub = (sub - low) & low;
+    } while (sub != 0);
+    return pattern;
+  }
+
+  private static int count(long[] set, int unknowns, int values) {
+    final var pattern = lowPattern(unknowns, values);
+    final var high = unknowns & ~63;
+    final var base = values & ~63;
+    var count = 0;
+    var sub = 0;
+    do {
+      count += Long.bitCount(set[(base | sub) >>> 6] & pattern);
+      sub = (sub - high) & high;
+    } while (sub != 0);
+    return count;
+  }
+
+  private static boolean intersects(long[] set, int unknowns, int values) {
+    final var pattern = lowPattern(unknowns, values);
+    final var high = unknowns & ~63;
+    final var base = values & ~63;
+    var sub = 0;
+    do {
+      if ((set[(base | sub) >>> 6] & pattern) != 0) return true;
+      sub = (sub - high) & high;
+    } while (sub != 0);
+    return false;
+  }
+
+  private static void clear(long[] set, int unknowns, int values) {
+    final var pattern = lowPattern(unknowns, values);
+    final var high = unknowns & ~63;
+    final var base = values & ~63;
+    var sub = 0;
+    do {
+      set[(base | sub) >>> 6] &= ~pattern;
+      sub = (sub - high) & high;
+    } while (sub != 0);
+  }
+
+  private void addCover(long cube, int delta) {
+    final var unknowns = unknowns(cube);
+    final var values = values(cube);
+    var sub = 0;
+    do {
+      final var minterm = values | sub;
+      if (contains(on, minterm)) coverCount[minterm] += delta;
+      sub = (sub - unknowns) & unknowns;
+    } while (sub != 0);
+  }
+
+  /**
+   * Expands a cube into a prime, by raising one input after the other as long as the cube stays
+   * clear of the minterms not to cover. The input raised is the one that brings the most minterms
+   * of the set given into the cube.
+   */
+  private long expand(long cube, long[] gain) {
+    var unknowns = unknowns(cube);
+    var values = values(cube);
+    while (true) {
+      var best = -1;
+      var bestGain = -1;
+      for (var input = 0; input < nrOfInputs; input++) {
+        final var bit = 1 << input;
+        if ((unknowns & bit) != 0 || intersects(off, unknowns, values ^ bit)) continue;
+        final var g = count(gain, unknowns, values ^ bit);
+        if (g > bestGain) {
+          best = input;
+          bestGain = g;
+        }
+      }
+      if (best < 0) return cube(unknowns, values);
+      unknowns |= 1 << best;
+      values &= ~(1 << best);
+    }
+  }
+
+  /** Covers the function with primes, starting from the minterms with the fewest neighbours. */
+  private ArrayList<Long> expandAll() {
+    final var buckets = new int[nrOfInputs + 1][];
+    final var fill = new int[nrOfInputs + 1];
+    for (var i = 0; i <= nrOfInputs; i++) buckets[i] = new int[16];
+    for (var m = nextSetBit(on, 0); m >= 0; m = nextSetBit(on, m + 1)) {
+      var degree = 0;
+      for (var input = 0; input < nrOfInputs; input++) {
+        if (!contains(off, m ^ (1 << input))) degree++;
+      }
+      if (fill[degree] == buckets[degree].length) {
+        buckets[degree] = Arrays.copyOf(buckets[degree], 2 * fill[degree]);
+      }
+      buckets[degree][fill[degree]++] = m;
+    }
+    final var uncovered = on.clone();
+    final var cover = new ArrayList<Long>();
+    for (var degree = 0; degree <= nrOfInputs; degree++) {
+      for (var i = 0; i < fill[degree]; i++) {
+        final var m = buckets[degree][i];
+        if (!contains(uncovered, m)) continue;
+        checkCancelled();
+        final var prime = expand(cube(0, m), uncovered);
+        cover.add(prime);
+        clear(uncovered, unknowns(prime), values(prime));
+        addCover(prime, 1);
+      }
+    }
+    return cover;
+  }
+
+  private static int nextSetBit(long[] set, int from) {
+    var w = from >>> 6;
+    if (w >= set.length) return -1;
+    var word = set[w] & (-1L << from);
+    while (word == 0) {
+      if (++w == set.length) return -1;
+      word = set[w];
+    }
+    return (w << 6) | Long.numberOfTrailingZeros(word);
+  }
+
+  private boolean isRedundant(long cube) {
+    final var unknowns = unknowns(cube);
+    final var values = values(cube);
+    var sub = 0;
+    do {
+      final var minterm = values | sub;
+      if (contains(on, minterm) && coverCount[minterm] < 2) return false;
+      sub = (sub - unknowns) & unknowns;
+    } while (sub != 0);
+    return true;
+  }
+
+  /** Drops the cubes whose minterms are all covered by others, the smallest first. */
+  private void irredundant(ArrayList<Long> cover) {
+    cover.sort((a, b) -> Integer.bitCount(unknowns(a)) - Integer.bitCount(unknowns(b)));
+    for (var i = 0; i < cover.size(); i++) {
+      checkCancelled();
+      final var cube = cover.get(i);
+      if (isRedundant(cube)) {
+        addCover(cube, -1);
+        cover.remove(i--);
+      }
+    }
+  }
+
+  /**
+   * Shrinks each cube, the largest first, to the smallest one holding the minterms only it
+   * covers, then expands them again towards the minterms the other cubes cover, so that these
+   * may become redundant.
+   */
+  private void reduceAndExpand(ArrayList<Long> cover) {
+    cover.sort((a, b) -> Integer.bitCount(unknowns(b)) - Integer.bitCount(unknowns(a)));
+    final var shared = new long[on.length];
+    for (var i = 0; i < cover.size(); i++) {
+      checkCancelled();
+      final var cube = cover.get(i);
+      final var unknowns = unknowns(cube);
+      final var values = values(cube);
+      var and = -1;
+      var or = 0;
+      var sub = 0;
+      do {
+        final var minterm = values | sub;
+        if (contains(on, minterm) && coverCount[minterm] == 1) {
+          and &= minterm;
+          or |= minterm;
+        }
+        sub = (sub - unknowns) & unknowns;
+      } while (sub != 0);
+      addCover(cube, -1);
+      if (and == -1) {
+        cover.remove(i--);
+        continue;
+      }
+      final var reduced = cube(and ^ or, and);
+      addCover(reduced, 1);
+      cover.set(i, reduced);
+    }
+    for (var m = nextSetBit(on, 0); m >= 0; m = nextSetBit(on, m + 1)) {
+      if (coverCount[m] > 0) shared[m >>> 6] |= 1L << m;
+    }
+    for (var i = cover.size() - 1; i >= 0; i--) {
+      checkCancelled();
+      final var cube = cover.get(i);
+      addCover(cube, -1);
+      final var prime = expand(cube, shared);
+      addCover(prime, 1);
+      cover.set(i, prime);
+    }
+  }
+
+  //
+  // exact search
+  //
+  private int[] terms; // the minterms to cover
+  private int[][] primesOf; // the primes covering each term
+  private int[][] termsOf; // the terms covered by each prime
+  private long[] primes;
+  private int[] covered; // how many chosen primes cover each term
+  private int[] blocked; // the last node at which each term was counted in a lower bound
+  private boolean[] excluded;
+  private int nrUncovered;
+  private int nodes;
+  private int bestCost;
+  private int[] best;
+  private int[] chosen;
+  private int nrChosen;
+
+  /** Returns all the primes of the function, or null if there are too many implicants. */
+  private long[] findPrimes() {
+    if (size - count(off, size - 1, 0) > MAX_EXACT_IMPLICANTS) return null;
+    var level = new HashSet<Long>();
+    for (var m = 0; m < size; m++) {
+      if (!contains(off, m)) level.add(cube(0, m));
+    }
+    var total = level.size();
+    final var primes = new ArrayList<Long>();
+    while (!level.isEmpty()) {
+      checkCancelled();
+      final var next = new HashSet<Long>();
+      for (final var cube : level) {
+        final var unknowns = unknowns(cube);
+        final var values = values(cube);
+        var prime = true;
+        for (var input = 0; input < nrOfInputs; input++) {
+          final var bit = 1 << input;
+          if ((unknowns & bit) != 0 || !level.contains(cube(unknowns, values ^ bit))) continue;
+          prime = false;
+          next.add(cube(unknowns | bit, values & ~bit));
+        }
+        if (prime && intersects(on, unknowns, values)) primes.add(cube);
+      }
+      total += next.size();
+      if (total > MAX_EXACT_IMPLICANTS) return null;
+      level = next;
+    }
+    final var ret = new long[primes.size()];
+    for (var i = 0; i < ret.length; i++) ret[i] = primes.get(i);
+    return ret;
+  }
+
+  /** Returns a cover cheaper than the given cost, or null if none is found. */
+  private ArrayList<Long> exactCover(int cost) {
+    final var nrOfTerms = count(on, size - 1, 0);
+    if (nrOfTerms > MAX_EXACT_TERMS) return null;
+    primes = findPrimes();
+    if (primes == null) return null;
+    nrOfPrimes = primes.length;
+    terms = new int[nrOfTerms];
+    var t = 0;
+    for (var m = nextSetBit(on, 0); m >= 0; m = nextSetBit(on, m + 1)) terms[t++] = m;
+    termsOf = new int[primes.length][];
+    final var nrPrimesOf = new int[nrOfTerms];
+    final var list = new int[nrOfTerms];
+    for (var p = 0; p < primes.length; p++) {
+      final var unknowns = unknowns(primes[p]);
+      final var values = values(primes[p]);
+      var n = 0;
+      var sub = 0;
+      do {
+        final var index = Arrays.binarySearch(terms, values | sub);
+        if (index >= 0) {
+          list[n++] = index;
+          nrPrimesOf[index]++;
+        }
+        sub = (sub - unknowns) & unknowns;
+      } while (sub != 0);
+      termsOf[p] = Arrays.copyOf(list, n);
+    }
+    primesOf = new int[nrOfTerms][];
+    for (t = 0; t < nrOfTerms; t++) primesOf[t] = new int[nrPrimesOf[t]];
+    Arrays.fill(nrPrimesOf, 0);
+    for (var p = 0; p < primes.length; p++) {
+      for (final var term : termsOf[p]) primesOf[term][nrPrimesOf[term]++] = p;
+    }
+    covered = new int[nrOfTerms];
+    blocked = new int[nrOfTerms];
+    excluded = new boolean[primes.length];
+    chosen = new int[nrOfTerms];
+    nrChosen = 0;
+    nrUncovered = nrOfTerms;
+    nodes = 0;
+    bestCost = cost;
+    best = null;
+    search(0);
+    minimal = nodes <= MAX_EXACT_NODES;
+    if (best == null) return null;
+    final var ret = new ArrayList<Long>(best.length);
+    for (final var p : best) ret.add(primes[p]);
+    return ret;
+  }
+
+  private void choose(int prime, int delta) {
+    for (final var term : termsOf[prime]) {
+      if (delta > 0 && covered[term]++ == 0) nrUncovered--;
+      else if (delta < 0 && --covered[term] == 0) nrUncovered++;
+    }
+  }
+
+  // A bound on the cost of covering the terms left: the number of them that no prime covers
+  // two at a time.
+  private int lowerBound() {
+    var bound = 0;
+    for (var t = 0; t < terms.length; t++) {
+      if (covered[t] > 0 || blocked[t] == nodes) continue;
+      bound += CUBE_COST;
+      for (final var p : primesOf[t]) {
+        if (excluded[p]) continue;
+        for (final var term : termsOf[p]) blocked[term] = nodes;
+      }
+    }
+    return bound;
+  }
+
+  private void search(int cost) {
+    if (++nodes > MAX_EXACT_NODES) return;
+    if ((nodes & 255) == 0) checkCancelled();
+    if (nrUncovered == 0) {
+      if (cost < bestCost) {
+        bestCost = cost;
+        best = Arrays.copyOf(chosen, nrChosen);
+      }
+      return;
+    }
+    if (cost + lowerBound() >= bestCost) return;
+    // branch on the term with the fewest primes left to cover it
+    var term = -1;
+    var fewest = Integer.MAX_VALUE;
+    for (var t = 0; t < terms.length && fewest > 1; t++) {
+      if (covered[t] > 0) continue;
+      var n = 0;
+      for (final var p : primesOf[t]) {
+        if (!excluded[p]) n++;
+      }
+      if (n < fewest) {
+        term = t;
+        fewest = n;
+      }
+    }
+    if (fewest == 0) return;
+    // try first the primes that cover the most terms left
+    final var candidates = new ArrayList<Integer>(fewest);
+    final var gains = new int[primes.length];
+    for (final var p : primesOf[term]) {
+      if (excluded[p]) continue;
+      candidates.add(p);
+      for (final var t : termsOf[p]) {
+        if (covered[t] == 0) gains[p]++;
+      }
+    }
+    candidates.sort((a, b) -> gains[b] - gains[a]);
+    final var tried = new ArrayList<Integer>();
+    for (final var p : candidates) {
+      choose(p, 1);
+      chosen[nrChosen++] = p;
+      search(cost + cost(primes[p]));
+      nrChosen--;
+      choose(p, -1);
+      excluded[p] = true;
+      tried.add(p);
+      if (nodes > MAX_EXACT_NODES) break;
+    }
+    for (final var p : tried) excluded[p] = false;
+  }
+}
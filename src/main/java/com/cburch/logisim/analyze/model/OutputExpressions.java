@@ -11,9 +11,9 @@ package com.cburch.logisim.analyze.model;
 
 import com.cburch.logisim.util.CollectionUtil;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import javax.swing.JTextArea;
 
@@ -57,13 +57,13 @@ public class OutputExpressions {
           }
           if (v.width < newVar.width) {
             final var data = getOutputData(output, false);
-            if (data != null) data.invalidate(false, false, null);
+            if (data != null) data.invalidate(false, false, null, false);
           }
         }
       } else if (type == VariableListEvent.MOVE || type == VariableListEvent.ADD) {
         for (final var output : outputData.keySet()) {
           final var data = getOutputData(output, false);
-          if (data != null) data.invalidate(false, false, null);
+          if (data != null) data.invalidate(false, false, null, false);
         }
       }
     }
@@ -117,7 +117,7 @@ public class OutputExpressions {
 
     OutputData(String output) {
       this.output = output;
-      invalidate(true, false, null);
+      invalidate(true, false, null, false);
     }
 
     Expression getExpression() {
@@ -126,14 +126,14 @@ public class OutputExpressions {
 
     String getExpressionString() {
       if (exprString == null) {
-        if (expr == null) invalidate(false, false, null);
+        if (expr == null) invalidate(false, false, null, false);
         exprString = expr == null ? "" : expr.toString();
       }
       return exprString;
     }
 
     Expression getMinimalExpression() {
-      if (minimalExpr == null) invalidate(false, false, null);
+      if (minimalExpr == null) invalidate(false, false, null, false);
       return minimalExpr;
     }
 
@@ -145,13 +145,31 @@ public class OutputExpressions {
       return format;
     }
 
-    private void invalidate(boolean initializing, boolean formatChanged, JTextArea outputArea) {
+    /**
+     * Computes the minimal implicants again. Unless {@code always}, those of a large table are
+     * left unknown, to be computed by {@link OutputExpressions#computeMinimalImplicants}. A
+     * computation cancelled by interrupting the thread leaves everything as it was.
+     */
+    private void invalidate(
+        boolean initializing, boolean formatChanged, JTextArea outputArea, boolean always) {
+      if (invalidating) return;
+      final List<Implicant> implicants;
+      try {
+        implicants = Implicant.computeMinimal(format, model, output, outputArea, always);
+      } catch (CancellationException e) {
+        return;
+      }
+      setMinimalImplicants(implicants, initializing, formatChanged);
+    }
+
+    private void setMinimalImplicants(
+        List<Implicant> implicants, boolean initializing, boolean formatChanged) {
       if (invalidating) return;
       invalidating = true;
       try {
         final var oldImplicants = minimalImplicants;
         final var oldMinExpr = minimalExpr;
-        minimalImplicants = Implicant.computeMinimal(format, model, output, outputArea);
+        minimalImplicants = implicants;
         minimalExpr = Implicant.toExpression(format, model, minimalImplicants);
         final var minChanged = !implicantsSame(oldImplicants, minimalImplicants);
 
@@ -162,8 +180,8 @@ public class OutputExpressions {
           final var outputColumn = computeColumn(model.getTruthTable(), expr);
           final var outputIndex = model.getOutputs().bits.indexOf(output);
           final var currentColumn = table.getOutputColumn(outputIndex);
-          if (!columnsMatch(currentColumn, outputColumn)
-              || isAllUndefined(outputColumn)
+          if (!currentColumn.agrees(outputColumn)
+              || !outputColumn.hasDefined()
               || formatChanged) {
             // if not, then we need to change the expression to
             // maintain consistency
@@ -254,36 +272,22 @@ public class OutputExpressions {
     void setMinimizedFormat(int value) {
       if (format != value) {
         format = value;
-        this.invalidate(false, true, null);
+        this.invalidate(false, true, null, false);
       }
     }
   }
 
-  private static boolean columnsMatch(Entry[] a, Entry[] b) {
-    if (a.length != b.length) return false;
-    for (var i = 0; i < a.length; i++) {
-      if (a[i] != b[i]) {
-        final var bothDefined =
-            (a[i] == Entry.ZERO || a[i] == Entry.ONE) && (b[i] == Entry.ZERO || b[i] == Entry.ONE);
-        if (bothDefined) return false;
-      }
-    }
-    return true;
-  }
-
-  private static Entry[] computeColumn(TruthTable table, Expression expr) {
+  private static EntryColumn computeColumn(TruthTable table, Expression expr) {
     final var rows = table.getRowCount();
     final var cols = table.getInputColumnCount();
-    final var values = new Entry[rows];
-    if (expr == null) {
-      Arrays.fill(values, Entry.DONT_CARE);
-    } else {
+    final var values = new EntryColumn(rows);
+    if (expr != null) {
       final var assn = new Assignments();
       for (var i = 0; i < rows; i++) {
         for (var j = 0; j < cols; j++) {
           assn.put(table.getInputHeader(j), TruthTable.isInputSet(i, j, cols));
         }
-        values[i] = expr.evaluate(assn) ? Entry.ONE : Entry.ZERO;
+        values.set(i, expr.evaluate(assn) ? Entry.ONE : Entry.ZERO);
       }
     }
     return values;
@@ -302,13 +306,6 @@ public class OutputExpressions {
     return true;
   }
 
-  private static boolean isAllUndefined(Entry[] a) {
-    for (final var entry : a) {
-      if (entry == Entry.ZERO || entry == Entry.ONE) return false;
-    }
-    return true;
-  }
-
   private final MyListener myListener = new MyListener();
 
   private final AnalyzerModel model;
@@ -330,7 +327,7 @@ public class OutputExpressions {
     for (final var output : outputData.keySet()) {
       final var data = outputData.get(output);
       data.setMinimizedFormat(format);
-      data.invalidate(false, false, outtextArea);
+      data.invalidate(false, false, outtextArea, true);
     }
   }
 
@@ -386,6 +383,40 @@ public class OutputExpressions {
     }
   }
 
+  /**
+   * Returns whether the minimal expression of an output is unknown, as it is for the large tables
+   * until {@link #computeMinimalImplicants} is run for them.
+   */
+  public boolean isMinimalExpressionUnknown(String output) {
+    if (output == null) return false;
+    try {
+      return getOutputData(output, true).minimalExpr == null;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  /**
+   * Computes the minimal implicants of an output in the given format, also for the large tables
+   * whose minimal expression is otherwise left unknown. Nothing is changed and no event is fired,
+   * so that this may run off the event dispatch thread; interrupting the thread cancels the
+   * computation with a {@link CancellationException}. The result is to be handed to {@link
+   * #setMinimalImplicants} on the event dispatch thread.
+   */
+  public List<Implicant> computeMinimalImplicants(String output, int format) {
+    return Implicant.computeMinimal(format, model, output, null, true);
+  }
+
+  /**
+   * Sets the minimal implicants of an output computed by {@link #computeMinimalImplicants}, unless
+   * the format of the output changed in the meantime.
+   */
+  public void setMinimalImplicants(String output, int format, List<Implicant> implicants) {
+    if (output == null) return;
+    final var data = getOutputData(output, false);
+    if (data != null && data.format == format) data.setMinimalImplicants(implicants, false, false);
+  }
+
   public List<Implicant> getMinimalImplicants(String output) {
     if (output == null) return Implicant.MINIMAL_LIST;
     try {
@@ -423,7 +454,7 @@ public class OutputExpressions {
       if (!allowUpdates) {
         outputData.remove(output);
       } else {
-        data.invalidate(false, false, null);
+        data.invalidate(false, false, null, false);
       }
     }
   }
@@ -432,7 +463,7 @@ public class OutputExpressions {
     var returnValue = false;
     for (final var output : outputData.keySet()) {
       final var data = outputData.get(output);
-      returnValue |= data.getMinimalImplicants().size() != 0;
+      returnValue |= !CollectionUtil.isNullOrEmpty(data.getMinimalImplicants());
     }
     return returnValue;
   }
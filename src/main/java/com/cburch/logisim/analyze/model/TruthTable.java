@@ -10,7 +10,6 @@
 package com.cburch.logisim.analyze.model;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -24,52 +23,58 @@ public class TruthTable {
   private final List<TruthTableListener> listeners = new ArrayList<>();
 
   private final AnalyzerModel model;
-  private ArrayList<Row> rows = new ArrayList<>(); // visible input rows
-  private final ArrayList<Entry[]> columns = new ArrayList<>(); // output columns
+  // visible input rows, or null while every row is visible on its own
+  private ArrayList<Row> rows = null;
+  private final ArrayList<EntryColumn> columns = new ArrayList<>(); // output columns
   private static final CompareInputs sortByInputs = new CompareInputs();
 
   private static class Row implements Iterable<Integer> {
-    // TODO: probably more efficient to store this in baseIdx/dcMask format.
-    final Entry[] inputs;
+    final int numInputs;
+    final int base;
+    final int mask;
 
     Row(int idx, int numInputs, int mask) {
-      inputs = new Entry[numInputs];
-      for (var i = numInputs - 1; i >= 0; i--) {
-        inputs[i] = (mask & 1) == 0 ? (idx & 1) == 0 ? Entry.ZERO : Entry.ONE : Entry.DONT_CARE;
-        idx = idx >> 1;
-        mask = mask >> 1;
-      }
+      this.numInputs = numInputs;
+      final var all = numInputs == 32 ? -1 : (1 << numInputs) - 1;
+      this.mask = mask & all;
+      this.base = idx & all & ~mask;
     }
 
     Row(Entry[] entries, int numInputs) {
-      inputs = new Entry[numInputs];
-      System.arraycopy(entries, 0, inputs, 0, numInputs);
+      this.numInputs = numInputs;
+      var idx = 0;
+      var dc = 0;
+      for (var i = 0; i < numInputs; i++) {
+        idx = (idx << 1) | (entries[i] == Entry.ONE ? 1 : 0);
+        dc = (dc << 1) | (entries[i] == Entry.DONT_CARE ? 1 : 0);
+      }
+      base = idx;
+      mask = dc;
+    }
+
+    Entry input(int col) {
+      final var bit = 1 << (numInputs - 1 - col);
+      return (mask & bit) != 0 ? Entry.DONT_CARE : (base & bit) != 0 ? Entry.ONE : Entry.ZERO;
     }
 
     public int baseIndex() {
-      var idx = 0;
-      for (final var input : inputs) idx = (idx << 1) | (input == Entry.ONE ? 1 : 0);
-      return idx;
+      return base;
     }
 
     public int dcMask() {
-      var mask = 0;
-      for (final var input : inputs) mask = (mask << 1) | (input == Entry.DONT_CARE ? 1 : 0);
       return mask;
     }
 
     public int duplicity() {
-      int count = 1;
-      for (Entry input : inputs) count *= (input == Entry.DONT_CARE ? 2 : 1);
-      return count;
+      return 1 << Integer.bitCount(mask);
     }
 
     @Override
     public String toString() {
       final var s = new StringBuilder("row[");
-      for (var i = 0; i < inputs.length; i++) {
+      for (var i = 0; i < numInputs; i++) {
         if (i != 0) s.append(" ");
-        s.append(inputs[i].getDescription());
+        s.append(input(i).getDescription());
       }
       s.append("]");
       s.append(" dup=").append(duplicity());
@@ -82,7 +87,7 @@ public class TruthTable {
       var i = 0;
       for (final var variable : vars) {
         s.append(" ");
-        for (var j = 0; j < variable.width; j++) s.append(inputs[i++].toBitString());
+        for (var j = 0; j < variable.width; j++) s.append(input(i++).toBitString());
       }
       return s.toString();
     }
@@ -105,7 +110,7 @@ public class TruthTable {
       return new Iterator<>() {
         final int base = baseIndex();
         final int mask = dcMask();
-        final int nbits = inputs.length;
+        final int nbits = numInputs;
         final int count = duplicity();
         int iter = 0;
 
@@ -144,11 +149,24 @@ public class TruthTable {
   }
 
   private void initRows() {
-    final var inputs = getInputColumnCount();
-    final var n = getRowCount();
-    rows.clear();
-    rows.ensureCapacity(n);
-    for (int i = 0; i < n; i++) rows.add(new Row(i, inputs, 0));
+    rows = null;
+  }
+
+  private Row getRow(int row) {
+    if (rows != null) return rows.get(row);
+    if (row < 0 || row >= getRowCount()) throw new IndexOutOfBoundsException("bad row index");
+    return new Row(row, getInputColumnCount(), 0);
+  }
+
+  /** Returns the visible rows as a list that may be changed, creating it if need be. */
+  private ArrayList<Row> getRows() {
+    if (rows == null) {
+      final var inputs = getInputColumnCount();
+      final var n = getRowCount();
+      rows = new ArrayList<>(n);
+      for (var i = 0; i < n; i++) rows.add(new Row(i, inputs, 0));
+    }
+    return rows;
   }
 
   private void initColumns() {
@@ -174,51 +192,34 @@ public class TruthTable {
 
   public void compactVisibleRows() {
     final var partition = Implicant.computePartition(model);
-    rows.clear();
-    initColumns();
     final var ni = getInputColumnCount();
     final var no = getOutputColumnCount();
-    for (final var it : partition.entrySet()) {
-      final var imp = it.getKey();
-      final var val = it.getValue();
-      final var r = new Row(imp.values, ni, imp.unknowns);
-      rows.add(r);
-      for (var col = 0; col < no; col++) {
-        final var value = Entry.parse("" + val.charAt(col));
-        var column = columns.get(col);
-        if (column == null && value == DEFAULT_ENTRY) continue;
-        else if (column == null) column = getOutputColumn(col);
-        for (Integer idx : r) {
-          column[idx] = value;
-        }
-      }
-    }
+    // the indexes of an implicant all have the same outputs, which are kept as they are
+    rows = new ArrayList<>(partition.size());
+    for (final var imp : partition.keySet()) rows.add(new Row(imp.values, ni, imp.unknowns));
     fireRowsChanged();
     for (var col = 0; col < no; col++) {
       if (columns.get(col) != null) fireCellsChanged(col);
     }
   }
 
-  public void setOutputColumn(int col, Entry[] values) {
-    if (values.length != getRowCount()) throw new IllegalArgumentException("bad column length");
+  public void setOutputColumn(int col, EntryColumn values) {
+    if (values.size() != getRowCount()) throw new IllegalArgumentException("bad column length");
     final var oldValues = columns.set(col, values);
     if (oldValues == values) return;
     // Expand rows as dictated by column inconsistencies
     var rowsChanged = false;
-    for (var i = rows.size() - 1; i >= 0; i--) {
+    for (var i = 0; rows != null && i < rows.size(); i++) {
       final var r = rows.get(i);
+      if (r.duplicity() == 1) continue;
       final var base = r.baseIndex();
-      final var v = values[base];
-      var split = true;
-      while (split) {
-        split = false;
-        for (final var idx : r) {
-          if (v != values[idx]) {
-            splitRow(r, idx);
-            rowsChanged = true;
-            split = true;
-            break;
-          }
+      for (final var idx : r) {
+        if (!values.same(base, idx)) {
+          splitRow(r, idx);
+          rowsChanged = true;
+          // the part holding the base takes the place of the row, the other parts follow it
+          i--;
+          break;
         }
       }
     }
@@ -232,11 +233,12 @@ public class TruthTable {
     final var diff = idx ^ base;
     final var n = r.duplicity();
     if (n <= 1) throw new IllegalStateException("row duplicity should be at least 2");
-    final var splits = new Row(base, r.inputs.length, diff);
+    final var splits = new Row(base, r.numInputs, diff);
     var m = 0;
+    final var rows = getRows();
     rows.remove(r);
     for (final var other : splits) {
-      final var s = new Row(other, r.inputs.length, r.dcMask() & ~diff);
+      final var s = new Row(other, r.numInputs, r.dcMask() & ~diff);
       m += s.duplicity();
       int pos = Collections.binarySearch(rows, s, sortByInputs);
       if (pos < 0) rows.add(-pos - 1, s);
@@ -246,7 +248,7 @@ public class TruthTable {
   }
 
   public Entry getVisibleOutputEntry(int row, int col) {
-    final var r = rows.get(row);
+    final var r = getRow(row);
     final var idx = r.baseIndex();
     return getOutputEntry(idx, col);
   }
@@ -254,36 +256,34 @@ public class TruthTable {
   public Entry getOutputEntry(int idx, int col) {
     if (idx < 0 || col < 0) return DEFAULT_ENTRY;
     final var column = columns.get(col);
-    return (column == null ? DEFAULT_ENTRY : idx < column.length ? column[idx] : DEFAULT_ENTRY);
+    return (column == null ? DEFAULT_ENTRY : idx < column.size() ? column.get(idx) : DEFAULT_ENTRY);
   }
 
   public String getVisibleOutputs(int row) {
-    final var r = rows.get(row);
+    final var r = getRow(row);
     final var idx = r.baseIndex();
     final var s = new StringBuilder();
-    for (Entry[] column : columns) {
-      s.append((column == null ? DEFAULT_ENTRY : column[idx]).getDescription());
+    for (final var column : columns) {
+      s.append((column == null ? DEFAULT_ENTRY : column.get(idx)).getDescription());
     }
     return s.toString();
   }
 
   public Entry getVisibleInputEntry(int row, int col) {
-    final var r = rows.get(row);
-    return r.inputs[col];
+    final var r = getRow(row);
+    return r.input(col);
   }
 
   public int getVisibleRowDcMask(int row) {
-    final var r = rows.get(row);
-    return r.dcMask();
+    return rows == null ? 0 : rows.get(row).dcMask();
   }
 
   public int getVisibleRowIndex(int row) {
-    final var r = rows.get(row);
-    return r.baseIndex();
+    return rows == null ? row : rows.get(row).baseIndex();
   }
 
   public Iterable<Integer> getVisibleRowIndexes(int row) {
-    return rows.get(row);
+    return getRow(row);
   }
 
   public Entry getInputEntry(int idx, int col) {
@@ -297,23 +297,27 @@ public class TruthTable {
     return (idx & (1 << (inputs - col - 1))) != 0;
   }
 
-  public Entry[] getOutputColumn(int col) {
+  public EntryColumn getOutputColumn(int col) {
     var column = columns.get(col);
     if (column == null) {
       if (col < 0 || col >= getOutputColumnCount())
         throw new IndexOutOfBoundsException("bad output column index");
-      column = new Entry[getRowCount()];
-      Arrays.fill(column, DEFAULT_ENTRY);
+      column = new EntryColumn(getRowCount());
       columns.set(col, column);
     }
     return column;
   }
 
+  /** Returns an output column, or null if none of its entries was ever set. */
+  EntryColumn findOutputColumn(int col) {
+    return columns.get(col);
+  }
+
   private boolean identicalOutputs(int idx1, int idx2) {
     if (idx1 == idx2) return true;
     for (final var column : columns) {
       if (column == null) continue;
-      if (column[idx1] != column[idx2]) return false;
+      if (!column.same(idx1, idx2)) return false;
     }
     return true;
   }
@@ -323,21 +327,19 @@ public class TruthTable {
     for (var col = 0; col < columns.size(); col++) {
       final var column = columns.get(col);
       if (column == null) continue;
-      if (column[idx1] != column[idx2]) {
-        column[idx2] = column[idx1];
-        changed[col] = true;
-      }
+      if (column.set(idx2, column.get(idx1))) changed[col] = true;
     }
   }
 
   private boolean setDontCare(Row r, int dc, boolean force, boolean[] changed) {
-    final var newRow = new Row(r.baseIndex(), r.inputs.length, r.dcMask() | dc);
+    final var newRow = new Row(r.baseIndex(), r.numInputs, r.dcMask() | dc);
     final var base = newRow.baseIndex();
     if (!force) {
       for (final var idx : newRow) {
         if (!identicalOutputs(base, idx)) return false;
       }
     }
+    final var rows = getRows();
     for (var i = 0; i < rows.size(); i++) {
       final var row = rows.get(i);
       if (!newRow.intersects(row)) continue;
@@ -347,11 +349,11 @@ public class TruthTable {
       } else {
         // find a bit we can flip in s so it doesn't conflict
         int pos;
-        for (pos = row.inputs.length - 1; pos >= 0; pos--) {
-          if (row.inputs[pos] == Entry.DONT_CARE && newRow.inputs[pos] != Entry.DONT_CARE) break;
+        for (pos = row.numInputs - 1; pos >= 0; pos--) {
+          if (row.input(pos) == Entry.DONT_CARE && newRow.input(pos) != Entry.DONT_CARE) break;
         }
         if (pos < 0) throw new IllegalStateException("failed row merge");
-        int bit = (1 << (row.inputs.length - 1 - pos));
+        int bit = (1 << (row.numInputs - 1 - pos));
         splitRow(row, row.baseIndex() ^ bit);
       }
       i--; // back up, may need a second split
@@ -363,9 +365,9 @@ public class TruthTable {
   }
 
   public boolean setVisibleInputEntry(int row, int col, Entry value, boolean force) {
-    final var r = rows.get(row);
-    if (r.inputs[col] == value) return false;
-    final var dc = (1 << (r.inputs.length - 1 - col));
+    final var r = getRow(row);
+    if (r.input(col) == value) return false;
+    final var dc = (1 << (r.numInputs - 1 - col));
     if (value == Entry.DONT_CARE) {
       final var changed = new boolean[columns.size()];
       if (!setDontCare(r, dc, force, changed)) return false;
@@ -375,7 +377,7 @@ public class TruthTable {
       }
       return true;
     } else if (value == Entry.ONE || value == Entry.ZERO) {
-      if (r.inputs[col] != Entry.DONT_CARE) return false;
+      if (r.input(col) != Entry.DONT_CARE) return false;
       splitRow(r, r.baseIndex() | dc);
       fireRowsChanged();
       return true;
@@ -385,20 +387,20 @@ public class TruthTable {
   }
 
   public void setVisibleOutputEntry(int row, int col, Entry value) {
-    final var r = rows.get(row);
+    if (value == null) return;
+    final var r = getRow(row);
     var column = columns.get(col);
     if (column == null && value == DEFAULT_ENTRY) return;
     else if (column == null) column = getOutputColumn(col);
     var changed = false;
     for (Integer idx : r) {
-      if (column[idx] == value) continue;
-      changed = true;
-      column[idx] = value;
+      if (column.set(idx, value)) changed = true;
     }
     if (changed) fireCellsChanged(col);
   }
 
   Row findRow(int idx) {
+    if (rows == null) return getRow(idx);
     for (var i = rows.size() - 1; i >= 0; i--) {
       final var r = rows.get(i);
       if (r.contains(idx)) return r;
@@ -407,6 +409,7 @@ public class TruthTable {
   }
 
   public int findVisibleRowContaining(int idx) {
+    if (rows == null) return getRow(idx).baseIndex();
     for (var i = rows.size() - 1; i >= 0; i--) {
       final var r = rows.get(i);
       if (r.contains(idx)) return i;
@@ -459,7 +462,6 @@ public class TruthTable {
     }
 
     newRows.sort(sortByInputs);
-    rows.clear();
     rows = newRows;
     initColumns();
 
@@ -470,7 +472,7 @@ public class TruthTable {
         var column = columns.get(col);
         if (column == null && value == DEFAULT_ENTRY) continue;
         else if (column == null) column = getOutputColumn(col);
-        for (final var idx : r) column[idx] = value;
+        for (final var idx : r) column.set(idx, value);
       }
     }
     fireRowsChanged();
@@ -483,8 +485,7 @@ public class TruthTable {
     var column = columns.get(col);
     if (column == null && value == DEFAULT_ENTRY) return;
     else if (column == null) column = getOutputColumn(col);
-    if (column[idx] == value) return;
-    column[idx] = value;
+    if (!column.set(idx, value)) return;
     final var r = findRow(idx);
     if (r.duplicity() > 1) {
       splitRow(r, idx);
@@ -598,6 +599,7 @@ public class TruthTable {
       final var moveDist = Math.abs(newIndex - oldIndex);
       final var moveLeft = newIndex > oldIndex;
       final var blockMask = allMask ^ sameMask ^ moveMask; // bits that move by one
+      if (rows == null) return; // every row still visible on its own
       ArrayList<Row> ret = new ArrayList<>(2 * rows.size());
       for (final var row : rows) {
         final var i = row.baseIndex();
@@ -619,6 +621,7 @@ public class TruthTable {
 
     private void addInput(int index, int oldCount) {
       // add another Entry column to each row.input
+      if (rows == null) return; // every row still visible on its own
       final var ret = new ArrayList<Row>(2 * rows.size());
       for (final var row : rows) {
         final var i = row.baseIndex();
@@ -638,11 +641,22 @@ public class TruthTable {
       // force an Entry column of each row.input to 'x', then remove it
       final var b = (1 << (oldCount - 1 - index)); // _0001000
       final var changed = new boolean[columns.size()];
+      if (rows == null) {
+        // every row is visible on its own, and merges with the one whose input is set
+        for (final var column : columns) {
+          if (column == null) continue;
+          for (var i = 0; i < column.size(); i++) {
+            if ((i & b) == 0) column.set(i | b, column.get(i));
+          }
+        }
+        return;
+      }
+      final var rows = TruthTable.this.rows;
       // loop rows by index to avoid java.util.ConcurrentModificationException
       //noinspection ForLoopReplaceableByForEach
       for (var i = 0; i < rows.size(); ++i) {
         final var r = rows.get(i);
-        if (r.inputs[index] == Entry.DONT_CARE) continue;
+        if (r.input(index) == Entry.DONT_CARE) continue;
         setDontCare(r, b, true, changed); // mutates row
       }
       final var mask = b - 1; // _0000111
@@ -655,10 +669,10 @@ public class TruthTable {
         ret.add(new Row(idx0, oldCount - 1, dc0));
       }
       ret.sort(sortByInputs);
-      rows = ret;
+      TruthTable.this.rows = ret;
     }
 
-    private Entry[] inputsChangedForOutput(Entry[] column, VariableListEvent event) {
+    private EntryColumn inputsChangedForOutput(EntryColumn column, VariableListEvent event) {
       final var v = event.getVariable();
       final var action = event.getType();
       if (action == VariableListEvent.ADD) {
@@ -696,52 +710,51 @@ public class TruthTable {
       return column;
     }
 
-    private Entry[] moveInputForOutput(Entry[] old, int oldIndex, int newIndex) {
+    private EntryColumn moveInputForOutput(EntryColumn old, int oldIndex, int newIndex) {
       final var inputs = getInputColumnCount();
       oldIndex = inputs - 1 - oldIndex;
       newIndex = inputs - 1 - newIndex;
-      final var ret = new Entry[old.length];
+      final var ret = new EntryColumn(old.size());
       final var sameMask =
-          (old.length - 1)
+          (old.size() - 1)
               ^ ((1 << (1 + Math.max(oldIndex, newIndex))) - 1)
               ^ ((1 << Math.min(oldIndex, newIndex)) - 1); // bits that don't change
       final var moveMask = 1 << oldIndex; // bit that moves
       final var moveDist = Math.abs(newIndex - oldIndex);
       final var moveLeft = newIndex > oldIndex;
-      final var blockMask = (old.length - 1) ^ sameMask ^ moveMask; // bits that move by one
-      for (var i = 0; i < old.length; i++) {
+      final var blockMask = (old.size() - 1) ^ sameMask ^ moveMask; // bits that move by one
+      for (var i = 0; i < old.size(); i++) {
         int j; // new index
         if (moveLeft) {
           j = (i & sameMask) | ((i & moveMask) << moveDist) | ((i & blockMask) >> 1);
         } else {
           j = (i & sameMask) | ((i & moveMask) >> moveDist) | ((i & blockMask) << 1);
         }
-        ret[j] = old[i];
+        ret.set(j, old.get(i));
       }
       return ret;
     }
 
-    private Entry[] removeInputForOutput(Entry[] old, int index, int oldCount) {
-      var ret = new Entry[old.length / 2];
+    private EntryColumn removeInputForOutput(EntryColumn old, int index, int oldCount) {
+      final var ret = new EntryColumn(old.size() / 2);
       var j = 0;
       final var mask = 1 << (oldCount - 1 - index);
-      for (var i = 0; i < old.length; i++) {
+      for (var i = 0; i < old.size(); i++) {
         if ((i & mask) == 0) {
-          Entry e0 = old[i];
-          Entry e1 = old[i | mask];
-          ret[j++] = (e0 == e1 ? e0 : Entry.DONT_CARE);
+          ret.set(j++, old.same(i, i | mask) ? old.get(i) : Entry.DONT_CARE);
         }
       }
       return ret;
     }
 
-    private Entry[] addInputForOutput(Entry[] old, int index, int oldCount) {
-      final var ret = new Entry[2 * old.length];
+    private EntryColumn addInputForOutput(EntryColumn old, int index, int oldCount) {
+      final var ret = new EntryColumn(2 * old.size());
       final var b = 1 << (oldCount - index); // _0001000
       final var mask = b - 1; // _0000111
-      for (var i = 0; i < old.length; i++) {
-        ret[((i & ~mask) << 1) | 0 | (i & mask)] = old[i]; // xxxx0yyy
-        ret[((i & ~mask) << 1) | b | (i & mask)] = old[i]; // xxxx1yyy
+      for (var i = 0; i < old.size(); i++) {
+        final var value = old.get(i);
+        ret.set(((i & ~mask) << 1) | 0 | (i & mask), value); // xxxx0yyy
+        ret.set(((i & ~mask) << 1) | b | (i & mask), value); // xxxx1yyy
       }
       return ret;
     }
@@ -821,6 +834,6 @@ public class TruthTable {
   }
 
   public int getVisibleRowCount() {
-    return rows.size();
+    return rows == null ? getRowCount() : rows.size();
   }
 }
@@ -13,6 +13,7 @@ import static com.cburch.logisim.circuit.Strings.S;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
 import com.cburch.logisim.analyze.model.Entry;
+import com.cburch.logisim.analyze.model.EntryColumn;
 import com.cburch.logisim.analyze.model.Expression;
 import com.cburch.logisim.analyze.model.Expressions;
 import com.cburch.logisim.analyze.model.TruthTable;
@@ -190,7 +191,8 @@ public class Analyze {
 
     final var inputCount = inputNames.size();
     final var rowCount = 1 << inputCount;
-    final var columns = new Entry[outputNames.size()][rowCount];
+    final var columns = new EntryColumn[outputNames.size()];
+    for (var j = 0; j < columns.length; j++) columns[j] = new EntryColumn(rowCount);
 
     for (var i = 0; i < rowCount; i++) {
       final var circuitState = new CircuitState(proj, circuit);
@@ -216,7 +218,7 @@ public class Analyze {
 
       if (prop.isOscillating()) {
         for (var j = 0; j < columns.length; j++) {
-          columns[j][i] = Entry.OSCILLATE_ERROR;
+          columns[j].set(i, Entry.OSCILLATE_ERROR);
         }
       } else {
         var outcol = 0;
@@ -234,7 +236,7 @@ public class Analyze {
               out = Entry.BUS_ERROR;
             else
               out = Entry.DONT_CARE;
-            columns[outcol++][i] = out;
+            columns[outcol++].set(i, out);
           }
         }
       }
@@ -0,0 +1,252 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Evaluates a {@link CompiledCircuit} for {@link #LANES} input combinations at once, one per bit of
+ * a {@code long}, used to tabulate circuits made of gates and other small combinational components.
+ *
+ * <p>Each compiled node whose inputs are few bits is turned into the truth table of each of its
+ * output bits, obtained by running the node itself for every combination of its inputs, so the
+ * results are those of the compiled circuit. The pins of the subcircuits pass each bit on
+ * independently of the others, so they get one small table per bit. Nets that do not depend on the
+ * inputs keep a constant value. The circuit cannot be sliced if a net has several drivers, if a net
+ * carries more than one bit, if a node reads too many bits, or if a net depending on the inputs may
+ * be anything else than 0 or 1.
+ *
+ * <p>Once built, a sliced circuit is immutable: each thread evaluates it on its own lanes, which
+ * {@link #createLanes()} provides.
+ */
+public final class BitSlicedCircuit {
+  public static final int LANES = 64;
+
+  // the truth table of a node output is at most 2^MAX_INPUTS bits
+  private static final int MAX_INPUTS = 8;
+
+  private static class UnsupportedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedException(String message) {
+      super(message);
+    }
+  }
+
+  private final int[] netSlot; // per net, the lane word holding it, or -1 if it is constant
+  private final Value[] netConstant;
+  private final int slotCount;
+  private final HashMap<Component, int[]> inputSlots = new HashMap<>();
+  private final HashMap<Component, int[]> pinNets = new HashMap<>();
+  // the functions of the nodes, in topological order: output slot, input slots, truth table
+  private final int[] funcOutput;
+  private final int[][] funcInputs;
+  private final long[][] funcTable;
+
+  /**
+   * Slices {@code compiled}, with the given pins as inputs. Returns null if the circuit cannot be
+   * sliced, in which case it has to be evaluated one combination at a time.
+   */
+  public static BitSlicedCircuit create(CompiledCircuit compiled, Collection<Instance> inputs) {
+    try {
+      return new BitSlicedCircuit(compiled, inputs);
+    } catch (UnsupportedException e) {
+      CompiledCircuit.logger.info("Evaluating one combination at a time: {}", e.getMessage());
+      return null;
+    } finally {
+      compiled.reset();
+    }
+  }
+
+  private BitSlicedCircuit(CompiledCircuit compiled, Collection<Instance> inputs)
+      throws UnsupportedException {
+    final var netCount = compiled.netValues.length;
+    for (var net = 0; net < netCount; net++) {
+      if (compiled.contribStart[net + 1] - compiled.contribStart[net] > 1) {
+        throw new UnsupportedException("net with several drivers");
+      }
+      if (compiled.netResetValues[net].getWidth() != 1) {
+        throw new UnsupportedException("unwired bus");
+      }
+    }
+    netSlot = new int[netCount];
+    Arrays.fill(netSlot, -1);
+    netConstant = compiled.netResetValues.clone();
+    final var inputComps = new HashSet<Component>();
+    for (final var pin : inputs) inputComps.add(pin.getComponent());
+
+    var slots = 0;
+    final var outputs = new ArrayList<Integer>();
+    final var inputLists = new ArrayList<int[]>();
+    final var tables = new ArrayList<long[]>();
+    for (final var node : compiled.nodes) {
+      if (node.kind == CompiledCircuit.INSTANCE && inputComps.contains(node.comp)) {
+        final var nets = node.nets[0];
+        final var pinSlots = new int[nets.length];
+        for (var b = 0; b < nets.length; b++) {
+          pinSlots[b] = slots;
+          netSlot[nets[b]] = slots++;
+        }
+        inputSlots.put(node.comp, pinSlots);
+        continue;
+      }
+      if (node.kind == CompiledCircuit.INSTANCE && compiled.pins.containsKey(node.comp)) {
+        pinNets.put(node.comp, node.nets[0]);
+      }
+      final var bitwise = node.kind != CompiledCircuit.INSTANCE;
+      final var width = node.nets[0].length;
+      for (var bit = 0; bit < (bitwise ? width : 1); bit++) {
+        final var vars = new ArrayList<Integer>();
+        for (var port = 0; port < node.nets.length; port++) {
+          if (!node.reads[port]) continue;
+          for (var b = 0; b < node.nets[port].length; b++) {
+            final var net = node.nets[port][b];
+            if (netSlot[net] >= 0 && (!bitwise || b == bit) && !vars.contains(net)) vars.add(net);
+          }
+        }
+        if (vars.size() > MAX_INPUTS) {
+          throw new UnsupportedException(node.comp.getFactory().getName() + " has too many inputs");
+        }
+        final var k = vars.size();
+        final var driven = new ArrayList<int[]>(); // port and bit of each output
+        for (var port = 0; port < node.nets.length; port++) {
+          if (!node.drives[port]) continue;
+          for (var b = 0; b < node.nets[port].length; b++) {
+            if (!bitwise || b == bit) driven.add(new int[] {port, b});
+          }
+        }
+        if (driven.isEmpty()) continue;
+
+        final var combos = 1 << k;
+        final var results = new Value[driven.size()][combos];
+        for (var combo = 0; combo < combos; combo++) {
+          for (var port = 0; port < node.nets.length; port++) {
+            if (!node.reads[port]) continue;
+            for (final var net : node.nets[port]) {
+              final var v = vars.indexOf(net);
+              if (v >= 0) compiled.netValues[net] = ((combo >> v) & 1) != 0 ? Value.TRUE : Value.FALSE;
+              else compiled.netValues[net] = netConstant[net];
+            }
+          }
+          // as after a reset, see CompiledCircuit.propagate
+          node.data = null;
+          Arrays.fill(node.outputs, null);
+          node.evaluate();
+          for (var d = 0; d < driven.size(); d++) {
+            final var port = driven.get(d)[0];
+            final var out = node.outputs[port];
+            if (out == null || out == Value.NIL) continue; // not driven
+            if (out.getWidth() != node.nets[port].length) {
+              throw new UnsupportedException(node.comp.getFactory().getName() + " output width");
+            }
+            results[d][combo] = out.get(driven.get(d)[1]);
+          }
+        }
+
+        final var inputSlotList = new int[k];
+        for (var v = 0; v < k; v++) inputSlotList[v] = netSlot[vars.get(v)];
+        for (var d = 0; d < driven.size(); d++) {
+          final var net = node.nets[driven.get(d)[0]][driven.get(d)[1]];
+          final var table = new long[Math.max(1, combos / 64)];
+          var defined = true;
+          var constant = true;
+          for (var combo = 0; combo < combos; combo++) {
+            final var val = results[d][combo];
+            if (val == Value.TRUE) table[combo >> 6] |= 1L << (combo & 63);
+            else if (val != Value.FALSE) defined = false;
+            if (val != results[d][0]) constant = false;
+          }
+          if (constant) {
+            // an undriven net keeps its reset value, see CompiledCircuit.updateNet
+            if (results[d][0] != null) netConstant[net] = results[d][0];
+          } else if (defined) {
+            netSlot[net] = slots++;
+            outputs.add(netSlot[net]);
+            inputLists.add(inputSlotList);
+            tables.add(table);
+          } else {
+            throw new UnsupportedException(node.comp.getFactory().getName() + " output undefined");
+          }
+        }
+      }
+    }
+    slotCount = slots;
+    funcOutput = new int[outputs.size()];
+    for (var f = 0; f < funcOutput.length; f++) funcOutput[f] = outputs.get(f);
+    funcInputs = inputLists.toArray(new int[0][]);
+    funcTable = tables.toArray(new long[0][]);
+  }
+
+  /** Returns the lanes holding the nets of one evaluation. */
+  public long[] createLanes() {
+    return new long[slotCount];
+  }
+
+  /** Sets the lanes of bit {@code bit} of an input pin. */
+  public void setValue(long[] lanes, Instance pin, int bit, long value) {
+    lanes[inputSlots.get(pin.getComponent())[bit]] = value;
+  }
+
+  /** Computes the lanes of all nets from those of the input pins. */
+  public void propagate(long[] lanes) {
+    for (var f = 0; f < funcOutput.length; f++) {
+      final var table = funcTable[f];
+      lanes[funcOutput[f]] = apply(table, 0, table.length, funcInputs[f], funcInputs[f].length, lanes);
+    }
+  }
+
+  /** Equivalent of {@link CompiledCircuit#getValue} in lane {@code lane}. */
+  public Value getValue(long[] lanes, Instance pin, int lane) {
+    final var nets = pinNets.get(pin.getComponent());
+    final var bits = new Value[nets.length];
+    var known = 0L;
+    var isKnown = nets.length <= 64;
+    for (var b = 0; b < nets.length; b++) {
+      final var slot = netSlot[nets[b]];
+      if (slot < 0) {
+        bits[b] = netConstant[nets[b]];
+        isKnown = false;
+      } else {
+        bits[b] = ((lanes[slot] >>> lane) & 1) != 0 ? Value.TRUE : Value.FALSE;
+        known |= ((lanes[slot] >>> lane) & 1) << b;
+      }
+    }
+    if (isKnown) return Value.createKnown(nets.length, known);
+    return nets.length == 1 ? bits[0] : Value.create(bits);
+  }
+
+  /** Applies the truth table over the first {@code k} inputs, split in halves on the last one. */
+  private static long apply(long[] table, int from, int size, int[] inputs, int k, long[] lanes) {
+    if (size == 1) return apply(table[from], inputs, k, lanes);
+    final var half = size / 2;
+    final var x = lanes[inputs[k - 1]];
+    final var lo = apply(table, from, half, inputs, k - 1, lanes);
+    final var hi = apply(table, from + half, half, inputs, k - 1, lanes);
+    return (lo & ~x) | (hi & x);
+  }
+
+  private static long apply(long table, int[] inputs, int k, long[] lanes) {
+    if (k == 0) return (table & 1) == 0 ? 0L : -1L;
+    final var half = 1 << (k - 1);
+    final var mask = half == 64 ? -1L : (1L << half) - 1;
+    final var lo = table & mask;
+    final var hi = (table >>> half) & mask;
+    if (lo == hi) return apply(lo, inputs, k - 1, lanes);
+    final var x = lanes[inputs[k - 1]];
+    return (apply(lo, inputs, k - 1, lanes) & ~x) | (apply(hi, inputs, k - 1, lanes) & x);
+  }
+}
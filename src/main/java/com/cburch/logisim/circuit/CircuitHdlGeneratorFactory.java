@@ -15,14 +15,20 @@ import com.cburch.logisim.fpga.data.MappableResourcesContainer;
 import com.cburch.logisim.fpga.designrulecheck.CorrectLabel;
 import com.cburch.logisim.fpga.designrulecheck.Netlist;
 import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
+import com.cburch.logisim.fpga.file.FileWriter;
+import com.cburch.logisim.fpga.file.HdlCache;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.AbstractHdlGeneratorFactory;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
+import com.cburch.logisim.fpga.hdlgenerator.HdlGeneratorFactory;
 import com.cburch.logisim.fpga.hdlgenerator.TickComponentHdlGeneratorFactory;
+import com.cburch.logisim.generated.BuildInfo;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.std.wiring.ClockHdlGeneratorFactory;
 import com.cburch.logisim.util.LineBuffer;
+import com.cburch.logisim.util.ParallelTasks;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -31,6 +37,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
 
@@ -38,6 +45,64 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
     INPUT, OUTPUT, INOUT
   }
   
+  /* An HDL file still to be written */
+  private record HdlFile(
+      HdlGeneratorFactory worker, String path, AttributeSet attrs, String componentName) {
+    boolean write(Netlist netlist, List<String> hierarchy, HdlCache cache) {
+      final var files = new ArrayList<File>();
+      if (Hdl.isVhdl()) files.add(FileWriter.getHdlFile(path, componentName, true));
+      files.add(FileWriter.getHdlFile(path, componentName, false));
+      final var key = cache == null ? null : getKey(netlist, hierarchy, cache);
+      if (key != null && cache.reuse(key, files)) return true;
+      if (!Hdl.writeEntity(path, worker.getEntity(netlist, attrs, componentName), componentName)
+          || !Hdl.writeArchitecture(
+              path, worker.getArchitecture(netlist, attrs, componentName), componentName)) {
+        return false;
+      }
+      if (key != null) cache.put(key, files);
+      return true;
+    }
+
+    /* A hash of everything the contents of the file depend on */
+    private String getKey(Netlist netlist, List<String> hierarchy, HdlCache cache) {
+      final var parts = new ArrayList<String>();
+      parts.add(BuildInfo.version.toString());
+      parts.add(AppPreferences.HdlType.get());
+      parts.add(AppPreferences.VhdlKeywordsUpperCase.get().toString());
+      parts.add(netlist.projName());
+      parts.add(worker.getClass().getName());
+      parts.add(componentName);
+      parts.add(HdlCache.describe(attrs));
+      parts.add(Integer.toString(netlist.numberOfClockTrees()));
+      parts.add(Boolean.toString(netlist.requiresGlobalClockConnection()));
+      if (worker instanceof CircuitHdlGeneratorFactory circuitWorker) {
+        parts.add(cache.getCircuitHash(circuitWorker.myCircuit));
+        parts.add(String.join("/", hierarchy));
+        // the numbering of the clock trees and of the bubbles follows the order of the netlist
+        for (final var net : netlist.getAllNets()) {
+          for (var bit = 0; bit < net.getBitWidth(); bit++) {
+            parts.add(Integer.toString(netlist.getClockSourceId(hierarchy, net, (byte) bit)));
+          }
+        }
+        final var components = new ArrayList<netlistComponent>(netlist.getNormalComponents());
+        components.addAll(netlist.getSubCircuits());
+        for (final var comp : components) {
+          parts.add(
+              comp.getComponent().getLocation()
+                  + " "
+                  + comp.getLocalBubbleInputStartId()
+                  + " "
+                  + comp.getLocalBubbleOutputStartId()
+                  + " "
+                  + comp.getLocalBubbleInOutStartId()
+                  + " "
+                  + netlist.getClockSourceId(comp.getComponent()));
+        }
+      }
+      return HdlCache.getKey(parts);
+    }
+  }
+
   private final Circuit myCircuit;
 
   public CircuitHdlGeneratorFactory(Circuit source) {
@@ -92,16 +157,52 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
     return generateAllHDLDescriptions(handledComponents, workingDir, hierarchy, false);
   }
 
+  /**
+   * Writes the HDL files of this circuit and of everything used below it. The hierarchy is walked
+   * first to decide which files are needed; the files are then generated concurrently, the ones of
+   * a single circuit (which share its netlist) one after the other.
+   */
   public boolean generateAllHDLDescriptions(
       Set<String> handledComponents,
       String workingDir,
       List<String> hierarchy,
       boolean gatedInstance) {
-    if (myCircuit == null) {
+    return generateAllHDLDescriptions(
+        handledComponents, workingDir, hierarchy, gatedInstance, null);
+  }
+
+  /**
+   * Like {@link #generateAllHDLDescriptions(Set, String, List, boolean)}, but leaves alone the
+   * files which the cache knows to be up to date.
+   */
+  public boolean generateAllHDLDescriptions(
+      Set<String> handledComponents,
+      String workingDir,
+      List<String> hierarchy,
+      boolean gatedInstance,
+      HdlCache cache) {
+    final var writers = new ArrayList<Callable<Boolean>>();
+    if (!collectHdlWriters(
+        handledComponents,
+        workingDir,
+        hierarchy == null ? new ArrayList<>() : hierarchy,
+        gatedInstance,
+        cache,
+        writers)) {
       return false;
     }
-    if (hierarchy == null) {
-      hierarchy = new ArrayList<>();
+    return ParallelTasks.runAll("HdlGenerator", writers);
+  }
+
+  private boolean collectHdlWriters(
+      Set<String> handledComponents,
+      String workingDir,
+      List<String> hierarchy,
+      boolean gatedInstance,
+      HdlCache cache,
+      List<Callable<Boolean>> writers) {
+    if (myCircuit == null) {
+      return false;
     }
     final var myNetList = myCircuit.getNetList();
     if (myNetList == null) {
@@ -111,7 +212,7 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
     if (!workPath.endsWith(File.separator)) {
       workPath += File.separator;
     }
-    myNetList.setCurrentHierarchyLevel(hierarchy);
+    final var files = new ArrayList<HdlFile>();
     /* First we handle the normal components */
     for (final var thisComponent : myNetList.getNormalComponents()) {
       final var componentName =
@@ -131,24 +232,12 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
           return false;
         }
         if (!worker.isOnlyInlined()) {
-          if (!Hdl.writeEntity(
-              workPath + worker.getRelativeDirectory(),
-              worker.getEntity(
-                  myNetList,
-                  thisComponent.getComponent().getAttributeSet(),
-                  componentName),
-              componentName)) {
-            return false;
-          }
-          if (!Hdl.writeArchitecture(
-              workPath + worker.getRelativeDirectory(),
-              worker.getArchitecture(
-                  myNetList,
+          files.add(
+              new HdlFile(
+                  worker,
+                  workPath + worker.getRelativeDirectory(),
                   thisComponent.getComponent().getAttributeSet(),
-                  componentName),
-              componentName)) {
-            return false;
-          }
+                  componentName));
         }
         handledComponents.add(componentName);
       }
@@ -171,8 +260,13 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
       hierarchy.add(
           CorrectLabel.getCorrectLabel(
               thisCircuit.getComponent().getAttributeSet().getValue(StdAttr.LABEL)));
-      if (!worker.generateAllHDLDescriptions(
-          handledComponents, workingDir, hierarchy, thisCircuit.isGatedInstance())) {
+      if (!worker.collectHdlWriters(
+          handledComponents,
+          workingDir,
+          hierarchy,
+          thisCircuit.isGatedInstance(),
+          cache,
+          writers)) {
         return false;
       }
       hierarchy.remove(hierarchy.size() - 1);
@@ -181,21 +275,24 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
     var componentName = CorrectLabel.getCorrectLabel(myCircuit.getName());
     if (gatedInstance) componentName = componentName.concat("_gated");
     if (!handledComponents.contains(componentName)) {
-      if (!Hdl.writeEntity(
-          workPath + getRelativeDirectory(),
-          getEntity(myNetList, null, componentName),
-          componentName)) {
-        return false;
-      }
-
-      if (!Hdl.writeArchitecture(
-          workPath + getRelativeDirectory(),
-          getArchitecture(myNetList, null, componentName),
-          componentName)) {
-        return false;
-      }
+      files.add(new HdlFile(this, workPath + getRelativeDirectory(), null, componentName));
     }
     handledComponents.add(componentName);
+    if (!files.isEmpty()) {
+      // the generators look at the hierarchy level of the netlist, which is shared by all visits
+      // of this circuit, so it is set for each of them while holding the netlist
+      final var myHierarchy = new ArrayList<>(hierarchy);
+      writers.add(
+          () -> {
+            synchronized (myNetList) {
+              myNetList.setCurrentHierarchyLevel(myHierarchy);
+              for (final var file : files) {
+                if (!file.write(myNetList, myHierarchy, cache)) return false;
+              }
+              return true;
+            }
+          });
+    }
     return true;
   }
 
@@ -25,13 +25,12 @@ import com.cburch.logisim.std.memory.Ram;
 import com.cburch.logisim.std.memory.RamState;
 import com.cburch.logisim.std.wiring.Clock;
 import com.cburch.logisim.std.wiring.Pin;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CircuitState implements InstanceData {
 
@@ -90,10 +89,9 @@ public class CircuitState implements InstanceData {
           }
         }
         componentData.clear();
-        values.clear();
+        pointValues = new PointValues(pointValues.index, NO_VALUES, NO_CAUSES);
         dirtyComponents.clear();
         dirtyPoints.clear();
-        causes.clear();
       } else if (action == CircuitEvent.ACTION_INVALIDATE) {
         final var comp = (Component) event.getData();
         markComponentAsDirty(comp);
@@ -139,17 +137,37 @@ public class CircuitState implements InstanceData {
 
   private CircuitWires.State wireData = null;
   private final HashMap<Component, Object> componentData = new HashMap<>();
-  private final Map<Location, Value> values = new HashMap<>();
-  private CopyOnWriteArraySet<Component> dirtyComponents = new CopyOnWriteArraySet<>();
-  private final CopyOnWriteArraySet<Location> dirtyPoints = new CopyOnWriteArraySet<>();
-  final HashMap<Location, SetData> causes = new HashMap<>();
-
-  private static int lastId = 0;
-  private final int id = lastId++;
+  private volatile PointValues pointValues;
+  private final DirtySet<Component> dirtyComponents = new DirtySet<>();
+  private final DirtySet<Location> dirtyPoints = new DirtySet<>();
+
+  private static final Value[] NO_VALUES = new Value[0];
+  private static final SetData[] NO_CAUSES = new SetData[0];
+  // states are also created by the workers evaluating table rows, all at once
+  private static final AtomicInteger lastId = new AtomicInteger();
+  private final int id = lastId.getAndIncrement();
+
+  /**
+   * The values and causes at each point, numbered by a {@link LocationIndex}. They are replaced all
+   * at once when renumbered, so that the other threads always read a number and an array that go
+   * together.
+   */
+  private static final class PointValues {
+    final LocationIndex index;
+    Value[] values;
+    SetData[] causes;
+
+    PointValues(LocationIndex index, Value[] values, SetData[] causes) {
+      this.index = index;
+      this.values = values;
+      this.causes = causes;
+    }
+  }
 
   public CircuitState(Project proj, Circuit circuit) {
     this.proj = proj;
     this.circuit = circuit;
+    this.pointValues = new PointValues(circuit.wires.getLocations(), NO_VALUES, NO_CAUSES);
     circuit.addCircuitListener(myCircuitListener);
   }
 
@@ -167,7 +185,7 @@ public class CircuitState implements InstanceData {
   }
 
   public boolean containsKey(Location pt) {
-    return values.containsKey(pt);
+    return getValueByWire(pt) != null;
   }
 
   private void copyFrom(CircuitState src, Propagator base) {
@@ -194,15 +212,15 @@ public class CircuitState implements InstanceData {
         this.componentData.put(key, newValue);
       }
     }
-    for (final var key : src.causes.keySet()) {
-      final var oldValue = src.causes.get(key);
-      final var newValue = oldValue.cloneFor(this);
-      this.causes.put(key, newValue);
+    final var srcPoints = src.pointValues;
+    final var causes = new SetData[srcPoints.causes.length];
+    for (var i = 0; i < causes.length; i++) {
+      if (srcPoints.causes[i] != null) causes[i] = srcPoints.causes[i].cloneFor(this);
     }
     if (src.wireData != null) {
       this.wireData = (CircuitWires.State) src.wireData.clone();
     }
-    this.values.putAll(src.values);
+    this.pointValues = new PointValues(srcPoints.index, srcPoints.values.clone(), causes);
     this.dirtyComponents.addAll(src.dirtyComponents);
     this.dirtyPoints.addAll(src.dirtyPoints);
   }
@@ -218,10 +236,65 @@ public class CircuitState implements InstanceData {
     return circuit;
   }
 
-  Value getComponentOutputAt(Location p) {
+  Value getComponentOutputAt(int index) {
     // for CircuitWires - to get values, ignoring wires' contributions
-    final var causeList = causes.get(p);
-    return Propagator.computeValue(causeList);
+    return Propagator.computeValue(getCauses(index));
+  }
+
+  /**
+   * Returns the number of {@code p} in the arrays of the state, numbering it if needed. The number
+   * stays valid until the next propagation through the wires, which may renumber the points.
+   */
+  int getIndex(Location p) {
+    return pointValues.index.add(p);
+  }
+
+  /** Returns the head of the list of causes of the value at point {@code index}. */
+  SetData getCauses(int index) {
+    final var causes = pointValues.causes;
+    return index < causes.length ? causes[index] : null;
+  }
+
+  void setCauses(int index, SetData head) {
+    final var data = pointValues;
+    if (index >= data.causes.length) {
+      if (head == null) return;
+      data.causes = Arrays.copyOf(data.causes, newLength(data, index));
+    }
+    data.causes[index] = head;
+  }
+
+  private static int newLength(PointValues data, int index) {
+    // room for all points numbered so far, with some slack for those still to come
+    return Math.max(index + 1, data.index.size() + 8);
+  }
+
+  /**
+   * Renumbers the values and causes of the points after {@code index}, the numbering of a newer
+   * bundle map. The values of the points it leaves out are dropped, as these are gone from the
+   * circuit; their causes are kept until the Propagator removes them.
+   */
+  void setLocations(LocationIndex index) {
+    final var old = pointValues;
+    if (old.index == index) return;
+    final var ret = new PointValues(index, NO_VALUES, NO_CAUSES);
+    final var oldLength = Math.max(old.values.length, old.causes.length);
+    for (var i = 0; i < oldLength; i++) {
+      final var value = i < old.values.length ? old.values[i] : null;
+      final var cause = i < old.causes.length ? old.causes[i] : null;
+      if (value == null && cause == null) continue;
+      final var loc = old.index.getLocation(i);
+      final var j = cause != null ? index.add(loc) : index.get(loc);
+      if (j < 0) continue;
+      if (j >= ret.values.length) {
+        final var length = newLength(ret, j);
+        ret.values = Arrays.copyOf(ret.values, length);
+        ret.causes = Arrays.copyOf(ret.causes, length);
+      }
+      ret.values[j] = value;
+      ret.causes[j] = cause;
+    }
+    pointValues = ret;
   }
 
   public Object getData(Component comp) {
@@ -269,7 +342,7 @@ public class CircuitState implements InstanceData {
   }
 
   public Value getValue(Location pt) {
-    final var ret = values.get(pt);
+    final var ret = getValueByWire(pt);
     if (ret != null) return ret;
 
     final var wid = circuit.getWidth(pt);
@@ -277,7 +350,9 @@ public class CircuitState implements InstanceData {
   }
 
   Value getValueByWire(Location p) {
-    return values.get(p);
+    final var data = pointValues;
+    final var i = data.index.get(p);
+    return i >= 0 && i < data.values.length ? data.values[i] : null;
   }
 
   CircuitWires.State getWireData() {
@@ -299,13 +374,7 @@ public class CircuitState implements InstanceData {
   }
 
   public void markComponentAsDirty(Component comp) {
-    try {
-      dirtyComponents.add(comp);
-    } catch (RuntimeException e) {
-      final var set = new CopyOnWriteArraySet<Component>();
-      set.add(comp);
-      dirtyComponents = set;
-    }
+    dirtyComponents.add(comp);
   }
 
   public void markComponentsDirty(Collection<Component> comps) {
@@ -317,35 +386,8 @@ public class CircuitState implements InstanceData {
   }
 
   void processDirtyComponents() {
-    if (!dirtyComponents.isEmpty()) {
-      // This seeming wasted copy is to avoid ConcurrentModifications
-      // if we used an iterator instead.
-      Object[] toProcess;
-      RuntimeException firstException = null;
-      for (var tries = 4; true; tries--) {
-        try {
-          toProcess = dirtyComponents.toArray();
-          break;
-        } catch (RuntimeException e) {
-          if (firstException == null) firstException = e;
-          if (tries == 0) {
-            toProcess = new Object[0];
-            dirtyComponents = new CopyOnWriteArraySet<>();
-            throw firstException;
-          }
-        }
-      }
-      dirtyComponents.clear();
-      for (final var compObj : toProcess) {
-        if (compObj instanceof Component comp) {
-          comp.propagate(this);
-          if (comp.getFactory() instanceof Pin && parentState != null) {
-            // should be propagated in superstate
-            parentComp.propagate(parentState);
-          }
-        }
-      }
-    }
+    final var dirty = takeDirtyComponents();
+    for (var i = 0; dirty[i] != null; i++) propagateComponent((Component) dirty[i]);
 
     final var subs = new CircuitState[subStates.size()];
     for (final var substate : subStates.toArray(subs)) {
@@ -353,25 +395,31 @@ public class CircuitState implements InstanceData {
     }
   }
 
-  void processDirtyPoints() {
-    final var dirty = new HashSet<>(dirtyPoints);
-    dirtyPoints.clear();
-    if (circuit.wires.isMapVoided()) {
-      for (var i = 3; i >= 0; i--) {
-        try {
-          dirty.addAll(circuit.wires.points.getSplitLocations());
-          break;
-        } catch (ConcurrentModificationException e) {
-          // try again...
-          try {
-            Thread.sleep(1);
-          } catch (InterruptedException ignored) {
-          }
-          if (i == 0) e.printStackTrace();
-        }
-      }
+  void propagateComponent(Component comp) {
+    comp.propagate(this);
+    if (comp.getFactory() instanceof Pin && parentState != null) {
+      // should be propagated in superstate
+      parentComp.propagate(parentState);
     }
-    if (!dirty.isEmpty()) {
+  }
+
+  /**
+   * Returns the dirty components of this state followed by a null, and marks them as clean. The
+   * array is only valid until the next call.
+   */
+  Object[] takeDirtyComponents() {
+    return dirtyComponents.drain();
+  }
+
+  int getDirtyComponentCount() {
+    return dirtyComponents.size();
+  }
+
+  void processDirtyPoints() {
+    final var dirty = new HashSet<Location>();
+    dirtyPoints.drainTo(dirty);
+    if (circuit.wires.isMapVoided()) circuit.wires.addAllPoints(dirty);
+    if (!dirty.isEmpty() || circuit.wires.isOutdated(wireData)) {
       circuit.wires.propagate(this, dirty);
     }
 
@@ -383,11 +431,16 @@ public class CircuitState implements InstanceData {
   }
 
   void reset() {
+    reset(false);
+  }
+
+  /** Resets the state, dropping the contents of all memories when {@code clearMemories}. */
+  void reset(boolean clearMemories) {
     temporaryClock = null;
     wireData = null;
     for (final var comp : componentData.keySet()) {
       if (comp.getFactory() instanceof Ram ram) {
-        final var remove = ram.reset(this, Instance.getInstanceFor(comp));
+        final var remove = clearMemories || ram.reset(this, Instance.getInstanceFor(comp));
         if (remove) componentData.put(comp, null);
       } else if (comp.getFactory() instanceof Buzzer) {
         Buzzer.stopBuzzerSound(comp, this);
@@ -399,14 +452,15 @@ public class CircuitState implements InstanceData {
         componentData.put(comp, null);
       }
     }
-    values.clear();
+    final var data = pointValues;
+    Arrays.fill(data.values, null);
     dirtyComponents.clear();
     dirtyPoints.clear();
-    causes.clear();
+    Arrays.fill(data.causes, null);
     markAllComponentsDirty();
 
     for (CircuitState sub : subStates) {
-      sub.reset();
+      sub.reset(clearMemories);
     }
   }
 
@@ -446,13 +500,25 @@ public class CircuitState implements InstanceData {
   }
 
   void setValueByWire(Location p, Value v) {
-    // for CircuitWires - to set value at point
+    final var locations = pointValues.index;
+    final var index = v == Value.NIL ? locations.get(p) : locations.add(p);
+    if (index >= 0) setValueByWire(index, p, v);
+  }
+
+  /** Sets the value at point {@code p}, numbered {@code index}, for CircuitWires. */
+  void setValueByWire(int index, Location p, Value v) {
+    final var data = pointValues;
     boolean changed;
     if (v == Value.NIL) {
-      final var old = values.remove(p);
+      final var old = index < data.values.length ? data.values[index] : null;
+      if (old != null) data.values[index] = null;
       changed = (old != null && old != Value.NIL);
     } else {
-      final var old = values.put(p, v);
+      if (index >= data.values.length) {
+        data.values = Arrays.copyOf(data.values, newLength(data, index));
+      }
+      final var old = data.values[index];
+      data.values[index] = v;
       changed = !v.equals(old);
     }
     if (changed) {
@@ -14,6 +14,7 @@ import com.cburch.logisim.comp.ComponentDrawContext;
 import com.cburch.logisim.comp.EndData;
 import com.cburch.logisim.data.AttributeEvent;
 import com.cburch.logisim.data.AttributeListener;
+import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Bounds;
 import com.cburch.logisim.data.Location;
@@ -27,12 +28,15 @@ import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.IteratorUtil;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import javax.swing.SwingUtilities;
@@ -45,6 +49,15 @@ class CircuitWires {
     final HashMap<Location, WireBundle> pointBundles = new HashMap<>();
     final HashSet<WireBundle> bundles = new HashSet<>();
     boolean isValid = true;
+    int threadCount = 0; // threads are numbered from 0 to threadCount - 1
+    int liveThreadCount = 0; // how many of these numbers are still in use
+    // the numbering of the points, shared with the maps rebuilt from this one
+    LocationIndex locations = new LocationIndex();
+    // When the map was built from an older one after some edits: the older map, the points
+    // whose bundles were rebuilt, and whether the other bundles and threads were kept.
+    BundleMap base = null;
+    Set<Location> rebuiltPoints = null;
+    boolean keepsThreads = false;
     // NOTE: It would make things more efficient if we also had
     // a set of just the first bundle in each tree.
     HashSet<WidthIncompatibilityData> incompatibilityData = null;
@@ -106,16 +119,22 @@ class CircuitWires {
 
   static class State {
     final BundleMap bundleMap;
-    final HashMap<WireThread, Value> thrValues = new HashMap<>();
+    final Value[] thrValues; // indexed by WireThread.index
 
     State(BundleMap bundleMap) {
       this.bundleMap = bundleMap;
+      this.thrValues = new Value[bundleMap.threadCount];
+    }
+
+    State(BundleMap bundleMap, State base) {
+      this.bundleMap = bundleMap;
+      this.thrValues = Arrays.copyOf(base.thrValues, bundleMap.threadCount);
     }
 
     @Override
     public Object clone() {
       final var ret = new State(this.bundleMap);
-      ret.thrValues.putAll(this.thrValues);
+      System.arraycopy(this.thrValues, 0, ret.thrValues, 0, thrValues.length);
       return ret;
     }
   }
@@ -140,7 +159,9 @@ class CircuitWires {
     public void attributeValueChanged(AttributeEvent e) {
       final var attr = e.getAttribute();
       if (attr == StdAttr.LABEL || attr == PullResistor.ATTR_PULL_TYPE) {
-        voidBundleMap();
+        final var comp = findComponent(e.getSource());
+        if (comp == null) voidBundleMap();
+        else voidBundleMap(comp);
       }
     }
   }
@@ -162,6 +183,9 @@ class CircuitWires {
 
   static final Logger logger = LoggerFactory.getLogger(CircuitWires.class);
 
+  // how many of the previous bundle maps the current one remembers
+  private static final int MAX_BASE_MAPS = 4;
+
   // user-given data
   private final HashSet<Wire> wires = new HashSet<>();
   private final HashSet<Splitter> splitters = new HashSet<>();
@@ -178,18 +202,23 @@ class CircuitWires {
   // factory
 
   final CircuitPoints points = new CircuitPoints();
+  // the numbering of the points in the current bundle map, or before there is any
+  private volatile LocationIndex locations = new LocationIndex();
   // derived data
   private Bounds bounds = Bounds.EMPTY_BOUNDS;
 
-  private BundleMap masterBundleMap = null;
+  private volatile BundleMap masterBundleMap = null;
+  // the last map built, and the points touched by the edits made since then
+  private BundleMap lastBundleMap = null;
+  private final HashSet<Location> voidedPoints = new HashSet<>();
 
   CircuitWires() {}
 
   //
   // action methods
   //
-  // NOTE: this could be made much more efficient in most cases to
-  // avoid voiding the bundle map.
+  // NOTE: the edits void the bundle map, but remember where they took place,
+  // so that getBundleMap can rebuild only the bundles around these points.
   /*synchronized*/ boolean add(Component comp) {
     var added = true;
     if (comp instanceof Wire wire) {
@@ -208,14 +237,14 @@ class CircuitWires {
     }
     if (added) {
       points.add(comp);
-      voidBundleMap();
+      voidBundleMap(comp);
     }
     return added;
   }
 
   /*synchronized*/ void add(Component comp, EndData end) {
     points.add(comp, end);
-    voidBundleMap();
+    voidBundleMap(end.getLocation());
   }
 
   private boolean addWire(Wire w) {
@@ -229,11 +258,16 @@ class CircuitWires {
   }
 
   // To be called by getBundleMap only
-  private void computeBundleMap(BundleMap ret) {
+  private void computeBundleMap(
+      BundleMap ret,
+      Collection<Wire> wires,
+      Collection<Component> tunnels,
+      Collection<Component> pulls,
+      Collection<Splitter> splitters) {
     // create bundles corresponding to wires and tunnels
-    connectWires(ret);
-    connectTunnels(ret);
-    connectPullResistors(ret);
+    connectWires(ret, wires);
+    connectTunnels(ret, tunnels);
+    connectPullResistors(ret, pulls);
 
     // merge any WireBundle objects united by previous steps
     for (final var it = ret.getBundles().iterator(); it.hasNext(); ) {
@@ -319,14 +353,22 @@ class CircuitWires {
       if (wireBundle.isValid() && wireBundle.threads != null) {
         for (int i = 0; i < wireBundle.threads.length; i++) {
           final var thr = wireBundle.threads[i].find();
+          if (thr.index < 0) {
+            thr.index = ret.threadCount++;
+            ret.liveThreadCount++;
+          }
           wireBundle.threads[i] = thr;
           thr.getBundles().add(new ThreadBundle(i, wireBundle));
         }
       }
     }
 
-    // All threads are sewn together! Compute the exception set before
-    // leaving
+    for (final var wireBundle : ret.getBundles()) wireBundle.numberPoints(ret.locations);
+  }
+
+  // All threads are sewn together! Compute the exception set before
+  // handing out the map
+  private void computeWidthIncompatibilityData(BundleMap ret) {
     final var exceptions = points.getWidthIncompatibilityData();
     if (CollectionUtil.isNotEmpty(exceptions)) {
       for (final var wid : exceptions) {
@@ -339,7 +381,125 @@ class CircuitWires {
     }
   }
 
-  private void connectPullResistors(BundleMap ret) {
+  /**
+   * Builds the bundle map from {@code old} after some edits, recomputing only the bundles around
+   * the points voided since then: those reachable from these points through the wires, tunnels
+   * and splitters of the circuit, or through the threads of the old map. The other bundles and
+   * their threads are shared with the old map, which is left untouched, and the new threads are
+   * numbered after the old ones. Returns null when so much of the circuit is affected that
+   * computing the map anew is the better choice.
+   */
+  private BundleMap rebuildBundleMap(BundleMap old) {
+    if (!old.isValid()) return null;
+    // number the points anew once most numbers belong to points that are gone
+    if (old.locations.size() > 2 * points.getSplitLocations().size() + 64) return null;
+    final var limit = old.getBundlePoints().size() / 2;
+    final var region = new HashSet<Location>(voidedPoints);
+    final var queue = new ArrayDeque<Location>(voidedPoints);
+    final var oldBundles = new HashSet<WireBundle>();
+    final var regionWires = new HashSet<Wire>();
+    final var regionTunnels = new HashSet<Component>();
+    final var regionPulls = new HashSet<Component>();
+    final var regionSplitters = new HashSet<Splitter>();
+    HashMap<String, List<Component>> tunnelSets = null;
+    while (!queue.isEmpty()) {
+      if (region.size() > limit) return null;
+      final var p = queue.poll();
+      final var bundle = old.getBundleAt(p);
+      if (bundle != null && oldBundles.add(bundle)) {
+        addToRegion(bundle.points, region, queue);
+        if (bundle.threads != null) {
+          for (final var thr : bundle.threads) {
+            for (final var tb : thr.getBundles()) addToRegion(tb.b.points, region, queue);
+          }
+        }
+      }
+      for (final var comp : points.getComponents(p)) {
+        if (comp instanceof Wire wire) {
+          if (regionWires.add(wire)) addToRegion(List.of(wire.e0, wire.e1), region, queue);
+        } else if (comp instanceof Splitter spl) {
+          if (regionSplitters.add(spl)) {
+            for (final var end : spl.getEnds()) {
+              addToRegion(List.of(end.getLocation()), region, queue);
+            }
+          }
+        } else if (comp.getFactory() instanceof Tunnel) {
+          if (!regionTunnels.add(comp)) continue;
+          if (tunnelSets == null) {
+            tunnelSets = new HashMap<>();
+            for (final var tunnel : tunnels) {
+              final var label = tunnel.getAttributeSet().getValue(StdAttr.LABEL).trim();
+              if (!label.equals("")) {
+                tunnelSets.computeIfAbsent(label, k -> new ArrayList<>(3)).add(tunnel);
+              }
+            }
+          }
+          final var label = comp.getAttributeSet().getValue(StdAttr.LABEL).trim();
+          for (final var tunnel : tunnelSets.getOrDefault(label, List.of())) {
+            if (regionTunnels.add(tunnel)) {
+              addToRegion(List.of(tunnel.getLocation()), region, queue);
+            }
+          }
+        } else if (comp.getFactory() instanceof PullResistor) {
+          regionPulls.add(comp);
+        }
+      }
+    }
+
+    // rebuild the bundles of the region on their own
+    final var rebuilt = new BundleMap();
+    rebuilt.threadCount = old.threadCount;
+    rebuilt.locations = old.locations;
+    computeBundleMap(rebuilt, regionWires, regionTunnels, regionPulls, regionSplitters);
+
+    // and put them in place of the old ones
+    final var ret = new BundleMap();
+    ret.locations = old.locations;
+    ret.pointBundles.putAll(old.pointBundles);
+    ret.pointBundles.keySet().removeAll(region);
+    ret.pointBundles.putAll(rebuilt.pointBundles);
+    ret.bundles.addAll(old.bundles);
+    ret.bundles.removeAll(oldBundles);
+    ret.bundles.addAll(rebuilt.bundles);
+    final var oldThreads = new HashSet<WireThread>();
+    for (final var bundle : oldBundles) {
+      if (bundle.isValid() && bundle.threads != null) {
+        oldThreads.addAll(Arrays.asList(bundle.threads));
+      }
+    }
+    ret.threadCount = rebuilt.threadCount;
+    ret.liveThreadCount = old.liveThreadCount - oldThreads.size() + rebuilt.liveThreadCount;
+    // don't let the thread values of the states fill up with holes
+    if (ret.threadCount > 2 * ret.liveThreadCount + 64) return null;
+    computeWidthIncompatibilityData(ret);
+    ret.rebuiltPoints = region;
+    ret.keepsThreads = true;
+    return ret;
+  }
+
+  private static void addToRegion(
+      Collection<Location> locs, Set<Location> region, ArrayDeque<Location> queue) {
+    for (final var loc : locs) {
+      if (region.add(loc)) queue.add(loc);
+    }
+  }
+
+  private void setMasterBundleMap(BundleMap map, BundleMap base) {
+    map.base = base;
+    // only keep the last few maps, the states lagging further behind start over
+    var older = map;
+    for (var i = 0; i < MAX_BASE_MAPS && older != null; i++) older = older.base;
+    if (older != null) {
+      older.base = null;
+      older.rebuiltPoints = null;
+    }
+    locations = map.locations;
+    masterBundleMap = map;
+    lastBundleMap = map;
+    voidedPoints.clear();
+  }
+
+  private void connectPullResistors(BundleMap ret, Collection<Component> pulls) {
     for (final var comp : pulls) {
       final var loc = comp.getEnd(0).getLocation();
       var b = ret.getBundleAt(loc);
@@ -353,7 +513,7 @@ class CircuitWires {
     }
   }
 
-  private void connectTunnels(BundleMap ret) {
+  private void connectTunnels(BundleMap ret, Collection<Component> tunnels) {
     // determine the sets of tunnels
     final var tunnelSets = new HashMap<String, ArrayList<Location>>();
     for (final var comp : tunnels) {
@@ -394,7 +554,7 @@ class CircuitWires {
     }
   }
 
-  private void connectWires(BundleMap ret) {
+  private void connectWires(BundleMap ret, Collection<Wire> wires) {
     // make a WireBundle object for each tree of connected wires
     for (final var wire : wires) {
       final var bundleA = ret.getBundleAt(wire.e0);
@@ -559,21 +719,45 @@ class CircuitWires {
   // the components and wires, so to avoid deadlock, only the AWT should
   // create the new bundle map.
 
-  /*synchronized*/ private BundleMap getBundleMap() {
+  /*synchronized*/ BundleMap getBundleMap() {
     if (SwingUtilities.isEventDispatchThread()) {
       // AWT event thread.
       if (masterBundleMap != null) return masterBundleMap;
+      final var base = lastBundleMap;
+      if (base != null) {
+        try {
+          final var ret = rebuildBundleMap(base);
+          if (ret != null) {
+            setMasterBundleMap(ret, base);
+            return ret;
+          }
+        } catch (Exception t) {
+          logger.debug("Rebuilding the bundle map failed, computing it anew", t);
+        }
+      }
       final var ret = new BundleMap();
       try {
-        computeBundleMap(ret);
-        masterBundleMap = ret;
+        computeBundleMap(ret, wires, tunnels, pulls, splitters);
+        // and the unwired points too, so that the states keep the values at these
+        for (final var p : points.getSplitLocations()) ret.locations.add(p);
+        computeWidthIncompatibilityData(ret);
+        if (base != null) ret.rebuiltPoints = new HashSet<>(voidedPoints);
+        setMasterBundleMap(ret, base);
       } catch (Exception t) {
         ret.invalidate();
+        lastBundleMap = null;
+        voidedPoints.clear();
         logger.error(t.getLocalizedMessage());
       }
       return ret;
     } else {
-      // Simulation thread.
+      // Simulation thread. A map is never changed once it is the master map: edits only void
+      // it, and the next one is built on the EDT. A simulation thread may already go on
+      // propagating with a map while the EDT replaces it, so taking the current map here is no
+      // different from having come by a moment earlier, and it spares a round trip to the EDT
+      // per propagation, which dominated the evaluation of table rows on several threads.
+      final var map = masterBundleMap;
+      if (map != null) return map;
       try {
         final var ret = new BundleMap[1];
         SwingUtilities.invokeAndWait(() -> ret[0] = getBundleMap());
@@ -586,6 +770,11 @@ class CircuitWires {
     }
   }
 
+  /** Returns the numbering of the points in the current bundle map, for new states. */
+  LocationIndex getLocations() {
+    return locations;
+  }
+
   Iterator<? extends Component> getComponents() {
     return IteratorUtil.createJoinedIterator(splitters.iterator(), wires.iterator());
   }
@@ -594,8 +783,9 @@ class CircuitWires {
     var ret = Value.UNKNOWN;
     var pull = Value.UNKNOWN;
     for (final var tb : t.getBundles()) {
-      for (final var p : tb.b.points) {
-        final var val = state.getComponentOutputAt(p);
+      final var indices = tb.b.pointIndices;
+      for (var i = 0; indices != null && i < indices.length; i++) {
+        final var val = state.getComponentOutputAt(indices[i]);
         if (val != null && val != Value.NIL) {
           ret = ret.combine(val.get(tb.loc));
         }
@@ -666,25 +856,88 @@ class CircuitWires {
   // query methods
   //
   boolean isMapVoided() {
-    return masterBundleMap == null;
+    // a map rebuilt after some edits tells which points these affect
+    return masterBundleMap == null && lastBundleMap == null;
+  }
+
+  /**
+   * Returns whether the wire values of {@code state} were not computed with the current bundle map,
+   * which is the case after edits that do not mark any point dirty (adding a tunnel, changing its
+   * label or the type of a pull resistor, ...).
+   */
+  boolean isOutdated(State state) {
+    return state == null || state.bundleMap != masterBundleMap;
   }
 
   //
   // utility methods
   //
+
+  /**
+   * Adds the points whose bundles were rebuilt since {@code since} to {@code dirty}, and returns
+   * whether all other threads were kept. If {@code map} was not derived from {@code since}, all
+   * points are added instead.
+   */
+  private boolean addRebuiltPoints(BundleMap map, BundleMap since, Set<Location> dirty) {
+    final var rebuilt = new HashSet<Location>();
+    var keepsThreads = true;
+    for (var m = map; m != since; m = m.base) {
+      final var base = m.base;
+      final var rebuiltPoints = m.rebuiltPoints;
+      if (base == null || rebuiltPoints == null) {
+        addAllPoints(dirty);
+        return false;
+      }
+      rebuilt.addAll(rebuiltPoints);
+      keepsThreads &= m.keepsThreads;
+    }
+    dirty.addAll(rebuilt);
+    return keepsThreads;
+  }
+
+  /** Adds all points of the circuit to {@code dirty}. */
+  void addAllPoints(Set<Location> dirty) {
+    for (var i = 3; i >= 0; i--) {
+      try {
+        dirty.addAll(points.getSplitLocations());
+        break;
+      } catch (ConcurrentModificationException e) {
+        // try again...
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException ignored) {
+        }
+        if (i == 0) e.printStackTrace();
+      }
+    }
+  }
+
   void propagate(CircuitState circState, Set<Location> points) {
     final var map = getBundleMap();
     final var dirtyThreads = new CopyOnWriteArraySet<WireThread>(); // affected threads
+    // the points of the bundles are numbered as in the map
+    circState.setLocations(map.locations);
 
     // get state, or create a new one if current state is outdated
     var state = circState.getWireData();
     if (state == null || state.bundleMap != map) {
-      // if it is outdated, we need to compute for all threads
-      state = new State(map);
-      for (final var bundle : map.getBundles()) {
-        final var wireThreads = bundle.threads;
-        if (bundle.isValid() && wireThreads != null) {
-          dirtyThreads.addAll(Arrays.asList(wireThreads));
+      var keepsThreads = false;
+      if (state != null) {
+        points = new HashSet<>(points);
+        // if the map was rebuilt after some edits, only the points around them are affected
+        keepsThreads = addRebuiltPoints(map, state.bundleMap, points);
+      }
+      if (keepsThreads) {
+        // the other threads were kept, and so are their values
+        state = new State(map, state);
+      } else {
+        // if it is outdated, we need to compute for all threads
+        state = new State(map);
+        for (final var bundle : map.getBundles()) {
+          final var wireThreads = bundle.threads;
+          if (bundle.isValid() && wireThreads != null) {
+            dirtyThreads.addAll(Arrays.asList(wireThreads));
+          }
         }
       }
       circState.setWireData(state);
@@ -694,19 +947,13 @@ class CircuitWires {
     for (final var point : points) {
       final var wireBundle = map.getBundleAt(point);
       if (wireBundle == null) { // point is not wired
-        circState.setValueByWire(point, circState.getComponentOutputAt(point));
+        final var index = circState.getIndex(point);
+        circState.setValueByWire(index, point, circState.getComponentOutputAt(index));
       } else {
         final var th = wireBundle.threads;
         if (!wireBundle.isValid() || th == null) {
           // immediately propagate NILs across invalid bundles
-          final var pbPoints = wireBundle.points;
-          if (pbPoints == null) {
-            circState.setValueByWire(point, Value.NIL);
-          } else {
-            for (final var loc2 : pbPoints) {
-              circState.setValueByWire(loc2, Value.NIL);
-            }
-          }
+          setValueByWire(circState, wireBundle, Value.NIL);
         } else {
           dirtyThreads.addAll(Arrays.asList(th));
         }
@@ -719,7 +966,7 @@ class CircuitWires {
     final var bundles = new HashSet<ThreadBundle>();
     for (final var t : dirtyThreads) {
       final var v = getThreadValue(circState, t);
-      state.thrValues.put(t, v);
+      state.thrValues[t.index] = v;
       bundles.addAll(t.getBundles());
     }
 
@@ -731,12 +978,12 @@ class CircuitWires {
       if (!b.isValid() || b.threads == null) {
         // do nothing
       } else if (b.threads.length == 1) {
-        bv = state.thrValues.get(b.threads[0]);
+        bv = state.thrValues[b.threads[0].index];
       } else {
         final var tvs = new Value[b.threads.length];
         var tvsValid = true;
         for (var i = 0; i < tvs.length; i++) {
-          final var tv = state.thrValues.get(b.threads[i]);
+          final var tv = state.thrValues[b.threads[i].index];
           if (tv == null) {
             tvsValid = false;
             break;
@@ -746,14 +993,17 @@ class CircuitWires {
         if (tvsValid) bv = Value.create(tvs);
       }
 
-      if (bv != null) {
-        for (final var p : b.points) {
-          circState.setValueByWire(p, bv);
-        }
-      }
+      if (bv != null) setValueByWire(circState, b, bv);
     }
   }
 
+  private static void setValueByWire(CircuitState circState, WireBundle b, Value v) {
+    final var locs = b.pointArray;
+    final var indices = b.pointIndices;
+    if (indices == null) return; // the map failed before numbering its points
+    for (var i = 0; i < indices.length; i++) circState.setValueByWire(indices[i], locs[i], v);
+  }
+
   private Bounds recomputeBounds() {
     final var it = wires.iterator();
     if (!it.hasNext()) {
@@ -797,12 +1047,12 @@ class CircuitWires {
       }
     }
     points.remove(comp);
-    voidBundleMap();
+    voidBundleMap(comp);
   }
 
   /*synchronized*/ void remove(Component comp, EndData end) {
     points.remove(comp, end);
-    voidBundleMap();
+    voidBundleMap(end.getLocation());
   }
 
   private void removeWire(Wire w) {
@@ -820,16 +1070,38 @@ class CircuitWires {
   /*synchronized*/ void replace(Component comp, EndData oldEnd, EndData newEnd) {
     points.remove(comp, oldEnd);
     points.add(comp, newEnd);
-    voidBundleMap();
+    voidBundleMap(oldEnd.getLocation());
+    voidBundleMap(newEnd.getLocation());
   }
 
   //
   // helper methods
   //
+  private Component findComponent(AttributeSet attrs) {
+    for (final var comp : tunnels) {
+      if (comp.getAttributeSet() == attrs) return comp;
+    }
+    for (final var comp : pulls) {
+      if (comp.getAttributeSet() == attrs) return comp;
+    }
+    return null;
+  }
+
   private void voidBundleMap() {
     // This should really only be called by AWT thread, but main() also
     // calls it during startup. It should not be called by the simulation
     // thread.
     masterBundleMap = null;
+    lastBundleMap = null;
+    voidedPoints.clear();
+  }
+
+  private void voidBundleMap(Component comp) {
+    for (final var end : comp.getEnds()) voidBundleMap(end.getLocation());
+  }
+
+  private void voidBundleMap(Location loc) {
+    masterBundleMap = null;
+    if (lastBundleMap != null) voidedPoints.add(loc);
   }
 }
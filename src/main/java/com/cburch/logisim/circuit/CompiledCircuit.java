@@ -0,0 +1,551 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.FailException;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.InstanceComponent;
+import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.InstanceFactory;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.Port;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.BitExtender;
+import com.cburch.logisim.std.wiring.Constant;
+import com.cburch.logisim.std.wiring.Ground;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Power;
+import com.cburch.logisim.std.wiring.Probe;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.util.CollectionUtil;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Alternative to the {@link Propagator} for purely combinational circuits, used by the
+ * command-line test vectors and truth tables when {@link Options#ATTR_SIM_ENGINE} selects it.
+ *
+ * <p>The circuit hierarchy is flattened once into integer-indexed nets: one net per wire thread
+ * (i.e. per bit, following splitters and tunnels), and one per unwired point. Every component
+ * becomes a node that still computes its outputs through its own factory, so the values are those
+ * of the event-driven simulator. The nodes are sorted topologically, which lets a single pass in
+ * that order settle the circuit without any event queue; nodes whose inputs did not change since
+ * their last evaluation are skipped.
+ *
+ * <p>Circuits holding feedback loops or components with an internal state (clocks, memories, pull
+ * resistors, ...) have no such order, or depend on the timing of the events, so they are not
+ * compiled and the callers go on with the {@link Propagator}.
+ */
+public final class CompiledCircuit {
+  static final Logger logger = LoggerFactory.getLogger(CompiledCircuit.class);
+
+  private static final String[] COMBINATIONAL_PACKAGES = {
+    "com.cburch.logisim.std.arith",
+    "com.cburch.logisim.std.gates",
+    "com.cburch.logisim.std.plexers",
+  };
+
+  static final int INSTANCE = 0; // component evaluated by its factory
+  static final int SUB_INPUT = 1; // input pin of a subcircuit, fed by the parent port
+  static final int SUB_OUTPUT = 2; // output pin of a subcircuit, driving the parent port
+
+  private static class UnsupportedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedException(String message) {
+      super(message);
+    }
+  }
+
+  final class Node implements InstanceState {
+    final Component comp;
+    final Circuit circuit;
+    final int kind;
+    final boolean root;
+    final int[][] nets; // per port, the nets it is connected to
+    final boolean[] reads;
+    final boolean[] drives;
+    final Value[] outputs;
+    final Value[][] bits;
+    InstanceData data;
+    int index;
+
+    Node(Component comp, Circuit circuit, int kind, boolean root, int ports) {
+      this.comp = comp;
+      this.circuit = circuit;
+      this.kind = kind;
+      this.root = root;
+      nets = new int[ports][];
+      reads = new boolean[ports];
+      drives = new boolean[ports];
+      outputs = new Value[ports];
+      bits = new Value[ports][];
+    }
+
+    void evaluate() {
+      switch (kind) {
+        case SUB_INPUT -> {
+          // see SubcircuitFactory.propagate
+          final var val = getPortValue(1);
+          if (!val.equals(Pin.FACTORY.getValue(this))) Pin.FACTORY.setValue(this, val);
+          Pin.FACTORY.propagate(this);
+        }
+        case SUB_OUTPUT -> {
+          Pin.FACTORY.propagate(this);
+          drive(this, 1, getPortValue(0));
+        }
+        default -> getFactory().propagate(this);
+      }
+    }
+
+    @Override
+    public void fireInvalidated() {
+      // nothing is displayed
+    }
+
+    @Override
+    public AttributeSet getAttributeSet() {
+      return comp.getAttributeSet();
+    }
+
+    @Override
+    public <E> E getAttributeValue(Attribute<E> attr) {
+      return comp.getAttributeSet().getValue(attr);
+    }
+
+    @Override
+    public InstanceData getData() {
+      return data;
+    }
+
+    @Override
+    public InstanceFactory getFactory() {
+      return (InstanceFactory) comp.getFactory();
+    }
+
+    @Override
+    public Instance getInstance() {
+      return ((InstanceComponent) comp).getInstance();
+    }
+
+    @Override
+    public int getPortIndex(Port port) {
+      return getInstance().getPorts().indexOf(port);
+    }
+
+    @Override
+    public Value getPortValue(int portIndex) {
+      final var portNets = nets[portIndex];
+      if (portNets.length == 1) return netValues[portNets[0]];
+      final var vals = bits[portIndex];
+      for (var i = 0; i < vals.length; i++) vals[i] = netValues[portNets[i]];
+      return Value.create(vals);
+    }
+
+    @Override
+    public Project getProject() {
+      return project;
+    }
+
+    @Override
+    public int getTickCount() {
+      return 0;
+    }
+
+    @Override
+    public boolean isCircuitRoot() {
+      return root;
+    }
+
+    @Override
+    public boolean isPortConnected(int portIndex) {
+      return circuit.isConnected(comp.getEnd(portIndex).getLocation(), comp);
+    }
+
+    @Override
+    public void setData(InstanceData value) {
+      data = value;
+    }
+
+    @Override
+    public void setPort(int portIndex, Value value, int delay) {
+      drive(this, portIndex, value);
+    }
+  }
+
+  /** Nets of one instance of a circuit in the flattened hierarchy. */
+  private static final class Scope {
+    final Circuit circuit;
+    final CircuitWires.BundleMap bundles;
+    final boolean root;
+    final IdentityHashMap<WireThread, Integer> threadNets = new IdentityHashMap<>();
+    final HashMap<Location, Integer> pointNets = new HashMap<>();
+
+    Scope(Circuit circuit, boolean root) throws UnsupportedException {
+      this.circuit = circuit;
+      this.root = root;
+      bundles = circuit.wires.getBundleMap();
+      if (!bundles.isValid() || CollectionUtil.isNotEmpty(bundles.getWidthIncompatibilityData())) {
+        throw new UnsupportedException("width conflict in " + circuit.getName());
+      }
+    }
+  }
+
+  private final Project project;
+  final Node[] nodes; // in topological order
+  final HashMap<Component, Node> pins = new HashMap<>();
+  private final boolean[] dirty;
+  final Value[] netValues;
+  final Value[] netResetValues;
+  private final boolean[] pointNet;
+  // drivers of net n: contribNode/Port/Bit[contribStart[n] .. contribStart[n + 1]]
+  final int[] contribStart;
+  private final int[] contribNode;
+  private final int[] contribPort;
+  private final int[] contribBit;
+  // nodes reading net n: readerNode[readerStart[n] .. readerStart[n + 1]]
+  private final int[] readerStart;
+  private final int[] readerNode;
+
+  /**
+   * Compiles {@code circuit} if the project selects the compiled simulation engine. Returns null if
+   * it does not, or if the circuit cannot be compiled, in which case the {@link Propagator} has to
+   * be used.
+   */
+  public static CompiledCircuit create(Project proj, Circuit circuit) {
+    final var engine = proj.getOptions().getAttributeSet().getValue(Options.ATTR_SIM_ENGINE);
+    if (engine != Options.SIM_ENGINE_COMPILED) return null;
+    try {
+      return new CompiledCircuit(proj, circuit);
+    } catch (UnsupportedException e) {
+      logger.info("Simulating {} event-driven: {}", circuit.getName(), e.getMessage());
+      return null;
+    }
+  }
+
+  private CompiledCircuit(Project proj, Circuit circuit) throws UnsupportedException {
+    project = proj;
+    final var builder = new Builder();
+    builder.addCircuit(new Scope(circuit, true), null, null);
+    nodes = builder.sort();
+    final var netCount = builder.netResetValues.size();
+    netResetValues = builder.netResetValues.toArray(new Value[netCount]);
+    netValues = netResetValues.clone();
+    pointNet = new boolean[netCount];
+    for (var n = 0; n < netCount; n++) pointNet[n] = builder.pointNets.get(n);
+    dirty = new boolean[nodes.length];
+    Arrays.fill(dirty, true);
+
+    // index the drivers and the readers of each net
+    contribStart = new int[netCount + 1];
+    readerStart = new int[netCount + 1];
+    for (final var node : nodes) {
+      for (var port = 0; port < node.nets.length; port++) {
+        for (final var net : node.nets[port]) {
+          if (node.drives[port]) contribStart[net + 1]++;
+          if (node.reads[port]) readerStart[net + 1]++;
+        }
+      }
+    }
+    for (var n = 0; n < netCount; n++) {
+      contribStart[n + 1] += contribStart[n];
+      readerStart[n + 1] += readerStart[n];
+    }
+    contribNode = new int[contribStart[netCount]];
+    contribPort = new int[contribNode.length];
+    contribBit = new int[contribNode.length];
+    readerNode = new int[readerStart[netCount]];
+    final var contribFill = Arrays.copyOf(contribStart, netCount);
+    final var readerFill = Arrays.copyOf(readerStart, netCount);
+    for (final var node : nodes) {
+      for (var port = 0; port < node.nets.length; port++) {
+        final var portNets = node.nets[port];
+        for (var bit = 0; bit < portNets.length; bit++) {
+          final var net = portNets[bit];
+          if (node.drives[port]) {
+            final var c = contribFill[net]++;
+            contribNode[c] = node.index;
+            contribPort[c] = port;
+            contribBit[c] = pointNet[net] ? -1 : bit;
+          }
+          if (node.reads[port]) readerNode[readerFill[net]++] = node.index;
+        }
+      }
+    }
+
+    // an input pin does not react to the value it finds on its net, which is only sound if
+    // nothing else drives it
+    for (final var node : nodes) {
+      final var isInputPin =
+          node.kind == SUB_INPUT
+              || (node.kind == INSTANCE && node.comp.getFactory() instanceof Pin && node.drives[0]);
+      if (!isInputPin) continue;
+      for (final var net : node.nets[0]) {
+        for (var c = contribStart[net]; c < contribStart[net + 1]; c++) {
+          if (contribNode[c] != node.index) {
+            throw new UnsupportedException("pin driven from inside " + node.circuit.getName());
+          }
+        }
+      }
+    }
+  }
+
+  private final class Builder {
+    final ArrayList<Node> nodes = new ArrayList<>();
+    final ArrayList<Value> netResetValues = new ArrayList<>();
+    final ArrayList<Boolean> pointNets = new ArrayList<>();
+
+    private int newNet(Value resetValue, boolean point) {
+      netResetValues.add(resetValue);
+      pointNets.add(point);
+      return netResetValues.size() - 1;
+    }
+
+    /** Returns the nets connected to a port at {@code loc}, one per bit if it is wired. */
+    private int[] getNets(Scope scope, Location loc, BitWidth width) throws UnsupportedException {
+      final var bundle = scope.bundles.getBundleAt(loc);
+      if (bundle == null) {
+        // see CircuitWires.propagate and CircuitState.getValue for unwired points
+        final var net =
+            scope.pointNets.computeIfAbsent(
+                loc, l -> newNet(Value.createUnknown(scope.circuit.getWidth(l)), true));
+        return new int[] {net};
+      }
+      final var threads = bundle.threads;
+      if (!bundle.isValid() || threads == null || threads.length != width.getWidth()) {
+        throw new UnsupportedException("width conflict in " + scope.circuit.getName());
+      }
+      final var ret = new int[threads.length];
+      for (var i = 0; i < threads.length; i++) {
+        ret[i] = scope.threadNets.computeIfAbsent(threads[i], t -> newNet(Value.UNKNOWN, false));
+      }
+      return ret;
+    }
+
+    private void setPort(Node node, int port, int[] nets, boolean reads, boolean drives) {
+      node.nets[port] = nets;
+      node.reads[port] = reads;
+      node.drives[port] = drives;
+      node.bits[port] = new Value[nets.length];
+    }
+
+    private boolean isCombinational(Object factory) {
+      if (factory instanceof Constant
+          || factory instanceof Power
+          || factory instanceof Ground
+          || factory instanceof BitExtender) {
+        return true;
+      }
+      final var pkg = factory.getClass().getPackageName();
+      for (final var comb : COMBINATIONAL_PACKAGES) {
+        if (pkg.equals(comb)) return true;
+      }
+      return false;
+    }
+
+    /**
+     * Adds the components of {@code scope}, which is an instance of a subcircuit placed as {@code
+     * parentComp} in {@code parent}, or the root circuit if both are null.
+     */
+    void addCircuit(Scope scope, Scope parent, Component parentComp)
+        throws UnsupportedException {
+      final var pinPorts = new IdentityHashMap<Component, Integer>();
+      if (parentComp != null) {
+        final var attrs = (CircuitAttributes) parentComp.getAttributeSet();
+        final var pinInstances = attrs.getPinInstances();
+        for (var i = 0; i < pinInstances.length; i++) {
+          pinPorts.put(pinInstances[i].getComponent(), i);
+        }
+      }
+      for (final var comp : scope.circuit.getNonWires()) {
+        final var factory = comp.getFactory();
+        if (comp instanceof Splitter
+            || factory instanceof Tunnel
+            || factory instanceof Probe
+            || comp.getEnds().isEmpty()) {
+          // wiring only, or nothing to drive
+          continue;
+        }
+        if (factory instanceof SubcircuitFactory sub) {
+          addCircuit(new Scope(sub.getSubcircuit(), false), scope, comp);
+          continue;
+        }
+        if (!(comp instanceof InstanceComponent)
+            || !(factory instanceof Pin || isCombinational(factory))) {
+          throw new UnsupportedException(
+              factory.getName() + " in " + scope.circuit.getName() + " is not combinational");
+        }
+        final var end = comp.getEnd(0);
+        final Node node;
+        if (factory instanceof Pin && parentComp != null) {
+          final var port = pinPorts.get(comp);
+          if (port == null) throw new UnsupportedException("unmapped pin");
+          final var parentEnd = parentComp.getEnd(port);
+          final var parentNets = getNets(parent, parentEnd.getLocation(), parentEnd.getWidth());
+          final var innerNets = getNets(scope, end.getLocation(), end.getWidth());
+          if (Pin.FACTORY.isInputPin(Instance.getInstanceFor(comp))) {
+            node = new Node(comp, scope.circuit, SUB_INPUT, false, 2);
+            setPort(node, 0, innerNets, false, true);
+            setPort(node, 1, parentNets, true, false);
+          } else {
+            node = new Node(comp, scope.circuit, SUB_OUTPUT, false, 2);
+            setPort(node, 0, innerNets, true, false);
+            setPort(node, 1, parentNets, false, true);
+          }
+        } else {
+          final var ends = comp.getEnds();
+          node = new Node(comp, scope.circuit, INSTANCE, scope.root, ends.size());
+          for (var i = 0; i < ends.size(); i++) {
+            final var e = ends.get(i);
+            setPort(
+                node, i, getNets(scope, e.getLocation(), e.getWidth()), e.isInput(), e.isOutput());
+          }
+          if (factory instanceof Pin) pins.put(comp, node);
+        }
+        nodes.add(node);
+      }
+    }
+
+    /** Sorts the nodes so that each one comes after all nodes driving its inputs. */
+    Node[] sort() throws UnsupportedException {
+      final var netCount = netResetValues.size();
+      final var drivers = new int[netCount];
+      final var readers = new ArrayList<ArrayList<Node>>(netCount);
+      for (var n = 0; n < netCount; n++) readers.add(new ArrayList<>());
+      for (final var node : nodes) {
+        for (var port = 0; port < node.nets.length; port++) {
+          for (final var net : node.nets[port]) {
+            if (node.drives[port]) drivers[net]++;
+            if (node.reads[port]) readers.get(net).add(node);
+          }
+        }
+      }
+      final var pending = new IdentityHashMap<Node, Integer>();
+      final var ready = new ArrayDeque<Node>();
+      for (final var node : nodes) {
+        var count = 0;
+        for (var port = 0; port < node.nets.length; port++) {
+          if (!node.reads[port]) continue;
+          for (final var net : node.nets[port]) count += drivers[net];
+        }
+        pending.put(node, count);
+        if (count == 0) ready.add(node);
+      }
+      final var sorted = new Node[nodes.size()];
+      var count = 0;
+      while (!ready.isEmpty()) {
+        final var node = ready.poll();
+        node.index = count;
+        sorted[count++] = node;
+        for (var port = 0; port < node.nets.length; port++) {
+          if (!node.drives[port]) continue;
+          for (final var net : node.nets[port]) {
+            for (final var reader : readers.get(net)) {
+              final var left = pending.get(reader) - 1;
+              pending.put(reader, left);
+              if (left == 0) ready.add(reader);
+            }
+          }
+        }
+      }
+      if (count < sorted.length) throw new UnsupportedException("feedback loop");
+      return sorted;
+    }
+  }
+
+  private void drive(Node node, int port, Value val) {
+    if (!node.drives[port] || val.equals(node.outputs[port])) return;
+    node.outputs[port] = val;
+    for (final var net : node.nets[port]) updateNet(net);
+  }
+
+  /** Recomputes the value of a net from its drivers, see CircuitWires.getThreadValue. */
+  private void updateNet(int net) {
+    Value val = pointNet[net] ? null : Value.UNKNOWN;
+    for (var c = contribStart[net]; c < contribStart[net + 1]; c++) {
+      final var out = nodes[contribNode[c]].outputs[contribPort[c]];
+      if (out == null || out == Value.NIL) continue;
+      final var bit = contribBit[c];
+      if (bit < 0) val = val == null ? out : val.combine(out);
+      else val = val.combine(out.get(bit));
+    }
+    if (val == null) val = netResetValues[net];
+    if (val.equals(netValues[net])) return;
+    netValues[net] = val;
+    for (var r = readerStart[net]; r < readerStart[net + 1]; r++) dirty[readerNode[r]] = true;
+  }
+
+  /** Brings the circuit back to the state of a newly created {@link CircuitState}. */
+  public void reset() {
+    for (final var node : nodes) {
+      node.data = null;
+      Arrays.fill(node.outputs, null);
+    }
+    System.arraycopy(netResetValues, 0, netValues, 0, netValues.length);
+    Arrays.fill(dirty, true);
+  }
+
+  /** Evaluates every node whose inputs changed, in topological order. */
+  public void propagate() {
+    for (var i = 0; i < nodes.length; i++) {
+      if (dirty[i]) {
+        dirty[i] = false;
+        nodes[i].evaluate();
+      }
+    }
+  }
+
+  /** Equivalent of {@code Pin.FACTORY.getValue} for a pin of the compiled circuit. */
+  public Value getValue(Instance pin) {
+    return Pin.FACTORY.getValue(pins.get(pin.getComponent()));
+  }
+
+  /** Equivalent of {@code Pin.FACTORY.setValue} for a pin of the compiled circuit. */
+  public void setValue(Instance pin, Value val) {
+    final var node = pins.get(pin.getComponent());
+    Pin.FACTORY.setValue(node, val);
+    dirty[node.index] = true;
+  }
+
+  /** Compiled counterpart of {@link Circuit#doTestVector}. */
+  public void doTestVector(Instance[] pin, Value[] val) throws TestException {
+    reset();
+    for (var i = 0; i < pin.length; ++i) {
+      if (Pin.FACTORY.isInputPin(pin[i])) setValue(pin[i], val[i]);
+    }
+    propagate();
+
+    FailException err = null;
+    for (var i = 0; i < pin.length; i++) {
+      if (Pin.FACTORY.isInputPin(pin[i])) continue;
+      final var v = getValue(pin[i]);
+      if (!val[i].compatible(v)) {
+        final var e = new FailException(i, pin[i].getAttributeValue(StdAttr.LABEL), val[i], v);
+        if (err == null) err = e;
+        else err.add(e);
+      }
+    }
+    if (err != null) throw err;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import java.util.Arrays;
+
+/**
+ * Set of (state, component, location) triples the {@link Propagator} has handled during the current
+ * clock step.
+ *
+ * <p>This is an open addressing hash table whose slots carry the epoch in which they were filled.
+ * Clearing the set just starts a new epoch, so nothing is allocated per event nor per step; the
+ * tables only grow when a step touches more points than ever before.
+ */
+final class ComponentPointSet {
+  private static final int INITIAL_CAPACITY = 256;
+
+  private CircuitState[] states = new CircuitState[INITIAL_CAPACITY];
+  private Component[] causes = new Component[INITIAL_CAPACITY];
+  private Location[] locs = new Location[INITIAL_CAPACITY];
+  private int[] epochs = new int[INITIAL_CAPACITY];
+  private int epoch = 1;
+  private int size = 0;
+
+  private static int hash(CircuitState state, Component cause, Location loc) {
+    final var h = (System.identityHashCode(state) * 31 + cause.hashCode()) * 31 + loc.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /** Adds the point, returning false if it already was handled during this epoch. */
+  boolean add(CircuitState state, Component cause, Location loc) {
+    final var mask = epochs.length - 1;
+    var i = hash(state, cause, loc) & mask;
+    while (epochs[i] == epoch) {
+      if (states[i] == state && locs[i].equals(loc)
+          && (causes[i] == cause || causes[i].equals(cause))) {
+        return false;
+      }
+      i = (i + 1) & mask;
+    }
+    states[i] = state;
+    causes[i] = cause;
+    locs[i] = loc;
+    epochs[i] = epoch;
+    if (++size * 2 > epochs.length) grow();
+    return true;
+  }
+
+  /** Forgets all points by starting a new epoch. */
+  void clear() {
+    size = 0;
+    if (++epoch == 0) {
+      // the stamps wrapped around, so the old ones have to be wiped for real
+      Arrays.fill(epochs, 0);
+      epoch = 1;
+    }
+  }
+
+  private void grow() {
+    final var oldStates = states;
+    final var oldCauses = causes;
+    final var oldLocs = locs;
+    final var oldEpochs = epochs;
+    final var capacity = oldEpochs.length * 2;
+    states = new CircuitState[capacity];
+    causes = new Component[capacity];
+    locs = new Location[capacity];
+    epochs = new int[capacity];
+    final var mask = capacity - 1;
+    for (var j = 0; j < oldEpochs.length; j++) {
+      if (oldEpochs[j] != epoch) continue;
+      var i = hash(oldStates[j], oldCauses[j], oldLocs[j]) & mask;
+      while (epochs[i] == epoch) i = (i + 1) & mask;
+      states[i] = oldStates[j];
+      causes[i] = oldCauses[j];
+      locs[i] = oldLocs[j];
+      epochs[i] = epoch;
+    }
+  }
+}
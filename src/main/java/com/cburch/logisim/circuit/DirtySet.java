@@ -0,0 +1,171 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The components or points of a {@link CircuitState} waiting to be propagated, marked from any
+ * thread and drained by the simulation thread.
+ *
+ * <p>The flag of each element is a slot in an open addressing table of the set, as components are
+ * shared by all states of their circuit and points are mere values, so neither has room for a flag
+ * of each state. An element is marked by setting its flag and, if it was not set yet, appending it
+ * to a buffer, so marking takes constant time whatever the number of marked elements. Draining
+ * swaps the buffer with the one handed out by the previous drain and clears the flags. Neither
+ * allocates anything, apart from growing the table and buffers to the most elements marked at
+ * once. Marking is almost always done by the simulation thread itself, so the lock guarding all
+ * this is hardly ever contended.
+ */
+final class DirtySet<E> {
+  private static final int INITIAL_CAPACITY = 8;
+
+  // the elements whose flags are set, by linear probing from the hash of each
+  private Object[] flags = new Object[INITIAL_CAPACITY];
+  private int flagCount = 0;
+  // the elements in the order they were marked, including those unmarked by remove since, always
+  // followed by a null
+  private Object[] marked = new Object[INITIAL_CAPACITY];
+  private int markedCount = 0;
+  // the buffer handed out by the last drain, holding drainedCount elements
+  private Object[] drained = new Object[INITIAL_CAPACITY];
+  private int drainedCount = 0;
+
+  /** Marks the element, returning false if it already was. */
+  synchronized boolean add(E element) {
+    if (!setFlag(element)) return false;
+    if (markedCount + 1 == marked.length) marked = Arrays.copyOf(marked, 2 * marked.length);
+    marked[markedCount++] = element;
+    return true;
+  }
+
+  void addAll(Collection<? extends E> elements) {
+    for (final var element : elements) add(element);
+  }
+
+  /** Marks the elements marked in {@code other}, in the same order, leaving these marked. */
+  @SuppressWarnings("unchecked")
+  void addAll(DirtySet<E> other) {
+    final Object[] elements;
+    synchronized (other) {
+      elements = Arrays.copyOf(other.marked, other.markedCount);
+      // skip the elements unmarked by remove; those marked twice after that are added once
+      for (var i = 0; i < elements.length; i++) {
+        if (!other.isFlagged(elements[i])) elements[i] = null;
+      }
+    }
+    for (final var element : elements) {
+      if (element != null) add((E) element);
+    }
+  }
+
+  /** Unmarks the element, so that the next drain skips it. */
+  synchronized void remove(E element) {
+    clearFlag(element);
+  }
+
+  /** Returns the number of marked elements. */
+  synchronized int size() {
+    return flagCount;
+  }
+
+  synchronized boolean isEmpty() {
+    return markedCount == 0;
+  }
+
+  synchronized void clear() {
+    Arrays.fill(flags, null);
+    flagCount = 0;
+    Arrays.fill(marked, 0, markedCount, null);
+    markedCount = 0;
+  }
+
+  /**
+   * Returns the marked elements in the order they were marked, followed by a null, and unmarks
+   * them. The array is reused, so it is only valid until the next drain.
+   */
+  synchronized Object[] drain() {
+    final var ret = marked;
+    var size = 0;
+    for (var i = 0; i < markedCount; i++) {
+      // an element unmarked by remove, or marked twice after that, only counts once
+      if (clearFlag(ret[i])) ret[size++] = ret[i];
+    }
+    Arrays.fill(ret, size, markedCount, null);
+    Arrays.fill(drained, 0, drainedCount, null);
+    marked = drained;
+    markedCount = 0;
+    drained = ret;
+    drainedCount = size;
+    return ret;
+  }
+
+  /** Moves the marked elements to {@code dest} in the order they were marked, and unmarks them. */
+  @SuppressWarnings("unchecked")
+  void drainTo(Collection<? super E> dest) {
+    final var elements = drain();
+    for (var i = 0; elements[i] != null; i++) dest.add((E) elements[i]);
+  }
+
+  private int slot(Object element) {
+    final var hash = element.hashCode();
+    return (hash ^ (hash >>> 16)) & (flags.length - 1);
+  }
+
+  private boolean isFlagged(Object element) {
+    final var mask = flags.length - 1;
+    for (var i = slot(element); flags[i] != null; i = (i + 1) & mask) {
+      if (flags[i].equals(element)) return true;
+    }
+    return false;
+  }
+
+  /** Sets the flag of the element, returning false if it already was. */
+  private boolean setFlag(Object element) {
+    if (2 * (flagCount + 1) > flags.length) {
+      final var old = flags;
+      flags = new Object[2 * old.length];
+      for (final var e : old) {
+        if (e == null) continue;
+        var i = slot(e);
+        while (flags[i] != null) i = (i + 1) & (flags.length - 1);
+        flags[i] = e;
+      }
+    }
+    final var mask = flags.length - 1;
+    var i = slot(element);
+    for (; flags[i] != null; i = (i + 1) & mask) {
+      if (flags[i].equals(element)) return false;
+    }
+    flags[i] = element;
+    flagCount++;
+    return true;
+  }
+
+  /** Clears the flag of the element, returning false if it was not set. */
+  private boolean clearFlag(Object element) {
+    final var mask = flags.length - 1;
+    var hole = slot(element);
+    while (flags[hole] != null && !flags[hole].equals(element)) hole = (hole + 1) & mask;
+    if (flags[hole] == null) return false;
+    flagCount--;
+    // move back the elements after the hole that would no longer be found past it
+    for (var i = (hole + 1) & mask; flags[i] != null; i = (i + 1) & mask) {
+      final var home = slot(flags[i]);
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        flags[hole] = flags[i];
+        hole = i;
+      }
+    }
+    flags[hole] = null;
+    return true;
+  }
+}
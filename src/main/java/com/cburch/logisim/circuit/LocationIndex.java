@@ -0,0 +1,61 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dense numbering of the points of a circuit, shared by all of its {@link CircuitState}s so that
+ * these can keep their values and causes in flat arrays rather than in maps of their own.
+ *
+ * <p>A bundle map computed from scratch numbers the points of the circuit anew, and the maps
+ * rebuilt from it after some edits keep that numbering, numbering the new points after the old
+ * ones. Points that are not numbered yet get a number the first time a value is set on them. A
+ * state whose arrays follow an older numbering renumbers them with {@link #getLocation} when it
+ * first propagates with the newer map.
+ */
+final class LocationIndex {
+  private final ConcurrentHashMap<Location, Integer> indices = new ConcurrentHashMap<>();
+  private Location[] locations = new Location[16]; // guarded by this
+
+  /** Returns the number of the point, or -1 if it has none yet. */
+  int get(Location loc) {
+    final var index = indices.get(loc);
+    return index == null ? -1 : index;
+  }
+
+  /** Returns the point numbered {@code index}. */
+  synchronized Location getLocation(int index) {
+    return locations[index];
+  }
+
+  /** Returns how many points are numbered. */
+  int size() {
+    return indices.size();
+  }
+
+  /** Returns the number of the point, numbering it if needed. */
+  int add(Location loc) {
+    final var index = indices.get(loc);
+    if (index != null) return index;
+    synchronized (this) {
+      return indices.computeIfAbsent(
+          loc,
+          l -> {
+            final var ret = indices.size();
+            if (ret == locations.length) locations = Arrays.copyOf(locations, 2 * ret);
+            locations[ret] = l;
+            return ret;
+          });
+    }
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates the dirty components of a tree of {@link CircuitState}s on several cores, used when
+ * {@link com.cburch.logisim.file.Options#ATTR_SIM_PARALLEL} is set.
+ *
+ * <p>The dirty components are partitioned by the state they live in. Components that only touch
+ * their own state are evaluated concurrently, one task per state, and the values they emit are
+ * buffered in their partition. Only the components of a few vetted factories are evaluated this
+ * way. All others, such as subcircuits, pins and memories, may reach into other states or into
+ * shared resources, so they are evaluated on the simulation thread once all tasks are done. That
+ * last pass walks the states in the order the sequential propagation visits them, and within each
+ * state it goes through the components in the order they were marked dirty, handing the buffered
+ * values of the concurrent ones to the {@link Propagator} and evaluating the others in turn. The
+ * scheduled events, and hence the simulation results, are thus the same as with {@link
+ * CircuitState#processDirtyComponents} and do not depend on the thread timing. When there are too
+ * few dirty components to be worth it, the propagation is left to that method.
+ */
+final class ParallelPropagation {
+  /** Below this number of dirty components, forking costs more than it gains. */
+  private static final int MIN_PARALLEL_COMPONENTS = 64;
+
+  /**
+   * The factories whose components may be evaluated concurrently, by class name as most of them
+   * are not public. Their propagate methods only read the ports and attributes of the component,
+   * the options of the project, and set its ports, which ends up in {@link #defer}; they keep no
+   * data in the state and share nothing else. Components that keep data in the state, such as
+   * flip-flops and memories, are left out even when that data is per state, as they may also touch
+   * resources shared by all states or fire events to the GUI.
+   */
+  private static final Set<String> PARALLEL_SAFE_FACTORIES =
+      Set.of(
+          // gates: the output is a function of the inputs, the attributes, and the option for
+          // undefined inputs
+          "com.cburch.logisim.std.gates.AndGate",
+          "com.cburch.logisim.std.gates.OrGate",
+          "com.cburch.logisim.std.gates.NandGate",
+          "com.cburch.logisim.std.gates.NorGate",
+          "com.cburch.logisim.std.gates.XorGate",
+          "com.cburch.logisim.std.gates.XnorGate",
+          "com.cburch.logisim.std.gates.EvenParityGate",
+          "com.cburch.logisim.std.gates.OddParityGate",
+          "com.cburch.logisim.std.gates.NotGate",
+          "com.cburch.logisim.std.gates.Buffer",
+          // the output follows the input or floats, depending on the control input
+          "com.cburch.logisim.std.gates.ControlledBuffer",
+          // arithmetic: pure functions of the inputs and the width and mode attributes
+          "com.cburch.logisim.std.arith.Adder",
+          "com.cburch.logisim.std.arith.Subtractor",
+          "com.cburch.logisim.std.arith.Multiplier",
+          "com.cburch.logisim.std.arith.Divider",
+          "com.cburch.logisim.std.arith.Negator",
+          "com.cburch.logisim.std.arith.Comparator",
+          "com.cburch.logisim.std.arith.Shifter",
+          "com.cburch.logisim.std.arith.BitAdder",
+          // plexers: select or decode their inputs, by their attributes only
+          "com.cburch.logisim.std.plexers.Multiplexer",
+          "com.cburch.logisim.std.plexers.Demultiplexer",
+          "com.cburch.logisim.std.plexers.Decoder",
+          "com.cburch.logisim.std.plexers.PriorityEncoder",
+          "com.cburch.logisim.std.plexers.BitSelector",
+          // wiring: constant outputs given by the attributes, and a pure function of the input
+          "com.cburch.logisim.std.wiring.Constant",
+          "com.cburch.logisim.std.wiring.Ground",
+          "com.cburch.logisim.std.wiring.Power",
+          "com.cburch.logisim.std.wiring.BitExtender");
+
+  private static final ThreadLocal<Partition> current = new ThreadLocal<>();
+
+  private record DeferredValue(
+      CircuitState state, Location loc, Value val, Component cause, int delay) {}
+
+  private static final class Partition extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final CircuitState state;
+    /** The dirty components of the state, in the order they were marked. */
+    final Component[] components;
+    final boolean[] local;
+    /** The number of deferred values once each component has been evaluated. */
+    final int[] ends;
+    final ArrayList<DeferredValue> deferred = new ArrayList<>();
+
+    Partition(CircuitState state, Component[] components, boolean[] local) {
+      this.state = state;
+      this.components = components;
+      this.local = local;
+      this.ends = new int[components.length];
+    }
+
+    @Override
+    protected void compute() {
+      current.set(this);
+      try {
+        for (var i = 0; i < components.length; i++) {
+          if (local[i]) components[i].propagate(state);
+          ends[i] = deferred.size();
+        }
+      } finally {
+        current.remove();
+      }
+    }
+  }
+
+  private final Propagator propagator;
+  private final HashMap<ComponentFactory, Boolean> safeFactories = new HashMap<>();
+  private int dirtyStates;
+
+  ParallelPropagation(Propagator propagator) {
+    this.propagator = propagator;
+  }
+
+  /**
+   * Buffers a value emitted from within a parallel task. Returns false if the calling thread is not
+   * running such a task, in which case the value has to be scheduled right away.
+   */
+  static boolean defer(CircuitState state, Location loc, Value val, Component cause, int delay) {
+    final var partition = current.get();
+    if (partition == null) return false;
+    partition.deferred.add(new DeferredValue(state, loc, val, cause, delay));
+    return true;
+  }
+
+  private boolean isParallelSafe(Component comp) {
+    return safeFactories.computeIfAbsent(
+        comp.getFactory(), f -> PARALLEL_SAFE_FACTORIES.contains(f.getClass().getName()));
+  }
+
+  private void collect(CircuitState state, HashMap<CircuitState, Partition> partitions) {
+    final var dirty = state.takeDirtyComponents();
+    if (dirty[0] != null) {
+      var count = 0;
+      while (dirty[count] != null) count++;
+      final var components = new Component[count];
+      final var local = new boolean[count];
+      for (var i = 0; i < count; i++) {
+        components[i] = (Component) dirty[i];
+        local[i] = isParallelSafe(components[i]);
+      }
+      partitions.put(state, new Partition(state, components, local));
+    }
+    final var subs = new CircuitState[state.getSubStates().size()];
+    for (final var substate : state.getSubStates().toArray(subs)) collect(substate, partitions);
+  }
+
+  /**
+   * Hands the values buffered for a state to the propagator and evaluates its other components, in
+   * the order they were marked dirty, and then does the same for its substates, as {@link
+   * CircuitState#processDirtyComponents} does.
+   */
+  private void replay(CircuitState state, HashMap<CircuitState, Partition> partitions) {
+    // components marked dirty since the partitions were collected, which the sequential
+    // propagation would take along with the others when it reaches the state
+    final var late = state.takeDirtyComponents();
+    final var partition = partitions.get(state);
+    if (partition != null) {
+      var next = 0;
+      for (var i = 0; i < partition.components.length; i++) {
+        if (!partition.local[i]) {
+          state.propagateComponent(partition.components[i]);
+          continue;
+        }
+        for (; next < partition.ends[i]; next++) {
+          final var d = partition.deferred.get(next);
+          propagator.setValue(d.state(), d.loc(), d.val(), d.cause(), d.delay());
+        }
+      }
+    }
+    if (late[0] != null) {
+      final var done = partition == null ? Set.<Component>of() : Set.of(partition.components);
+      for (var i = 0; late[i] != null; i++) {
+        final var comp = (Component) late[i];
+        if (!done.contains(comp)) state.propagateComponent(comp);
+      }
+    }
+    final var subs = new CircuitState[state.getSubStates().size()];
+    for (final var substate : state.getSubStates().toArray(subs)) replay(substate, partitions);
+  }
+
+  // Returns the number of dirty components of a state and its substates, and counts the states
+  // holding some in dirtyStates.
+  private int countDirty(CircuitState state) {
+    var count = state.getDirtyComponentCount();
+    if (count > 0) dirtyStates++;
+    final var subs = new CircuitState[state.getSubStates().size()];
+    for (final var substate : state.getSubStates().toArray(subs)) count += countDirty(substate);
+    return count;
+  }
+
+  void processDirtyComponents(CircuitState root) {
+    dirtyStates = 0;
+    if (countDirty(root) < MIN_PARALLEL_COMPONENTS || dirtyStates < 2) {
+      // not worth forking, so propagate the way the sequential propagation does
+      root.processDirtyComponents();
+      return;
+    }
+
+    final var partitions = new HashMap<CircuitState, Partition>();
+    collect(root, partitions);
+    final var tasks = new ArrayList<Partition>();
+    for (final var partition : partitions.values()) {
+      for (final var local : partition.local) {
+        if (local) {
+          tasks.add(partition);
+          break;
+        }
+      }
+    }
+    ForkJoinPool.commonPool()
+        .invoke(
+            new RecursiveAction() {
+              private static final long serialVersionUID = 1L;
+
+              @Override
+              protected void compute() {
+                invokeAll(tasks);
+              }
+            });
+    replay(root, partitions);
+  }
+}
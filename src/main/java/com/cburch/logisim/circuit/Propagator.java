@@ -17,34 +17,10 @@ import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.Options;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Propagator {
-  private static class ComponentPoint {
-    final Component cause;
-    final Location loc;
-
-    public ComponentPoint(Component cause, Location loc) {
-      this.cause = cause;
-      this.loc = loc;
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      return (other instanceof ComponentPoint o)
-             ? this.cause.equals(o.cause) && this.loc.equals(o.loc)
-             : false;
-    }
-
-    @Override
-    public int hashCode() {
-      return 31 * cause.hashCode() + loc.hashCode();
-    }
-  }
-
   private static class Listener implements AttributeListener {
     final WeakReference<Propagator> prop;
 
@@ -64,20 +40,28 @@ public class Propagator {
         e.getSource().removeAttributeListener(this);
       } else if (e.getAttribute().equals(Options.ATTR_SIM_RAND)) {
         p.updateRandomness();
+      } else if (e.getAttribute().equals(Options.ATTR_SIM_PARALLEL)) {
+        p.updateParallelism();
       }
     }
   }
 
   static class SetData implements Comparable<SetData> {
-    final int time;
-    final int serialNumber;
-    final CircuitState state; // state of circuit containing component
-    final Component cause; // component emitting the value
-    final Location loc; // the location at which value is emitted
+    // These are only reassigned when a record is recycled by the TimeWheel.
+    int time;
+    int serialNumber;
+    CircuitState state; // state of circuit containing component
+    Component cause; // component emitting the value
+    Location loc; // the location at which value is emitted
     Value val; // value being emitted
-    SetData next = null;
+    SetData next = null; // next cause at loc, or next event in a TimeWheel bucket
 
-    private SetData(
+    SetData(
+        int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
+      init(time, serialNumber, state, loc, cause, val);
+    }
+
+    void init(
         int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
       this.time = time;
       this.serialNumber = serialNumber;
@@ -136,7 +120,11 @@ public class Propagator {
    */
   private volatile int simRandomShift;
 
-  private final PriorityQueue<SetData> toProcess = new PriorityQueue<>();
+  /** Evaluates components on several cores, or null if the simulation runs on a single thread. */
+  private volatile ParallelPropagation parallel;
+
+  private final TimeWheel toProcess = new TimeWheel();
+  private final ComponentPointSet visited = new ComponentPointSet();
   private int clock = 0;
   private boolean isOscillating = false;
   private boolean oscAdding = false;
@@ -146,24 +134,23 @@ public class Propagator {
   private int noiseCount = 0;
 
   private int setDataSerialNumber = 0;
-  static int lastId = 0;
+  private static final AtomicInteger lastId = new AtomicInteger();
 
-  final int id = lastId++;
+  final int id = lastId.getAndIncrement();
 
   public Propagator(CircuitState root) {
     this.root = root;
     final var l = new Listener(this);
     root.getProject().getOptions().getAttributeSet().addAttributeListener(l);
     updateRandomness();
+    updateParallelism();
   }
 
-  private SetData addCause(CircuitState state, SetData head, SetData data) {
+  private SetData addCause(CircuitState state, SetData head, SetData data, int index) {
     if (data.val == null) { // actually, it should be removed
-      return removeCause(state, head, data.loc, data.cause);
+      return removeCause(state, head, index, data.cause);
     }
 
-    final var causes = state.causes;
-
     // first check whether this is change of previous info.
     var replaced = false;
     for (var n = head; n != null; n = n.next) {
@@ -177,7 +164,7 @@ public class Propagator {
     // otherwise, insert to list of causes
     if (!replaced) {
       if (head == null) {
-        causes.put(data.loc, data);
+        state.setCauses(index, data);
         head = data;
       } else {
         data.next = head.next;
@@ -194,9 +181,10 @@ public class Propagator {
   void checkComponentEnds(CircuitState state, Component comp) {
     for (final var end : comp.getEnds()) {
       final var loc = end.getLocation();
-      final var oldHead = state.causes.get(loc);
+      final var index = state.getIndex(loc);
+      final var oldHead = state.getCauses(index);
       final var oldVal = computeValue(oldHead);
-      final var newHead = removeCause(state, oldHead, loc, comp);
+      final var newHead = removeCause(state, oldHead, index, comp);
       final var newVal = computeValue(newHead);
       final var wireVal = state.getValueByWire(loc);
 
@@ -248,7 +236,7 @@ public class Propagator {
    * if (oscAdding) oscPoints.add(state, data.loc);
    *
    * // change the information about value SetData oldHead = (SetData)
-   * state.causes.get(data.loc); Value oldVal = computeValue(oldHead); SetData
+   * state.getCauses(data.loc); Value oldVal = computeValue(oldHead); SetData
    * newHead = addCause(state, oldHead, data); Value newVal =
    * computeValue(newHead);
    *
@@ -269,7 +257,7 @@ public class Propagator {
   public boolean propagate(Simulator.Listener propListener, Simulator.Event propEvent) {
     oscPoints.clear();
     root.processDirtyPoints();
-    root.processDirtyComponents();
+    processDirtyComponents();
 
     final var oscThreshold = simLimit;
     final var logThreshold = 3 * oscThreshold / 4;
@@ -296,13 +284,18 @@ public class Propagator {
     return iters > 0;
   }
 
-  private SetData removeCause(CircuitState state, SetData head, Location loc, Component cause) {
-    final var causes = state.causes;
+  private static boolean isLinked(SetData head, SetData data) {
+    for (var n = head; n != null; n = n.next) {
+      if (n == data) return true;
+    }
+    return false;
+  }
+
+  private SetData removeCause(CircuitState state, SetData head, int index, Component cause) {
     if (head == null) {
     } else if (head.cause == cause) {
       head = head.next;
-      if (head == null) causes.remove(loc);
-      else causes.put(loc, head);
+      state.setCauses(index, head);
     } else {
       var prev = head;
       var cur = head.next;
@@ -318,10 +311,19 @@ public class Propagator {
     return head;
   }
 
-  void reset() {
+  /** Brings the simulated circuit back to the state it had when the propagator was created. */
+  public void reset() {
+    reset(false);
+  }
+
+  /**
+   * Resets the simulated circuit as {@link #reset()} does, also dropping the contents of the
+   * non-volatile memories when {@code clearMemories}, as those of a new circuit state would be.
+   */
+  public void reset(boolean clearMemories) {
     halfClockCycles = 0;
     toProcess.clear();
-    root.reset();
+    root.reset(clearMemories);
     isOscillating = false;
   }
 
@@ -330,6 +332,7 @@ public class Propagator {
   //
   void setValue(CircuitState state, Location pt, Value val, Component cause, int delay) {
     if (cause instanceof Wire || cause instanceof Splitter) return;
+    if (parallel != null && ParallelPropagation.defer(state, pt, val, cause, delay)) return;
     if (delay <= 0) {
       delay = 1;
     }
@@ -347,7 +350,7 @@ public class Propagator {
         }
       }
     }
-    toProcess.add(new SetData(clock + delay, setDataSerialNumber, state, pt, cause, val));
+    toProcess.add(clock + delay, setDataSerialNumber, state, pt, cause, val);
     /*
      * DEBUGGING - comment out Simulator.log(clock + ": set " + pt + " in "
      * + state + " to " + val + " by " + cause + " after " + delay); //
@@ -359,7 +362,7 @@ public class Propagator {
   boolean step(PropagationPoints changedPoints) {
     oscPoints.clear();
     root.processDirtyPoints();
-    root.processDirtyComponents();
+    processDirtyComponents();
 
     if (toProcess.isEmpty()) return false;
 
@@ -376,24 +379,19 @@ public class Propagator {
     if (toProcess.isEmpty()) return;
 
     // update clock
-    clock = toProcess.peek().time;
+    clock = toProcess.advance();
 
     // propagate all values for this clock tick
-    final var visited = new HashMap<CircuitState, HashSet<ComponentPoint>>();
+    visited.clear();
     while (true) {
-      final var data = toProcess.peek();
-      if (data == null || data.time != clock) break;
-      toProcess.remove();
+      final var data = toProcess.poll(clock);
+      if (data == null) break;
       final var state = data.state;
 
       // if it's already handled for this clock tick, continue
-      var handled = visited.get(state);
-      if (handled != null) {
-        if (!handled.add(new ComponentPoint(data.cause, data.loc))) continue;
-      } else {
-        handled = new HashSet<>();
-        visited.put(state, handled);
-        handled.add(new ComponentPoint(data.cause, data.loc));
+      if (!visited.add(state, data.cause, data.loc)) {
+        toProcess.recycle(data);
+        continue;
       }
 
       /*
@@ -404,20 +402,24 @@ public class Propagator {
 
       if (changedPoints != null) changedPoints.add(state, data.loc);
 
-      // change the information about value
-      final var oldHead = state.causes.get(data.loc);
+      // change the information about value, finding the point in the state only once
+      final var index = state.getIndex(data.loc);
+      final var oldHead = state.getCauses(index);
       final var oldVal = computeValue(oldHead);
-      final var newHead = addCause(state, oldHead, data);
+      final var newHead = addCause(state, oldHead, data, index);
       final var newVal = computeValue(newHead);
 
       // if the value at point has changed, propagate it
       if (!newVal.equals(oldVal)) {
         state.markPointAsDirty(data.loc);
       }
+
+      // the event can be reused unless it was linked into the causes
+      if (!isLinked(newHead, data)) toProcess.recycle(data);
     }
 
     root.processDirtyPoints();
-    root.processDirtyComponents();
+    processDirtyComponents();
   }
 
   public boolean toggleClocks() {
@@ -430,6 +432,18 @@ public class Propagator {
     return "Prop" + id;
   }
 
+  private void processDirtyComponents() {
+    final var par = parallel;
+    if (par == null) root.processDirtyComponents();
+    else par.processDirtyComponents(root);
+  }
+
+  private void updateParallelism() {
+    final var opts = root.getProject().getOptions();
+    final var enabled = opts.getAttributeSet().getValue(Options.ATTR_SIM_PARALLEL);
+    parallel = enabled ? new ParallelPropagation(this) : null;
+  }
+
   private void updateRandomness() {
     final var opts = root.getProject().getOptions();
     final var rand = opts.getAttributeSet().getValue(Options.ATTR_SIM_RAND);
@@ -0,0 +1,139 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Calendar queue holding the pending {@link SetData} events of a {@link Propagator}.
+ *
+ * <p>Events scheduled less than {@code WHEEL_SIZE} time units ahead of the current clock are
+ * appended to the FIFO bucket of their time slot. As serial numbers are handed out in increasing
+ * order, each bucket stays sorted by (time, serialNumber) without any comparison. The rare events
+ * scheduled further ahead go into an overflow heap. Those are always older than any event of the
+ * same time sitting in the wheel, so they are drained first.
+ *
+ * <p>Event records that did not end up in a list of causes are handed back through {@link
+ * #recycle(SetData)} and reused, which keeps the simulator from allocating on every event.
+ */
+final class TimeWheel {
+  private static final int WHEEL_BITS = 10;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final int MAX_POOL_SIZE = 4096;
+
+  private final SetData[] heads = new SetData[WHEEL_SIZE];
+  private final SetData[] tails = new SetData[WHEEL_SIZE];
+  private final long[] occupied = new long[WHEEL_SIZE >> 6];
+  private final PriorityQueue<SetData> overflow = new PriorityQueue<>();
+  private int now = 0; // no pending event is scheduled before this time
+  private int inWheel = 0;
+
+  private SetData pool = null;
+  private int poolSize = 0;
+
+  /** Schedules a new event; {@code time} may not lie before the time of the last poll. */
+  void add(
+      int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
+    var data = pool;
+    if (data == null) {
+      data = new SetData(time, serialNumber, state, loc, cause, val);
+    } else {
+      pool = data.next;
+      poolSize--;
+      data.next = null;
+      data.init(time, serialNumber, state, loc, cause, val);
+    }
+    if (time - now >= WHEEL_SIZE) {
+      overflow.add(data);
+      return;
+    }
+    final var slot = time & WHEEL_MASK;
+    if (heads[slot] == null) {
+      heads[slot] = data;
+      occupied[slot >>> 6] |= 1L << slot;
+    } else {
+      tails[slot].next = data;
+    }
+    tails[slot] = data;
+    inWheel++;
+  }
+
+  void clear() {
+    Arrays.fill(heads, null);
+    Arrays.fill(tails, null);
+    Arrays.fill(occupied, 0L);
+    overflow.clear();
+    inWheel = 0;
+  }
+
+  boolean isEmpty() {
+    return inWheel == 0 && overflow.isEmpty();
+  }
+
+  /**
+   * Returns the time of the earliest pending event, and makes it the current time of the wheel. The
+   * queue may not be empty.
+   */
+  int advance() {
+    var time = 0;
+    var found = false;
+    if (inWheel > 0) {
+      final var start = now & WHEEL_MASK;
+      var word = start >>> 6;
+      var bits = occupied[word] & (-1L << start);
+      for (var i = 0; i <= occupied.length; i++) {
+        if (bits != 0) {
+          final var slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+          time = now + ((slot - start) & WHEEL_MASK);
+          found = true;
+          break;
+        }
+        word = (word + 1) % occupied.length;
+        bits = occupied[word];
+      }
+    }
+    final var first = overflow.peek();
+    if (first != null && (!found || first.time - time < 0)) time = first.time;
+    now = time;
+    return time;
+  }
+
+  /** Removes and returns the next event scheduled at {@code time}, or null if there is none. */
+  SetData poll(int time) {
+    final var first = overflow.peek();
+    if (first != null && first.time == time) return overflow.poll();
+    final var slot = time & WHEEL_MASK;
+    final var data = heads[slot];
+    if (data == null || data.time != time) return null;
+    heads[slot] = data.next;
+    if (data.next == null) {
+      tails[slot] = null;
+      occupied[slot >>> 6] &= ~(1L << slot);
+    }
+    data.next = null;
+    inWheel--;
+    return data;
+  }
+
+  /** Hands back an event that is no longer referenced by the simulator. */
+  void recycle(SetData data) {
+    if (poolSize >= MAX_POOL_SIZE) return;
+    data.init(0, 0, null, null, null, null);
+    data.next = pool;
+    pool = data;
+    poolSize++;
+  }
+}
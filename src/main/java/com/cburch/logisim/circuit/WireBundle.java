@@ -24,6 +24,9 @@ class WireBundle {
   final CopyOnWriteArraySet<Location> points = new CopyOnWriteArraySet<>(); // points
   // bundle
   // hits
+  // the points once the bundle is complete, with their numbers in the LocationIndex of its map
+  Location[] pointArray = null;
+  int[] pointIndices = null;
   private WidthIncompatibilityData incompatibilityData = null;
 
   WireBundle() {
@@ -44,6 +47,15 @@ class WireBundle {
     return ret;
   }
 
+  /** Numbers the points of the complete bundle in {@code index}, once and for all. */
+  void numberPoints(LocationIndex index) {
+    final var locs = points.toArray(new Location[0]);
+    final var indices = new int[locs.length];
+    for (var i = 0; i < locs.length; i++) indices[i] = index.add(locs[i]);
+    pointArray = locs;
+    pointIndices = indices;
+  }
+
   Value getPullValue() {
     return pullValue;
   }
@@ -13,6 +13,7 @@ import java.util.concurrent.CopyOnWriteArraySet;
 
 class WireThread {
   private WireThread parent;
+  int index = -1; // dense number within the bundle map, see CircuitWires.State
   private final CopyOnWriteArraySet<CircuitWires.ThreadBundle> bundles =
       new CopyOnWriteArraySet<>();
 
@@ -12,15 +12,16 @@ package com.cburch.logisim.data;
 import java.util.ArrayList;
 
 public abstract class AbstractAttributeSet implements Cloneable, AttributeSet {
+  // guarded by this, as the circuit states simulated on other threads also listen to a set
   private ArrayList<AttributeListener> listeners = null;
 
   @Override
-  public void addAttributeListener(AttributeListener l) {
+  public synchronized void addAttributeListener(AttributeListener l) {
     if (listeners == null) listeners = new ArrayList<>();
     listeners.add(l);
   }
 
-  public boolean amIListening(AttributeListener l) {
+  public synchronized boolean amIListening(AttributeListener l) {
     return listeners.contains(l);
   }
 
@@ -44,24 +45,30 @@ public abstract class AbstractAttributeSet implements Cloneable, AttributeSet {
   protected abstract void copyInto(AbstractAttributeSet dest);
 
   protected void fireAttributeListChanged() {
-    if (listeners != null) {
+    final var ls = copyListeners();
+    if (ls != null) {
       final var event = new AttributeEvent(this);
-      for (final var l : new ArrayList<>(listeners)) {
+      for (final var l : ls) {
         l.attributeListChanged(event);
       }
     }
   }
 
   protected <V> void fireAttributeValueChanged(Attribute<? super V> attr, V value, V oldvalue) {
-    if (listeners != null) {
+    final var ls = copyListeners();
+    if (ls != null) {
       final var event = new AttributeEvent(this, attr, value, oldvalue);
-      final var ls = new ArrayList<>(listeners);
       for (final var l : ls) {
         l.attributeValueChanged(event);
       }
     }
   }
 
+  /** Returns the listeners, copied so that they may add or remove listeners while notified. */
+  private synchronized ArrayList<AttributeListener> copyListeners() {
+    return listeners == null ? null : new ArrayList<>(listeners);
+  }
+
   @Override
   public Attribute<?> getAttribute(String name) {
     for (Attribute<?> attr : getAttributes()) {
@@ -83,7 +90,7 @@ public abstract class AbstractAttributeSet implements Cloneable, AttributeSet {
   }
 
   @Override
-  public void removeAttributeListener(AttributeListener l) {
+  public synchronized void removeAttributeListener(AttributeListener l) {
     listeners.remove(l);
     if (listeners.isEmpty()) listeners = null;
   }
@@ -10,13 +10,16 @@
 package com.cburch.logisim.data;
 
 import com.cburch.logisim.prefs.AppPreferences;
-import com.cburch.logisim.util.Cache;
 import java.awt.Color;
 import java.util.Arrays;
 
 public class Value {
 
-  private static Value create(int width, long error, long unknown, long value) {
+  /**
+   * Returns the value of the given width made of the given bits. A bit set in {@code error} is an
+   * error, else a bit set in {@code unknown} is unknown, else it is the bit of {@code value}.
+   */
+  public static Value create(int width, long error, long unknown, long value) {
     if (width == 0) {
       return Value.NIL;
     } else if (width == 1) {
@@ -30,24 +33,42 @@ public class Value {
       unknown = unknown & mask & ~error;
       value = value & mask & ~unknown & ~error;
 
-      var hashCode = width;
-      hashCode = 31 * hashCode + (int) (error ^ (error >>> 32));
-      hashCode = 31 * hashCode + (int) (unknown ^ (unknown >>> 32));
-      hashCode = 31 * hashCode + (int) (value ^ (value >>> 32));
-      Object cached = cache.get(hashCode);
-      if (cached != null) {
-        Value val = (Value) cached;
-        if (val.value == value
-            && val.width == width
-            && val.error == error
-            && val.unknown == unknown) return val;
+      if (error == 0 && unknown == 0 && width <= SMALL_WIDTH) {
+        return smallKnown[width][(int) value];
       }
-      final var ret = new Value(width, error, unknown, value);
-      cache.put(hashCode, ret);
-      return ret;
+      return intern(width, error, unknown, value);
     }
   }
 
+  /**
+   * Returns the value with the given contents from the interning table, creating it on a miss.
+   *
+   * <p>The table is 2-way set associative: a new value goes into the first slot of its set and
+   * demotes the previous occupant to the second slot. Threads simulating in parallel share the
+   * table without locking. As all fields of a value are final, a thread can only see a complete
+   * value or none. Lost updates merely cost a later miss, and every hit is checked against the
+   * requested contents.
+   */
+  private static Value intern(int width, long error, long unknown, long value) {
+    final var slot = slot(width, error, unknown, value);
+    final var first = cache[slot];
+    if (first != null && first.matches(width, error, unknown, value)) return first;
+    final var second = cache[slot + 1];
+    if (second != null && second.matches(width, error, unknown, value)) return second;
+    final var ret = new Value(width, error, unknown, value);
+    cache[slot + 1] = first;
+    cache[slot] = ret;
+    return ret;
+  }
+
+  /** Returns the first slot of the set of the interning table holding the given contents. */
+  static int slot(int width, long error, long unknown, long value) {
+    var h = value * 0x9E3779B97F4A7C15L + unknown * 0xC2B2AE3D27D4EB4FL;
+    h += error * 0x165667B19E3779F9L + width;
+    h = (h ^ (h >>> 29)) * 0xBF58476D1CE4E5B9L;
+    return (int) (h ^ (h >>> 32)) & cacheMask;
+  }
+
   public static Value create(Value[] values) {
     if (values.length == 0) return NIL;
     if (values.length == 1) return values[0];
@@ -201,7 +222,29 @@ public class Value {
   public static Color widthErrorCaptionBgcolor = new Color(AppPreferences.WIDTH_ERROR_BACKGROUND_COLOR.get());
   public static Color clockFrequencyColor = new Color(AppPreferences.CLOCK_FREQUENCY_COLOR.get());
 
-  private static final Cache cache = new Cache();
+  /**
+   * Log2 of the number of entries of the interning table, which can be set through the {@code
+   * logisim.valueCacheBits} system property.
+   */
+  private static final int CACHE_BITS =
+      Math.max(8, Math.min(24, Integer.getInteger("logisim.valueCacheBits", 14)));
+
+  private static final Value[] cache = new Value[1 << CACHE_BITS];
+  private static final int cacheMask = cache.length - 2; // first slot of a set
+
+  /** Fully defined values up to this width are all created up front. */
+  private static final int SMALL_WIDTH = 8;
+
+  private static final Value[][] smallKnown = new Value[SMALL_WIDTH + 1][];
+
+  static {
+    for (var width = 2; width <= SMALL_WIDTH; width++) {
+      smallKnown[width] = new Value[1 << width];
+      for (var value = 0; value < smallKnown[width].length; value++) {
+        smallKnown[width][value] = new Value(width, 0, 0, value);
+      }
+    }
+  }
 
   private final int width;
 
@@ -290,6 +333,13 @@ public class Value {
         && this.unknown == (other.unknown | this.unknown));
   }
 
+  private boolean matches(int width, long error, long unknown, long value) {
+    return this.value == value
+        && this.width == width
+        && this.error == error
+        && this.unknown == unknown;
+  }
+
   @Override
   public boolean equals(Object otherObj) {
     return (otherObj instanceof Value other)
@@ -353,6 +403,21 @@ public class Value {
     return width;
   }
 
+  /** Returns the bits which are errors, as given to {@link #create(int, long, long, long)}. */
+  public long getErrorBits() {
+    return error;
+  }
+
+  /** Returns the bits which are unknown, as given to {@link #create(int, long, long, long)}. */
+  public long getUnknownBits() {
+    return unknown;
+  }
+
+  /** Returns the bits which are one, as given to {@link #create(int, long, long, long)}. */
+  public long getValueBits() {
+    return value;
+  }
+
   @Override
   public int hashCode() {
     var ret = width;
@@ -22,23 +22,36 @@ public class Options {
       new AttributeOption("ignore", S.getter("gateUndefinedIgnore"));
   public static final AttributeOption GATE_UNDEFINED_ERROR =
       new AttributeOption("error", S.getter("gateUndefinedError"));
+  public static final AttributeOption SIM_ENGINE_EVENT =
+      new AttributeOption("event", S.getter("simEngineEvent"));
+  public static final AttributeOption SIM_ENGINE_COMPILED =
+      new AttributeOption("compiled", S.getter("simEngineCompiled"));
 
   public static final Attribute<Integer> ATTR_SIM_LIMIT =
       Attributes.forInteger("simlimit", S.getter("simLimitOption"));
   public static final Attribute<Integer> ATTR_SIM_RAND =
       Attributes.forInteger("simrand", S.getter("simRandomOption"));
+  public static final Attribute<Boolean> ATTR_SIM_PARALLEL =
+      Attributes.forBoolean("simparallel", S.getter("simParallelOption"));
   public static final Attribute<AttributeOption> ATTR_GATE_UNDEFINED =
       Attributes.forOption(
           "gateUndefined",
           S.getter("gateUndefinedOption"),
           new AttributeOption[] {GATE_UNDEFINED_IGNORE, GATE_UNDEFINED_ERROR});
+  public static final Attribute<AttributeOption> ATTR_SIM_ENGINE =
+      Attributes.forOption(
+          "simengine",
+          S.getter("simEngineOption"),
+          new AttributeOption[] {SIM_ENGINE_EVENT, SIM_ENGINE_COMPILED});
 
   public static final Integer SIM_RAND_DFLT = 32;
 
   private static final Attribute<?>[] ATTRIBUTES = {
-    ATTR_GATE_UNDEFINED, ATTR_SIM_LIMIT, ATTR_SIM_RAND
+    ATTR_GATE_UNDEFINED, ATTR_SIM_LIMIT, ATTR_SIM_RAND, ATTR_SIM_PARALLEL, ATTR_SIM_ENGINE
+  };
+  private static final Object[] DEFAULTS = {
+    GATE_UNDEFINED_IGNORE, 1000, 0, false, SIM_ENGINE_EVENT
   };
-  private static final Object[] DEFAULTS = {GATE_UNDEFINED_IGNORE, 1000, 0};
 
   private final AttributeSet attrs;
   private final MouseMappings mmappings;
@@ -29,14 +29,18 @@ import com.cburch.logisim.std.wiring.Clock;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.std.wiring.Probe;
 import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.util.ParallelTasks;
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 public class Netlist {
 
@@ -228,8 +232,15 @@ public class Netlist {
     final var labels = new HashMap<String, Component>();
     final var drc = new ArrayList<SimpleDrcContainer>();
 
-    // if we are the toplevel component we clear the complete netlist
-    if (isTopLevel) clear();
+    // if we are the toplevel component we clear the complete netlist and check all sheets below
+    // us, so that the walk down the tree below only finds sheets that already passed
+    if (isTopLevel) {
+      clear();
+      if (!subCircuitsPassDrc(sheetNames)) {
+        drcStatus = DRC_REQUIRED;
+        return DRC_ERROR;
+      }
+    }
 
     // if we already have good drc results we can leave
     if (drcStatus == DRC_PASSED) return DRC_PASSED;
@@ -245,13 +256,15 @@ public class Netlist {
       Reporter.report.addFatalError(S.get("EmptyNamedSheet"));
       drcStatus |= DRC_ERROR;
     }
-    if (sheetNames.contains(myCircuit.getName())) {
-      // in the current implementation of logisim this should never
-      // happen, but we leave it in
-      Reporter.report.addFatalError(S.get("MultipleSheetSameName", myCircuit.getName()));
-      drcStatus |= DRC_ERROR;
-    } else {
-      sheetNames.add(myCircuit.getName());
+    synchronized (sheetNames) {
+      if (sheetNames.contains(myCircuit.getName())) {
+        // in the current implementation of logisim this should never
+        // happen, but we leave it in
+        Reporter.report.addFatalError(S.get("MultipleSheetSameName", myCircuit.getName()));
+        drcStatus |= DRC_ERROR;
+      } else {
+        sheetNames.add(myCircuit.getName());
+      }
     }
     // we have to go down the tree to build first all subcircuits
     final var handledCircuits = new ArrayList<Circuit>();
@@ -493,6 +506,39 @@ public class Netlist {
     return drcStatus;
   }
 
+  /**
+   * Checks all sheets below this one, deepest first. The sheets of one level do not depend on each
+   * other and are checked concurrently; a level is only started once all levels below it passed.
+   */
+  private boolean subCircuitsPassDrc(ArrayList<String> sheetNames) {
+    final var heights = new LinkedHashMap<Circuit, Integer>();
+    final var myHeight = getSheetHeight(myCircuit, heights);
+    for (var height = 0; height < myHeight; height++) {
+      final var checks = new ArrayList<Callable<Boolean>>();
+      for (final var sheet : heights.entrySet()) {
+        if (sheet.getValue() != height) continue;
+        final var netlist = sheet.getKey().getNetList();
+        checks.add(() -> netlist.designRuleCheckResult(false, sheetNames) == DRC_PASSED);
+      }
+      if (!ParallelTasks.runAll("DesignRuleCheck", checks)) return false;
+    }
+    return true;
+  }
+
+  /** Returns the length of the longest path from the given sheet down to a leaf sheet. */
+  private static int getSheetHeight(Circuit circuit, Map<Circuit, Integer> heights) {
+    final var known = heights.get(circuit);
+    if (known != null) return known;
+    var height = 0;
+    for (final var comp : circuit.getNonWires()) {
+      if (comp.getFactory() instanceof SubcircuitFactory factory) {
+        height = Math.max(height, getSheetHeight(factory.getSubcircuit(), heights) + 1);
+      }
+    }
+    heights.put(circuit, height);
+    return height;
+  }
+
   private boolean detectClockTree() {
     // First pass, we remove all information of previously detected clock-trees.
     final var clockSources = myClockInformation.getSourceContainer();
@@ -567,10 +613,12 @@ public class Netlist {
     wires.addAll(myCircuit.getWires());
     // FIRST PASS: In this pass we take all wire segments and see if they
     // are connected to other segments. If they are connected we build a net.
-    while (wires.size() != 0) {
-      final var newNet = new Net();
-      getNet(null, newNet);
-      if (!newNet.isEmpty()) myNets.add(newNet);
+    myNets.addAll(getWireNets(wires));
+    wires.clear();
+    // until the tunnels are merged, every point belongs to at most one net
+    final var netAt = new HashMap<Location, Net>();
+    for (final var net : myNets) {
+      for (final var loc : net.getPoints()) netAt.put(loc, net);
     }
     // Here we start to detect direct input-output component connections, read we detect "hidden"
     // nets
@@ -631,10 +679,8 @@ public class Netlist {
         }
         /* Here we are going to mark the bitwidths on the nets */
         final var width = end.getWidth().getWidth();
-        final var loc = end.getLocation();
-        for (final var thisNet : myNets) {
-          if (thisNet.contains(loc) && !thisNet.setWidth(width)) drc.get(1).addMarkComponents(thisNet.getWires());
-        }
+        final var thisNet = netAt.get(end.getLocation());
+        if (thisNet != null && !thisNet.setWidth(width)) drc.get(1).addMarkComponents(thisNet.getWires());
       }
     }
     for (final var simpleDRCContainer : drc) {
@@ -662,14 +708,12 @@ public class Netlist {
         final var loc = end.getLocation();
         if (points.containsKey(loc)) {
           /* Found a connection already used */
-          var newNet = true;
-          for (final var net : myNets) {
-            if (net.contains(loc)) newNet = false;
-          }
-          if (newNet) {
+          if (!netAt.containsKey(loc)) {
             final var bitWidth = points.get(loc);
             if (bitWidth == end.getWidth().getWidth()) {
-              myNets.add(new Net(loc, bitWidth));
+              final var net = new Net(loc, bitWidth);
+              myNets.add(net);
+              netAt.put(loc, net);
             } else {
               drc.get(0).addMarkComponent(comp);
             }
@@ -696,11 +740,10 @@ public class Netlist {
     for (final var comp : tunnelList) {
       final var ends = comp.getEnds();
       for (final var end : ends) {
-        for (final var thisNet : myNets) {
-          if (thisNet.contains(end.getLocation())) {
-            thisNet.addTunnel(comp.getAttributeSet().getValue(StdAttr.LABEL));
-            areTunnelsPresent = true;
-          }
+        final var thisNet = netAt.get(end.getLocation());
+        if (thisNet != null) {
+          thisNet.addTunnel(comp.getAttributeSet().getValue(StdAttr.LABEL));
+          areTunnelsPresent = true;
         }
       }
     }
@@ -1252,24 +1295,45 @@ public class Netlist {
     return components;
   }
 
-  private void getNet(Wire wire, Net thisNet) {
-    final var myIterator = wires.iterator();
-    final var matchedWires = new ArrayList<Wire>();
-    var compWire = wire;
-    while (myIterator.hasNext()) {
-      final var thisWire = myIterator.next();
-      if (compWire == null) {
-        compWire = thisWire;
-        thisNet.add(thisWire);
-        myIterator.remove();
-      } else if (thisWire.sharesEnd(compWire)) {
-        matchedWires.add(thisWire);
-        thisNet.add(thisWire);
-        myIterator.remove();
-      }
-    }
-    for (final var matched : matchedWires) getNet(matched, thisNet);
-    matchedWires.clear();
+  /**
+   * Groups the wire segments into nets, two segments being in the same net when they share an end.
+   * The ends are numbered and merged in a union-find forest, so this takes linear time in the
+   * number of segments. The nets come in the order of the first of their segments in {@code wires}.
+   */
+  static List<Net> getWireNets(Collection<Wire> wires) {
+    final var pointIds = new HashMap<Location, Integer>();
+    final var parent = new int[2 * wires.size()];
+    for (var i = 0; i < parent.length; i++) parent[i] = i;
+    for (final var wire : wires) {
+      final var id0 = pointIds.computeIfAbsent(wire.getEnd0(), loc -> pointIds.size());
+      final var id1 = pointIds.computeIfAbsent(wire.getEnd1(), loc -> pointIds.size());
+      final var root0 = findRoot(parent, id0);
+      final var root1 = findRoot(parent, id1);
+      if (root0 != root1) parent[root1] = root0;
+    }
+    final var nets = new HashMap<Integer, Net>();
+    final var ret = new ArrayList<Net>();
+    for (final var wire : wires) {
+      final var net =
+          nets.computeIfAbsent(
+              findRoot(parent, pointIds.get(wire.getEnd0())),
+              root -> {
+                final var newNet = new Net();
+                ret.add(newNet);
+                return newNet;
+              });
+      net.add(wire);
+    }
+    return ret;
+  }
+
+  private static int findRoot(int[] parent, int id) {
+    while (parent[id] != id) {
+      // path halving keeps the trees flat
+      parent[id] = parent[parent[id]];
+      id = parent[id];
+    }
+    return id;
   }
 
   public Integer getNetId(Net selectedNet) {
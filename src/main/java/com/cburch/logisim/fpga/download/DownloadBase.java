@@ -11,6 +11,7 @@ package com.cburch.logisim.fpga.download;
 
 import static com.cburch.logisim.fpga.Strings.S;
 
+import com.cburch.logisim.circuit.CircuitHdlGeneratorFactory;
 import com.cburch.logisim.fpga.data.BoardInformation;
 import com.cburch.logisim.fpga.data.IoComponentTypes;
 import com.cburch.logisim.fpga.data.LedArrayDriving;
@@ -18,6 +19,7 @@ import com.cburch.logisim.fpga.data.MappableResourcesContainer;
 import com.cburch.logisim.fpga.designrulecheck.CorrectLabel;
 import com.cburch.logisim.fpga.designrulecheck.Netlist;
 import com.cburch.logisim.fpga.file.FileWriter;
+import com.cburch.logisim.fpga.file.HdlCache;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.fpga.hdlgenerator.HdlGeneratorFactory;
@@ -145,7 +147,9 @@ public abstract class DownloadBase {
     }
     final var projectDir = getProjDir(selectedCircuit);
     final var rootSheet = myProject.getLogisimFile().getCircuit(selectedCircuit);
-    if (!cleanDirectory(projectDir)) {
+    // the files of the previous export that are still up to date are kept as they are
+    final var hdlCache = new HdlCache(projectDir);
+    if (!cleanDirectory(projectDir, hdlCache)) {
       Reporter.report.addFatalError(
           "Unable to cleanup old project files in directory: \"" + projectDir + "\"");
       return false;
@@ -163,12 +167,14 @@ public abstract class DownloadBase {
     }
 
     final var generatedHDLComponents = new HashSet<String>();
-    var worker = rootSheet.getSubcircuitFactory().getHDLGenerator(rootSheet.getStaticAttributes());
-    if (worker == null) {
+    final var generator =
+        rootSheet.getSubcircuitFactory().getHDLGenerator(rootSheet.getStaticAttributes());
+    if (!(generator instanceof CircuitHdlGeneratorFactory circuitWorker)) {
       Reporter.report.addFatalError("Internal error on HDL generation, null pointer exception");
       return false;
     }
-    if (!worker.generateAllHDLDescriptions(generatedHDLComponents, projectDir, null)) {
+    if (!circuitWorker.generateAllHDLDescriptions(
+        generatedHDLComponents, projectDir, null, false, hdlCache)) {
       return false;
     }
     /* Here we generate the top-level shell */
@@ -221,7 +227,7 @@ public abstract class DownloadBase {
     if (top.hasLedArray()) {
       for (var type : LedArrayDriving.DRIVING_STRINGS) {
         if (top.hasLedArrayType(type)) {
-          worker = LedArrayGenericHdlGeneratorFactory.getSpecificHDLGenerator(type);
+          final var worker = LedArrayGenericHdlGeneratorFactory.getSpecificHDLGenerator(type);
           final var name = LedArrayGenericHdlGeneratorFactory.getSpecificHDLName(type);
           if (worker != null && name != null) {
             if (!Hdl.writeEntity(
@@ -247,11 +253,15 @@ public abstract class DownloadBase {
         ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME)) {
       return false;
     }
-    return Hdl.writeArchitecture(
+    if (!Hdl.writeArchitecture(
         projectDir + top.getRelativeDirectory(),
         top.getArchitecture(
             rootSheet.getNetList(), null, ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME),
-        ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME);
+        ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME)) {
+      return false;
+    }
+    hdlCache.save();
+    return true;
   }
 
   protected boolean genDirectory(String dirPath) {
@@ -303,18 +313,19 @@ public abstract class DownloadBase {
     return base + HDLPaths[identifier] + File.separator;
   }
 
-  private boolean cleanDirectory(String dir) {
+  private boolean cleanDirectory(String dir, HdlCache hdlCache) {
     try {
       final var thisDir = new File(dir);
       if (!thisDir.exists()) return true;
       for (var theFiles : thisDir.listFiles()) {
         if (theFiles.isDirectory()) {
-          if (!cleanDirectory(theFiles.getPath())) return false;
-        } else {
+          if (!cleanDirectory(theFiles.getPath(), hdlCache)) return false;
+        } else if (!hdlCache.isUnchanged(theFiles) && !hdlCache.isRecord(theFiles)) {
           if (!theFiles.delete()) return false;
         }
       }
-      return thisDir.delete();
+      // a directory still holding files kept for reuse stays
+      return thisDir.delete() || thisDir.list().length > 0;
     } catch (Exception e) {
       Reporter.report.addFatalError("Could not remove directory tree :" + dir);
       return false;
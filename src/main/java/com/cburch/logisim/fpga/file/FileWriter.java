@@ -14,8 +14,10 @@ import static com.cburch.logisim.fpga.Strings.S;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.generated.BuildInfo;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,23 +26,31 @@ public class FileWriter {
   public static final String ENTITY_EXTENSION = "_entity";
   public static final String ARCHITECTURE_EXTENSION = "_behavior";
 
+  /** Returns the file holding the entity or the architecture of a component in the current HDL. */
+  public static File getHdlFile(String targetDirectory, String componentName, boolean isEntity) {
+    final var fileName = new StringBuilder();
+    fileName.append(targetDirectory);
+    if (!targetDirectory.endsWith(File.separator)) fileName.append(File.separator);
+    fileName.append(componentName);
+    if (isEntity && Hdl.isVhdl()) fileName.append(ENTITY_EXTENSION);
+    if (!isEntity && Hdl.isVhdl()) fileName.append(ARCHITECTURE_EXTENSION);
+    fileName.append(Hdl.isVhdl() ? ".vhd" : ".v");
+    return new File(fileName.toString());
+  }
+
   public static File getFilePointer(
       String targetDirectory, String componentName, boolean isEntity) {
     final var fileName = new StringBuilder();
     try {
       final var outDir = new File(targetDirectory);
       if (!outDir.exists()) {
-        if (!outDir.mkdirs()) {
+        // another generator may create the same directory at the same time
+        if (!outDir.mkdirs() && !outDir.isDirectory()) {
           return null;
         }
       }
-      fileName.append(targetDirectory);
-      if (!targetDirectory.endsWith(File.separator)) fileName.append(File.separator);
-      fileName.append(componentName);
-      if (isEntity && Hdl.isVhdl()) fileName.append(ENTITY_EXTENSION);
-      if (!isEntity && Hdl.isVhdl()) fileName.append(ARCHITECTURE_EXTENSION);
-      fileName.append(Hdl.isVhdl() ? ".vhd" : ".v");
-      final var outFile = new File(fileName.toString());
+      final var outFile = getHdlFile(targetDirectory, componentName, isEntity);
+      fileName.append(outFile.getPath());
       Reporter.report.addInfo(S.fmt("fileCreateHDLFile", fileName.toString()));
       if (outFile.exists()) {
         Reporter.report.addWarning(S.fmt("fileHDLFileExists", fileName.toString()));
@@ -58,7 +68,8 @@ public class FileWriter {
     try {
       final var outDir = new File(targetDirectory);
       if (!outDir.exists()) {
-        if (!outDir.mkdirs()) {
+        // another generator may create the same directory at the same time
+        if (!outDir.mkdirs() && !outDir.isDirectory()) {
           return null;
         }
       }
@@ -133,17 +144,14 @@ public class FileWriter {
     return lines;
   }
 
-  public static boolean writeContents(File outfile, List<String> contents) {
-    try {
-      final var output = new FileOutputStream(outfile);
-      for (var thisLine : contents) {
-        if (!thisLine.isEmpty()) {
-          output.write(thisLine.getBytes());
-        }
-        output.write("\n".getBytes());
+  public static boolean writeContents(File outfile, Iterable<String> contents) {
+    // the lines are streamed through a buffer rather than written one by one
+    try (final var output =
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outfile)), 1 << 16)) {
+      for (final var thisLine : contents) {
+        output.write(thisLine);
+        output.write('\n');
       }
-      output.flush();
-      output.close();
       return true;
     } catch (Exception e) {
       Reporter.report.addFatalError(S.fmt("fileUnableToWrite", outfile.getAbsolutePath()));
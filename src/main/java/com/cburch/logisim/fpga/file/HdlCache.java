@@ -0,0 +1,219 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.file;
+
+import static com.cburch.logisim.fpga.Strings.S;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.SubcircuitFactory;
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.fpga.gui.Reporter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers from what the HDL files of an FPGA project were generated, so that an export only
+ * rewrites the files whose sources changed. The other files are left alone, modification time
+ * included, which lets the synthesis tools rebuild incrementally as well.
+ *
+ * <p>Each generated file is recorded with a key, a hash of everything its contents depend on, and
+ * with its length and modification time, so that a file edited or removed by hand is generated
+ * again. The record is kept in {@link #CACHE_FILE_NAME} in the project directory.
+ */
+public class HdlCache {
+
+  public static final String CACHE_FILE_NAME = "hdl_cache.txt";
+
+  private record Entry(String key, long length, long lastModified) {
+    boolean matches(File file) {
+      return file.isFile() && file.length() == length && file.lastModified() == lastModified;
+    }
+  }
+
+  private final File cacheFile;
+  /* the files of the previous export, by path */
+  private final Map<String, Entry> previous = new HashMap<>();
+  /* the files of this export, generated or reused */
+  private final Map<String, Entry> current = new ConcurrentHashMap<>();
+  private final Map<Circuit, String> circuitHashes = new HashMap<>();
+
+  /** Reads the record of the previous export in the given project directory, if there is one. */
+  public HdlCache(String projectDirectory) {
+    cacheFile = new File(projectDirectory, CACHE_FILE_NAME);
+    if (!cacheFile.isFile()) return;
+    try (BufferedReader reader = Files.newBufferedReader(cacheFile.toPath())) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        final var fields = line.split("\t");
+        if (fields.length != 4) continue;
+        previous.put(
+            fields[3],
+            new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+      }
+    } catch (IOException | NumberFormatException e) {
+      // an unreadable record only costs a full regeneration
+      previous.clear();
+    }
+  }
+
+  /**
+   * Returns whether the file is the untouched output of the previous export, and hence may be
+   * kept when the project directory is cleaned up.
+   */
+  public boolean isUnchanged(File file) {
+    final var entry = previous.get(file.getPath());
+    return entry != null && entry.matches(file);
+  }
+
+  /** Returns whether the file is the record of the exports, which cleaning up must not remove. */
+  public boolean isRecord(File file) {
+    return file.getAbsoluteFile().equals(cacheFile.getAbsoluteFile());
+  }
+
+  /**
+   * Returns whether the files were generated by the previous export with the given key and were
+   * not touched since, in which case they are kept as they are. Otherwise their old versions are
+   * removed, so that they can be written again.
+   */
+  public boolean reuse(String key, List<File> files) {
+    var reusable = true;
+    for (final var file : files) {
+      final var entry = previous.get(file.getPath());
+      reusable &= entry != null && entry.key.equals(key) && entry.matches(file);
+    }
+    if (reusable) {
+      for (final var file : files) current.put(file.getPath(), previous.get(file.getPath()));
+      return true;
+    }
+    for (final var file : files) {
+      if (previous.containsKey(file.getPath()) && !current.containsKey(file.getPath())) {
+        file.delete();
+      }
+    }
+    return false;
+  }
+
+  /** Records the files just generated with the given key. */
+  public void put(String key, List<File> files) {
+    for (final var file : files) {
+      current.put(file.getPath(), new Entry(key, file.length(), file.lastModified()));
+    }
+  }
+
+  /**
+   * Removes the files kept from the previous export which this export did not use, and writes the
+   * record of this export.
+   */
+  public boolean save() {
+    for (final var path : previous.keySet()) {
+      final var file = new File(path);
+      if (!current.containsKey(path) && isUnchanged(file)) file.delete();
+    }
+    final var paths = new ArrayList<>(current.keySet());
+    Collections.sort(paths);
+    try (BufferedWriter writer = Files.newBufferedWriter(cacheFile.toPath())) {
+      for (final var path : paths) {
+        final var entry = current.get(path);
+        writer.write(
+            String.join(
+                "\t",
+                entry.key,
+                Long.toString(entry.length),
+                Long.toString(entry.lastModified),
+                path));
+        writer.write('\n');
+      }
+      return true;
+    } catch (IOException e) {
+      Reporter.report.addWarning(S.fmt("fileUnableToWrite", cacheFile.getAbsolutePath()));
+      return false;
+    }
+  }
+
+  /**
+   * Returns a hash of the circuit: of its attributes, of its components with their locations and
+   * attributes, of its wires, and of the same for all the circuits it contains.
+   */
+  public synchronized String getCircuitHash(Circuit circuit) {
+    var hash = circuitHashes.get(circuit);
+    if (hash != null) return hash;
+    final var lines = new ArrayList<String>();
+    for (final var comp : circuit.getNonWires()) {
+      var line =
+          comp.getFactory().getClass().getName()
+              + ' '
+              + comp.getFactory().getName()
+              + ' '
+              + comp.getLocation()
+              + ' '
+              + describe(comp.getAttributeSet());
+      if (comp.getFactory() instanceof SubcircuitFactory sub) {
+        line += ' ' + getCircuitHash(sub.getSubcircuit());
+      }
+      lines.add(line);
+    }
+    for (final var wire : circuit.getWires()) {
+      lines.add(wire.getEnd0() + "-" + wire.getEnd1());
+    }
+    // the components are kept in sets, whose order may differ from one session to the next
+    Collections.sort(lines);
+    lines.add(0, describe(circuit.getStaticAttributes()));
+    hash = getKey(lines);
+    circuitHashes.put(circuit, hash);
+    return hash;
+  }
+
+  /** Returns the values of all attributes, the way they are saved in a project file. */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static String describe(AttributeSet attrs) {
+    if (attrs == null) return "";
+    final var description = new StringBuilder();
+    for (final Attribute attr : attrs.getAttributes()) {
+      final var value = attrs.getValue(attr);
+      description
+          .append(attr.getName())
+          .append('=')
+          .append(value == null ? "" : attr.toStandardString(value))
+          .append('\n');
+    }
+    return description.toString();
+  }
+
+  /** Returns a SHA-256 hash of the given parts, as a hexadecimal string. */
+  public static String getKey(Iterable<String> parts) {
+    try {
+      final var digest = MessageDigest.getInstance("SHA-256");
+      for (final var part : parts) {
+        digest.update(part.getBytes(StandardCharsets.UTF_8));
+        // a separator keeps ("ab", "c") apart from ("a", "bc")
+        digest.update((byte) 0);
+      }
+      final var key = new StringBuilder();
+      for (final var b : digest.digest()) key.append(String.format("%02x", b));
+      return key.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to provide SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
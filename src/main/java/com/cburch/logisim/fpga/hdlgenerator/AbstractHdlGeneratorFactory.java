@@ -36,6 +36,9 @@ public class AbstractHdlGeneratorFactory implements HdlGeneratorFactory {
   protected final HdlWires myWires = new HdlWires();
   protected final HdlPorts myPorts = new HdlPorts();
   protected final HdlTypes myTypedWires = new HdlTypes();
+  /* when set, the wires and ports are rebuilt for every use, which is why the methods using them
+   * are synchronized: the generators are shared by all instances of a component, and the HDL of
+   * different circuits is written concurrently */
   protected boolean getWiresPortsDuringHDLWriting = false;
 
   public AbstractHdlGeneratorFactory() {
@@ -62,7 +65,7 @@ public class AbstractHdlGeneratorFactory implements HdlGeneratorFactory {
   }
 
   @Override
-  public List<String> getArchitecture(Netlist theNetlist, AttributeSet attrs, String componentName) {
+  public synchronized List<String> getArchitecture(Netlist theNetlist, AttributeSet attrs, String componentName) {
     final var contents = LineBuffer.getHdlBuffer();
     if (getWiresPortsDuringHDLWriting) {
       myWires.removeWires();
@@ -362,7 +365,7 @@ public class AbstractHdlGeneratorFactory implements HdlGeneratorFactory {
     return LineBuffer.getHdlBuffer();
   }
 
-  public Map<String, String> getPortMap(Netlist nets, Object mapInfo) {
+  public synchronized Map<String, String> getPortMap(Netlist nets, Object mapInfo) {
     final var result = new TreeMap<String, String>();
     if ((mapInfo instanceof netlistComponent componentInfo) && !myPorts.isEmpty()) {
       final var compName = componentInfo.getComponent().getFactory().getDisplayName();
@@ -446,7 +449,7 @@ public class AbstractHdlGeneratorFactory implements HdlGeneratorFactory {
     return directoryName.toString();
   }
 
-  private List<String> getVHDLBlackBox(Netlist theNetlist, AttributeSet attrs,
+  private synchronized List<String> getVHDLBlackBox(Netlist theNetlist, AttributeSet attrs,
       String componentName, Boolean isEntity) {
     final var contents = LineBuffer.getHdlBuffer().addVhdlKeywords();
     var maxNameLength = 0;
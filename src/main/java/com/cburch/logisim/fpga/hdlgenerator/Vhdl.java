@@ -1,7 +1,10 @@
 package com.cburch.logisim.fpga.hdlgenerator;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -120,6 +123,23 @@ public class Vhdl {
     return keywords;
   }
 
+  private static final Map<String, String> LOWER_CASE_KEYWORD_PAIRS = getKeywordPairs(false);
+  private static final Map<String, String> UPPER_CASE_KEYWORD_PAIRS = getKeywordPairs(true);
+
+  private static Map<String, String> getKeywordPairs(boolean upperCase) {
+    final var pairs = new HashMap<String, String>();
+    for (final var keyword : VHDL_KEYWORDS)
+      pairs.put(keyword.toLowerCase(), upperCase ? keyword.toUpperCase() : keyword);
+    return Collections.unmodifiableMap(pairs);
+  }
+
+  /** Returns the keywords, by their lower case form, as the preferences want them written. */
+  public static Map<String, String> getVhdlKeywordPairs() {
+    return AppPreferences.VhdlKeywordsUpperCase.get()
+        ? UPPER_CASE_KEYWORD_PAIRS
+        : LOWER_CASE_KEYWORD_PAIRS;
+  }
+
   public static String getVhdlKeyword(String keyword) {
     final var spaceStrippedKeyword = keyword.replace(" ", "").toLowerCase();
     if (VHDL_KEYWORDS.contains(spaceStrippedKeyword))
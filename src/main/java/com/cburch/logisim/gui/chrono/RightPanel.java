@@ -434,9 +434,38 @@ public class RightPanel extends JPanel {
       var prevLo = false;
       Color prevFill = null;
       while (cur.value != null) {
-        final var v = cur.getFormattedValue();
         final var x0 = (int) (z * (cur.time - t0));
         final var x1 = (int) (z * (cur.time + cur.duration - t0));
+        if (x1 == x0) {
+          // several samples share this pixel, draw them all at once
+          final var t = Math.max(cur.time + 1, t0 + (long) Math.ceil((x0 + 1) / z));
+          final var kinds = cur.skip(t);
+          final var hi = (kinds & ~Signal.LOW) != 0;
+          final var lo = (kinds & ~Signal.HIGH) != 0;
+          Color lineColor;
+          Color fillColor;
+          if ((kinds & Signal.ERROR) != 0) {
+            fillColor = colors[3];
+            lineColor = colors[4];
+          } else if ((kinds & Signal.UNKNOWN) != 0) {
+            fillColor = colors[5];
+            lineColor = colors[6];
+          } else {
+            fillColor = colors[1];
+            lineColor = colors[2];
+          }
+          if (hi) {
+            g.setColor(fillColor);
+            g.fillRect(x0, HIGH, 1, LOW - HIGH + 1);
+          }
+          g.setColor(lineColor);
+          g.drawLine(x0, HIGH, x0, LOW);
+          prevHi = hi;
+          prevLo = lo;
+          prevFill = fillColor;
+          continue;
+        }
+        final var v = cur.getFormattedValue();
 
         var hi = true;
         var lo = true;
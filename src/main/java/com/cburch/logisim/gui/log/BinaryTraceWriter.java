@@ -0,0 +1,91 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import com.cburch.logisim.data.Value;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a trace in a compact binary form, a few bytes per change. All numbers are unsigned
+ * LEB128 varints. The file starts with the eight bytes {@code LGTRACE1}, the scope and the number
+ * of signals, followed by the width and the name of each signal, strings being written as their
+ * length and their UTF-8 bytes. Then come records, each one starting with a code:
+ *
+ * <ul>
+ *   <li>0, then the time elapsed since the previous time record, or since zero;
+ *   <li>1, a simulator reset;
+ *   <li>{@code 2 + 2 * index}, a change of the signal at that index to a fully known value,
+ *       followed by the value;
+ *   <li>{@code 3 + 2 * index}, a change to any other value, followed by its value, unknown and
+ *       error bits.
+ * </ul>
+ */
+class BinaryTraceWriter extends TraceWriter {
+
+  static final byte[] MAGIC = "LGTRACE1".getBytes(StandardCharsets.US_ASCII);
+
+  private long time;
+
+  BinaryTraceWriter(File file) throws IOException {
+    super(file);
+  }
+
+  private void writeNumber(long n) throws IOException {
+    while ((n & ~0x7fL) != 0) {
+      out.write((int) (n & 0x7f) | 0x80);
+      n >>>= 7;
+    }
+    out.write((int) n);
+  }
+
+  private void writeString(String s) throws IOException {
+    final var bytes = s.getBytes(StandardCharsets.UTF_8);
+    writeNumber(bytes.length);
+    out.write(bytes);
+  }
+
+  @Override
+  protected void writeHeader(String scope, String[] names, int[] widths) throws IOException {
+    out.write(MAGIC);
+    writeString(scope);
+    writeNumber(names.length);
+    for (var i = 0; i < names.length; i++) {
+      writeNumber(widths[i]);
+      writeString(names[i]);
+    }
+  }
+
+  @Override
+  protected void writeTime(long time) throws IOException {
+    writeNumber(0);
+    writeNumber(time - this.time);
+    this.time = time;
+  }
+
+  @Override
+  protected void writeChange(int index, Value value) throws IOException {
+    if (value.getUnknownBits() == 0 && value.getErrorBits() == 0) {
+      writeNumber(2 + 2L * index);
+      writeNumber(value.getValueBits());
+    } else {
+      writeNumber(3 + 2L * index);
+      writeNumber(value.getValueBits());
+      writeNumber(value.getUnknownBits());
+      writeNumber(value.getErrorBits());
+    }
+  }
+
+  @Override
+  protected void writeReset() throws IOException {
+    writeNumber(1);
+  }
+}
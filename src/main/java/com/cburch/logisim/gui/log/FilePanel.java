@@ -18,6 +18,7 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import javax.swing.JButton;
@@ -26,6 +27,7 @@ import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.filechooser.FileFilter;
 
 class FilePanel extends LogPanel {
   private static final long serialVersionUID = 1L;
@@ -37,12 +39,18 @@ class FilePanel extends LogPanel {
   private final JButton selectButton = new JButton();
   private final JCheckBox headerCheckBox = new JCheckBox();
   private final JFileChooser chooser = JFileChoosers.create();
+  private final TraceFilter vcdFilter =
+      new TraceFilter(TraceWriter.VCD_EXTENSION, "fileVcdFilter");
+  private final TraceFilter binaryFilter =
+      new TraceFilter(TraceWriter.BINARY_EXTENSION, "fileBinaryTraceFilter");
 
   public FilePanel(LogFrame frame) {
     super(frame);
 
     chooser.addChoosableFileFilter(chooser.getAcceptAllFileFilter());
     chooser.addChoosableFileFilter(TestVector.FILE_FILTER);
+    chooser.addChoosableFileFilter(vcdFilter);
+    chooser.addChoosableFileFilter(binaryFilter);
     chooser.setFileFilter(TestVector.FILE_FILTER);
 
     final var filePanel = new JPanel(new GridBagLayout());
@@ -140,7 +148,10 @@ class FilePanel extends LogPanel {
       } else if (src == selectButton) {
         final var result = chooser.showSaveDialog(getLogFrame());
         if (result != JFileChooser.APPROVE_OPTION) return;
-        final var file = chooser.getSelectedFile();
+        var file = chooser.getSelectedFile();
+        if (chooser.getFileFilter() instanceof TraceFilter filter && !filter.accept(file)) {
+          file = new File(file.getPath() + filter.extension);
+        }
         if (file.exists() && (!file.canWrite() || file.isDirectory())) {
           OptionPane.showMessageDialog(
               getLogFrame(),
@@ -150,9 +161,11 @@ class FilePanel extends LogPanel {
           return;
         }
         if (file.exists() && file.length() > 0) {
-          final String[] options = {
+          String[] options = {
             S.get("fileOverwriteOption"), S.get("fileAppendOption"), S.get("fileCancelOption"),
           };
+          // a trace cannot be appended to
+          if (TraceWriter.isTraceFile(file)) options = new String[] {options[0], options[2]};
           final var option =
               OptionPane.showOptionDialog(
                   getLogFrame(),
@@ -169,7 +182,7 @@ class FilePanel extends LogPanel {
               delete.close();
             } catch (IOException ignored) {
             }
-          } else if (option == 1) {
+          } else if (option == 1 && options.length == 3) {
             // do nothing
           } else {
             return;
@@ -203,4 +216,24 @@ class FilePanel extends LogPanel {
       headerCheckBox.setSelected(model.getFileHeader());
     }
   }
+
+  private static class TraceFilter extends FileFilter {
+    final String extension;
+    final String description;
+
+    TraceFilter(String extension, String description) {
+      this.extension = extension;
+      this.description = description;
+    }
+
+    @Override
+    public boolean accept(File f) {
+      return f.isDirectory() || f.getName().toLowerCase().endsWith(extension);
+    }
+
+    @Override
+    public String getDescription() {
+      return S.get(description);
+    }
+  }
 }
@@ -0,0 +1,99 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * A temporary file holding the older samples of the signals of a {@link Model}, so that an
+ * unlimited history does not have to fit in memory. The file is mapped in large segments, from
+ * which each {@link Signal} takes a buffer for each chunk of samples it puts aside; the operating
+ * system then decides which of them stay in memory.
+ *
+ * <p>Space is never reused. The file is deleted once it is no longer used by the model, the
+ * buffers already handed out staying readable.
+ */
+final class HistoryFile {
+
+  private static final int SEGMENT_SIZE = 1 << 26;
+  private static final Cleaner cleaner = Cleaner.create();
+
+  private final Path path;
+  private final FileChannel channel;
+  private final Cleaner.Cleanable cleanable;
+  private final ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+  private int segmentUsed; // bytes handed out from the last segment
+
+  HistoryFile() throws IOException {
+    path = Files.createTempFile("logisim-history", ".bin");
+    path.toFile().deleteOnExit();
+    final var open =
+        FileChannel.open(
+            path,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.DELETE_ON_CLOSE);
+    channel = open;
+    cleanable =
+        cleaner.register(
+            this,
+            () -> {
+              try {
+                open.close();
+              } catch (IOException e) {
+                // the file goes when the application exits
+              }
+            });
+  }
+
+  Path getPath() {
+    return path;
+  }
+
+  boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  /** Returns the number of bytes handed out so far. */
+  synchronized long getUsed() {
+    return segments.isEmpty() ? 0 : (long) (segments.size() - 1) * SEGMENT_SIZE + segmentUsed;
+  }
+
+  /**
+   * Closes and deletes the file, without waiting for it to be collected. The buffers handed out
+   * stay readable, as a mapping outlives its channel, but no more can be allocated.
+   */
+  void close() {
+    cleanable.clean();
+  }
+
+  /** Returns a new buffer of the given size, at most that of a segment, backed by the file. */
+  synchronized ByteBuffer allocate(int size) throws IOException {
+    if (!channel.isOpen()) throw new ClosedChannelException();
+    if (segments.isEmpty() || segmentUsed + size > SEGMENT_SIZE) {
+      final var start = (long) segments.size() * SEGMENT_SIZE;
+      segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE));
+      segmentUsed = 0;
+    }
+    final var buffer = segments.get(segments.size() - 1).duplicate();
+    buffer.position(segmentUsed).limit(segmentUsed + size);
+    segmentUsed += size;
+    return buffer.slice();
+  }
+}
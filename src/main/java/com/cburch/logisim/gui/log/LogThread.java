@@ -9,19 +9,29 @@
 
 package com.cburch.logisim.gui.log;
 
+import com.cburch.logisim.data.Value;
 import com.cburch.logisim.util.UniquelyNamedThread;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class LogThread extends UniquelyNamedThread implements Model.Listener {
+  private static final Logger loggerS = LoggerFactory.getLogger(LogThread.class);
+
   // file will be flushed with at least this frequency (ms)
   private static final int FLUSH_FREQUENCY = 500;
 
   // file will be closed after waiting this long between writes (ms)
   private static final int IDLE_UNTIL_CLOSE = 10000;
 
+  // a trace is written as soon as this many changes are waiting
+  static final int TRACE_BATCH = 1 << 16;
+
   private final Model model;
   private final Object lock = new Object();
   private boolean canceled = false;
@@ -30,7 +40,14 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
   private boolean headerDirty = true;
   private long lastWrite = 0;
   private long timeNextWrite = 0; // done writing up to this time, exclusive
-  private final HashMap<Signal, Signal.Iterator> cursors = new HashMap<>();
+
+  // for a trace, instead of writer: the signals traced, those selected when it started
+  private TraceWriter trace = null;
+  private Signal[] traced;
+  private long[] traceCounts; // change counts of the traced signals when last looked at
+  private Value[] traceValues; // values last submitted
+  private long traceFrom; // start of the last samples looked at
+  private long timeOffset; // trace time at the last simulator reset
 
   public LogThread(Model model) {
     super("LogThread");
@@ -40,6 +57,10 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
 
   // precondition: lock held and writing()==true
   private void writeSignals() {
+    if (TraceWriter.isTraceFile(model.getFile())) {
+      traceSignals();
+      return;
+    }
     if (writer == null) {
       try {
         writer = new PrintWriter(new FileWriter(model.getFile(), true));
@@ -65,14 +86,10 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
       }
       headerDirty = false;
     }
+    // cursors are not kept from one write to the next, their last sample may have grown since
     Signal.Iterator[] cur = new Signal.Iterator[model.getSignalCount()];
     for (int i = 0; i < model.getSignalCount(); i++) {
-      final var s = model.getSignal(i);
-      cur[i] = cursors.get(s);
-      if (cur[i] == null) {
-        cur[i] = s.new Iterator(timeNextWrite);
-        cursors.put(s, cur[i]);
-      }
+      cur[i] = model.getSignal(i).new Iterator(timeNextWrite);
     }
     long timeStop = model.getEndTime();
     while (timeNextWrite < timeStop) {
@@ -91,6 +108,64 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
     lastWrite = System.currentTimeMillis();
   }
 
+  // precondition: lock held and writing()==true
+  private void traceSignals() {
+    if (trace == null) {
+      final var signals = model.getSignals();
+      try {
+        trace = TraceWriter.create(model.getFile(), model.getCircuit().getName(), signals);
+      } catch (IOException e) {
+        loggerS.error("Cannot write trace {}: {}", model.getFile(), e.getMessage());
+        model.setFile(null);
+        return;
+      }
+      traced = signals.toArray(new Signal[0]);
+      traceCounts = new long[traced.length];
+      traceValues = new Value[traced.length];
+      restartTrace();
+    }
+    final var timeStop = model.getEndTime();
+    if (timeStop > timeNextWrite) {
+      traceFrom = timeNextWrite;
+      timeNextWrite = timeStop;
+    } // else the last samples were replaced, look at them again
+    final var changes = new ArrayList<TraceWriter.Change>();
+    for (var i = 0; i < traced.length; i++) {
+      final var s = traced[i];
+      if (s.getChangeCount() == traceCounts[i]) continue;
+      traceCounts[i] = s.getChangeCount();
+      final var cur = s.new Iterator(traceFrom);
+      while (cur.value != null) {
+        if (!cur.value.equals(traceValues[i])) {
+          changes.add(new TraceWriter.Change(timeOffset + cur.time, i, cur.value));
+          traceValues[i] = cur.value;
+        }
+        if (!cur.advance()) break;
+      }
+    }
+    // at most one sample per signal when simulating, already in order
+    changes.sort(Comparator.comparingLong(TraceWriter.Change::time));
+    if (!changes.isEmpty() && trace.submit(changes) >= TRACE_BATCH) lock.notifyAll();
+  }
+
+  // precondition: lock held and trace != null
+  private void restartTrace() {
+    Arrays.fill(traceCounts, -1);
+    Arrays.fill(traceValues, null);
+    timeNextWrite = traceFrom = model.getStartTime();
+  }
+
+  // precondition: lock held
+  private void closeTrace() {
+    if (trace == null) return;
+    try {
+      trace.close();
+    } catch (IOException e) {
+      loggerS.error("Cannot write trace {}: {}", model.getFile(), e.getMessage());
+    }
+    trace = null;
+  }
+
   public void cancel() {
     synchronized (lock) {
       canceled = true;
@@ -98,6 +173,8 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
         writer.close();
         writer = null;
       }
+      closeTrace();
+      lock.notifyAll();
     }
   }
 
@@ -105,8 +182,12 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
   public void signalsReset(Model.Event event) {
     synchronized (lock) {
       if (writing()) {
+        if (trace != null) {
+          timeOffset += timeNextWrite;
+          trace.submitReset();
+          restartTrace();
+        }
         timeNextWrite = 0;
-        cursors.clear();
         writeSignals();
       }
     }
@@ -123,12 +204,14 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
   public void filePropertyChanged(Model.Event event) {
     synchronized (lock) {
       if (writing()) {
-        if (writer == null) writeSignals();
+        if (trace != null && trace.getFile() != model.getFile()) closeTrace();
+        if (writer == null && trace == null) writeSignals();
       } else {
         if (writer != null) {
           writer.close();
           writer = null;
         }
+        closeTrace();
       }
     }
   }
@@ -140,6 +223,7 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
   @Override
   public void run() {
     while (!canceled) {
+      TraceWriter t;
       synchronized (lock) {
         if (writer != null) {
           if (System.currentTimeMillis() - lastWrite > IDLE_UNTIL_CLOSE) {
@@ -149,10 +233,25 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
             writer.flush();
           }
         }
+        t = trace;
       }
-      try {
-        Thread.sleep(FLUSH_FREQUENCY);
-      } catch (InterruptedException ignored) {
+      // a trace stays open, it cannot be appended to, and is written without the lock held so as
+      // not to hold up the simulation
+      if (t != null) {
+        try {
+          t.write();
+        } catch (IOException e) {
+          loggerS.error("Cannot write trace {}: {}", t.getFile(), e.getMessage());
+          synchronized (lock) {
+            if (trace == t) model.setFile(null);
+          }
+        }
+      }
+      synchronized (lock) {
+        try {
+          if (!canceled) lock.wait(FLUSH_FREQUENCY);
+        } catch (InterruptedException ignored) {
+        }
       }
     }
     synchronized (lock) {
@@ -160,13 +259,13 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
         writer.close();
         writer = null;
       }
+      closeTrace();
     }
   }
 
   @Override
   public void selectionChanged(Model.Event event) {
     synchronized (lock) {
-      cursors.keySet().retainAll(model.getSignals()); // removes dead cursors
       headerDirty = true;
     }
   }
@@ -23,13 +23,18 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.EventSourceWeakSupport;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Model implements CircuitListener, SignalInfo.Listener {
 
+  private static final Logger loggerS = LoggerFactory.getLogger(Model.class);
+
   public static final int STEP = 10;
   public static final int REAL = 20;
   private static final int CLOCKED = 30; // above this are all clocked modes
@@ -91,6 +96,8 @@ public class Model implements CircuitListener, SignalInfo.Listener {
   private long timeScale = 5000;
   private long gateDelay = 200;
   private int historyLimit = 400;
+  private boolean historyOnDisk = false;
+  private HistoryFile historyFile = null; // only while the history is kept on disk
   private long elapsedSinceTrigger;
   private long lastRealtimeUpdate;
 
@@ -144,7 +151,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     long duration = captureContinuous() ? gateDelay : timeScale;
     for (int i = 0; i < info.size(); i++) {
       SignalInfo item = info.get(i);
-      signals.add(new Signal(i, item, item.fetchValue(circuitState), duration, 0, historyLimit));
+      signals.add(makeSignal(i, item, duration, 0));
     }
     timeEnd = duration;
 
@@ -163,9 +170,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
       int i = info.indexOf(item);
       if (i < 0) {
         info.add(idx, item); // put new item at idx
-        signals.add(
-            idx,
-            new Signal(idx, item, item.fetchValue(circuitState), 1, timeEnd - 1, historyLimit));
+        signals.add(idx, makeSignal(idx, item, 1, timeEnd - 1));
         idx++;
       } else if (i > idx) {
         info.add(idx, info.remove(i)); // move later item up
@@ -198,6 +203,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
         info.add(idx, item.info); // put new item at idx
         // bring signal into sync with others
         item.resize(historyLimit);
+        item.setHistoryFile(historyFile);
         long d = item.getEndTime();
         if (d < newEnd) {
           item.extend(newEnd - d);
@@ -344,9 +350,45 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     if (historyLimit == limit) return;
     historyLimit = limit;
     for (Signal s : signals) s.resize(historyLimit);
+    updateHistoryFile();
+    fireHistoryLimitChanged(null);
+  }
+
+  public boolean isHistoryOnDisk() {
+    return historyOnDisk;
+  }
+
+  /** Sets whether the older values of an unlimited history are kept in a temporary file. */
+  public void setHistoryOnDisk(boolean value) {
+    if (historyOnDisk == value) return;
+    historyOnDisk = value;
+    updateHistoryFile();
     fireHistoryLimitChanged(null);
   }
 
+  private void updateHistoryFile() {
+    if (historyOnDisk && historyLimit == 0) {
+      if (historyFile == null) {
+        try {
+          historyFile = new HistoryFile();
+        } catch (IOException e) {
+          loggerS.warn("Cannot create a file for the history: {}", e.getMessage());
+        }
+      }
+    } else if (historyFile != null) {
+      historyFile.close();
+      historyFile = null;
+    }
+    for (Signal s : signals) s.setHistoryFile(historyFile);
+  }
+
+  private Signal makeSignal(int idx, SignalInfo item, long duration, long timeStart) {
+    final var s =
+        new Signal(idx, item, item.fetchValue(circuitState), duration, timeStart, historyLimit);
+    s.setHistoryFile(historyFile);
+    return s;
+  }
+
   public void setStepMode(boolean fine, long t, long d) {
     int g = fine ? FINE : COARSE;
     if (mode == STEP && granularity == g && timeScale == t && gateDelay == d) return;
@@ -397,15 +439,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
       // Add the clock as a courtesy, even though this is not required.
       if (!info.contains(clockSource)) {
         info.add(0, clockSource); // put it at the top of the list
-        signals.add(
-            0,
-            new Signal(
-                0,
-                clockSource,
-                clockSource.fetchValue(circuitState),
-                1,
-                timeEnd - 1,
-                historyLimit));
+        signals.add(0, makeSignal(0, clockSource, 1, timeEnd - 1));
         clockSource.setListener(this);
         fireSelectionChanged(null);
       }
@@ -455,7 +489,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     if (idx >= 0) return signals.get(idx);
     idx = info.size();
     info.add(item);
-    Signal s = new Signal(idx, item, item.fetchValue(circuitState), 1, timeEnd - 1, historyLimit);
+    Signal s = makeSignal(idx, item, 1, timeEnd - 1);
     signals.add(idx, s);
     item.setListener(this);
     if (fireUpdate) fireSelectionChanged(null);
@@ -707,8 +741,15 @@ public class Model implements CircuitListener, SignalInfo.Listener {
       Value v = s.info.fetchValue(circuitState);
       s.reset(v, duration);
     }
+    if (historyFile != null) {
+      // start over with an empty file
+      historyFile.close();
+      historyFile = null;
+      updateHistoryFile();
+    }
     elapsedSinceTrigger += duration;
     timeEnd = duration;
+    fireSignalsReset(null);
   }
 
   public void setFile(File value) {
@@ -117,6 +117,7 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
   final JLabel clockTicks = new JLabel();
 
   final JCheckBox unlimited = new JCheckBox();
+  final JCheckBox onDisk = new JCheckBox();
   final JSpinner limit = new JSpinner();
   final JLabel limitLabel = new JLabel();
 
@@ -199,6 +200,8 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
     limit.setEditor(new JSpinner.NumberEditor(limit, "####"));
     limit.setMaximumSize(limit.getPreferredSize());
     unlimited.setAlignmentX(0.0f);
+    onDisk.setAlignmentX(0.0f);
+    onDisk.setBorder(BorderFactory.createEmptyBorder(0, 18, 0, 0));
     Box limitBox = new Box(BoxLayout.X_AXIS);
     limitBox.add(limitLabel);
     limitBox.add(Box.createRigidArea(new Dimension(6, 0)));
@@ -206,6 +209,7 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
     limitBox.setAlignmentX(0.0f);
     historyPanel.add(Box.createRigidArea(new Dimension(0, 5)));
     historyPanel.add(unlimited);
+    historyPanel.add(onDisk);
     historyPanel.add(Box.createRigidArea(new Dimension(0, 5)));
     historyPanel.add(limitBox);
     historyPanel.add(Box.createVerticalGlue());
@@ -261,6 +265,7 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
     add(pane, BorderLayout.CENTER);
 
     unlimited.addActionListener(this);
+    onDisk.addActionListener(this);
     limit.addChangeListener(this);
     stepTime.addActionListener(this);
     realTime.addActionListener(this);
@@ -325,6 +330,7 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
   public void stateChanged(ChangeEvent e) {
     final var m = getLogFrame().getModel();
     limit.setEnabled(!unlimited.isSelected());
+    onDisk.setEnabled(unlimited.isSelected());
     if (unlimited.isSelected()) {
       m.setHistoryLimit(0);
     } else {
@@ -351,6 +357,8 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
     final var m = getLogFrame().getModel();
     if (e.getSource() == unlimited) {
       stateChanged(null);
+    } else if (e.getSource() == onDisk) {
+      m.setHistoryOnDisk(onDisk.isSelected());
     } else if (e.getSource() == clockSrcButton) {
       doClockSourceDialog();
     } else {
@@ -571,6 +579,7 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
     clockFine.setText(S.get("fineDetail"));
 
     unlimited.setText(S.get("historyUnlimited"));
+    onDisk.setText(S.get("historyOnDisk"));
     limitLabel.setText(S.get("historyLimit"));
 
     clockSrcLabel.setText(S.get("clockSourceLabel"));
@@ -586,6 +595,7 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
 
   void updateDescription() {
     limit.setEnabled(!unlimited.isSelected());
+    onDisk.setEnabled(unlimited.isSelected());
     String mode;
     String d;
     if (stepTime.isSelected()) {
@@ -673,6 +683,7 @@ class OptionsPanel extends LogPanel implements ActionListener, ChangeListener, M
     updateDescription();
     final var n = newModel.getHistoryLimit();
     unlimited.setSelected(n == 0);
+    onDisk.setSelected(newModel.isHistoryOnDisk());
     if (n > 0) limit.setValue(n);
     final var clockSource = newModel.getClockSourceInfo();
     if (clockSource == null) {
@@ -14,58 +14,458 @@ import com.cburch.logisim.data.Value;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Signal {
 
-  private static final int CHUNK = 512;
+  private static final Logger logger = LoggerFactory.getLogger(Signal.class);
+  private static final int CHUNK = 1024;
+  private static final int GROUP = 16; // samples or chunks summed up by one activity entry
+
+  // The kinds of values a sample may hold, as drawn by a chronogram. The activity of a range of
+  // samples is the union of their kinds, which tells how to draw them when they share a pixel.
+  public static final int ERROR = 1;
+  public static final int UNKNOWN = 2;
+  public static final int LOW = 4; // all bits zero
+  public static final int HIGH = 8; // all bits one
+  public static final int OTHER = 16;
 
   // Signal position in list, name, etc.
   public int idx;
   public final SignalInfo info;
 
   // Signal data
-  private long timeStart;
-  private Value[][] val; // values, in blocks no larger than CHUNK
-  private Value last;
-  private long[][] dur; // duration of each value
+  private final ArrayList<Chunk> chunks = new ArrayList<>(); // samples, CHUNK per chunk
+  private int firstIndex; // index of the oldest sample in the first chunk
   private int curSize;
   private int maxSize; // limit, or zero for unlimited
-  private short firstIndex; // for wrapping, only when limited
+  private long timeStart;
+  private long timeEnd;
+  private HistoryFile historyFile; // where older chunks go, or null to keep them in memory
+  // activity of each run of GROUP chunks, of each run of GROUP such runs, and so on, the runs
+  // being aligned on all chunks ever recorded; a level is added once the top one has two runs
+  private byte[][] chunkRuns = {new byte[4]};
+  private int chunksDropped; // chunks removed from the front since the last reset
+  private long changeCount; // samples added or replaced, for writers following the signal
+
+  /**
+   * Up to {@link #CHUNK} consecutive samples, stored by column. The start time of a sample is an
+   * offset from the start time of the chunk, held in an int unless the chunk spans too long a
+   * time. Each bit of a value takes two bits, {@code lo = value | error} and {@code hi = unknown |
+   * error}, and all values of the chunk are packed in fields of {@code 2 * slot} bits, {@code slot}
+   * being the smallest power of two fitting the widest of them.
+   *
+   * <p>The activity of each group of {@link #GROUP} samples and of the whole chunk stays in memory
+   * even when the chunk is put aside, so that a long range of samples is summed up without
+   * reading them.
+   */
+  private abstract static class Chunk {
+    final long base;
+    int size;
+    int slot = 1;
+    byte[] groups;
+    int activity;
+
+    Chunk(long base) {
+      this.base = base;
+    }
+
+    abstract long time(int i);
+
+    abstract long word(int j);
+
+    long lo(int i) {
+      if (slot == 64) return word(2 * i);
+      final var pos = 2 * slot * i;
+      return (word(pos >>> 6) >>> (pos & 63)) & ((1L << slot) - 1);
+    }
+
+    long hi(int i) {
+      if (slot == 64) return word(2 * i + 1);
+      final var pos = 2 * slot * i + slot;
+      return (word(pos >>> 6) >>> (pos & 63)) & ((1L << slot) - 1);
+    }
+
+    void mark(int i, int kind) {
+      groups[i / GROUP] |= kind;
+      activity |= kind;
+    }
+
+    static int words(int samples, int slot) {
+      return (2 * slot * samples + 63) / 64;
+    }
+  }
+
+  /** The chunks being recorded, and all of them unless the history is kept on disk. */
+  private static final class MemoryChunk extends Chunk {
+    private int[] offsets = new int[16];
+    private long[] wideOffsets; // replaces offsets once an offset does not fit an int
+    private long[] bits = new long[1];
+
+    MemoryChunk(long base) {
+      super(base);
+      groups = new byte[CHUNK / GROUP];
+    }
+
+    MemoryChunk(SpilledChunk chunk) {
+      super(chunk.base);
+      size = chunk.size;
+      slot = chunk.slot;
+      groups = chunk.groups;
+      activity = chunk.activity;
+      offsets = new int[CHUNK];
+      bits = new long[words(CHUNK, slot)];
+      for (var i = 0; i < size; i++) setTime(i, chunk.time(i));
+      for (var j = 0; j < words(size, slot); j++) bits[j] = chunk.word(j);
+    }
+
+    int capacity() {
+      return wideOffsets == null ? offsets.length : wideOffsets.length;
+    }
+
+    @Override
+    long time(int i) {
+      return base + (wideOffsets == null ? offsets[i] : wideOffsets[i]);
+    }
+
+    @Override
+    long word(int j) {
+      return bits[j];
+    }
+
+    void setTime(int i, long t) {
+      final var offset = t - base;
+      if (wideOffsets == null) {
+        if (offset == (int) offset) {
+          offsets[i] = (int) offset;
+          return;
+        }
+        wideOffsets = new long[offsets.length];
+        for (var j = 0; j < offsets.length; j++) wideOffsets[j] = offsets[j];
+        offsets = null;
+      }
+      wideOffsets[i] = offset;
+    }
+
+    void set(int i, long lo, long hi) {
+      final var width = 64 - Long.numberOfLeadingZeros(lo | hi);
+      if (width > slot) widen(width);
+      if (slot == 64) {
+        bits[2 * i] = lo;
+        bits[2 * i + 1] = hi;
+        return;
+      }
+      final var pos = 2 * slot * i;
+      final var mask = slot == 32 ? -1L : (1L << (2 * slot)) - 1;
+      final var word = pos >>> 6;
+      bits[word] = (bits[word] & ~(mask << (pos & 63))) | ((lo | hi << slot) << (pos & 63));
+    }
+
+    void add(long t, long lo, long hi) {
+      if (size == capacity()) {
+        final var cap = Math.min(CHUNK, 2 * size);
+        if (wideOffsets == null) offsets = Arrays.copyOf(offsets, cap);
+        else wideOffsets = Arrays.copyOf(wideOffsets, cap);
+        bits = Arrays.copyOf(bits, words(cap, slot));
+      }
+      size++;
+      setTime(size - 1, t);
+      set(size - 1, lo, hi);
+    }
+
+    private void widen(int width) {
+      final var lo = new long[size];
+      final var hi = new long[size];
+      for (var i = 0; i < size; i++) {
+        lo[i] = lo(i);
+        hi[i] = hi(i);
+      }
+      while (slot < width) slot *= 2;
+      bits = new long[words(capacity(), slot)];
+      for (var i = 0; i < size; i++) set(i, lo[i], hi[i]);
+    }
+
+    SpilledChunk spill(HistoryFile file) throws IOException {
+      final var offsetSize = wideOffsets == null ? Integer.BYTES : Long.BYTES;
+      final var words = words(size, slot);
+      final var data = file.allocate(size * offsetSize + words * Long.BYTES);
+      for (var i = 0; i < size; i++) {
+        if (wideOffsets == null) data.putInt(offsets[i]);
+        else data.putLong(wideOffsets[i]);
+      }
+      for (var j = 0; j < words; j++) data.putLong(bits[j]);
+      return new SpilledChunk(this, data, offsetSize);
+    }
+  }
+
+  /**
+   * A full chunk put aside in a {@link HistoryFile}: the offsets of the chunk, as ints or longs,
+   * followed by its packed values.
+   */
+  private static final class SpilledChunk extends Chunk {
+    private final ByteBuffer data;
+    private final int offsetSize;
+    private final int bitsStart;
+
+    SpilledChunk(MemoryChunk chunk, ByteBuffer data, int offsetSize) {
+      super(chunk.base);
+      size = chunk.size;
+      slot = chunk.slot;
+      groups = chunk.groups;
+      activity = chunk.activity;
+      this.data = data;
+      this.offsetSize = offsetSize;
+      bitsStart = size * offsetSize;
+    }
+
+    @Override
+    long time(int i) {
+      final var at = i * offsetSize;
+      return base + (offsetSize == Integer.BYTES ? data.getInt(at) : data.getLong(at));
+    }
+
+    @Override
+    long word(int j) {
+      return data.getLong(bitsStart + j * Long.BYTES);
+    }
+  }
 
   public Signal(
       int idx, SignalInfo info, Value initialValue, long duration, long timeStart, int maxSize) {
     this.idx = idx;
     this.info = info;
     this.timeStart = timeStart;
+    this.timeEnd = timeStart;
     this.maxSize = maxSize;
-    this.val = new Value[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.dur = new long[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.curSize = 0;
-    this.firstIndex = 0;
     extend(initialValue, duration);
   }
 
+  /**
+   * Sets the file where full chunks are put aside from now on, except for the most recent ones, or
+   * null to keep them in memory.
+   */
+  void setHistoryFile(HistoryFile file) {
+    historyFile = file;
+    if (file != null) {
+      for (var c = 0; c < chunks.size() - 2; c++) spill(c);
+    }
+  }
+
+  private void spill(int c) {
+    if (!(chunks.get(c) instanceof MemoryChunk chunk)) return;
+    try {
+      chunks.set(c, chunk.spill(historyFile));
+    } catch (IOException e) {
+      logger.warn("Cannot keep the history of {} on disk: {}", info, e.getMessage());
+      historyFile = null;
+    }
+  }
+
+  // the chunk being recorded, taken back from the history file if it was put aside
+  private MemoryChunk lastChunk() {
+    final var c = chunks.size() - 1;
+    if (chunks.get(c) instanceof SpilledChunk chunk) chunks.set(c, new MemoryChunk(chunk));
+    return (MemoryChunk) chunks.get(c);
+  }
+
+  private Chunk chunkOf(int p) {
+    return chunks.get((firstIndex + p) / CHUNK);
+  }
+
+  private long timeOf(int p) {
+    return chunkOf(p).time((firstIndex + p) % CHUNK);
+  }
+
+  private long endTimeOf(int p) {
+    return p == curSize - 1 ? timeEnd : timeOf(p + 1);
+  }
+
+  private Value valueOf(int p) { // always current width, even when width changes
+    final var chunk = chunkOf(p);
+    final var i = (firstIndex + p) % CHUNK;
+    final var lo = chunk.lo(i);
+    final var hi = chunk.hi(i);
+    return Value.create(info.getWidth(), lo & hi, hi & ~lo, lo & ~hi);
+  }
+
+  private boolean isValueOf(int p, long lo, long hi) {
+    final var chunk = chunkOf(p);
+    final var i = (firstIndex + p) % CHUNK;
+    return chunk.lo(i) == lo && chunk.hi(i) == hi;
+  }
+
+  private int kindOf(long lo, long hi) {
+    if ((lo & hi) != 0) return ERROR;
+    if (hi != 0) return UNKNOWN;
+    if (lo == 0) return LOW;
+    final var width = info.getWidth();
+    return lo == (width == 64 ? -1L : (1L << width) - 1) ? HIGH : OTHER;
+  }
+
+  private int kindOf(int p) {
+    final var chunk = chunkOf(p);
+    final var i = (firstIndex + p) % CHUNK;
+    return kindOf(chunk.lo(i), chunk.hi(i));
+  }
+
+  // number of chunks in a run of the given level
+  private static long runLength(int level) {
+    var ret = (long) GROUP;
+    for (var l = 0; l < level; l++) ret *= GROUP;
+    return ret;
+  }
+
+  // index of the run of the given level holding chunk c
+  private int runOf(int level, int c) {
+    final var len = runLength(level);
+    return (int) ((c + chunksDropped) / len - chunksDropped / len);
+  }
+
+  // index of the first chunk of the given run
+  private int firstChunkOf(int level, int run) {
+    final var len = runLength(level);
+    return (int) Math.max(0, (run + chunksDropped / len) * len - chunksDropped);
+  }
+
+  // the activity of the samples from and to the given ones, summed up by the largest groups
+  private int activity(int from, int to) {
+    var kinds = 0;
+    var i = firstIndex + from;
+    final var end = firstIndex + to + 1;
+    while (i < end) {
+      final var c = i / CHUNK;
+      final var chunk = chunks.get(c);
+      var level = i % CHUNK == 0 ? chunkRuns.length - 1 : -1;
+      while (level >= 0
+          && ((c + chunksDropped) % runLength(level) != 0
+              || i + runLength(level) * CHUNK > end)) {
+        level--;
+      }
+      if (level >= 0) {
+        kinds |= chunkRuns[level][runOf(level, c)];
+        i += (int) runLength(level) * CHUNK;
+      } else if (i % CHUNK == 0 && i + CHUNK <= end) {
+        kinds |= chunk.activity;
+        i += CHUNK;
+      } else if (i % GROUP == 0 && i + GROUP <= end) {
+        kinds |= chunk.groups[i % CHUNK / GROUP];
+        i += GROUP;
+      } else {
+        kinds |= kindOf(i - firstIndex);
+        i++;
+      }
+    }
+    return kinds;
+  }
+
+  // recomputes the activity of the last sample's groups, once it was replaced or removed
+  private void updateActivity() {
+    final var c = chunks.size() - 1;
+    if (c < 0) return;
+    final var chunk = chunks.get(c);
+    final var group = (chunk.size - 1) / GROUP;
+    Arrays.fill(chunk.groups, group, CHUNK / GROUP, (byte) 0);
+    for (var i = group * GROUP; i < chunk.size; i++) {
+      chunk.groups[group] |= kindOf(c * CHUNK + i - firstIndex);
+    }
+    chunk.activity = 0;
+    for (var g = 0; g <= group; g++) chunk.activity |= chunk.groups[g];
+    for (var level = 0; level < chunkRuns.length; level++) updateRun(level, c);
+  }
+
+  // recomputes the activity of the run of the given level holding chunk c, from the level below
+  private void updateRun(int level, int c) {
+    final var k = runOf(level, c);
+    var kinds = 0;
+    if (level == 0) {
+      for (var d = c; d >= 0 && runOf(0, d) == k; d--) kinds |= chunks.get(d).activity;
+    } else {
+      for (var j = runOf(level - 1, c); j >= 0; j--) {
+        if (runOf(level, firstChunkOf(level - 1, j)) != k) break;
+        kinds |= chunkRuns[level - 1][j];
+      }
+    }
+    chunkRuns[level][k] = (byte) kinds;
+  }
+
+  // starts the runs beginning with the new chunk c, adding a level once the top one has two runs
+  private void addRuns(int c) {
+    for (var level = 0; level < chunkRuns.length; level++) {
+      final var k = runOf(level, c);
+      if (k == chunkRuns[level].length) chunkRuns[level] = Arrays.copyOf(chunkRuns[level], 2 * k);
+      if ((c + chunksDropped) % runLength(level) == 0) chunkRuns[level][k] = 0;
+    }
+    for (var top = chunkRuns.length - 1; runOf(top, c) > 0; top++) {
+      chunkRuns = Arrays.copyOf(chunkRuns, top + 2);
+      chunkRuns[top + 1] = new byte[4];
+      for (var j = 0; j <= runOf(top, c); j++) {
+        chunkRuns[top + 1][runOf(top + 1, firstChunkOf(top, j))] |= chunkRuns[top][j];
+      }
+    }
+  }
+
+  // index of the last sample starting at or before t, t being within the data
+  private int indexOf(long t) {
+    var low = 0;
+    var high = curSize - 1;
+    while (low < high) {
+      final var mid = (low + high + 1) >>> 1;
+      if (timeOf(mid) <= t) low = mid;
+      else high = mid - 1;
+    }
+    return low;
+  }
+
+  private void removeOldest() {
+    firstIndex++;
+    curSize--;
+    if (firstIndex == CHUNK) {
+      chunks.remove(0);
+      firstIndex = 0;
+      chunksDropped++;
+      // the runs of a level only move along when those of the levels below do
+      for (var level = 0; level < chunkRuns.length; level++) {
+        if (chunksDropped % runLength(level) != 0) break;
+        final var runs = chunkRuns[level];
+        System.arraycopy(runs, 1, runs, 0, runs.length - 1);
+        runs[runs.length - 1] = 0;
+      }
+    }
+    timeStart = timeOf(0);
+  }
+
+  private void removeRecent() {
+    final var last = chunks.get(chunks.size() - 1);
+    last.size--;
+    if (last.size == 0) chunks.remove(chunks.size() - 1);
+    curSize--;
+    updateActivity();
+  }
+
+  /**
+   * Returns a count that changes whenever samples are added or replaced, but not when the last
+   * sample is only extended.
+   */
+  public long getChangeCount() {
+    return changeCount;
+  }
+
   public long omittedDataTime() {
     return curSize == maxSize ? timeStart : 0;
   }
 
   public long getEndTime() {
-    var t = timeStart;
-    for (var p = 0; p < curSize; p++) {
-      var i = (firstIndex + p) % curSize;
-      t += dur[i / CHUNK][i % CHUNK];
-    }
-    return t;
+    return timeEnd;
   }
 
   public void extend(long duration) {
-    if (last == null) {
-      timeStart += duration;
-    } else {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
-    }
+    if (curSize == 0) timeStart += duration;
+    timeEnd += duration;
   }
 
   public void extend(Value v, long duration) {
@@ -73,168 +473,83 @@ public class Signal {
       System.out.printf(
           "*** notice: value width mismatch for %s: width=%d bits, newVal=%s (%d bits)\n",
           info, info.getWidth(), v, v.getWidth());
-    if (last != null && last.equals(v)) {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
+    final var lo = v.getValueBits() | v.getErrorBits();
+    final var hi = v.getUnknownBits() | v.getErrorBits();
+    if (curSize > 0 && isValueOf(curSize - 1, lo, hi)) {
+      timeEnd += duration;
       return;
     }
-    last = v;
-    final var c = val.length;
-    final var cap = CHUNK * (c - 1) + val[c - 1].length;
-    if (curSize < cap) {
-      // fits in an existing chunk
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else if (curSize < maxSize || maxSize <= 0) {
-      // allocate another chunk
-      final var val2 = new Value[c + 1][];
-      final var dur2 = new long[c + 1][];
-      System.arraycopy(val, 0, val2, 0, c);
-      System.arraycopy(dur, 0, dur2, 0, c);
-      val2[c + 1] = new Value[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      dur2[c + 1] = new long[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      val = val2;
-      dur = dur2;
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else {
-      // limited size is filled, wrap around, and adjust start offset
-      timeStart += dur[firstIndex / CHUNK][firstIndex % CHUNK];
-      val[firstIndex / CHUNK][firstIndex % CHUNK] = v;
-      dur[firstIndex / CHUNK][firstIndex % CHUNK] = duration;
-      firstIndex++;
-      if (firstIndex >= maxSize) firstIndex = 0;
+    if (chunks.isEmpty() || chunks.get(chunks.size() - 1).size == CHUNK) {
+      chunks.add(new MemoryChunk(timeEnd));
+      // the last full chunk stays at hand, for replaceRecent
+      if (historyFile != null && chunks.size() > 2) spill(chunks.size() - 3);
+      addRuns(chunks.size() - 1);
+    }
+    final var chunk = lastChunk();
+    chunk.add(timeEnd, lo, hi);
+    final var kind = kindOf(lo, hi);
+    chunk.mark(chunk.size - 1, kind);
+    for (var level = 0; level < chunkRuns.length; level++) {
+      chunkRuns[level][runOf(level, chunks.size() - 1)] |= kind;
     }
+    curSize++;
+    changeCount++;
+    timeEnd += duration;
+    // limited size is filled, drop the oldest sample
+    if (maxSize > 0 && curSize > maxSize) removeOldest();
   }
 
   public void replaceRecent(Value v, long duration) {
-    if (last == null || curSize == 0)
+    if (curSize == 0)
       throw new IllegalStateException("signal should have at least " + duration + " ns of data");
-    final var i = (firstIndex + curSize - 1) % curSize;
-    if (dur[i / CHUNK][i % CHUNK] == duration) {
-      val[i / CHUNK][i % CHUNK] = v;
-      last = v;
-      final var j = (i + curSize - 1) % curSize;
-      if (curSize > 1 && val[j / CHUNK][j % CHUNK].equals(v)) {
-        dur[j / CHUNK][j % CHUNK] += duration;
-        curSize--;
-        // special case: last chunk is now entirely empty, must be removed
-        if (i % CHUNK == 0) {
-          int c = val.length - 1;
-          final var valueNew = new Value[c][];
-          final var durNew = new long[c][];
-          System.arraycopy(val, 0, valueNew, 0, c);
-          System.arraycopy(dur, 0, durNew, 0, c);
-          val = valueNew;
-          dur = durNew;
-        }
+    final var p = curSize - 1;
+    final var lastDuration = timeEnd - timeOf(p);
+    final var lo = v.getValueBits() | v.getErrorBits();
+    final var hi = v.getUnknownBits() | v.getErrorBits();
+    changeCount++;
+    if (lastDuration == duration) {
+      if (curSize > 1 && isValueOf(p - 1, lo, hi)) {
+        removeRecent();
+      } else {
+        lastChunk().set((firstIndex + p) % CHUNK, lo, hi);
+        updateActivity();
       }
-    } else if (dur[i / CHUNK][i % CHUNK] > duration) {
-      dur[i / CHUNK][i % CHUNK] -= duration;
+    } else if (lastDuration > duration) {
+      timeEnd -= duration;
       extend(v, duration);
-    } else if (curSize == 1 && dur[i / CHUNK][i % CHUNK] + timeStart >= duration) {
-      timeStart -= (duration - dur[i / CHUNK][i % CHUNK]);
-      val[i / CHUNK][i % CHUNK] = v;
-      dur[i / CHUNK][i % CHUNK] = duration;
-      last = v;
+    } else if (curSize == 1 && lastDuration + timeStart >= duration) {
+      timeStart -= (duration - lastDuration);
+      lastChunk().setTime((firstIndex + p) % CHUNK, timeStart);
+      lastChunk().set((firstIndex + p) % CHUNK, lo, hi);
+      updateActivity();
     } else {
       throw new IllegalStateException(
           "signal data should be at least "
               + duration
               + " ns in duration,"
               + " but only "
-              + dur[i / CHUNK][i % CHUNK]
+              + lastDuration
               + " in last signal");
     }
   }
 
-  private void retainOnly(int offset, int amt, int cap) {
-    // shift all values [from offset to offset+amt] left into new arrays
-    // of size appropriate for eventual capacity cap
-    final var c = (amt + CHUNK - 1) / CHUNK;
-    final var last = cap == 0 ? CHUNK : Math.min(CHUNK, cap - (c - 1) * CHUNK);
-    final var v = new Value[c][];
-    final var d = new long[c][];
-    for (var i = 0; i < c; i++) {
-      v[i] = new Value[i < c - 1 ? CHUNK : last];
-      d[i] = new long[i < c - 1 ? CHUNK : last];
-    }
-    for (var p = 0; p < amt; p++) {
-      int i = (firstIndex + offset + p) % curSize;
-      v[p / CHUNK][p % CHUNK] = val[i / CHUNK][i % CHUNK];
-      d[p / CHUNK][p % CHUNK] = dur[i / CHUNK][i % CHUNK];
-    }
-    val = v;
-    dur = d;
-    firstIndex = 0;
-    curSize = amt;
-  }
-
   public void resize(int newMaxSize) {
-    if (newMaxSize == maxSize) return;
-    if (newMaxSize == 0 || newMaxSize > maxSize) {
-      // growing
-      if (firstIndex != 0) retainOnly(0, curSize, newMaxSize); // keeps all data, but shifts it left
-    } else {
-      // shrinking: newMaxSize < maxSize
-      if (curSize <= newMaxSize) {
-        // Mostly empty, keep all data, but maybe truncate last chunk if needed
-        // to get capacity below new max size.
-        // Note: firstIndex must be 0, since otherwize curSize==maxSize,
-        // and that would mean curSize > newMaxSize.
-        // There are two cases:
-        //  very unfull:
-        //    cap -----------------------------------------------|
-        //    curSize --------------------------|
-        //    [ 0+ full large-chunks ] [ partly full large-chunk ] [ not yet allocated... ]
-        //  nearly full:
-        //    cap ---------------------------------------------|
-        //    curSize -------------------------|
-        //    [ 0+ full large-chunks ] [ partly full end-chunk ]
-        // In the very unfull case, we may be able to do nothing at all
-        // (if cap <= newMaxSize), or we may have to shrink that last allocated
-        // chunk (if cap > newMaxSize).
-        // In the nearly full case, cap > newMaxSize and we need to shrink the
-        // last allocated chunk.
-        final var c = val.length;
-        final var cap = CHUNK * (c - 1) + val[c - 1].length;
-        if (cap > newMaxSize) {
-          // Note: # of existing chunks (c) must be equal to # of new chunks
-          final var last = Math.min(CHUNK, newMaxSize - (c - 1) * CHUNK);
-          final var v = new Value[last];
-          final var d = new long[last];
-          System.arraycopy(val[c - 1], 0, v, 0, last);
-          System.arraycopy(dur[c - 1], 0, d, 0, last);
-          val[c - 1] = v;
-          dur[c - 1] = d;
-        }
-      } else { // curSize > newMaxSize
-        // too much data, keep only most recent data and shift it left
-        final var discard = (maxSize - newMaxSize);
-        for (var p = 0; p < discard; p++) {
-          final var i = (firstIndex + p) % curSize;
-          timeStart += dur[i / CHUNK][i % CHUNK];
-        }
-        retainOnly(discard, newMaxSize, newMaxSize);
-      }
+    // when shrinking, keep only the most recent data
+    if (newMaxSize > 0) {
+      while (curSize > newMaxSize) removeOldest();
     }
     maxSize = newMaxSize;
   }
 
   public void reset(Value v, long duration) {
-    if (val.length > 1) {
-      final var val2 = new Value[1][];
-      final var dur2 = new long[1][];
-      val2[0] = val[0];
-      dur2[0] = dur[0];
-      val = val2;
-      dur = dur2;
-    }
-    last = null;
+    chunks.clear();
     curSize = 0;
     firstIndex = 0;
+    chunksDropped = 0;
+    chunkRuns = new byte[][] {new byte[4]};
+    // the model starts over at time zero, even when older samples were dropped
+    timeStart = 0;
+    timeEnd = 0;
     extend(v, duration);
   }
 
@@ -248,15 +563,24 @@ public class Signal {
     public Iterator() {
       position = 0;
       time = timeStart;
-      final var i = firstIndex;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      value = valueOf(0);
+      duration = endTimeOf(0) - time;
     }
 
     public Iterator(long t) {
       this();
-      if (t > time) advance(t - time);
+      if (t <= time) return;
+      if (t >= timeEnd) {
+        position = curSize - 1;
+        time = timeOf(position);
+        value = null;
+        duration = 0;
+        return;
+      }
+      position = indexOf(t);
+      time = t;
+      value = valueOf(position);
+      duration = endTimeOf(position) - t;
     }
 
     public String getFormattedValue() {
@@ -271,13 +595,36 @@ public class Signal {
       }
       position++;
       time += duration;
-      final var i = (firstIndex + position) % curSize;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      value = valueOf(position);
+      duration = endTimeOf(position) - time;
       return true;
     }
 
+    /**
+     * Moves on to time t, after the current time, and returns the activity of all samples from
+     * the current time up to t, exclusive. Unlike {@link #advance(long)}, this takes a time in the
+     * order of the log of the number of samples, whatever the number passed over, which lets a
+     * chronogram draw all the samples within one pixel at once.
+     */
+    public int skip(long t) {
+      if (value == null || t <= time) return 0;
+      final var next = t >= timeEnd ? curSize : indexOf(t);
+      final var last = next < curSize && timeOf(next) == t ? next - 1 : Math.min(next, curSize - 1);
+      final var kinds = activity(position, Math.max(position, last));
+      if (next == curSize) {
+        position = curSize - 1;
+        time = timeOf(position);
+        value = null;
+        duration = 0;
+        return kinds;
+      }
+      position = next;
+      time = t;
+      value = valueOf(position);
+      duration = endTimeOf(position) - t;
+      return kinds;
+    }
+
     public boolean advance(long timeFwd) {
       if (value == null) return false;
       if (timeFwd <= 0) return true;
@@ -293,18 +640,9 @@ public class Signal {
     }
   }
 
-  // TODO: easily optimized
   public Value getValue(long t) { // always current width, even when width changes
-    if (t < timeStart) return null;
-    final var width = info.getWidth();
-    var tt = timeStart;
-    for (int p = 0; p < curSize; p++) {
-      final var i = (firstIndex + p) % curSize;
-      final var d = dur[i / CHUNK][i % CHUNK];
-      if (t < tt + d) return val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      tt += d;
-    }
-    return null;
+    if (t < timeStart || t >= timeEnd) return null;
+    return valueOf(indexOf(t));
   }
 
   public String getFormattedValue(long t) {
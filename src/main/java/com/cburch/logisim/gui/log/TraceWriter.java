@@ -0,0 +1,145 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import com.cburch.logisim.data.Value;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the changes of logged signals as a trace for external waveform viewers. The simulation
+ * thread submits the changes as they are recorded, and the log thread formats and writes them
+ * later in batches, so that tracing costs the simulation little more than the changes themselves.
+ *
+ * <p>A file named {@code *.vcd} gets a Value Change Dump, the text format of IEEE 1364 read by
+ * most viewers, and a file named {@code *.ltrace} the same changes in the compact binary form of
+ * {@link BinaryTraceWriter}. Times are in nanoseconds, and keep increasing across simulator resets.
+ */
+abstract class TraceWriter {
+
+  static final String VCD_EXTENSION = ".vcd";
+  static final String BINARY_EXTENSION = ".ltrace";
+
+  /** A change of the signal at the given index of the trace, at the given trace time. */
+  record Change(long time, int index, Value value) {}
+
+  private final File file;
+  protected final OutputStream out;
+  private ArrayList<Change> pending = new ArrayList<>();
+  private boolean reset;
+  private long time = -1;
+  private boolean closed;
+
+  protected TraceWriter(File file) throws IOException {
+    this.file = file;
+    out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  /** Returns whether the file is written as a trace rather than as a table of values. */
+  static boolean isTraceFile(File file) {
+    final var name = file.getName().toLowerCase();
+    return name.endsWith(VCD_EXTENSION) || name.endsWith(BINARY_EXTENSION);
+  }
+
+  /** Creates the file, in the format given by its name, for the signals listed. */
+  static TraceWriter create(File file, String scope, List<Signal> signals) throws IOException {
+    final var names = new String[signals.size()];
+    final var widths = new int[signals.size()];
+    for (var i = 0; i < names.length; i++) {
+      names[i] = signals.get(i).getName();
+      widths[i] = signals.get(i).getWidth();
+    }
+    final var writer =
+        file.getName().toLowerCase().endsWith(VCD_EXTENSION)
+            ? new VcdWriter(file)
+            : new BinaryTraceWriter(file);
+    try {
+      writer.writeHeader(scope, names, widths);
+    } catch (IOException e) {
+      writer.out.close();
+      throw e;
+    }
+    return writer;
+  }
+
+  /**
+   * Queues changes, in order of time and no earlier than the changes queued before, and returns
+   * the number of changes waiting to be written.
+   */
+  synchronized int submit(List<Change> changes) {
+    pending.addAll(changes);
+    return pending.size();
+  }
+
+  /** Queues a simulator reset, before the changes queued next. */
+  synchronized void submitReset() {
+    pending.add(null);
+  }
+
+  private synchronized ArrayList<Change> takePending() {
+    final var changes = pending;
+    pending = new ArrayList<>();
+    return changes;
+  }
+
+  /** Writes the changes queued so far. */
+  void write() throws IOException {
+    synchronized (out) {
+      if (closed) return;
+      for (final var change : takePending()) {
+        if (change == null) {
+          reset = true;
+          continue;
+        }
+        if (reset) {
+          writeReset();
+          reset = false;
+        }
+        if (change.time != time) {
+          writeTime(change.time);
+          time = change.time;
+        }
+        writeChange(change.index, change.value);
+      }
+      out.flush();
+    }
+  }
+
+  /** Writes the changes queued so far and closes the file. */
+  void close() throws IOException {
+    synchronized (out) {
+      if (closed) return;
+      try {
+        write();
+      } finally {
+        closed = true;
+        out.close();
+      }
+    }
+  }
+
+  protected abstract void writeHeader(String scope, String[] names, int[] widths)
+      throws IOException;
+
+  protected abstract void writeTime(long time) throws IOException;
+
+  protected abstract void writeChange(int index, Value value) throws IOException;
+
+  protected abstract void writeReset() throws IOException;
+}
@@ -0,0 +1,94 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.generated.BuildInfo;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Writes a trace as a Value Change Dump. Each signal is a wire of the top scope, named after the
+ * signal, with an identifier of one or more printable characters. Unknown bits are written as
+ * {@code z}, floating being what they mostly are in a circuit, and error bits as {@code x}.
+ */
+class VcdWriter extends TraceWriter {
+
+  private byte[][] ids;
+  private int[] widths;
+  private final StringBuilder line = new StringBuilder();
+
+  VcdWriter(File file) throws IOException {
+    super(file);
+  }
+
+  private static String getId(int index) {
+    final var id = new StringBuilder();
+    do {
+      id.append((char) ('!' + index % 94));
+      index = index / 94 - 1;
+    } while (index >= 0);
+    return id.toString();
+  }
+
+  private void print(String s) throws IOException {
+    out.write(s.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @Override
+  protected void writeHeader(String scope, String[] names, int[] widths) throws IOException {
+    this.widths = widths;
+    ids = new byte[names.length][];
+    print("$date\n  " + new Date() + "\n$end\n");
+    print("$version\n  " + BuildInfo.displayName + "\n$end\n");
+    print("$timescale 1ns $end\n");
+    print("$scope module " + scope.replaceAll("\\s", "_") + " $end\n");
+    for (var i = 0; i < names.length; i++) {
+      final var id = getId(i);
+      ids[i] = id.getBytes(StandardCharsets.US_ASCII);
+      print(
+          "$var wire " + widths[i] + " " + id + " " + names[i].replaceAll("\\s", "_") + " $end\n");
+    }
+    print("$upscope $end\n$enddefinitions $end\n");
+  }
+
+  @Override
+  protected void writeTime(long time) throws IOException {
+    out.write('#');
+    print(Long.toString(time));
+    out.write('\n');
+  }
+
+  @Override
+  protected void writeChange(int index, Value value) throws IOException {
+    final var width = widths[index];
+    final var error = value.getErrorBits();
+    final var unknown = value.getUnknownBits();
+    final var bits = value.getValueBits();
+    line.setLength(0);
+    if (width > 1) line.append('b');
+    for (var i = width - 1; i >= 0; i--) {
+      if (((error >>> i) & 1) != 0) line.append('x');
+      else if (((unknown >>> i) & 1) != 0) line.append('z');
+      else line.append(((bits >>> i) & 1) != 0 ? '1' : '0');
+    }
+    if (width > 1) line.append(' ');
+    print(line.toString());
+    out.write(ids[index]);
+    out.write('\n');
+  }
+
+  @Override
+  protected void writeReset() throws IOException {
+    print("$comment simulator reset $end\n");
+  }
+}
@@ -37,6 +37,7 @@ class SimulateOptions extends OptionsPanel {
           });
 
   private final JCheckBox simRandomness = new JCheckBox();
+  private final JCheckBox simParallel = new JCheckBox();
   private final JCheckBox memUnknown = new JCheckBox();
   private final JLabel gateUndefinedLabel = new JLabel();
 
@@ -48,6 +49,15 @@ class SimulateOptions extends OptionsPanel {
             new ComboOption(Options.GATE_UNDEFINED_ERROR)
           });
 
+  private final JLabel simEngineLabel = new JLabel();
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private final JComboBox simEngine =
+      new JComboBox(
+          new Object[] {
+            new ComboOption(Options.SIM_ENGINE_EVENT), new ComboOption(Options.SIM_ENGINE_COMPILED)
+          });
+
   public SimulateOptions(OptionsFrame window) {
     super(window);
 
@@ -61,7 +71,13 @@ class SimulateOptions extends OptionsPanel {
     gateUndefinedPanel.add(gateUndefined);
     gateUndefined.addActionListener(myListener);
 
+    final var simEnginePanel = new JPanel();
+    simEnginePanel.add(simEngineLabel);
+    simEnginePanel.add(simEngine);
+    simEngine.addActionListener(myListener);
+
     simRandomness.addActionListener(myListener);
+    simParallel.addActionListener(myListener);
 
     memUnknown.addActionListener(myListener);
     memUnknown.setSelected(AppPreferences.Memory_Startup_Unknown.get());
@@ -71,12 +87,16 @@ class SimulateOptions extends OptionsPanel {
     add(simLimitPanel);
     add(gateUndefinedPanel);
     add(simRandomness);
+    add(simParallel);
+    add(simEnginePanel);
 
     window.getOptions().getAttributeSet().addAttributeListener(myListener);
     final var attrs = getOptions().getAttributeSet();
     myListener.loadSimLimit(attrs.getValue(Options.ATTR_SIM_LIMIT));
     myListener.loadGateUndefined(attrs.getValue(Options.ATTR_GATE_UNDEFINED));
     myListener.loadSimRandomness(attrs.getValue(Options.ATTR_SIM_RAND));
+    myListener.loadSimParallel(attrs.getValue(Options.ATTR_SIM_PARALLEL));
+    myListener.loadSimEngine(attrs.getValue(Options.ATTR_SIM_ENGINE));
   }
 
   @Override
@@ -94,6 +114,8 @@ class SimulateOptions extends OptionsPanel {
     simLimitLabel.setText(S.get("simulateLimit"));
     gateUndefinedLabel.setText(S.get("gateUndefined"));
     simRandomness.setText(S.get("simulateRandomness"));
+    simParallel.setText(S.get("simulateParallel"));
+    simEngineLabel.setText(S.get("simulateEngine"));
     memUnknown.setText(S.get("MemoriesStartupUnknown"));
   }
 
@@ -111,6 +133,10 @@ class SimulateOptions extends OptionsPanel {
         final var attrs = getOptions().getAttributeSet();
         Object val = simRandomness.isSelected() ? Options.SIM_RAND_DFLT : Integer.valueOf(0);
         getProject().doAction(OptionsActions.setAttribute(attrs, Options.ATTR_SIM_RAND, val));
+      } else if (source == simParallel) {
+        final var attrs = getOptions().getAttributeSet();
+        final var val = simParallel.isSelected();
+        getProject().doAction(OptionsActions.setAttribute(attrs, Options.ATTR_SIM_PARALLEL, val));
       } else if (source == gateUndefined) {
         final var opt = (ComboOption) gateUndefined.getSelectedItem();
         if (opt != null) {
@@ -119,6 +145,14 @@ class SimulateOptions extends OptionsPanel {
               .doAction(
                   OptionsActions.setAttribute(attrs, Options.ATTR_GATE_UNDEFINED, opt.getValue()));
         }
+      } else if (source == simEngine) {
+        final var opt = (ComboOption) simEngine.getSelectedItem();
+        if (opt != null) {
+          final var attrs = getOptions().getAttributeSet();
+          getProject()
+              .doAction(
+                  OptionsActions.setAttribute(attrs, Options.ATTR_SIM_ENGINE, opt.getValue()));
+        }
       } else if (source == memUnknown) {
         AppPreferences.Memory_Startup_Unknown.set(memUnknown.isSelected());
         final var sim = getProject().getSimulator();
@@ -134,8 +168,12 @@ class SimulateOptions extends OptionsPanel {
         loadSimLimit((Integer) val);
       } else if (attr == Options.ATTR_SIM_RAND) {
         loadSimRandomness((Integer) val);
+      } else if (attr == Options.ATTR_SIM_PARALLEL) {
+        loadSimParallel((Boolean) val);
       } else if (attr == Options.ATTR_GATE_UNDEFINED) {
         loadGateUndefined(val);
+      } else if (attr == Options.ATTR_SIM_ENGINE) {
+        loadSimEngine(val);
       }
     }
 
@@ -158,5 +196,13 @@ class SimulateOptions extends OptionsPanel {
     private void loadSimRandomness(Integer val) {
       simRandomness.setSelected(val > 0);
     }
+
+    private void loadSimParallel(Boolean val) {
+      simParallel.setSelected(val);
+    }
+
+    private void loadSimEngine(Object val) {
+      ComboOption.setSelected(simEngine, val);
+    }
   }
 }
@@ -0,0 +1,188 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.gui.test.TestThread;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the test vectors listed in a manifest file on their circuits, without graphical interface.
+ *
+ * <p>Each non-empty line of the manifest holds a circuit file, the name of the circuit to test
+ * ("-" for the main circuit) and a test vector file, separated by tabs or, if there is no tab, by
+ * spaces; "#" starts a comment. Relative paths are taken from the directory of the manifest. Each
+ * circuit file is loaded once, then the jobs run concurrently, one per core, each with its own
+ * project and simulation state. The report is printed as CSV, one row per job in the order of the
+ * manifest, as soon as the job and those before it are done.
+ */
+final class BatchRunner {
+  private static final String HEADER =
+      "file,circuit,vector,result,vectors,passed,failed,millis,message";
+
+  private record Job(File file, String circuit, File vector) {}
+
+  private record Result(String result, int vectors, int failed, long millis, String message) {}
+
+  private BatchRunner() {}
+
+  /** Runs the jobs of the manifest given on the command line, returning 0 if all of them pass. */
+  static int run(Startup args) throws IOException, InterruptedException {
+    return run(args.getBatchManifest(), args.getSubstitutions(), System.out);
+  }
+
+  /**
+   * Runs the jobs of {@code manifest}, loading the circuit files with {@code substitutions} and
+   * printing the report to {@code out}. Returns 0 if all of them pass.
+   */
+  static int run(File manifest, Map<File, File> substitutions, PrintStream out)
+      throws IOException, InterruptedException {
+    final var jobs = readManifest(manifest);
+
+    // every file is loaded once and shared by its jobs, which only read it
+    final var files = new HashMap<File, LogisimFile>();
+    final var loadErrors = new HashMap<File, String>();
+    for (final var job : jobs) {
+      if (files.containsKey(job.file) || loadErrors.containsKey(job.file)) continue;
+      try {
+        files.put(job.file, new Loader(null).openLogisimFile(job.file, substitutions));
+      } catch (LoadFailedException e) {
+        loadErrors.put(job.file, e.getMessage());
+      }
+    }
+
+    final var pool =
+        Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            r -> {
+              final var thread = new UniquelyNamedThread(r, "BatchRunner");
+              thread.setDaemon(true);
+              return thread;
+            });
+    final var results = new ArrayList<Future<Result>>();
+    for (final var job : jobs) {
+      final var file = files.get(job.file);
+      final var loadError = loadErrors.get(job.file);
+      results.add(pool.submit(() -> file == null ? error(0, loadError) : runJob(job, file)));
+    }
+
+    var allPassed = true;
+    out.println(HEADER);
+    try {
+      for (var i = 0; i < jobs.size(); i++) {
+        final var job = jobs.get(i);
+        Result result;
+        try {
+          result = results.get(i).get();
+        } catch (ExecutionException e) {
+          result = error(0, e.getCause().toString());
+        }
+        allPassed &= result.result.equals("pass");
+        out.println(
+            String.join(
+                ",",
+                csv(job.file.getPath()),
+                csv(job.circuit),
+                csv(job.vector.getPath()),
+                result.result,
+                Integer.toString(result.vectors),
+                Integer.toString(result.vectors - result.failed),
+                Integer.toString(result.failed),
+                Long.toString(result.millis),
+                csv(result.message)));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return allPassed ? 0 : 1;
+  }
+
+  private static ArrayList<Job> readManifest(File manifest) throws IOException {
+    final var dir = manifest.getAbsoluteFile().getParentFile();
+    final var jobs = new ArrayList<Job>();
+    var lineNumber = 0;
+    for (var line : Files.readAllLines(manifest.toPath())) {
+      lineNumber++;
+      final var comment = line.indexOf('#');
+      if (comment >= 0) line = line.substring(0, comment);
+      if (line.isBlank()) continue;
+      final var fields = line.contains("\t") ? line.strip().split("\t+") : line.strip().split(" +");
+      if (fields.length != 3) {
+        throw new IOException(manifest.getName() + ":" + lineNumber + ": expected 3 fields");
+      }
+      jobs.add(new Job(resolve(dir, fields[0]), fields[1], resolve(dir, fields[2])));
+    }
+    return jobs;
+  }
+
+  private static File resolve(File dir, String path) {
+    final var file = new File(path.strip());
+    return file.isAbsolute() ? file : new File(dir, path.strip());
+  }
+
+  private static Result runJob(Job job, LogisimFile file) {
+    final var start = System.nanoTime();
+    final Project proj;
+    // a project registers itself with the file
+    synchronized (file) {
+      proj = new Project(file);
+    }
+    // the test drives the simulation itself
+    proj.getSimulator().shutDown();
+    try {
+      final var circuit =
+          job.circuit.equals("-") ? file.getMainCircuit() : file.getCircuit(job.circuit);
+      if (circuit == null) return error(millisSince(start), "circuit not found");
+      final TestVector vec;
+      try {
+        vec = new TestVector(job.vector);
+      } catch (IOException e) {
+        return error(millisSince(start), e.getMessage());
+      }
+      // the states created from here on listen to the options of the shared file, whose attribute
+      // set guards its listeners
+      proj.setCurrentCircuit(circuit);
+      final var failed = TestThread.countFailures(proj, circuit, vec);
+      return new Result(
+          failed == 0 ? "pass" : "fail", vec.data.size(), failed, millisSince(start), "");
+    } catch (TestException e) {
+      return error(millisSince(start), e.getMessage());
+    }
+  }
+
+  private static Result error(long millis, String message) {
+    return new Result("error", 0, 0, millis, message);
+  }
+
+  private static long millisSince(long start) {
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private static String csv(String field) {
+    if (field == null) return "";
+    if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) return field;
+    return '"' + field.replace("\"", "\"\"") + '"';
+  }
+}
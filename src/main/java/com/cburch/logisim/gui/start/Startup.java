@@ -97,6 +97,7 @@ public class Startup implements AWTEventListener {
   private boolean showSplash;
   private File loadFile;
   private File saveFile;
+  private File batchManifest;
   private int ttyFormat = 0;
   // from other sources
   private boolean initialized = false;
@@ -147,6 +148,7 @@ public class Startup implements AWTEventListener {
   private static final String ARG_LOAD_SHORT = "l";
   private static final String ARG_LOAD_LONG = "load";
   private static final String ARG_SAVE_LONG = "save";
+  private static final String ARG_BATCH_LONG = "batch";
   private static final String ARG_GEOMETRY_SHORT = "m";
   private static final String ARG_GEOMETRY_LONG = "geometry";
   private static final String ARG_TEST_CIRC_GEN_SHORT = "n";
@@ -317,6 +319,7 @@ public class Startup implements AWTEventListener {
     addOption(opts, "argSubOption", ARG_SUBSTITUTE_LONG, ARG_SUBSTITUTE_SHORT, 2);
     addOption(opts, "argLoadOption", ARG_LOAD_LONG, ARG_LOAD_SHORT, 1);
     addOption(opts, "argSaveOption", ARG_SAVE_LONG, 1);
+    addOption(opts, "argBatchOption", ARG_BATCH_LONG, 1);
     addOption(opts, "argGatesOption", ARG_GATES_LONG, ARG_GATES_SHORT, 1);
     addOption(opts, "argGeometryOption", ARG_GEOMETRY_LONG, ARG_GEOMETRY_SHORT, 1);
     addOption(opts, "argLocaleOption", ARG_LOCALE_LONG, ARG_LOCALE_SHORT, 1);
@@ -344,7 +347,8 @@ public class Startup implements AWTEventListener {
     // see whether we'll be using any graphics
     var isTty = false;
     var shallClearPreferences = false;
-    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)) {
+    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)
+        || cmd.hasOption(ARG_BATCH_LONG)) {
       isTty = true;
       Main.headless = true;
     } else {
@@ -383,6 +387,7 @@ public class Startup implements AWTEventListener {
         case ARG_SUBSTITUTE_LONG -> handleArgSubstitute(startup, opt);
         case ARG_LOAD_LONG -> handleArgLoad(startup, opt);
         case ARG_SAVE_LONG -> handleArgSave(startup, opt);
+        case ARG_BATCH_LONG -> handleArgBatch(startup, opt);
         case ARG_GATES_LONG -> handleArgGates(startup, opt);
         case ARG_GEOMETRY_LONG -> handleArgGeometry(startup, opt);
         case ARG_LOCALE_LONG -> handleArgLocale(startup, opt);
@@ -413,7 +418,7 @@ public class Startup implements AWTEventListener {
       printHelp(opts);
       return null;
     }
-    if (startup.isTty && startup.filesToOpen.isEmpty()) {
+    if (startup.isTty && startup.filesToOpen.isEmpty() && startup.batchManifest == null) {
       logger.error(S.get("ttyNeedsFileError"));
       return null;
     }
@@ -515,6 +520,11 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgBatch(Startup startup, Option opt) {
+    startup.batchManifest = new File(opt.getValue());
+    return RC.OK;
+  }
+
   private static RC handleArgGates(Startup startup, Option opt) {
     final var gateShape = opt.getValue().toLowerCase();
     if ("ansi".equals(gateShape)) {
@@ -787,6 +797,10 @@ public class Startup implements AWTEventListener {
     return saveFile;
   }
 
+  File getBatchManifest() {
+    return batchManifest;
+  }
+
   String getCircuitToTest() {
     return circuitToTest;
   }
@@ -840,6 +854,14 @@ public class Startup implements AWTEventListener {
   }
 
   public void run() {
+    if (batchManifest != null) {
+      try {
+        System.exit(BatchRunner.run(this));
+      } catch (Exception t) {
+        t.printStackTrace();
+        System.exit(-1);
+      }
+    }
     if (isTty) {
       try {
         TtyInterface.run(this);
@@ -0,0 +1,173 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import com.cburch.logisim.analyze.model.TruthTable;
+import com.cburch.logisim.circuit.BitSlicedCircuit;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.CompiledCircuit;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.List;
+
+/**
+ * Evaluates the rows of the truth table printed by {@link TtyInterface}, from any number of threads
+ * at once. Each thread keeps its own circuit state, compiled circuit or lanes of the bit-sliced
+ * circuit, and reuses them from one row to the next. A circuit state is reset with the contents of
+ * its memories, which would otherwise depend on the rows evaluated before.
+ */
+final class TableRows {
+  // the lanes of row bit p in a block of BitSlicedCircuit.LANES rows, for p below 6
+  private static final long[] LANE_MASKS = {
+    0xAAAAAAAAAAAAAAAAL,
+    0xCCCCCCCCCCCCCCCCL,
+    0xF0F0F0F0F0F0F0F0L,
+    0xFF00FF00FF00FF00L,
+    0xFFFF0000FFFF0000L,
+    0xFFFFFFFF00000000L,
+  };
+
+  private final class Worker {
+    private final CompiledCircuit compiled;
+    private final CircuitState circuitState;
+    private final long[] lanes;
+
+    Worker() {
+      lanes = sliced == null ? null : sliced.createLanes();
+      compiled = sliced == null ? CompiledCircuit.create(proj, circuit) : null;
+      circuitState = sliced == null && compiled == null ? new CircuitState(proj, circuit) : null;
+    }
+  }
+
+  private final Project proj;
+  private final Circuit circuit;
+  private final List<Instance> inputPins;
+  private final List<Instance> pins;
+  private final int inputCount;
+  private final BitSlicedCircuit sliced;
+  private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+  /**
+   * Prepares the evaluation of the rows, giving the values of {@code pins} in each of them. The
+   * circuit is evaluated with {@code sliced} when given, else with the engine set in the options of
+   * the project.
+   */
+  TableRows(
+      Project proj,
+      Circuit circuit,
+      List<Instance> inputPins,
+      List<Instance> pins,
+      int inputCount,
+      BitSlicedCircuit sliced) {
+    this.proj = proj;
+    this.circuit = circuit;
+    this.inputPins = inputPins;
+    this.pins = pins;
+    this.inputCount = inputCount;
+    this.sliced = sliced;
+  }
+
+  /** Returns the values of the pins in rows {@code first} to {@code first + count - 1}. */
+  Value[][] evaluate(int first, int count) {
+    final var worker = workers.get();
+    final var ret = new Value[count][];
+    if (worker.lanes != null) {
+      for (var block = 0; block < count; block += BitSlicedCircuit.LANES) {
+        evaluateSliced(worker.lanes, first + block, ret, block);
+      }
+    } else {
+      for (var i = 0; i < count; i++) ret[i] = evaluate(worker, first + i);
+    }
+    return ret;
+  }
+
+  /** Evaluates the rows of a block starting at a multiple of {@link BitSlicedCircuit#LANES}. */
+  private void evaluateSliced(long[] lanes, int base, Value[][] ret, int offset) {
+    var incol = 0;
+    for (final var pin : inputPins) {
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      for (var b = width - 1; b >= 0; b--) {
+        final var p = inputCount - 1 - incol++;
+        final var value = p < 6 ? LANE_MASKS[p] : ((base >> p) & 1) != 0 ? -1L : 0L;
+        sliced.setValue(lanes, pin, b, value);
+      }
+    }
+    sliced.propagate(lanes);
+    final var count = Math.min(BitSlicedCircuit.LANES, ret.length - offset);
+    for (var lane = 0; lane < count; lane++) {
+      final var row = new Value[pins.size()];
+      for (var i = 0; i < row.length; i++) {
+        final var pin = pins.get(i);
+        row[i] =
+            i < inputPins.size()
+                ? inputValue(base + lane, i)
+                : sliced.getValue(lanes, pin, lane);
+      }
+      ret[offset + lane] = row;
+    }
+  }
+
+  private Value[] evaluate(Worker worker, int index) {
+    final var compiled = worker.compiled;
+    final var circuitState = worker.circuitState;
+    if (compiled != null) {
+      compiled.reset();
+    } else {
+      circuitState.getPropagator().reset(true);
+    }
+    final var row = new Value[pins.size()];
+    for (var i = 0; i < inputPins.size(); i++) {
+      final var pin = inputPins.get(i);
+      row[i] = inputValue(index, i);
+      if (compiled != null) {
+        compiled.setValue(pin, row[i]);
+      } else {
+        Pin.FACTORY.setValue(circuitState.getInstanceState(pin), row[i]);
+      }
+    }
+
+    if (compiled != null) {
+      // a compiled circuit has no feedback, so it cannot oscillate
+      compiled.propagate();
+      for (var i = inputPins.size(); i < row.length; i++) {
+        row[i] = compiled.getValue(pins.get(i));
+      }
+    } else {
+      final var prop = circuitState.getPropagator();
+      prop.propagate();
+      for (var i = inputPins.size(); i < row.length; i++) {
+        final var pin = pins.get(i);
+        row[i] =
+            prop.isOscillating()
+                ? Value.createError(pin.getAttributeValue(StdAttr.WIDTH))
+                : Pin.FACTORY.getValue(circuitState.getInstanceState(pin));
+      }
+    }
+    return row;
+  }
+
+  /** Returns the value of the {@code pinIndex}-th input pin in row {@code index}. */
+  private Value inputValue(int index, int pinIndex) {
+    var incol = 0;
+    for (var i = 0; i < pinIndex; i++) {
+      incol += inputPins.get(i).getAttributeValue(StdAttr.WIDTH).getWidth();
+    }
+    final var width = inputPins.get(pinIndex).getAttributeValue(StdAttr.WIDTH).getWidth();
+    final var v = new Value[width];
+    for (var b = width - 1; b >= 0; b--) {
+      v[b] = TruthTable.isInputSet(index, incol++, inputCount) ? Value.TRUE : Value.FALSE;
+    }
+    return Value.create(v);
+  }
+}
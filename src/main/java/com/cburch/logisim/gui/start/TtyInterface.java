@@ -11,11 +11,12 @@ package com.cburch.logisim.gui.start;
 
 import static com.cburch.logisim.gui.Strings.S;
 
-import com.cburch.logisim.analyze.model.TruthTable;
 import com.cburch.logisim.analyze.model.Var;
 import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.BitSlicedCircuit;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.CompiledCircuit;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.FileStatistics;
 import com.cburch.logisim.file.LoadFailedException;
@@ -34,10 +35,14 @@ import com.cburch.logisim.util.UniquelyNamedThread;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,6 +58,8 @@ public class TtyInterface {
   public static final int FORMAT_TABLE_BIN = 128;
   public static final int FORMAT_TABLE_HEX = 256;
   static final Logger logger = LoggerFactory.getLogger(TtyInterface.class);
+  // rows of a truth table evaluated by one worker at once, a multiple of BitSlicedCircuit.LANES
+  private static final int TABLE_CHUNK = 1024;
   private static boolean lastIsNewline = true;
 
   private static int countDigits(int num) {
@@ -400,48 +407,41 @@ public class TtyInterface {
     final var inputCount = inputNames.size();
     final var rowCount = 1 << inputCount;
 
+    final var compiled = CompiledCircuit.create(proj, circuit);
+    final var sliced = compiled == null ? null : BitSlicedCircuit.create(compiled, inputPins);
+    final var rows = new TableRows(proj, circuit, inputPins, pinList, inputCount, sliced);
+    final var threads = Runtime.getRuntime().availableProcessors();
+    final var pool =
+        Executors.newFixedThreadPool(
+            threads,
+            r -> {
+              final var thread = new UniquelyNamedThread(r, "TableAnalysis");
+              thread.setDaemon(true);
+              return thread;
+            });
+    // the chunks are evaluated in parallel and printed in order, as soon as they are ready
+    final var pending = new ArrayDeque<Future<Value[][]>>();
     var needTableHeader = true;
-    final var valueMap = new HashMap<Instance, Value>();
-    for (var i = 0; i < rowCount; i++) {
-      valueMap.clear();
-      final var circuitState = new CircuitState(proj, circuit);
-      var incol = 0;
-      for (final var pin : inputPins) {
-        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-        final var v = new Value[width];
-        for (var b = width - 1; b >= 0; b--) {
-          final var value = TruthTable.isInputSet(i, incol++, inputCount);
-          v[b] = value ? Value.TRUE : Value.FALSE;
+    var next = 0;
+    try {
+      while (next < rowCount || !pending.isEmpty()) {
+        while (next < rowCount && pending.size() < 2 * threads) {
+          final var first = next;
+          final var count = Math.min(TABLE_CHUNK, rowCount - next);
+          pending.add(pool.submit(() -> rows.evaluate(first, count)));
+          next += count;
         }
-        final var pinState = circuitState.getInstanceState(pin);
-        Pin.FACTORY.setValue(pinState, Value.create(v));
-        valueMap.put(pin, Value.create(v));
-      }
-
-      final var prop = circuitState.getPropagator();
-      prop.propagate();
-      /*
-       * TODO for the SimulatorPrototype class do { prop.step(); } while
-       * (prop.isPending());
-       */
-      // TODO: Search for circuit state
-
-      for (final var pin : outputPins) {
-        if (prop.isOscillating()) {
-          final var width = pin.getAttributeValue(StdAttr.WIDTH);
-          valueMap.put(pin, Value.createError(width));
-        } else {
-          final var pinState = circuitState.getInstanceState(pin);
-          final var outValue = Pin.FACTORY.getValue(pinState);
-          valueMap.put(pin, outValue);
+        for (final var row : pending.remove().get()) {
+          final var currValues = new ArrayList<>(Arrays.asList(row));
+          displayTableRow(needTableHeader, null, currValues, headers, formats, format);
+          needTableHeader = false;
         }
       }
-      final var currValues = new ArrayList<Value>();
-      for (final var pin : pinList) {
-        currValues.add(valueMap.get(pin));
-      }
-      displayTableRow(needTableHeader, null, currValues, headers, formats, format);
-      needTableHeader = false;
+    } catch (InterruptedException | ExecutionException e) {
+      logger.error("Table analysis failed", e);
+      return -1;
+    } finally {
+      pool.shutdownNow();
     }
 
     return 0;
@@ -15,6 +15,7 @@ import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.CompiledCircuit;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.FailException;
 import com.cburch.logisim.data.TestException;
@@ -32,6 +33,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   private final Circuit circuit;
   private final TestVector vector;
   private Instance[] pin;
+  private CompiledCircuit compiled;
   private Model model;
   private boolean canceled = false;
   private boolean paused = false;
@@ -57,6 +59,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.vector = vec;
 
     matchPins();
+    compiled = CompiledCircuit.create(proj, circuit);
   }
 
   // used only for automated testing via command line arguments
@@ -103,6 +106,21 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     return 0;
   }
 
+  // used only for automated testing via command line arguments, returns the number of failures
+  public static int countFailures(Project proj, Circuit circuit, TestVector vec)
+      throws TestException {
+    final var tester = new TestThread(proj, circuit, vec);
+    var numFail = 0;
+    for (var i = 0; i < vec.data.size(); i++) {
+      try {
+        tester.test(i);
+      } catch (TestException e) {
+        numFail++;
+      }
+    }
+    return numFail;
+  }
+
   public void cancel() {
     canceled = true;
   }
@@ -172,6 +190,10 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   }
 
   private void test(int idx) throws TestException {
+    if (compiled != null) {
+      compiled.doTestVector(pin, vector.data.get(idx));
+      return;
+    }
     circuit.doTestVector(project, pin, vector.data.get(idx));
   }
 }
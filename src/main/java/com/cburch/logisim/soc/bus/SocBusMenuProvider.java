@@ -244,7 +244,7 @@ public class SocBusMenuProvider implements ActionListener {
       SocBusInfo info = instance.getAttributeValue(SocBusAttributes.SOC_BUS_ID);
       SocBusStateInfo state = info.getSocSimulationManager().getSocBusState(info.getBusId());
       if (parentFrame != null) parentFrame.addWindowListener(state);
-      state.setVisible(true);
+      state.showMemoryMap();
     }
 
     public void insertTransaction(Instance instance, CircuitState circuitState,
@@ -0,0 +1,107 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static com.cburch.logisim.soc.Strings.S;
+
+import com.cburch.logisim.soc.util.AssemblerInterface;
+
+/**
+ * The instructions a processor executed last, newest first. Executing an instruction only records
+ * its address, its word and whether it failed in a ring of arrays; it is disassembled when the
+ * trace is shown, by an assembler of its own so that the one decoding for the processor is left
+ * alone, and the text is kept for as long as the entry holds the same word.
+ *
+ * <p>Recording and reading hold the lock of the trace, so that a trace shown while the processor
+ * runs is consistent; the lock is only contended while the trace is shown. As an entry may be
+ * overwritten once its text is made, the text is stored with the word it was disassembled from,
+ * and disassembled anew if the entry holds another word.
+ */
+public class InstructionTrace {
+
+  private record Disassembly(int instruction, String asm) {}
+
+  private static class Ring {
+    final int[] addresses;
+    final int[] instructions;
+    final boolean[] errors;
+    final Disassembly[] asm;
+    int last = -1;
+    int size;
+
+    Ring(int depth) {
+      addresses = new int[depth];
+      instructions = new int[depth];
+      errors = new boolean[depth];
+      asm = new Disassembly[depth];
+    }
+  }
+
+  private final AssemblerInterface disassembler;
+  private Ring ring;
+
+  public InstructionTrace(AssemblerInterface disassembler, int depth) {
+    this.disassembler = disassembler;
+    ring = new Ring(depth);
+  }
+
+  public synchronized int getDepth() {
+    return ring.addresses.length;
+  }
+
+  /** Sets the number of instructions kept, clearing the trace if it changes. */
+  public synchronized void setDepth(int depth) {
+    if (ring.addresses.length != depth) ring = new Ring(depth);
+  }
+
+  public synchronized void clear() {
+    ring.last = -1;
+    ring.size = 0;
+  }
+
+  public synchronized int size() {
+    return ring.size;
+  }
+
+  public synchronized boolean isEmpty() {
+    return ring.size == 0;
+  }
+
+  public synchronized void add(int address, int instruction, boolean error) {
+    final var r = ring;
+    final var slot = r.last + 1 == r.addresses.length ? 0 : r.last + 1;
+    r.addresses[slot] = address;
+    r.instructions[slot] = instruction;
+    r.errors[slot] = error;
+    r.last = slot;
+    if (r.size < r.addresses.length) r.size++;
+  }
+
+  /**
+   * Returns the instruction at the given index, 0 being the one executed last, or null if the
+   * trace is not that long (anymore).
+   */
+  public synchronized TraceInfo get(int index) {
+    final var r = ring;
+    if (index < 0 || index >= r.size) return null;
+    final var slot = r.last - index < 0 ? r.last - index + r.addresses.length : r.last - index;
+    final var instruction = r.instructions[slot];
+    var asm = r.asm[slot];
+    if (asm == null || asm.instruction() != instruction) {
+      disassembler.decode(instruction);
+      final var exe = disassembler.getExeUnit();
+      asm =
+          new Disassembly(
+              instruction, exe == null ? S.get("RV32imFetchInvInstrAsm") : exe.getAsmInstruction());
+      r.asm[slot] = asm;
+    }
+    return new TraceInfo(r.addresses[slot], instruction, asm.asm(), r.errors[slot]);
+  }
+}
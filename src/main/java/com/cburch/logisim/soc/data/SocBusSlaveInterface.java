@@ -21,6 +21,13 @@ public interface SocBusSlaveInterface {
 
   Integer getMemorySize();
 
+  /**
+   * Returns whether transactions with this slave are seen by, or depend on, the circuit around it,
+   * so that a processor running several instructions per clock has to let the circuit propagate
+   * after them.
+   */
+  boolean isCircuitVisible();
+
   String getName();
 
   void registerListener(SocBusSlaveListener l);
@@ -38,6 +38,7 @@ import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.swing.JButton;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
@@ -46,10 +47,7 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.table.TableCellRenderer;
 
-public class SocBusStateInfo extends JDialog
-    implements ActionListener, LocaleListener, BaseWindowListenerContract {
-
-  private static final long serialVersionUID = 1L;
+public class SocBusStateInfo implements ActionListener, LocaleListener, BaseWindowListenerContract {
 
   public static final int TRACE_WIDTH = 630;
   public static final int TRACE_HEIGHT = 30;
@@ -59,6 +57,13 @@ public class SocBusStateInfo extends JDialog
     void fireCanged(SocBusState item);
   }
 
+  /** Is told of the words written over a bus, and of the slaves on it moving. */
+  public interface SocBusWriteListener {
+    void busWritten(int address);
+
+    void memoryMapChanged();
+  }
+
   public static class SocBusState implements InstanceData, Cloneable, ComponentDataGuiProvider {
 
     public static class SocBusStateTrace extends JPanel {
@@ -172,7 +177,7 @@ public class SocBusStateInfo extends JDialog
 
     @Override
     public void destroy() {
-      if (parent != null && parent.isVisible()) parent.setVisible(false);
+      if (parent != null) parent.hideMemoryMap();
       SocBus.MENU_PROVIDER.deregisterBusState(this, instance);
     }
   }
@@ -180,43 +185,58 @@ public class SocBusStateInfo extends JDialog
   private final SocSimulationManager socManager;
   private Component myComp;
   private final ArrayList<SocBusSnifferInterface> sniffers;
-  private final JButton okButton;
-  private final JLabel title;
-  private final JScrollPane scroll;
+  private final CopyOnWriteArrayList<SocBusWriteListener> writeListeners;
   private final SocMemMapModel memMap;
+  private JDialog dialog;
+  private JButton okButton;
 
   public SocBusStateInfo(SocSimulationManager man, Component comp) {
-    super();
     LocaleManager.addLocaleListener(this);
     socManager = man;
     myComp = comp;
     sniffers = new ArrayList<>();
+    writeListeners = new CopyOnWriteArrayList<>();
     memMap = new SocMemMapModel();
-    setTitle(S.get("SocMemMapWindowTitle") + getName());
-    setLayout(new BorderLayout());
-    title = new JLabel(S.get("SocMemoryMapTitle"), JLabel.CENTER);
-    add(title, BorderLayout.NORTH);
-    JTable table =
-        new JTable(memMap) {
-          private static final long serialVersionUID = 1L;
-
-          @Override
-          public TableCellRenderer getCellRenderer(int row, int column) {
-            return memMap.getCellRender();
-          }
-        };
-    table.getTableHeader().setDefaultRenderer(memMap.getHeaderRenderer());
-    table.setFillsViewportHeight(true);
-    table.setRowHeight(AppPreferences.getScaled(20));
-    table.addMouseListener(memMap);
-    scroll = new JScrollPane(table);
-    scroll.setPreferredSize(
-        new Dimension(AppPreferences.getScaled(320), AppPreferences.getScaled(240)));
-    add(scroll, BorderLayout.CENTER);
-    okButton = new JButton(S.get("SocMemoryMapOk"));
-    add(okButton, BorderLayout.SOUTH);
-    okButton.addActionListener(this);
-    pack();
+    memMap.addTableModelListener(
+        e -> {
+          for (final var listener : writeListeners) listener.memoryMapChanged();
+        });
+  }
+
+  /** Shows the memory map, in a dialog that is only made once it is asked for. */
+  public void showMemoryMap() {
+    if (dialog == null) {
+      dialog = new JDialog();
+      dialog.setTitle(S.get("SocMemMapWindowTitle") + getName());
+      dialog.setLayout(new BorderLayout());
+      dialog.add(new JLabel(S.get("SocMemoryMapTitle"), JLabel.CENTER), BorderLayout.NORTH);
+      JTable table =
+          new JTable(memMap) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public TableCellRenderer getCellRenderer(int row, int column) {
+              return memMap.getCellRender();
+            }
+          };
+      table.getTableHeader().setDefaultRenderer(memMap.getHeaderRenderer());
+      table.setFillsViewportHeight(true);
+      table.setRowHeight(AppPreferences.getScaled(20));
+      table.addMouseListener(memMap);
+      final var scroll = new JScrollPane(table);
+      scroll.setPreferredSize(
+          new Dimension(AppPreferences.getScaled(320), AppPreferences.getScaled(240)));
+      dialog.add(scroll, BorderLayout.CENTER);
+      okButton = new JButton(S.get("SocMemoryMapOk"));
+      dialog.add(okButton, BorderLayout.SOUTH);
+      okButton.addActionListener(this);
+      dialog.pack();
+    }
+    dialog.setVisible(true);
+  }
+
+  public void hideMemoryMap() {
+    if (dialog != null && dialog.isVisible()) dialog.setVisible(false);
   }
 
   public void registerSocBusSlave(SocBusSlaveInterface slave) {
@@ -235,11 +255,18 @@ public class SocBusStateInfo extends JDialog
     sniffers.remove(sniffer);
   }
 
+  public void registerWriteListener(SocBusWriteListener listener) {
+    writeListeners.addIfAbsent(listener);
+  }
+
+  public void removeWriteListener(SocBusWriteListener listener) {
+    writeListeners.remove(listener);
+  }
+
   public List<SocBusSlaveInterface> getSlaves() {
     return memMap.getSlaves();
   }
 
-  @Override
   public String getName() {
     var name = myComp.getAttributeSet().getValue(StdAttr.LABEL);
     if (StringUtil.isNullOrEmpty(name)) {
@@ -263,24 +290,39 @@ public class SocBusStateInfo extends JDialog
 
   public void initializeTransaction(SocBusTransaction trans, String busId) {
     int nrOfReponders = 0;
-    int reponder = -1;
-    final var slaves = memMap.getSlaves();
-    if (slaves.isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
+    SocBusSlaveInterface reponder = null;
+    if (memMap.getSlaves().isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
     else if (trans.isReadTransaction()
         && trans.isWriteTransaction()
         && !trans.isAtomicTransaction()) {
       trans.setError(SocBusTransaction.NONE_ATOMIC_READ_WRITE_ERROR);
     } else {
-      for (int i = 0; i < slaves.size(); i++) {
-        if (slaves.get(i).canHandleTransaction(trans)) {
+      /* only the slaves mapped at the address can handle it */
+      for (final var slave : memMap.getSlaves(trans.getAddress())) {
+        if (slave.canHandleTransaction(trans)) {
           nrOfReponders++;
-          reponder = i;
+          reponder = slave;
         }
       }
       if (nrOfReponders == 0) trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
       else if (nrOfReponders != 1) trans.setError(SocBusTransaction.MULTIPLE_SLAVES_ERROR);
-      else slaves.get(reponder).handleTransaction(trans);
+      else {
+        reponder.handleTransaction(trans);
+        if (reponder.isCircuitVisible()) trans.setCircuitVisible();
+        if (trans.isWriteTransaction() && !trans.hasError()) {
+          for (final var listener : writeListeners) listener.busWritten(trans.getAddress());
+        }
+      }
     }
+    recordTransaction(trans);
+  }
+
+  /**
+   * Shows a transaction to the sniffers and adds it to the trace of the bus, as the bus does for
+   * those it carries; for a transaction a master answered without the bus, from what it read
+   * over it before.
+   */
+  public void recordTransaction(SocBusTransaction trans) {
     if (!trans.hasError() && !trans.isHidden()) {
       for (SocBusSnifferInterface sniffer : sniffers) sniffer.sniffTransaction(trans);
     }
@@ -323,16 +365,16 @@ public class SocBusStateInfo extends JDialog
   @Override
   public void actionPerformed(ActionEvent e) {
     Object source = e.getSource();
-    if (source == okButton) setVisible(false);
+    if (source == okButton) hideMemoryMap();
   }
 
   @Override
   public void localeChanged() {
-    okButton.setText(S.get("SocMemoryMapOk"));
+    if (okButton != null) okButton.setText(S.get("SocMemoryMapOk"));
   }
 
   @Override
   public void windowClosing(WindowEvent e) {
-    setVisible(false);
+    hideMemoryMap();
   }
 }
@@ -55,6 +55,7 @@ public class SocBusTransaction {
   private Component slave;
   private int error;
   private boolean hidden;
+  private boolean circuitVisible;
 
   public SocBusTransaction(int type, int addr, int value, int access, Object master) {
     this.type = type;
@@ -76,6 +77,15 @@ public class SocBusTransaction {
     return hidden;
   }
 
+  public void setCircuitVisible() {
+    circuitVisible = true;
+  }
+
+  /** Returns whether the slave that handled the transaction is seen by the circuit. */
+  public boolean isCircuitVisible() {
+    return circuitVisible;
+  }
+
   public int getAccessType() {
     return access;
   }
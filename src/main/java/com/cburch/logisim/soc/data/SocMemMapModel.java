@@ -19,6 +19,8 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import javax.swing.BorderFactory;
@@ -26,11 +28,14 @@ import javax.swing.JLabel;
 import javax.swing.JTable;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableCellRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class SocMemMapModel extends AbstractTableModel
     implements SocBusSlaveListener, LocaleListener, BaseMouseListenerContract {
 
   private static final long serialVersionUID = 1L;
+  static final Logger logger = LoggerFactory.getLogger(SocMemMapModel.class);
   private static final long longMask = Long.parseUnsignedLong("FFFFFFFF", 16);
 
   public static class MemoryMapHeaderRenderer extends JLabel implements TableCellRenderer {
@@ -198,11 +203,69 @@ public class SocMemMapModel extends AbstractTableModel
     }
   }
 
+  /**
+   * The slaves of a bus by address, for routing transactions. The address space is cut at the
+   * first and past the last address of every slave into segments, each holding the slaves that
+   * cover it, so that a transaction is routed by a binary search over the segments instead of
+   * asking every slave. Overlapping slaves share a segment, and are found here once when the
+   * memory map is built, as a transaction to such a segment fails with {@link
+   * SocBusTransaction#MULTIPLE_SLAVES_ERROR}.
+   */
+  private static class SlaveIndex {
+    private static final SocBusSlaveInterface[] NONE = new SocBusSlaveInterface[0];
+
+    private final long[] starts;
+    private final SocBusSlaveInterface[][] segments;
+    // the slaves sharing a segment with another one, in the order they were registered
+    private final List<SocBusSlaveInterface> overlapping;
+
+    public SlaveIndex(List<SocBusSlaveInterface> slaves) {
+      final var bounds = new long[2 * slaves.size() + 1];
+      bounds[0] = 0;
+      for (int i = 0; i < slaves.size(); i++) {
+        bounds[2 * i + 1] = getStart(slaves.get(i));
+        bounds[2 * i + 2] = getStart(slaves.get(i)) + getSize(slaves.get(i));
+      }
+      starts = Arrays.stream(bounds).filter(b -> b <= longMask).sorted().distinct().toArray();
+      segments = new SocBusSlaveInterface[starts.length][];
+      final var covering = new ArrayList<SocBusSlaveInterface>();
+      final var shared = new LinkedHashSet<SocBusSlaveInterface>();
+      for (int i = 0; i < starts.length; i++) {
+        covering.clear();
+        for (final var slave : slaves) {
+          final var start = getStart(slave);
+          if (starts[i] >= start && starts[i] < start + getSize(slave)) covering.add(slave);
+        }
+        segments[i] = covering.isEmpty() ? NONE : covering.toArray(NONE);
+        if (covering.size() > 1) shared.addAll(covering);
+      }
+      overlapping = new ArrayList<>();
+      for (final var slave : slaves) {
+        if (shared.contains(slave)) overlapping.add(slave);
+      }
+    }
+
+    private static long getStart(SocBusSlaveInterface slave) {
+      return ((long) slave.getStartAddress()) & longMask;
+    }
+
+    private static long getSize(SocBusSlaveInterface slave) {
+      return ((long) slave.getMemorySize()) & longMask;
+    }
+
+    public SocBusSlaveInterface[] getSlaves(int address) {
+      final var pos = Arrays.binarySearch(starts, ((long) address) & longMask);
+      /* starts[0] is zero, so the address is never before the first segment */
+      return segments[pos >= 0 ? pos : -pos - 2];
+    }
+  }
+
   private final ArrayList<SocBusSlaveInterface> slaves;
   private final SlaveMap slaveMap;
   private final SlaveInfoRenderer slaveRenderer;
   private final MemoryMapHeaderRenderer headRenderer;
   private InstanceComponent marked;
+  private volatile SlaveIndex slaveIndex;
 
   public SocMemMapModel() {
     super();
@@ -235,6 +298,19 @@ public class SocMemMapModel extends AbstractTableModel
     return slaves;
   }
 
+  /**
+   * Returns the slaves whose memory range overlaps the one of another slave, in the order they
+   * were registered. Transactions to the addresses they share fail.
+   */
+  public List<SocBusSlaveInterface> getOverlappingSlaves() {
+    return slaveIndex.overlapping;
+  }
+
+  /** Returns the slaves whose memory range contains the given address. */
+  public SocBusSlaveInterface[] getSlaves(int address) {
+    return slaveIndex.getSlaves(address);
+  }
+
   public SlaveInfoRenderer getCellRender() {
     return slaveRenderer;
   }
@@ -285,12 +361,22 @@ public class SocMemMapModel extends AbstractTableModel
   }
 
   private void rebuild() {
+    final var old = slaveIndex;
+    slaveIndex = new SlaveIndex(slaves);
+    final var overlapping = slaveIndex.overlapping;
+    if (!overlapping.isEmpty() && (old == null || !old.overlapping.equals(overlapping))) {
+      final var names = overlapping.stream().map(SocBusSlaveInterface::getName).toList();
+      logger.warn("Overlapping slaves on the SoC bus: {}", names);
+    }
     slaveMap.clear();
     if (slaves.isEmpty())
       slaveMap.add(new SlaveInfo(0, -1));
     else {
-      for (SocBusSlaveInterface s : slaves)
-        slaveMap.add(s);
+      for (SocBusSlaveInterface s : slaves) {
+        final var info = new SlaveInfo(s);
+        if (overlapping.contains(s)) info.setOverlap();
+        slaveMap.add(info);
+      }
       /* now we fill in the blanks */
       ArrayList<SlaveInfo> empties = new ArrayList<>();
       long addr = 0;
@@ -234,12 +234,22 @@ public class SocSimulationManager implements SocBusMasterInterface {
 
   @Override
   public void initializeTransaction(SocBusTransaction trans, String busId, CircuitState cState) {
-    state = cState;
-    final var info = socBusses.get(busId);
-    if (info == null || info.getComponent() == null) {
+    final var info = getConnectedBus(busId, cState);
+    if (info == null) {
       trans.setError(SocBusTransaction.NO_SOC_BUS_CONNECTED_ERROR);
       return;
     }
+    info.initializeTransaction(trans, busId);
+  }
+
+  /**
+   * Returns the bus with the given id, with the slaves and sniffers selecting it registered, ready
+   * to carry the transactions of the given circuit state, or null if no bus has that id.
+   */
+  public SocBusStateInfo getConnectedBus(String busId, CircuitState cState) {
+    state = cState;
+    final var info = socBusses.get(busId);
+    if (info == null || info.getComponent() == null) return null;
     final var iter = toBeChecked.iterator();
     while (iter.hasNext()) {
       final var comp = iter.next();
@@ -258,7 +268,7 @@ public class SocSimulationManager implements SocBusMasterInterface {
       }
       iter.remove();
     }
-    info.initializeTransaction(trans, busId);
+    return info;
   }
 
 }
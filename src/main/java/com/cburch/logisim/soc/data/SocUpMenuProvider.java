@@ -19,6 +19,7 @@ import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.soc.file.ProcessorReadElf;
 import com.cburch.logisim.soc.gui.AssemblerPanel;
+import com.cburch.logisim.soc.gui.InstructionTracePanel;
 import com.cburch.logisim.soc.gui.ListeningFrame;
 import com.cburch.logisim.tools.CircuitStateHolder;
 import com.cburch.logisim.tools.MenuExtender;
@@ -37,6 +38,7 @@ public class SocUpMenuProvider implements ActionListener {
   private static final int SHOW_STATE_FUNCTION = 2;
   private static final int SHOW_PROGRAM = 3;
   private static final int SHOW_ASM = 4;
+  private static final int SHOW_TRACE = 5;
 
   private static class InstanceMenuItem extends JMenuItem {
     private static final long serialVersionUID = 1L;
@@ -147,6 +149,11 @@ public class SocUpMenuProvider implements ActionListener {
         showState.setEnabled(true);
         menu.add(showState);
       }
+      name = circuitState != null ? instName + " : " + S.get("SocUpMenuShowTrace") : S.get("SocUpMenuShowTrace");
+      final var showTrace = new InstanceMenuItem(instance, name, SHOW_TRACE, instance.getData(state), state, hinfo);
+      showTrace.addActionListener(parent);
+      showTrace.setEnabled(true);
+      menu.add(showTrace);
       name = circuitState != null ? instName + " : " + S.get("SocUpMenuShowProgram") : S.get("SocUpMenuShowProgram");
       if (state != null)
         if (((SocUpStateInterface) instance.getData(state)).programLoaded()) {
@@ -176,12 +183,14 @@ public class SocUpMenuProvider implements ActionListener {
     private final HashMap<SocUpStateInterface, ListeningFrame> myStates;
     private final HashMap<SocUpStateInterface, ListeningFrame> myPrograms;
     private final HashMap<SocUpStateInterface, ListeningFrame> myAsmWindows;
+    private final HashMap<SocUpStateInterface, ListeningFrame> myTraces;
 
     public InstanceInformation(Instance inst, SocUpMenuProvider parent) {
       parentFrame = null;
       myStates = new HashMap<>();
       myPrograms = new HashMap<>();
       myAsmWindows = new HashMap<>();
+      myTraces = new HashMap<>();
     }
 
     public void readElf(Instance instance, CircuitState circuitState) {
@@ -205,6 +214,8 @@ public class SocUpMenuProvider implements ActionListener {
         myPrograms.put(data, null);
       if (!myAsmWindows.containsKey(data))
         myAsmWindows.put(data, null);
+      if (!myTraces.containsKey(data))
+        myTraces.put(data, null);
     }
 
     public void destroyCpuState(SocUpStateInterface data) {
@@ -228,6 +239,13 @@ public class SocUpMenuProvider implements ActionListener {
           myAsmWindows.get(data).dispose();
         }
       }
+      if (myTraces.containsKey(data)) {
+        if (myTraces.get(data) != null) {
+          myTraces.get(data).setVisible(false);
+          myTraces.get(data).dispose();
+        }
+        myTraces.remove(data);
+      }
     }
 
     public void showState(SocUpStateInterface data, CircuitStateHolder.HierarchyInfo csh) {
@@ -295,6 +313,28 @@ public class SocUpMenuProvider implements ActionListener {
       myAsmWindows.put(data, frame);
     }
 
+    public void showTrace(SocUpStateInterface data, CircuitStateHolder.HierarchyInfo csh) {
+      if (parentFrame == null || data == null) return;
+      if (myTraces.containsKey(data))
+        if (myTraces.get(data) != null) {
+          final var frame = myTraces.get(data);
+          ((InstructionTracePanel) frame.getContentPane().getComponent(0)).update();
+          frame.setVisible(true);
+          var fstate = frame.getExtendedState();
+          fstate &= ~Frame.ICONIFIED;
+          frame.setExtendedState(fstate);
+          return;
+        }
+      final var frame = new ListeningFrame(data.getProcessorType(), S.getter("SocUpMenuCpuTraceWindowTitle"), csh);
+      parentFrame.addWindowListener(frame);
+      final var pan = new InstructionTracePanel(data.getTrace());
+      frame.add(pan);
+      frame.setVisible(true);
+      frame.pack();
+      frame.addWindowListener(data.getWindowListener());
+      myTraces.put(data, frame);
+    }
+
     public void setParentFrame(Frame frame) {
       parentFrame = frame;
     }
@@ -339,6 +379,10 @@ public class SocUpMenuProvider implements ActionListener {
                 .showProgram(info.getState(), info.getHierarchyInfo(), info.getCircuitState());
             return;
           }
+          case SHOW_TRACE -> {
+            myInfo.get(inst).showTrace(info.getState(), info.getHierarchyInfo());
+            return;
+          }
           case SHOW_ASM -> {
             myInfo.get(inst).showAsmWindow(inst, info.getState(), info.getHierarchyInfo(),
                 info.getCircuitState());
@@ -34,6 +34,22 @@ public class TraceInfo {
     error = true;
   }
 
+  public int getProgramCounter() {
+    return pc;
+  }
+
+  public int getInstruction() {
+    return instruction;
+  }
+
+  public String getAsmInstruction() {
+    return asm;
+  }
+
+  public boolean hasError() {
+    return error;
+  }
+
   public void paint(Graphics2D g, int yOffset, boolean scale) {
     int blockWidth = CpuDrawSupport.getBlockWidth(g, scale);
     if (scale) blockWidth = AppPreferences.getDownScaled(blockWidth);
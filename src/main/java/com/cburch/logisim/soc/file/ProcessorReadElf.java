@@ -174,23 +174,11 @@ public class ProcessorReadElf {
         return false;
       }
       long startAddr = ElfHeader.getLongValue(h.getValue(ElfProgramHeader.P_PADDR));
-      for (int j = 0; j < memSize; j++) {
-        int data = (j < buffer.length) ? buffer[j] : 0;
-        int addr = ElfHeader.getIntValue(ElfHeader.returnCorrectValue(startAddr + (long) j, true));
-        SocBusTransaction trans =
-            new SocBusTransaction(
-                SocBusTransaction.WRITE_TRANSACTION,
-                addr,
-                data,
-                SocBusTransaction.BYTE_ACCESS,
-                "elf");
-        cpu.insertTransaction(trans, true, cState);
-        if (trans.hasError()) {
-          start = startAddr;
-          end = startAddr + memSize - 1;
-          status = MEM_LOAD_ERROR;
-          return false;
-        }
+      if (!loadSegment(cpu, cState, buffer, startAddr, memSize)) {
+        start = startAddr;
+        end = startAddr + memSize - 1;
+        status = MEM_LOAD_ERROR;
+        return false;
       }
     }
     cpu.setEntryPointandReset(
@@ -201,6 +189,35 @@ public class ProcessorReadElf {
     return true;
   }
 
+  /**
+   * Writes a segment to memory through the processor, padded with zeros up to its size in memory,
+   * and returns whether all of it was written.
+   */
+  static boolean loadSegment(
+      SocProcessorInterface cpu, CircuitState cState, byte[] buffer, long startAddr, long memSize) {
+    int j = 0;
+    while (j < memSize) {
+      int addr = ElfHeader.getIntValue(ElfHeader.returnCorrectValue(startAddr + (long) j, true));
+      /* aligned words are written in one transaction, the processors being little endian */
+      boolean word = (addr & 3) == 0 && j + 4 <= memSize;
+      int data = 0;
+      for (int k = word ? 3 : 0; k >= 0; k--) {
+        data = (data << 8) | ((j + k < buffer.length) ? buffer[j + k] & 0xFF : 0);
+      }
+      SocBusTransaction trans =
+          new SocBusTransaction(
+              SocBusTransaction.WRITE_TRANSACTION,
+              addr,
+              data,
+              word ? SocBusTransaction.WORD_ACCESS : SocBusTransaction.BYTE_ACCESS,
+              "elf");
+      cpu.insertTransaction(trans, true, cState);
+      if (trans.hasError()) return false;
+      j += word ? 4 : 1;
+    }
+    return true;
+  }
+
   private boolean open() {
     try {
       elfFileStream = new FileInputStream(elfFile);
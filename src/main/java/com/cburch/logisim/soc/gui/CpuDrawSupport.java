@@ -18,7 +18,6 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.util.GraphicsUtil;
 import java.awt.Color;
 import java.awt.FontMetrics;
@@ -216,13 +215,17 @@ public class CpuDrawSupport {
     GraphicsUtil.drawCenteredText(g2, S.get("Rv32imBinInstruction"), bds.getX(), bds.getY());
     bds = getBounds(215 + blockWidth, 21, 0, 0, scale);
     GraphicsUtil.drawCenteredText(g2, S.get("Rv32imAsmInstruction"), bds.getX(), bds.getY());
-    if (cpu.getTraces().isEmpty()) {
+    final var trace = cpu.getTrace();
+    if (trace.isEmpty()) {
       bds = getBounds(207, 250, 0, 0, scale);
       GraphicsUtil.drawCenteredText(g2, S.get("Rv32imEmptyTrace"), bds.getX(), bds.getY());
     } else {
       int yOff = 30;
-      for (TraceInfo t : cpu.getTraces()) {
-        t.paint(g2, yOff, scale);
+      final var nrOfTraces = Math.min(trace.size(), NR_OF_TRACES);
+      for (int i = 0; i < nrOfTraces; i++) {
+        final var info = trace.get(i);
+        if (info == null) break;
+        info.paint(g2, yOff, scale);
         yOff += TRACE_HEIGHT;
       }
     }
@@ -0,0 +1,98 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.gui;
+
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.soc.data.InstructionTrace;
+import com.cburch.logisim.soc.data.TraceInfo;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+
+/**
+ * Lists the whole instruction trace of a processor, newest first, for looking back at what it did
+ * once stopped. Only the rows scrolled into view are disassembled.
+ */
+public class InstructionTracePanel extends JPanel {
+  private static final long serialVersionUID = 1L;
+
+  private static class TraceListModel extends AbstractListModel<TraceInfo> {
+    private static final long serialVersionUID = 1L;
+    private final InstructionTrace trace;
+    private int size;
+
+    TraceListModel(InstructionTrace trace) {
+      this.trace = trace;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public TraceInfo getElementAt(int index) {
+      return trace.get(index);
+    }
+
+    void update() {
+      size = trace.size();
+      fireContentsChanged(this, 0, Math.max(size - 1, 0));
+    }
+  }
+
+  private static class TraceRenderer extends DefaultListCellRenderer {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Component getListCellRendererComponent(
+        JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+      final var info = (TraceInfo) value;
+      final var text =
+          info == null
+              ? ""
+              : String.format(
+                  "0x%08X  0x%08X  %s",
+                  info.getProgramCounter(), info.getInstruction(), info.getAsmInstruction());
+      super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+      if (info != null && info.hasError() && !isSelected) setForeground(Color.RED);
+      return this;
+    }
+  }
+
+  private final TraceListModel model;
+
+  public InstructionTracePanel(InstructionTrace trace) {
+    super(new BorderLayout());
+    model = new TraceListModel(trace);
+    final var list = new JList<>(model);
+    list.setCellRenderer(new TraceRenderer());
+    list.setFont(AppPreferences.getScaledFont(new Font("Monospaced", Font.PLAIN, 12)));
+    /* all rows look alike, so that none has to be disassembled to size the list */
+    list.setPrototypeCellValue(new TraceInfo(0, 0, "xxxxxxxx xx, xx, xxxxxxxxxx", false));
+    final var scroll = new JScrollPane(list);
+    scroll.setPreferredSize(
+        new Dimension(AppPreferences.getScaled(480), AppPreferences.getScaled(400)));
+    add(scroll, BorderLayout.CENTER);
+    update();
+  }
+
+  /** Shows the trace as it is now. */
+  public void update() {
+    model.update();
+  }
+}
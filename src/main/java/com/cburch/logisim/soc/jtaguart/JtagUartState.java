@@ -346,6 +346,11 @@ public class JtagUartState implements SocBusSlaveInterface {
     return 8;
   }
 
+  @Override
+  public boolean isCircuitVisible() {
+    return true;
+  }
+
   @Override
   public String getName() {
     var name = "BUG: Unknown";
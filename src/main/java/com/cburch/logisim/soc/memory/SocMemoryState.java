@@ -19,79 +19,24 @@ import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.util.StringUtil;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Random;
 
 public class SocMemoryState implements SocBusSlaveInterface {
 
+  /**
+   * The contents of a memory, kept in pages of words that are allocated on the first write to
+   * them, so that a large memory costs only what a program uses of it. A word is found in
+   * constant time through a two-level table indexed by its address, and words that were never
+   * written read as random values, as uninitialized memory would.
+   */
   public class SocMemoryInfo implements InstanceData, Cloneable {
-    private class SocMemoryInfoBlock {
-      private final LinkedList<Integer> contents = new LinkedList<>();
-      private int startAddress;
-      private final Random rand = new Random();
-
-      public SocMemoryInfoBlock(int address, int data) {
-        startAddress = (address >> 2) << 2;
-        contents.add(data);
-      }
-
-      public boolean canAddBefore(int address) {
-        final var previousAddress = getStartAddress() - 4;
-        return (address >= previousAddress) && (address < getStartAddress());
-      }
-
-      public boolean canAddAfter(int address) {
-        return (address >= getEndAddress()) && (address < getEndAddress() + 4);
-      }
-
-      public boolean contains(int address) {
-        return (address >= getStartAddress()) && (address < getEndAddress());
-      }
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+    private static final int TABLE_BITS = 10;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+    private static final int DIRECTORY_SHIFT = 2 + PAGE_BITS + TABLE_BITS;
 
-      public boolean canAdd(int address) {
-        return canAddBefore(address) || canAddAfter(address);
-      }
-
-      public boolean addInfo(int address, int data) {
-        if (canAddBefore(address)) {
-          contents.addFirst(data);
-          startAddress -= 4;
-          return true;
-        }
-        if (canAddAfter(address)) {
-          contents.add(data);
-          return true;
-        }
-        if (contains(address)) {
-          final var index = (address - startAddress) >> 2;
-          contents.set(index, data);
-          return true;
-        }
-        return false;
-      }
-
-      public int getValue(int address) {
-        final var index = (address - startAddress) >> 2;
-        if (index >= contents.size()) {
-          return rand.nextInt();
-        }
-        return contents.get(index);
-      }
-
-      public int getStartAddress() {
-        return startAddress;
-      }
-
-      public int getEndAddress() {
-        return startAddress + contents.size() * 4;
-      }
-    }
-
-    private final ArrayList<SocMemoryInfoBlock> memInfo;
-
-    public SocMemoryInfo() {
-      memInfo = new ArrayList<>();
-    }
+    private final int[][][] directory = new int[1 << (32 - DIRECTORY_SHIFT)][][];
 
     @Override
     public SocMemoryInfo clone() {
@@ -102,51 +47,66 @@ public class SocMemoryState implements SocBusSlaveInterface {
       }
     }
 
+    private int[] getPage(int address, boolean create) {
+      var table = directory[address >>> DIRECTORY_SHIFT];
+      if (table == null) {
+        if (!create) return null;
+        table = directory[address >>> DIRECTORY_SHIFT] = new int[1 << TABLE_BITS][];
+      }
+      final var index = (address >>> (2 + PAGE_BITS)) & TABLE_MASK;
+      var page = table[index];
+      if (page == null && create) {
+        page = table[index] = new int[1 << PAGE_BITS];
+        for (var i = 0; i < page.length; i++) page[i] = rand.nextInt();
+      }
+      return page;
+    }
+
     public int getWord(int address) {
-      for (final var info : memInfo)
-        if (info.contains(address)) return info.getValue(address);
-      return rand.nextInt();
+      final var page = getPage(address, false);
+      return page == null ? rand.nextInt() : page[(address >>> 2) & PAGE_MASK];
     }
 
     public void writeWord(int address, int wdata) {
-      final var adders = new ArrayList<SocMemoryInfoBlock>();
-      for (final var info : memInfo) {
-        if (info.contains(address)) {
-          info.addInfo(address, wdata);
-          return;
+      getPage(address, true)[(address >>> 2) & PAGE_MASK] = wdata;
+    }
+
+    /** Returns the byte, the halfword or the word of the given access type at an address. */
+    public int read(int address, int type) {
+      return extract(getWord((address >> 2) << 2), address, type);
+    }
+
+    /** Writes the byte, the halfword or the word of the given access type at an address. */
+    public void write(int address, int data, int type) {
+      int wData = data;
+      if (type != SocBusTransaction.WORD_ACCESS) {
+        var oldData = getWord((address >> 2) << 2);
+        if (type == SocBusTransaction.HALF_WORD_ACCESS) {
+          final var bit1 = (address >> 1) & 1;
+          var mdata = data & 0xFFFF;
+          if (bit1 == 1) {
+            oldData &= 0xFFFF;
+            mdata <<= 16;
+          } else {
+            oldData = ((oldData >> 16) & 0xFFFF) << 16;
+          }
+          wData = oldData | mdata;
+        } else {
+          final var byte0 = oldData & 0xFF;
+          final var byte1 = ((oldData >> 8) & 0xFF) << 8;
+          final var byte2 = ((oldData >> 16) & 0xFF) << 16;
+          final var byte3 = ((oldData >> 24) & 0xFF) << 24;
+          final var mdata = data & 0xFF;
+          final var bit10 = address & 3;
+          wData = switch (bit10) {
+            case 0 -> byte3 | byte2 | byte1 | mdata;
+            case 1 -> byte3 | byte2 | byte0 | (mdata << 8);
+            case 2 -> byte3 | byte1 | byte0 | (mdata << 16);
+            default -> byte2 | byte1 | byte0 | (mdata << 24);
+          };
         }
-        if (info.canAdd(address)) adders.add(info);
-      }
-      if (adders.isEmpty()) {
-        /* we have to create a new set */
-        memInfo.add(new SocMemoryInfoBlock(address, wdata));
-        return;
       }
-      if (adders.size() == 1) {
-        /* easy case we can add in front or at the end of an existing one */
-        adders.get(0).addInfo(address, wdata);
-        return;
-      }
-      if (adders.size() > 2) {
-        // FIXME: hardcoded string
-        System.out.println("BUG! Memory management does not function corectly for the SocMemory component!");
-        return;
-      }
-      final var addBefore = adders.get(0).canAddBefore(address)
-                            ? adders.get(0)
-                            : adders.get(1).canAddBefore(address) ? adders.get(1) : null;
-      final var addAfter = adders.get(0).canAddAfter(address)
-                           ? adders.get(0)
-                           : adders.get(1).canAddAfter(address) ? adders.get(1) : null;
-      if (addBefore == null || addAfter == null) {
-        System.out.println("BUG! Memory management does not function corectly for the SocMemory component!");
-        return;
-      }
-      addAfter.addInfo(address, wdata);
-      for (var i = addBefore.getStartAddress(); i < addBefore.getEndAddress(); i += 4) {
-        addAfter.addInfo(i, addBefore.getValue(i));
-      }
-      memInfo.remove(addBefore);
+      writeWord(address, wData);
     }
   }
 
@@ -175,6 +135,11 @@ public class SocMemoryState implements SocBusSlaveInterface {
     return sizeInBytes;
   }
 
+  @Override
+  public boolean isCircuitVisible() {
+    return false;
+  }
+
   public boolean setStartAddress(int address) {
     final var addr = (address >> 2) << 2;
     if (addr == startAddress) return false;
@@ -269,7 +234,15 @@ public class SocMemoryState implements SocBusSlaveInterface {
 
   private int performReadAction(int address, int type) {
     final SocMemoryInfo data = getRegPropagateState();
-    final var value = (data == null) ? rand.nextInt() : data.getWord((address >> 2) << 2);
+    return (data == null) ? extract(rand.nextInt(), address, type) : data.read(address, type);
+  }
+
+  private void performWriteAction(int address, int data, int type) {
+    getRegPropagateState().write(address, data, type);
+  }
+
+  /** Returns the byte, the halfword or the word at the given address of the word holding it. */
+  private static int extract(int value, int address, int type) {
     final var adbit1 = (address >> 1) & 1;
 
     switch (type) {
@@ -292,38 +265,6 @@ public class SocMemoryState implements SocBusSlaveInterface {
     }
   }
 
-  private void performWriteAction(int address, int data, int type) {
-    int wData = data;
-    if (type != SocBusTransaction.WORD_ACCESS) {
-      var oldData = performReadAction(address, SocBusTransaction.WORD_ACCESS);
-      if (type == SocBusTransaction.HALF_WORD_ACCESS) {
-        final var bit1 = (address >> 1) & 1;
-        var mdata = data & 0xFFFF;
-        if (bit1 == 1) {
-          oldData &= 0xFFFF;
-          mdata <<= 16;
-        } else {
-          oldData = ((oldData >> 16) & 0xFFFF) << 16;
-        }
-        wData = oldData | mdata;
-      } else {
-        final var byte0 = oldData & 0xFF;
-        final var byte1 = ((oldData >> 8) & 0xFF) << 8;
-        final var byte2 = ((oldData >> 16) & 0xFF) << 16;
-        final var byte3 = ((oldData >> 24) & 0xFF) << 24;
-        final var mdata = data & 0xFF;
-        final var bit10 = address & 3;
-        wData = switch (bit10) {
-          case 0 -> byte3 | byte2 | byte1 | mdata;
-          case 1 -> byte3 | byte2 | byte0 | (mdata << 8);
-          case 2 -> byte3 | byte1 | byte0 | (mdata << 16);
-          default -> byte2 | byte1 | byte0 | (mdata << 24);
-        };
-      }
-    }
-    getRegPropagateState().writeWord(address, wData);
-  }
-
   private void fireNameChanged() {
     for (final var listener : listeners) {
       listener.labelChanged();
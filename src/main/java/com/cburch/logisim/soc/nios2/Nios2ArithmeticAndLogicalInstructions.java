@@ -458,4 +458,12 @@ public class Nios2ArithmeticAndLogicalInstructions implements AssemblerExecution
     return -1;
   }
 
+  @Override
+  public Nios2ArithmeticAndLogicalInstructions clone() {
+    try {
+      return (Nios2ArithmeticAndLogicalInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -18,6 +18,7 @@ import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.soc.data.SocBusInfo;
 import com.cburch.logisim.soc.data.SocSimulationManager;
+import com.cburch.logisim.soc.gui.CpuDrawSupport;
 import java.awt.Font;
 import java.util.Arrays;
 import java.util.List;
@@ -46,6 +47,12 @@ public class Nios2Attributes extends AbstractAttributeSet {
       Attributes.forHexInteger("exceptionVector", S.getter("rv32ExceptionVector"));
   public static final Attribute<Integer> BREAK_VECTOR =
       Attributes.forHexInteger("breakVector", S.getter("nios2BreakVector"));
+  public static final Attribute<Integer> TRACE_DEPTH =
+      Attributes.forIntegerRange(
+          "traceDepth", S.getter("rv32TraceDepth"), CpuDrawSupport.NR_OF_TRACES, 1 << 20);
+  public static final Attribute<Integer> INSTRUCTIONS_PER_CLOCK =
+      Attributes.forIntegerRange(
+          "instructionsPerClock", S.getter("rv32InstructionsPerClock"), 1, 1 << 20);
   public static final Attribute<Boolean> NIOS_STATE_VISIBLE =
       Attributes.forBoolean("stateVisible", S.getter("rv32StateVisible"));
 
@@ -61,6 +68,8 @@ public class Nios2Attributes extends AbstractAttributeSet {
           BREAK_VECTOR,
           NR_OF_IRQS,
           NIOS_STATE_VISIBLE,
+          TRACE_DEPTH,
+          INSTRUCTIONS_PER_CLOCK,
           StdAttr.LABEL,
           StdAttr.LABEL_FONT,
           StdAttr.LABEL_VISIBILITY,
@@ -89,6 +98,8 @@ public class Nios2Attributes extends AbstractAttributeSet {
     if (attr == EXCEPTION_VECTOR) return (V) upState.getExceptionVector();
     if (attr == BREAK_VECTOR) return (V) upState.getBreakVector();
     if (attr == NR_OF_IRQS) return (V) BitWidth.create(upState.getNrOfIrqs());
+    if (attr == TRACE_DEPTH) return (V) upState.getTraceDepth();
+    if (attr == INSTRUCTIONS_PER_CLOCK) return (V) upState.getInstructionsPerClock();
     if (attr == StdAttr.LABEL) return (V) upState.getLabel();
     if (attr == StdAttr.LABEL_FONT) return (V) labelFont;
     if (attr == StdAttr.LABEL_VISIBILITY) return (V) labelVisible;
@@ -128,6 +139,15 @@ public class Nios2Attributes extends AbstractAttributeSet {
         fireAttributeValueChanged(attr, value, oldValue);
       return;
     }
+    if (attr == TRACE_DEPTH) {
+      if (upState.setTraceDepth((int) value)) fireAttributeValueChanged(attr, value, oldValue);
+      return;
+    }
+    if (attr == INSTRUCTIONS_PER_CLOCK) {
+      if (upState.setInstructionsPerClock((int) value))
+        fireAttributeValueChanged(attr, value, oldValue);
+      return;
+    }
     if (attr == SocSimulationManager.SOC_BUS_SELECT) {
       if (upState.setAttachedBus((SocBusInfo) value))
         fireAttributeValueChanged(attr, value, oldValue);
@@ -348,4 +348,13 @@ public class Nios2ComparisonInstructions implements AssemblerExecutionInterface
     if (Opcodes.contains(instruction.toLowerCase())) return 4;
     return -1;
   }
+
+  @Override
+  public Nios2ComparisonInstructions clone() {
+    try {
+      return (Nios2ComparisonInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
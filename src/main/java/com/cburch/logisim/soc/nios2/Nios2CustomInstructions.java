@@ -209,4 +209,13 @@ public class Nios2CustomInstructions implements AssemblerExecutionInterface {
     if (instruction.equalsIgnoreCase("custom")) return 4;
     return -1;
   }
+
+  @Override
+  public Nios2CustomInstructions clone() {
+    try {
+      return (Nios2CustomInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
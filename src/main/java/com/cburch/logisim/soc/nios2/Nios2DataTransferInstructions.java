@@ -265,4 +265,12 @@ public class Nios2DataTransferInstructions implements AssemblerExecutionInterfac
     return -1;
   }
 
+  @Override
+  public Nios2DataTransferInstructions clone() {
+    try {
+      return (Nios2DataTransferInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -367,4 +367,13 @@ public class Nios2OtherControlInstructions implements AssemblerExecutionInterfac
     if (Opcodes.contains(instruction.toLowerCase())) return 4;
     return -1;
   }
+
+  @Override
+  public Nios2OtherControlInstructions clone() {
+    try {
+      return (Nios2OtherControlInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
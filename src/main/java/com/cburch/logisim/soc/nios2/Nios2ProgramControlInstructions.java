@@ -449,4 +449,13 @@ public class Nios2ProgramControlInstructions implements AbstractExecutionUnitWit
     }
     return s.toString();
   }
+
+  @Override
+  public Nios2ProgramControlInstructions clone() {
+    try {
+      return (Nios2ProgramControlInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -199,4 +199,13 @@ public class Nios2ShiftAndRotateInstructions implements AssemblerExecutionInterf
     if (Opcodes.contains(instruction.toLowerCase())) return 4;
     return -1;
   }
+
+  @Override
+  public Nios2ShiftAndRotateInstructions clone() {
+    try {
+      return (Nios2ShiftAndRotateInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -22,6 +22,7 @@ import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.soc.data.InstructionTrace;
 import com.cburch.logisim.soc.data.SocBusInfo;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocProcessorInterface;
@@ -30,13 +31,14 @@ import com.cburch.logisim.soc.data.SocUpMenuProvider;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpSimulationStateListener;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.InstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -44,7 +46,6 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
 import java.util.Map;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
@@ -65,7 +66,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private int ienable;
     private int ipending;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
+    private final InstructionTrace instrTrace;
     private Value lastClock;
     private final SocUpSimulationState simState;
     private final Instance myInstance;
@@ -73,11 +74,14 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private InstructionCache instructionCache = new InstructionCache(ASSEMBLER);
+    private boolean waitForCircuit; // until the next clock edge
+    private AssemblerExecutionInterface exeUnit; // of the last instruction decoded
 
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
+      instrTrace = new InstructionTrace(new Nios2Assembler(), traceDepth);
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -121,6 +125,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       bstatus = 0;
       ienable = 0;
       ipending = 0;
+      instrTrace.setDepth(traceDepth);
       instrTrace.clear();
       if (visible) repaint();
       simState.reset();
@@ -275,14 +280,33 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       return attachedBus.getComponent();
     }
 
+    /**
+     * Executes the instructions of one clock edge: one, or as many as set for the processor as
+     * long as it only accesses slaves the circuit does not see, so that programs can run ahead of
+     * the clock without the circuit propagating after each instruction.
+     */
     public void execute(CircuitState cState) {
+      waitForCircuit = false;
+      /* looked up once, as the breakpoint panel builds them anew each time */
+      final var breakPoints = bPanel.getBreakPoints();
+      var executed = 0;
+      while (executed < instructionsPerClock
+          && !waitForCircuit
+          && executeInstruction(cState, breakPoints)) {
+        executed++;
+      }
+      /* also when a breakpoint or a stop ended the burst, as the user then looks at the state */
+      if (executed > 0 && visible) repaint();
+    }
+
+    /** Executes one instruction, and returns whether the processor may go on with the next. */
+    private boolean executeInstruction(CircuitState cState, Map<Integer, Integer> breakPoints) {
       /* check the simulation state */
-      if (!simState.canExecute()) return;
+      if (!simState.canExecute()) return false;
       /* here we handle the custom instructions */
-      if (ASSEMBLER.getExeUnit() != null && ASSEMBLER.getExeUnit() instanceof Nios2CustomInstructions cust) {
-        if (cust.isValid() && cust.waitingOnReady(this, cState)) return;
+      if (exeUnit instanceof Nios2CustomInstructions cust) {
+        if (cust.isValid() && cust.waitingOnReady(this, cState)) return false;
       }
-      Map<Integer, Integer> breakPoints = bPanel.getBreakPoints();
       if (breakPoints.containsKey(pc)) {
         if (simState.breakPointReached()) {
           bPanel.gotoLine(breakPoints.get(pc) - 1);
@@ -291,7 +315,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
               S.get("RV32imBreakPointReached"),
               SocSupport.getMasterName(cState, Nios2State.this.getName()),
               OptionPane.INFORMATION_MESSAGE);
-          return;
+          return false;
         }
       }
       /* check interrupts */
@@ -306,9 +330,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       /* fetch an instruction */
       SocBusTransaction trans =
           new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
-      attachedBus
-          .getSocSimulationManager()
-          .initializeTransaction(trans, attachedBus.getBusId(), cState);
+      exeUnit = instructionCache.fetch(trans, attachedBus, cState);
       if (trans.hasError()) {
         OptionPane.showMessageDialog(
             null,
@@ -316,16 +338,12 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        return;
+        return false;
       }
-      /* decode instruction */
       final var instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
+      final var exe = exeUnit;
       lastRegisterWritten = -1;
-      while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES)
-        instrTrace.removeLast();
       if (exe == null) {
         OptionPane.showMessageDialog(
             null,
@@ -333,12 +351,11 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        instrTrace.addFirst(new TraceInfo(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true));
+        instrTrace.add(pc, instruction, true);
         pc = pc + 4;
         if (visible) repaint();
-        return;
+        return false;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -350,21 +367,25 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        instrTrace.addFirst(trace);
+        instrTrace.add(pc, instruction, true);
         if (visible) repaint();
-        return;
+        return false;
       }
-      instrTrace.addFirst(trace);
+      instrTrace.add(pc, instruction, false);
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
-      if (visible) repaint();
+      /* the result of a custom instruction comes from the circuit */
+      if (exe instanceof Nios2CustomInstructions) waitForCircuit = true;
+      return true;
     }
 
     @Override
     public ProcessorState clone() {
       try {
-        return (ProcessorState) super.clone();
+        final var ret = (ProcessorState) super.clone();
+        /* the copy may run from another memory */
+        ret.instructionCache = new InstructionCache(ASSEMBLER);
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
@@ -375,6 +396,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
+      if (trans.isCircuitVisible()) waitForCircuit = true;
     }
 
     public void draw(Graphics2D g, boolean scale) {
@@ -392,6 +414,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     @Override
     public void destroy() {
       SocUpMenuProvider.SOCUPMENUPROVIDER.deregisterCpuState(this, myInstance);
+      instructionCache.detach();
     }
 
     @Override
@@ -437,7 +460,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
+    public InstructionTrace getTrace() {
       return instrTrace;
     }
 
@@ -476,6 +499,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
   private int exceptionVector;
   private int breakVector;
   private int nrOfIrqs;
+  private int traceDepth;
+  private int instructionsPerClock;
   private String label;
   private final SocBusInfo attachedBus;
 
@@ -534,6 +559,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     exceptionVector = 0x14;
     breakVector = 0x30;
     nrOfIrqs = 0;
+    traceDepth = CpuDrawSupport.NR_OF_TRACES;
+    instructionsPerClock = 1;
     label = "";
     attachedBus = new SocBusInfo("");
   }
@@ -543,6 +570,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     dest.exceptionVector = exceptionVector;
     dest.breakVector = breakVector;
     dest.nrOfIrqs = nrOfIrqs;
+    dest.traceDepth = traceDepth;
+    dest.instructionsPerClock = instructionsPerClock;
     dest.label = label;
     dest.attachedBus.setBusId(attachedBus.getBusId());
   }
@@ -596,6 +625,27 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     return nrOfIrqs;
   }
 
+  /** Sets the number of instructions traced, which takes effect when the processor is reset. */
+  public boolean setTraceDepth(int value) {
+    if (traceDepth == value) return false;
+    traceDepth = value;
+    return true;
+  }
+
+  public Integer getTraceDepth() {
+    return traceDepth;
+  }
+
+  public boolean setInstructionsPerClock(int value) {
+    if (instructionsPerClock == value) return false;
+    instructionsPerClock = value;
+    return true;
+  }
+
+  public Integer getInstructionsPerClock() {
+    return instructionsPerClock;
+  }
+
   public boolean setLabel(String value) {
     if (label.equals(value)) return false;
     label = value;
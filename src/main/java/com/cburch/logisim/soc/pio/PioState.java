@@ -415,6 +415,11 @@ public class PioState implements SocBusSlaveInterface {
     return 24;
   }
 
+  @Override
+  public boolean isCircuitVisible() {
+    return true;
+  }
+
   @Override
   public String getName() {
     var name = "BUG: Unknown";
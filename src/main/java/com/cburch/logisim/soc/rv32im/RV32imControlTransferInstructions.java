@@ -487,4 +487,13 @@ public class RV32imControlTransferInstructions implements AbstractExecutionUnitW
   public long getLabelAddress(long pc) {
     return pc + immediate;
   }
+
+  @Override
+  public RV32imControlTransferInstructions clone() {
+    try {
+      return (RV32imControlTransferInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -111,4 +111,13 @@ public class RV32imEnvironmentCallAndBreakpoints implements AssemblerExecutionIn
     instr.setInstructionByteCode(instruction, 4);
     return true;
   }
+
+  @Override
+  public RV32imEnvironmentCallAndBreakpoints clone() {
+    try {
+      return (RV32imEnvironmentCallAndBreakpoints) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -451,4 +451,12 @@ public class RV32imIntegerRegisterImmediateInstructions implements AssemblerExec
     return true;
   }
 
+  @Override
+  public RV32imIntegerRegisterImmediateInstructions clone() {
+    try {
+      return (RV32imIntegerRegisterImmediateInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
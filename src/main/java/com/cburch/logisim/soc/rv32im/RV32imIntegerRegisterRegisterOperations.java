@@ -260,4 +260,12 @@ public class RV32imIntegerRegisterRegisterOperations implements AssemblerExecuti
     return true;
   }
 
+  @Override
+  public RV32imIntegerRegisterRegisterOperations clone() {
+    try {
+      return (RV32imIntegerRegisterRegisterOperations) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -297,4 +297,12 @@ public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterfa
     return true;
   }
 
+  @Override
+  public RV32imLoadAndStoreInstructions clone() {
+    try {
+      return (RV32imLoadAndStoreInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
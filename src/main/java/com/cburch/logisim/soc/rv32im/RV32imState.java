@@ -23,6 +23,7 @@ import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.instance.InstanceStateImpl;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.soc.data.InstructionTrace;
 import com.cburch.logisim.soc.data.SocBusInfo;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocProcessorInterface;
@@ -31,13 +32,13 @@ import com.cburch.logisim.soc.data.SocUpMenuProvider;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpSimulationStateListener;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.InstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -45,7 +46,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
+import java.util.Map;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
 import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
@@ -63,7 +64,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private final Boolean[] registers_valid;
     private int pc;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
+    private final InstructionTrace instrTrace;
     private Value lastClock;
     private final SocUpSimulationState simState;
     private final Instance myInstance;
@@ -71,11 +72,13 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private InstructionCache instructionCache = new InstructionCache(ASSEMBLER);
+    private boolean waitForCircuit; // until the next clock edge
 
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
+      instrTrace = new InstructionTrace(new RV32imAssembler(), traceDepth);
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -120,6 +123,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
         registers_valid[i] = false;
       }
       lastRegisterWritten = -1;
+      instrTrace.setDepth(traceDepth);
       instrTrace.clear();
       if (visible) repaint();
       simState.reset();
@@ -200,10 +204,29 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       return attachedBus.getComponent();
     }
 
+    /**
+     * Executes the instructions of one clock edge: one, or as many as set for the processor as
+     * long as it only accesses slaves the circuit does not see, so that programs can run ahead of
+     * the clock without the circuit propagating after each instruction.
+     */
     public void execute(CircuitState cState) {
-      /* check the simulation state */
-      if (!simState.canExecute()) return;
+      waitForCircuit = false;
+      /* looked up once, as the breakpoint panel builds them anew each time */
       final var breakPoints = bPanel.getBreakPoints();
+      var executed = 0;
+      while (executed < instructionsPerClock
+          && !waitForCircuit
+          && executeInstruction(cState, breakPoints)) {
+        executed++;
+      }
+      /* also when a breakpoint or a stop ended the burst, as the user then looks at the state */
+      if (executed > 0 && visible) repaint();
+    }
+
+    /** Executes one instruction, and returns whether the processor may go on with the next. */
+    private boolean executeInstruction(CircuitState cState, Map<Integer, Integer> breakPoints) {
+      /* check the simulation state */
+      if (!simState.canExecute()) return false;
       if (breakPoints.containsKey(pc)) {
         if (simState.breakPointReached()) {
           bPanel.gotoLine(breakPoints.get(pc) - 1);
@@ -212,7 +235,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
               S.get("RV32imBreakPointReached"),
               SocSupport.getMasterName(cState, RV32imState.this.getName()),
               OptionPane.INFORMATION_MESSAGE);
-          return;
+          return false;
         }
       }
       /* TODO: check interrupts */
@@ -224,9 +247,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
               0,
               SocBusTransaction.WORD_ACCESS,
               attachedBus.getComponent());
-      attachedBus
-          .getSocSimulationManager()
-          .initializeTransaction(trans, attachedBus.getBusId(), cState);
+      final var exe = instructionCache.fetch(trans, attachedBus, cState);
       if (trans.hasError()) {
         OptionPane.showMessageDialog(
             null,
@@ -235,15 +256,11 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        return;
+        return false;
       }
-      /* decode instruction */
       int instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
-      while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES) instrTrace.removeLast();
       if (exe == null) {
         OptionPane.showMessageDialog(
             null,
@@ -252,12 +269,11 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        instrTrace.addFirst(new TraceInfo(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true));
+        instrTrace.add(pc, instruction, true);
         pc = pc + 4;
         if (visible) repaint();
-        return;
+        return false;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -269,21 +285,23 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        instrTrace.addFirst(trace);
+        instrTrace.add(pc, instruction, true);
         if (visible) repaint();
-        return;
+        return false;
       }
-      instrTrace.addFirst(trace);
+      instrTrace.add(pc, instruction, false);
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
-      if (visible) repaint();
+      return true;
     }
 
     @Override
     public ProcessorState clone() {
       try {
-        return (ProcessorState) super.clone();
+        final var ret = (ProcessorState) super.clone();
+        /* the copy may run from another memory */
+        ret.instructionCache = new InstructionCache(ASSEMBLER);
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
@@ -294,6 +312,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       attachedBus
           .getSocSimulationManager()
           .initializeTransaction(trans, attachedBus.getBusId(), cState);
+      if (trans.isCircuitVisible()) waitForCircuit = true;
     }
 
     public void draw(Graphics2D g, boolean scale) {
@@ -305,6 +324,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     @Override
     public void destroy() {
       SocUpMenuProvider.SOCUPMENUPROVIDER.deregisterCpuState(this, myInstance);
+      instructionCache.detach();
     }
 
     @Override
@@ -350,7 +370,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
+    public InstructionTrace getTrace() {
       return instrTrace;
     }
 
@@ -388,6 +408,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
   private int resetVector;
   private int exceptionVector;
   private int nrOfIrqs;
+  private int traceDepth;
+  private int instructionsPerClock;
   private String label;
   private final SocBusInfo attachedBus;
 
@@ -418,6 +440,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     resetVector = 0;
     exceptionVector = 0x14;
     nrOfIrqs = 0;
+    traceDepth = CpuDrawSupport.NR_OF_TRACES;
+    instructionsPerClock = 1;
     label = "";
     attachedBus = new SocBusInfo("");
   }
@@ -426,6 +450,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     dest.resetVector = resetVector;
     dest.exceptionVector = exceptionVector;
     dest.nrOfIrqs = nrOfIrqs;
+    dest.traceDepth = traceDepth;
+    dest.instructionsPerClock = instructionsPerClock;
     dest.label = label;
     dest.attachedBus.setBusId(attachedBus.getBusId());
   }
@@ -472,6 +498,27 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     return nrOfIrqs;
   }
 
+  /** Sets the number of instructions traced, which takes effect when the processor is reset. */
+  public boolean setTraceDepth(int value) {
+    if (traceDepth == value) return false;
+    traceDepth = value;
+    return true;
+  }
+
+  public Integer getTraceDepth() {
+    return traceDepth;
+  }
+
+  public boolean setInstructionsPerClock(int value) {
+    if (instructionsPerClock == value) return false;
+    instructionsPerClock = value;
+    return true;
+  }
+
+  public Integer getInstructionsPerClock() {
+    return instructionsPerClock;
+  }
+
   public boolean setLabel(String value) {
     if (label.equals(value)) return false;
     label = value;
@@ -210,4 +210,12 @@ public class RV32im_M_ExtensionInstructions implements AssemblerExecutionInterfa
     return true;
   }
 
+  @Override
+  public RV32im_M_ExtensionInstructions clone() {
+    try {
+      return (RV32im_M_ExtensionInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -133,4 +133,13 @@ public class Rv32imMemoryOrderingInstructions implements AssemblerExecutionInter
     valid = false;
     return true;
   }
+
+  @Override
+  public Rv32imMemoryOrderingInstructions clone() {
+    try {
+      return (Rv32imMemoryOrderingInstructions) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return null;
+    }
+  }
 }
@@ -12,7 +12,7 @@ package com.cburch.logisim.soc.util;
 import com.cburch.logisim.circuit.CircuitState;
 import java.util.ArrayList;
 
-public interface AssemblerExecutionInterface {
+public interface AssemblerExecutionInterface extends Cloneable {
   boolean execute(Object processorState, CircuitState circuitState);
 
   String getAsmInstruction();
@@ -32,4 +32,7 @@ public interface AssemblerExecutionInterface {
   ArrayList<String> getInstructions();
 
   int getInstructionSizeInBytes(String instruction);
+
+  /** Returns a copy holding the instruction decoded last, which decoding anew leaves as it is. */
+  AssemblerExecutionInterface clone();
 }
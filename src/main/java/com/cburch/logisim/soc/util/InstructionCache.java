@@ -0,0 +1,144 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.soc.data.SocBusInfo;
+import com.cburch.logisim.soc.data.SocBusStateInfo;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+
+/**
+ * Keeps the instructions a processor fetched decoded, so that an instruction executed again is
+ * neither fetched over the bus nor decoded anew.
+ *
+ * <p>The entries are indexed by program counter, and each one holds a copy of the execution unit
+ * that decoded the instruction, with its operands, together with the word and the slave it was
+ * read from. A fetch that hits an entry is only shown to the sniffers and the trace of the bus,
+ * as if the bus had carried it. An entry is dropped when the bus carries a write to its word,
+ * and all of them when a slave on the bus moves. Instructions read from slaves the circuit sees
+ * are never kept, as those may change without being written over the bus.
+ */
+public class InstructionCache implements SocBusStateInfo.SocBusWriteListener {
+
+  private static final int NR_OF_ENTRIES = 1 << 12;
+
+  private final AssemblerInterface assembler;
+  private final int[] addresses = new int[NR_OF_ENTRIES];
+  private final int[] instructions = new int[NR_OF_ENTRIES];
+  private final Component[] responders = new Component[NR_OF_ENTRIES];
+  private final AssemblerExecutionInterface[] decoded =
+      new AssemblerExecutionInterface[NR_OF_ENTRIES];
+  private SocBusStateInfo bus;
+  private volatile boolean memoryMapChanged; // told from the event thread
+
+  public InstructionCache(AssemblerInterface assembler) {
+    this.assembler = assembler;
+  }
+
+  private static int index(int address) {
+    return (address >>> 2) & (NR_OF_ENTRIES - 1);
+  }
+
+  /**
+   * Fetches the instruction of a read transaction over the given bus, and returns the execution
+   * unit ready to execute it, or null if the transaction failed or no unit recognizes the word
+   * read. The transaction holds the word read, or the error, either way.
+   */
+  public AssemblerExecutionInterface fetch(
+      SocBusTransaction trans, SocBusInfo busInfo, CircuitState cState) {
+    final var info =
+        busInfo.getSocSimulationManager().getConnectedBus(busInfo.getBusId(), cState);
+    if (info == null) {
+      trans.setError(SocBusTransaction.NO_SOC_BUS_CONNECTED_ERROR);
+      return null;
+    }
+    if (info != bus) {
+      detach();
+      bus = info;
+      bus.registerWriteListener(this);
+    }
+    if (memoryMapChanged) {
+      memoryMapChanged = false;
+      clear();
+    }
+    final var address = trans.getAddress();
+    final var index = index(address);
+    final var exe = decoded[index];
+    if (exe != null && addresses[index] == address) {
+      trans.setReadData(instructions[index]);
+      trans.setTransactionResponder(responders[index]);
+      bus.recordTransaction(trans);
+      return exe;
+    }
+    bus.initializeTransaction(trans, busInfo.getBusId());
+    if (trans.hasError()) return null;
+    if (trans.isCircuitVisible()) return decodeWord(trans.getReadData());
+    return store(index, address, trans.getReadData(), trans.getTransactionResponder());
+  }
+
+  /**
+   * Decodes the instruction read at the given address, and returns the execution unit ready to
+   * execute it, or null if no unit recognizes it. The same word at the same address is only
+   * decoded once.
+   */
+  public AssemblerExecutionInterface decode(int address, int instruction) {
+    final var index = index(address);
+    final var exe = decoded[index];
+    if (exe != null && addresses[index] == address && instructions[index] == instruction) {
+      return exe;
+    }
+    return store(index, address, instruction, null);
+  }
+
+  private AssemblerExecutionInterface store(
+      int index, int address, int instruction, Component responder) {
+    final var exe = decodeWord(instruction);
+    addresses[index] = address;
+    instructions[index] = instruction;
+    responders[index] = responder;
+    decoded[index] = exe;
+    return exe;
+  }
+
+  private AssemblerExecutionInterface decodeWord(int instruction) {
+    assembler.decode(instruction);
+    final var exe = assembler.getExeUnit();
+    return exe == null ? null : exe.clone();
+  }
+
+  /** Drops the entry of the word holding the given address, if there is one. */
+  public void invalidate(int address) {
+    final var word = address & ~3;
+    final var index = index(word);
+    if (addresses[index] == word) decoded[index] = null;
+  }
+
+  public void clear() {
+    for (var i = 0; i < NR_OF_ENTRIES; i++) decoded[i] = null;
+  }
+
+  /** Stops listening to the bus fetched from last, and drops all entries. */
+  public void detach() {
+    if (bus != null) bus.removeWriteListener(this);
+    bus = null;
+    clear();
+  }
+
+  @Override
+  public void busWritten(int address) {
+    invalidate(address);
+  }
+
+  @Override
+  public void memoryMapChanged() {
+    memoryMapChanged = true;
+  }
+}
@@ -409,6 +409,12 @@ public class VgaState implements SocBusSlaveInterface, SocBusSnifferInterface, S
     return 4;
   }
 
+  @Override
+  public boolean isCircuitVisible() {
+    /* its display is drawn with the circuit */
+    return true;
+  }
+
   @Override
   public String getName() {
     var name = label;
@@ -19,7 +19,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.RandomAccess;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.text.WordUtils;
 
@@ -183,7 +182,7 @@ public class LineBuffer implements RandomAccess {
    * @return Instance of self for easy chaining.
    */
   public LineBuffer addVhdlKeywords() {
-    for (final var keyword : Vhdl.getVhdlKeywords()) pair(keyword.toLowerCase(), keyword);
+    pairs.getContainer().putAll(Vhdl.getVhdlKeywordPairs());
     return this;
   }
 
@@ -383,17 +382,8 @@ public class LineBuffer implements RandomAccess {
    * @return Formatted string.
    */
   public static String applyPairs(String format, Pairs pairs) {
-    if (pairs != null) {
-      for (final var set : pairs.getContainer().entrySet()) {
-        final var searchRegExp = String.format("\\{\\{\\s*%s\\s*\\}\\}", set.getKey());
-        // Both backslashes (\) and dollar signs ($) in the replacement string may cause the
-        // results to be different than if it were being treated as a literal replacement string
-        // so as we do not need to support i.e. group references etc, we just need to escape it.
-        final var replacement = Matcher.quoteReplacement(set.getValue().toString());
-        format = format.replaceAll(searchRegExp, replacement);
-      }
-    }
-    return format;
+    if (pairs == null || pairs.getContainer().isEmpty()) return format;
+    return Template.of(format).apply(pairs.getContainer());
   }
 
   /**
@@ -697,6 +687,9 @@ public class LineBuffer implements RandomAccess {
 
   /* ********************************************************************************************* */
 
+  private static final Pattern PLACEHOLDER_PATTERN =
+      Pattern.compile("(\\{\\{.+?\\}\\})+", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+
   private List<String> placeholders = new ArrayList<>();
   private final List<String> positionalPlaceholders = new ArrayList<>();
   private final List<String> pairedPlaceholders = new ArrayList<>();
@@ -718,9 +711,8 @@ public class LineBuffer implements RandomAccess {
     pairedPlaceholders.clear();
 
     // Separate positionals and other placeholders
-    final var pattern = Pattern.compile("^\\d+$");
     for (final var phKey : placeholders) {
-      if (pattern.matcher(phKey).find()) positionalPlaceholders.add(phKey);
+      if (isPositionalKey(phKey)) positionalPlaceholders.add(phKey);
       else pairedPlaceholders.add(phKey);
     }
 
@@ -802,6 +794,8 @@ public class LineBuffer implements RandomAccess {
    * @param argPairs Positional placeholders.
    */
   protected void validateLine(String fmt, Pairs argPairs) {
+    // Without placeholders there is nothing to check, which is the case for most final lines.
+    if (argPairs == null && fmt.indexOf("{{") < 0) return;
     initValidator(fmt);
 
     if (argPairs != null) {
@@ -833,9 +827,7 @@ public class LineBuffer implements RandomAccess {
   public List<String> extractPlaceholders(String fmt) {
     final var keys = new ArrayList<String>();
 
-    final var regex = "(\\{\\{.+?\\}\\})+";
-    final var pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-    final var matcher = pattern.matcher(fmt);
+    final var matcher = PLACEHOLDER_PATTERN.matcher(fmt);
     while (matcher.find()) {
       // Extract key from between the brackets:
       final var bracketsCharCount = 2;
@@ -888,6 +880,80 @@ public class LineBuffer implements RandomAccess {
     return this;
   }
 
+  /** Returns whether the key is one of positional placeholders, i.e. made of digits only. */
+  private static boolean isPositionalKey(String key) {
+    if (key.isEmpty()) return false;
+    for (var i = 0; i < key.length(); i++) {
+      final var c = key.charAt(i);
+      if (c < '0' || c > '9') return false;
+    }
+    return true;
+  }
+
+  /* ********************************************************************************************* */
+
+  /**
+   * Formatting string split once into its literal text and its `{{placeholders}}`, so it can then
+   * be applied to any pairs in a single pass. The HDL generators format the same few hundred
+   * strings over and over, so the templates are cached.
+   */
+  private static final class Template {
+    private static final Cache cache = new Cache(12);
+
+    private final String source;
+    // Start and end (past the closing brackets) of each "{{" in the string and the trimmed key
+    // up to the next "}}". They may overlap, as in "{{{1}}", so at most one of them is replaced.
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] keys;
+
+    private Template(String fmt) {
+      source = fmt;
+      final var startList = new ArrayList<Integer>();
+      final var endList = new ArrayList<Integer>();
+      for (var start = fmt.indexOf("{{"); start >= 0; start = fmt.indexOf("{{", start + 1)) {
+        final var close = fmt.indexOf("}}", start + 2);
+        if (close < 0) break;
+        startList.add(start);
+        endList.add(close + 2);
+      }
+      starts = new int[startList.size()];
+      ends = new int[startList.size()];
+      keys = new String[startList.size()];
+      for (var i = 0; i < starts.length; i++) {
+        starts[i] = startList.get(i);
+        ends[i] = endList.get(i);
+        keys[i] = fmt.substring(starts[i] + 2, ends[i] - 2).strip();
+      }
+    }
+
+    static Template of(String fmt) {
+      final var hash = fmt.hashCode();
+      if (cache.get(hash) instanceof Template template && template.source.equals(fmt)) {
+        return template;
+      }
+      final var template = new Template(fmt);
+      cache.put(hash, template);
+      return template;
+    }
+
+    /** Replaces the placeholders that have a pair, leaving the others as they are. */
+    String apply(Map<String, Object> pairs) {
+      StringBuilder result = null;
+      var done = 0;
+      for (var i = 0; i < keys.length; i++) {
+        if (starts[i] < done) continue;
+        final var value = pairs.get(keys[i]);
+        if (value == null) continue;
+        if (result == null) result = new StringBuilder(source.length() + 32);
+        result.append(source, done, starts[i]).append(value);
+        done = ends[i];
+      }
+      if (result == null) return source;
+      return result.append(source, done, source.length()).toString();
+    }
+  }
+
   /* ********************************************************************************************* */
 
   /** Container holding all the key-value pairs used by LineBuffer. */
@@ -920,7 +986,7 @@ public class LineBuffer implements RandomAccess {
       final var map = new Pairs();
       var idx = 1;
       for (final var arg : args) {
-        map.addPositionalPair(String.valueOf(idx++), arg.toString());
+        map.pairContainer.put(String.valueOf(idx++), arg.toString());
       }
       return map;
     }
@@ -946,7 +1012,7 @@ public class LineBuffer implements RandomAccess {
      */
     public Pairs addNonPositionalPair(String key, Object value) {
       // Numeric only keys are not allowed because these are reserved for positional placeholders.
-      if (key.matches("^\\d+$")) {
+      if (isPositionalKey(key)) {
         throw new RuntimeException(
             format("Invalid pair key '{{1}}'. You cannot add positional arguments as pairs.", key));
       }
@@ -975,7 +1041,7 @@ public class LineBuffer implements RandomAccess {
      * @return Returns instance of container for easy chaining.
      */
     public Pairs addPositionalPair(String key, Object value) {
-      if (!key.matches("^\\d+$")) {
+      if (!isPositionalKey(key)) {
         throw new RuntimeException(
             format("Invalid pair key '{{1}}'. Positional arguments' keys must be numeric.", key));
       }
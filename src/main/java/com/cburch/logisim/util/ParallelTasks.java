@@ -0,0 +1,85 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.util;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a batch of independent tasks on all cores and waits for all of them, which makes each
+ * batch an ordered barrier: nothing submitted afterwards can see a half-done batch.
+ */
+public final class ParallelTasks {
+
+  /* the number of threads of a batch, 0 for one per core */
+  private static volatile int threadCount = 0;
+
+  private ParallelTasks() {}
+
+  /**
+   * Sets the number of threads that run a batch: 1 runs every batch in order in the calling
+   * thread, and 0 restores one thread per core. This lets the serial and parallel runs be compared.
+   */
+  public static void setThreadCount(int count) {
+    threadCount = count;
+  }
+
+  /**
+   * Runs all tasks, one per core, and returns whether every one of them returned {@code true}. All
+   * tasks are run even if some fail. With a single core or a single task they run in the calling
+   * thread, in order. An exception thrown by a task is rethrown once all of them are done.
+   */
+  public static boolean runAll(String name, List<? extends Callable<Boolean>> tasks) {
+    final var count = threadCount;
+    final var threads =
+        Math.min(count > 0 ? count : Runtime.getRuntime().availableProcessors(), tasks.size());
+    if (threads <= 1) {
+      var result = true;
+      for (final var task : tasks) {
+        try {
+          result &= task.call();
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return result;
+    }
+    final var pool =
+        Executors.newFixedThreadPool(
+            threads,
+            r -> {
+              final var thread = new UniquelyNamedThread(r, name);
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      var result = true;
+      for (final var future : pool.invokeAll(tasks)) {
+        try {
+          result &= future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException cause) throw cause;
+          if (e.getCause() instanceof Error cause) throw cause;
+          throw new IllegalStateException(e.getCause());
+        }
+      }
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
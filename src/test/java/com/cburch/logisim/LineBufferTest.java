@@ -19,8 +19,11 @@ import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.util.LineBuffer;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
 import org.apache.commons.text.WordUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -349,6 +352,93 @@ public class LineBufferTest extends TestBase {
     assertEquals(exp, buffer.get(0));
   }
 
+  /** Ensures placeholders without a pair, or not closed, are left as they are. */
+  @Test
+  public void testPlaceholdersWithoutPairAreKept() {
+    final var pairs = new LineBuffer.Pairs("foo", "FOO");
+    assertEquals(
+        "FOO {{bar}} {{ baz }} {{foo",
+        LineBuffer.applyPairs("{{foo}} {{bar}} {{ baz }} {{foo", pairs));
+    assertEquals("{{}} {{ }} }}{{", LineBuffer.applyPairs("{{}} {{ }} }}{{", pairs));
+    assertEquals("no placeholders", LineBuffer.applyPairs("no placeholders", pairs));
+  }
+
+  /** Ensures the whitespace around the key of a placeholder is ignored, but not within it. */
+  @Test
+  public void testWhitespaceInsideBraces() {
+    final var pairs = new LineBuffer.Pairs("foo", "FOO").addPositionalPair("1", "ONE");
+    assertEquals("FOO FOO FOO", LineBuffer.applyPairs("{{ foo}} {{foo  }} {{\tfoo\t}}", pairs));
+    assertEquals("ONE {{f oo}}", LineBuffer.applyPairs("{{  1 }} {{f oo}}", pairs));
+  }
+
+  /** Ensures at most one of overlapping placeholders is replaced, the innermost that has a pair. */
+  @Test
+  public void testOverlappingPlaceholders() {
+    final var pairs = LineBuffer.Pairs.fromArgs("ONE").pair("foo", "FOO");
+    assertEquals("{ONE", LineBuffer.applyPairs("{{{1}}", pairs));
+    assertEquals("{{ONE}}", LineBuffer.applyPairs("{{{{1}}}}", pairs));
+    assertEquals("{ONE}FOO", LineBuffer.applyPairs("{{{1}}}{{foo}}", pairs));
+    assertEquals("{{{2}}", LineBuffer.applyPairs("{{{2}}", pairs));
+  }
+
+  /** Ensures positional arguments and named pairs of the buffer are replaced in the same line. */
+  @Test
+  public void testPositionalAndNamedPairsTogether() {
+    final var lb = LineBuffer.getBuffer().pair("name", "NAME");
+    lb.add("{{1}}:{{name}}:{{ 2 }}:{{1}}", "first", "second");
+    assertEquals("first:NAME:second:first", lb.get(0));
+    final var pairs = LineBuffer.Pairs.fromArgs("ONE").pair("other", "OTHER");
+    lb.add("{{name}}{{1}}{{other}}", pairs);
+    assertEquals("NAMEONEOTHER", lb.get(1));
+  }
+
+  /** Ensures dollar signs and backslashes in values are copied as they are. */
+  @Test
+  public void testValuesWithDollarAndBackslash() {
+    final var pairs = LineBuffer.Pairs.fromArgs("\\$0").pair("foo", "a$1\\b$");
+    assertEquals("[a$1\\b$] [\\$0]", LineBuffer.applyPairs("[{{foo}}] [{{1}}]", pairs));
+    final var lb = LineBuffer.getBuffer().pair("bar", "$bar\\");
+    lb.add("{{bar}}={{1}}", "\\1$2");
+    assertEquals("$bar\\=\\1$2", lb.get(0));
+  }
+
+  /** Replaces the placeholders the way it was done before the templates, one regex per pair. */
+  private static String applyPairsByRegex(String format, Map<String, String> pairs) {
+    for (final var pair : pairs.entrySet()) {
+      final var regex = String.format("\\{\\{\\s*%s\\s*\\}\\}", pair.getKey());
+      format = format.replaceAll(regex, Matcher.quoteReplacement(pair.getValue()));
+    }
+    return format;
+  }
+
+  /** Compares the templates with the previous regex replacement on random formatting strings. */
+  @Test
+  public void testSameAsRegexReplacement() {
+    final var random = new Random(130);
+    final var keys = new String[] {"1", "2", "12", "foo", "bar", "foobar"};
+    // values that cannot form keys or braces, as the regexes would then replace them in turn
+    final var values = new String[] {"X", "$", "\\", "Y$1", "\\Z", ""};
+    final var fragments =
+        new String[] {"{{", "}}", "{", "}", " ", "\t", "a", "=", "foo", "bar", "1", "2"};
+    for (var n = 0; n < 5000; n++) {
+      final var pairs = new LineBuffer.Pairs();
+      final var map = new HashMap<String, String>();
+      for (final var key : keys) {
+        if (random.nextBoolean()) continue;
+        final var value = values[random.nextInt(values.length)];
+        if (Character.isDigit(key.charAt(0))) pairs.addPositionalPair(key, value);
+        else pairs.pair(key, value);
+        map.put(key, value);
+      }
+      final var fmt = new StringBuilder();
+      for (var i = random.nextInt(16); i > 0; i--) {
+        fmt.append(fragments[random.nextInt(fragments.length)]);
+      }
+      final var format = fmt.toString();
+      assertEquals(applyPairsByRegex(format, map), LineBuffer.applyPairs(format, pairs), format);
+    }
+  }
+
   /* ********************************************************************************************* */
 
   @Test
@@ -0,0 +1,181 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Checks the packed entries of an {@link EntryColumn} against an array of the same entries. */
+public class EntryColumnTest extends TestBase {
+
+  private static final Entry[] ENTRIES = {
+    Entry.ZERO, Entry.ONE, Entry.DONT_CARE, Entry.BUS_ERROR, Entry.OSCILLATE_ERROR
+  };
+
+  // sizes around the 32 entries of a word
+  private static final int[] SIZES = {1, 2, 31, 32, 33, 64, 100};
+
+  private static void assertEntries(Entry[] expected, EntryColumn column) {
+    assertEquals(expected.length, column.size());
+    for (var i = 0; i < expected.length; i++) assertSame(expected[i], column.get(i), "entry " + i);
+  }
+
+  @Test
+  public void testNewColumnIsDontCares() {
+    for (final var size : SIZES) {
+      final var column = new EntryColumn(size);
+      final var expected = new Entry[size];
+      Arrays.fill(expected, Entry.DONT_CARE);
+      assertEntries(expected, column);
+      assertFalse(column.hasDefined());
+      assertEquals(-1, column.nextIndexOf(true, 0));
+      assertEquals(-1, column.nextIndexOf(false, 0));
+    }
+  }
+
+  @Test
+  public void testSetAndGet() {
+    final var random = new Random(19);
+    for (final var size : SIZES) {
+      final var column = new EntryColumn(size);
+      final var expected = new Entry[size];
+      Arrays.fill(expected, Entry.DONT_CARE);
+      for (var n = 0; n < 20 * size; n++) {
+        final var idx = random.nextInt(size);
+        final var value = ENTRIES[random.nextInt(ENTRIES.length)];
+        assertEquals(expected[idx] != value, column.set(idx, value), "set " + idx + " " + value);
+        expected[idx] = value;
+        assertSame(value, column.get(idx));
+      }
+      assertEntries(expected, column);
+      assertEquals(column, new EntryColumn(expected));
+      assertEquals(column.hashCode(), new EntryColumn(expected).hashCode());
+    }
+  }
+
+  /** Every entry changed into every other one, next to entries that must stay as they are. */
+  @Test
+  public void testEveryChange() {
+    for (final var from : ENTRIES) {
+      for (final var to : ENTRIES) {
+        final var column = new EntryColumn(33);
+        final var expected = new Entry[33];
+        for (var i = 0; i < 33; i++) {
+          expected[i] = ENTRIES[i % ENTRIES.length];
+          column.set(i, expected[i]);
+        }
+        for (final var idx : new int[] {0, 17, 31, 32}) {
+          column.set(idx, from);
+          expected[idx] = from;
+          assertEquals(from != to, column.set(idx, to));
+          expected[idx] = to;
+          assertEntries(expected, column);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBadIndexAndEntry() {
+    final var column = new EntryColumn(33);
+    assertThrows(IndexOutOfBoundsException.class, () -> column.get(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> column.get(33));
+    assertThrows(IndexOutOfBoundsException.class, () -> column.set(33, Entry.ONE));
+    assertThrows(IllegalArgumentException.class, () -> column.set(0, null));
+  }
+
+  @Test
+  public void testSame() {
+    final var column = new EntryColumn(ENTRIES);
+    for (var i = 0; i < ENTRIES.length; i++) {
+      for (var j = 0; j < ENTRIES.length; j++) assertEquals(i == j, column.same(i, j));
+    }
+    final var errors =
+        new EntryColumn(new Entry[] {Entry.BUS_ERROR, Entry.BUS_ERROR, Entry.OSCILLATE_ERROR});
+    assertTrue(errors.same(0, 1));
+    assertFalse(errors.same(1, 2));
+  }
+
+  @Test
+  public void testErrorsAreToldApart() {
+    final var bus = new EntryColumn(40);
+    final var oscillating = new EntryColumn(40);
+    bus.set(35, Entry.BUS_ERROR);
+    oscillating.set(35, Entry.OSCILLATE_ERROR);
+    assertNotEquals(bus, oscillating);
+    // an oscillation error that becomes a bus error is no longer marked as oscillating
+    oscillating.set(35, Entry.BUS_ERROR);
+    assertEquals(bus, oscillating);
+    oscillating.set(35, Entry.OSCILLATE_ERROR);
+    oscillating.set(35, Entry.ONE);
+    bus.set(35, Entry.ONE);
+    assertEquals(bus, oscillating);
+    assertTrue(oscillating.hasDefined());
+  }
+
+  @Test
+  public void testHasDefined() {
+    for (final var entry : ENTRIES) {
+      final var column = new EntryColumn(70);
+      column.set(69, entry);
+      assertEquals(entry == Entry.ZERO || entry == Entry.ONE, column.hasDefined(), "" + entry);
+    }
+  }
+
+  @Test
+  public void testNextIndexOf() {
+    final var random = new Random(20);
+    for (final var size : SIZES) {
+      final var expected = new Entry[size];
+      for (var i = 0; i < size; i++) expected[i] = ENTRIES[random.nextInt(ENTRIES.length)];
+      final var column = new EntryColumn(expected);
+      for (final var one : new boolean[] {true, false}) {
+        final var wanted = one ? Entry.ONE : Entry.ZERO;
+        for (var from = 0; from <= size; from++) {
+          var next = from;
+          while (next < size && expected[next] != wanted) next++;
+          assertEquals(next < size ? next : -1, column.nextIndexOf(one, from));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testAgrees() {
+    final var random = new Random(21);
+    for (final var size : SIZES) {
+      for (var n = 0; n < 50; n++) {
+        final var a = new Entry[size];
+        final var b = new Entry[size];
+        var agree = true;
+        for (var i = 0; i < size; i++) {
+          a[i] = ENTRIES[random.nextInt(ENTRIES.length)];
+          // mostly equal entries, so that some columns agree
+          b[i] = random.nextInt(size) == 0 ? ENTRIES[random.nextInt(ENTRIES.length)] : a[i];
+          if (a[i] == Entry.ZERO && b[i] == Entry.ONE || a[i] == Entry.ONE && b[i] == Entry.ZERO) {
+            agree = false;
+          }
+        }
+        assertEquals(agree, new EntryColumn(a).agrees(new EntryColumn(b)));
+        assertEquals(agree, new EntryColumn(b).agrees(new EntryColumn(a)));
+      }
+    }
+    assertFalse(new EntryColumn(3).agrees(new EntryColumn(4)));
+  }
+}
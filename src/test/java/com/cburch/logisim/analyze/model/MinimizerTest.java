@@ -0,0 +1,266 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the covers found by {@link Minimizer} against the function they cover, and their cost
+ * against that of a cover found by trying all of them.
+ */
+public class MinimizerTest extends TestBase {
+
+  private static final Entry[] ENTRIES = {
+    Entry.ZERO, Entry.ONE, Entry.DONT_CARE, Entry.BUS_ERROR, Entry.OSCILLATE_ERROR
+  };
+
+  private static EntryColumn randomColumn(Random random, int nrOfInputs) {
+    final var column = new EntryColumn(1 << nrOfInputs);
+    for (var i = 0; i < column.size(); i++) {
+      // mostly defined entries, so that the covers are not trivial
+      final var pick = random.nextInt(10);
+      column.set(i, pick < 4 ? Entry.ZERO : pick < 8 ? Entry.ONE : ENTRIES[2 + random.nextInt(3)]);
+    }
+    return column;
+  }
+
+  private static boolean contains(Implicant implicant, int minterm) {
+    return (minterm & ~implicant.unknowns) == implicant.values;
+  }
+
+  private static int literals(int unknowns, int nrOfInputs) {
+    return nrOfInputs - Integer.bitCount(unknowns);
+  }
+
+  /** The cost the minimizer gives a cover: fewer cubes first, then fewer literals. */
+  private static int cost(List<Implicant> cover, int nrOfInputs) {
+    var cost = 0;
+    for (final var implicant : cover) cost += 1000 + literals(implicant.unknowns, nrOfInputs);
+    return cost;
+  }
+
+  /** Finds the primes by trying every cube, and the cheapest cover of them by trying them all. */
+  private static final class BruteForce {
+    final int nrOfInputs;
+    final boolean[] on;
+    final boolean[] off;
+    final List<int[]> primes = new ArrayList<>(); // {unknowns, values}
+    final int[] coverCount;
+    int best = Integer.MAX_VALUE;
+
+    BruteForce(EntryColumn column, int nrOfInputs, boolean ones) {
+      this.nrOfInputs = nrOfInputs;
+      final var size = 1 << nrOfInputs;
+      on = new boolean[size];
+      off = new boolean[size];
+      for (var m = 0; m < size; m++) {
+        final var entry = column.get(m);
+        on[m] = entry == (ones ? Entry.ONE : Entry.ZERO);
+        off[m] = entry == (ones ? Entry.ZERO : Entry.ONE);
+      }
+      coverCount = new int[size];
+      for (var unknowns = 0; unknowns < size; unknowns++) {
+        for (var values = 0; values < size; values++) {
+          if ((values & unknowns) != 0 || !isImplicant(unknowns, values)) continue;
+          var prime = true;
+          for (var bit = 1; bit < size && prime; bit <<= 1) {
+            if ((unknowns & bit) == 0 && isImplicant(unknowns | bit, values & ~bit)) prime = false;
+          }
+          if (prime) primes.add(new int[] {unknowns, values});
+        }
+      }
+    }
+
+    boolean isImplicant(int unknowns, int values) {
+      for (var m = 0; m < on.length; m++) {
+        if ((m & ~unknowns) == values && off[m]) return false;
+      }
+      return true;
+    }
+
+    int minimalCost() {
+      search(0);
+      return best;
+    }
+
+    private void search(int cost) {
+      if (cost >= best) return;
+      var first = -1;
+      for (var m = 0; m < on.length && first < 0; m++) {
+        if (on[m] && coverCount[m] == 0) first = m;
+      }
+      if (first < 0) {
+        best = cost;
+        return;
+      }
+      // the first minterm left must be covered by one of the primes over it
+      for (final var prime : primes) {
+        if ((first & ~prime[0]) != prime[1]) continue;
+        mark(prime, 1);
+        search(cost + 1000 + literals(prime[0], nrOfInputs));
+        mark(prime, -1);
+      }
+    }
+
+    private void mark(int[] prime, int delta) {
+      for (var m = 0; m < on.length; m++) {
+        if ((m & ~prime[0]) == prime[1]) coverCount[m] += delta;
+      }
+    }
+  }
+
+  private static void checkCover(EntryColumn column, int nrOfInputs, boolean ones) {
+    final var minimizer = new Minimizer(column, nrOfInputs, ones);
+    final var cover = minimizer.minimize();
+    final var desired = ones ? Entry.ONE : Entry.ZERO;
+    final var avoided = ones ? Entry.ZERO : Entry.ONE;
+    for (var m = 0; m < column.size(); m++) {
+      var covered = false;
+      for (final var implicant : cover) covered |= contains(implicant, m);
+      final var minterm = m;
+      if (column.get(m) == desired) {
+        assertTrue(covered, () -> "minterm " + minterm + " not covered in " + column);
+      } else if (column.get(m) == avoided) {
+        assertFalse(covered, () -> "minterm " + minterm + " wrongly covered in " + column);
+      }
+    }
+    final var bruteForce = new BruteForce(column, nrOfInputs, ones);
+    assertTrue(minimizer.isMinimal());
+    assertEquals(bruteForce.minimalCost(), cost(cover, nrOfInputs), () -> "cover of " + column);
+  }
+
+  @Test
+  public void testRandomFunctions() {
+    final var random = new Random(20);
+    for (var nrOfInputs = 3; nrOfInputs <= 5; nrOfInputs++) {
+      for (var i = 0; i < 60; i++) {
+        final var column = randomColumn(random, nrOfInputs);
+        checkCover(column, nrOfInputs, true);
+        checkCover(column, nrOfInputs, false);
+      }
+    }
+  }
+
+  @Test
+  public void testFunctionsWithoutDontCares() {
+    final var random = new Random(21);
+    for (var i = 0; i < 60; i++) {
+      final var column = new EntryColumn(1 << 4);
+      for (var m = 0; m < column.size(); m++) {
+        column.set(m, random.nextBoolean() ? Entry.ONE : Entry.ZERO);
+      }
+      checkCover(column, 4, true);
+      checkCover(column, 4, false);
+    }
+  }
+
+  /** Errors may be covered or not, like don't cares, as the Quine-McCluskey search did. */
+  @Test
+  public void testErrorsAreDontCares() {
+    for (final var error : new Entry[] {Entry.DONT_CARE, Entry.BUS_ERROR, Entry.OSCILLATE_ERROR}) {
+      // ones at 0 to 2, an error at 3 and zeros elsewhere: the error joins the ones
+      final var column = new EntryColumn(1 << 3);
+      for (var m = 0; m < column.size(); m++) column.set(m, m < 3 ? Entry.ONE : Entry.ZERO);
+      column.set(3, error);
+      final var cover = new Minimizer(column, 3, true).minimize();
+      assertEquals(1, cover.size());
+      assertEquals(3, cover.get(0).unknowns);
+      assertEquals(0, cover.get(0).values);
+      checkCover(column, 3, true);
+      checkCover(column, 3, false);
+    }
+  }
+
+  @Test
+  public void testConstantFunctions() {
+    final var column = new EntryColumn(1 << 4);
+    for (var m = 0; m < column.size(); m++) column.set(m, Entry.ZERO);
+    assertTrue(new Minimizer(column, 4, true).minimize().isEmpty());
+    final var all = new Minimizer(column, 4, false).minimize();
+    assertEquals(1, all.size());
+    assertEquals(15, all.get(0).unknowns);
+    // ones and errors only: a single cube, the errors being covered
+    column.set(5, Entry.BUS_ERROR);
+    for (var m = 0; m < column.size(); m++) if (m != 5) column.set(m, Entry.ONE);
+    assertEquals(15, new Minimizer(column, 4, true).minimize().get(0).unknowns);
+  }
+
+  private static AnalyzerModel createModel(int nrOfInputs) {
+    final var model = new AnalyzerModel();
+    final var inputs = new ArrayList<Var>();
+    for (var i = 0; i < nrOfInputs; i++) inputs.add(new Var("i" + i, 1));
+    model.setVariables(inputs, List.of(new Var("o", 1)));
+    return model;
+  }
+
+  /** A column of errors and don't cares has no minimal form to show, as before. */
+  @Test
+  public void testUndefinedOutput() {
+    final var model = createModel(3);
+    final var table = model.getTruthTable();
+    for (var m = 0; m < table.getRowCount(); m++) {
+      table.setOutputEntry(m, 0, m % 2 == 0 ? Entry.BUS_ERROR : Entry.DONT_CARE);
+    }
+    final var format = AnalyzerModel.FORMAT_SUM_OF_PRODUCTS;
+    assertTrue(Implicant.computeMinimal(format, model, "o", null, false).isEmpty());
+    assertTrue(Implicant.computeMinimal(format, model, "x", null, false).isEmpty());
+    // large tables are left to computeMinimalImplicants
+    assertNull(Implicant.computeMinimal(format, createModel(7), "o", null, false));
+  }
+
+  @Test
+  public void testCancelLeavesModelUnchanged() {
+    final var nrOfInputs = Implicant.MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM + 4;
+    final var model = createModel(nrOfInputs);
+    final var table = model.getTruthTable();
+    final var random = new Random(22);
+    for (var m = 0; m < table.getRowCount(); m++) {
+      table.setOutputEntry(m, 0, random.nextBoolean() ? Entry.ONE : Entry.ZERO);
+    }
+    final var exprs = model.getOutputExpressions();
+    final var events = new ArrayList<OutputExpressionsEvent>();
+    exprs.addOutputExpressionsListener(events::add);
+    final var format = exprs.getMinimizedFormat("o");
+    final var expr = exprs.getExpression("o");
+    final var column = table.getOutputColumn(0);
+    assertTrue(exprs.isMinimalExpressionUnknown("o"));
+
+    Thread.currentThread().interrupt();
+    assertThrows(CancellationException.class, () -> exprs.computeMinimalImplicants("o", format));
+    assertFalse(Thread.interrupted());
+    assertTrue(events.isEmpty());
+    assertTrue(exprs.isMinimalExpressionUnknown("o"));
+    assertNull(exprs.getMinimalImplicants("o"));
+    assertSame(expr, exprs.getExpression("o"));
+    assertEquals(column, table.getOutputColumn(0));
+
+    // a computation that is not cancelled is applied by setMinimalImplicants only
+    final var implicants = exprs.computeMinimalImplicants("o", format);
+    assertTrue(events.isEmpty());
+    assertTrue(exprs.isMinimalExpressionUnknown("o"));
+    exprs.setMinimalImplicants("o", format, implicants);
+    assertFalse(exprs.isMinimalExpressionUnknown("o"));
+    assertSame(implicants, exprs.getMinimalImplicants("o"));
+    assertFalse(events.isEmpty());
+    assertEquals(column, table.getOutputColumn(0));
+  }
+}
@@ -0,0 +1,386 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks a {@link TruthTable} whose rows are all visible on their own, and are then not listed,
+ * against one whose rows are listed, and against the entries set, as rows are compacted and
+ * expanded and as columns are added and removed.
+ */
+public class TruthTableTest extends TestBase {
+
+  private static final Entry[] ENTRIES = {
+    Entry.ZERO, Entry.ONE, Entry.DONT_CARE, Entry.BUS_ERROR, Entry.OSCILLATE_ERROR
+  };
+
+  private static AnalyzerModel createModel(int nrOfInputs, int nrOfOutputs) {
+    final var model = new AnalyzerModel();
+    final var inputs = new ArrayList<Var>();
+    for (var i = 0; i < nrOfInputs; i++) inputs.add(new Var("i" + i, 1));
+    final var outputs = new ArrayList<Var>();
+    for (var i = 0; i < nrOfOutputs; i++) outputs.add(new Var("o" + i, 1));
+    model.setVariables(inputs, outputs);
+    return model;
+  }
+
+  /** Lists every row of the table on its own, with its outputs, as a table read from a file. */
+  private static void listRows(TruthTable table) {
+    final var ni = table.getInputColumnCount();
+    final var no = table.getOutputColumnCount();
+    final var rows = new ArrayList<Entry[]>();
+    for (var idx = 0; idx < table.getRowCount(); idx++) {
+      final var row = new Entry[ni + no];
+      for (var col = 0; col < ni; col++) row[col] = table.getInputEntry(idx, col);
+      for (var col = 0; col < no; col++) row[ni + col] = table.getOutputEntry(idx, col);
+      rows.add(row);
+    }
+    table.setVisibleRows(rows, false);
+  }
+
+  /** Returns the entries of the table, by visible row, as they are shown. */
+  private static List<String> visibleRows(TruthTable table) {
+    final var ret = new ArrayList<String>();
+    for (var row = 0; row < table.getVisibleRowCount(); row++) {
+      final var s = new StringBuilder();
+      for (var col = 0; col < table.getInputColumnCount(); col++) {
+        s.append(table.getVisibleInputEntry(row, col).getDescription());
+      }
+      s.append(" ").append(table.getVisibleOutputs(row));
+      s.append(" ").append(table.getVisibleRowIndex(row));
+      s.append(" ").append(table.getVisibleRowDcMask(row));
+      ret.add(s.toString());
+    }
+    return ret;
+  }
+
+  private static Entry[][] entries(TruthTable table) {
+    final var ret = new Entry[table.getOutputColumnCount()][table.getRowCount()];
+    for (var col = 0; col < ret.length; col++) {
+      for (var idx = 0; idx < table.getRowCount(); idx++) {
+        ret[col][idx] = table.getOutputEntry(idx, col);
+      }
+    }
+    return ret;
+  }
+
+  private static void assertSameTable(TruthTable expected, TruthTable actual) {
+    assertEquals(expected.getInputColumnCount(), actual.getInputColumnCount());
+    assertEquals(expected.getOutputColumnCount(), actual.getOutputColumnCount());
+    assertEquals(visibleRows(expected), visibleRows(actual));
+    final var expectedEntries = entries(expected);
+    final var actualEntries = entries(actual);
+    for (var col = 0; col < expectedEntries.length; col++) {
+      for (var idx = 0; idx < expectedEntries[col].length; idx++) {
+        assertSame(expectedEntries[col][idx], actualEntries[col][idx], col + " " + idx);
+      }
+    }
+  }
+
+  /** Checks that the entries of each visible row are alike, and that rows cover indexes once. */
+  private static void assertRowsConsistent(TruthTable table) {
+    final var covered = new int[table.getRowCount()];
+    for (var row = 0; row < table.getVisibleRowCount(); row++) {
+      final var base = table.getVisibleRowIndex(row);
+      for (final var idx : table.getVisibleRowIndexes(row)) {
+        covered[idx]++;
+        assertEquals(row, table.findVisibleRowContaining(idx));
+        for (var col = 0; col < table.getOutputColumnCount(); col++) {
+          assertSame(table.getOutputEntry(base, col), table.getOutputEntry(idx, col));
+        }
+      }
+    }
+    for (var idx = 0; idx < covered.length; idx++) assertEquals(1, covered[idx], "index " + idx);
+  }
+
+  private static void setRandomEntries(Random random, Entry[] entries, TruthTable... tables) {
+    final var rows = tables[0].getRowCount();
+    for (var n = 0; n < 3 * rows; n++) {
+      final var idx = random.nextInt(rows);
+      final var col = random.nextInt(tables[0].getOutputColumnCount());
+      final var value = entries[random.nextInt(entries.length)];
+      for (final var table : tables) table.setOutputEntry(idx, col, value);
+    }
+  }
+
+  @Test
+  public void testRowsNotListed() {
+    final var table = createModel(4, 2).getTruthTable();
+    assertEquals(16, table.getRowCount());
+    assertEquals(16, table.getVisibleRowCount());
+    for (var row = 0; row < 16; row++) {
+      assertEquals(row, table.getVisibleRowIndex(row));
+      assertEquals(0, table.getVisibleRowDcMask(row));
+      assertEquals(row, table.findVisibleRowContaining(row));
+      final var indexes = new ArrayList<Integer>();
+      table.getVisibleRowIndexes(row).forEach(indexes::add);
+      assertEquals(List.of(row), indexes);
+      for (var col = 0; col < 4; col++) {
+        assertSame(table.getInputEntry(row, col), table.getVisibleInputEntry(row, col));
+      }
+      assertSame(Entry.DONT_CARE, table.getVisibleOutputEntry(row, 1));
+    }
+    // columns are only created once an entry is set
+    assertNull(table.findOutputColumn(0));
+    table.setOutputEntry(3, 1, Entry.DONT_CARE);
+    assertNull(table.findOutputColumn(1));
+    table.setVisibleOutputEntry(3, 1, Entry.DONT_CARE);
+    assertNull(table.findOutputColumn(1));
+  }
+
+  @Test
+  public void testSetAndGetEntries() {
+    final var random = new Random(19);
+    final var lazy = createModel(5, 3).getTruthTable();
+    final var listed = createModel(5, 3).getTruthTable();
+    listRows(listed);
+    final var expected = new Entry[3][32];
+    for (final var column : expected) Arrays.fill(column, Entry.DONT_CARE);
+    for (var n = 0; n < 500; n++) {
+      final var idx = random.nextInt(32);
+      final var col = random.nextInt(3);
+      final var value = ENTRIES[random.nextInt(ENTRIES.length)];
+      if (random.nextBoolean()) {
+        lazy.setOutputEntry(idx, col, value);
+        listed.setOutputEntry(idx, col, value);
+      } else {
+        // every row is visible on its own, at its index
+        lazy.setVisibleOutputEntry(idx, col, value);
+        listed.setVisibleOutputEntry(idx, col, value);
+      }
+      expected[col][idx] = value;
+      assertSame(value, lazy.getOutputEntry(idx, col));
+      assertSame(value, lazy.getVisibleOutputEntry(idx, col));
+    }
+    assertSameTable(listed, lazy);
+    for (var col = 0; col < 3; col++) {
+      assertEquals(new EntryColumn(expected[col]), lazy.getOutputColumn(col));
+    }
+  }
+
+  @Test
+  public void testCompactAndExpand() {
+    final var random = new Random(20);
+    final var entries = new Entry[] {Entry.ZERO, Entry.ONE, Entry.DONT_CARE, Entry.BUS_ERROR};
+    final var table = createModel(5, 2).getTruthTable();
+    // outputs that depend on few inputs, so that rows merge
+    for (var idx = 0; idx < 32; idx++) {
+      table.setOutputEntry(idx, 0, (idx & 0b10100) == 0b10100 ? Entry.ONE : Entry.ZERO);
+      table.setOutputEntry(idx, 1, entries[(idx >> 3) & 3]);
+    }
+    final var before = entries(table);
+    table.compactVisibleRows();
+    assertTrue(table.getVisibleRowCount() < table.getRowCount());
+    assertRowsConsistent(table);
+    assertArrayEquals(before, entries(table), "entries kept when compacted");
+
+    // setting an entry inside a compacted row splits it
+    final var row = table.findVisibleRowContaining(31);
+    assertTrue(table.getVisibleRowDcMask(row) != 0);
+    final var count = table.getVisibleRowCount();
+    table.setOutputEntry(31, 1, Entry.OSCILLATE_ERROR);
+    assertTrue(table.getVisibleRowCount() > count);
+    assertRowsConsistent(table);
+    assertSame(Entry.OSCILLATE_ERROR, table.getOutputEntry(31, 1));
+
+    final var compacted = entries(table);
+    table.expandVisibleRows();
+    assertEquals(32, table.getVisibleRowCount());
+    for (var i = 0; i < 32; i++) {
+      assertEquals(i, table.getVisibleRowIndex(i));
+      assertEquals(0, table.getVisibleRowDcMask(i));
+    }
+    assertArrayEquals(compacted, entries(table), "entries kept when expanded");
+
+    // and compacted again, oscillation errors being kept as well
+    setRandomEntries(random, ENTRIES, table);
+    final var random1 = entries(table);
+    table.compactVisibleRows();
+    assertRowsConsistent(table);
+    assertArrayEquals(random1, entries(table));
+  }
+
+  @Test
+  public void testSetOutputColumnSplitsRows() {
+    final var table = createModel(4, 2).getTruthTable();
+    for (var idx = 0; idx < 16; idx++) table.setOutputEntry(idx, 0, Entry.ONE);
+    table.compactVisibleRows();
+    assertEquals(1, table.getVisibleRowCount());
+    final var column = new EntryColumn(16);
+    for (var idx = 0; idx < 16; idx++) column.set(idx, ENTRIES[idx % ENTRIES.length]);
+    table.setOutputColumn(1, column);
+    assertSame(column, table.getOutputColumn(1));
+    assertRowsConsistent(table);
+    for (var idx = 0; idx < 16; idx++) {
+      assertSame(Entry.ONE, table.getOutputEntry(idx, 0));
+      assertSame(ENTRIES[idx % ENTRIES.length], table.getOutputEntry(idx, 1));
+    }
+
+    // a column set on a table whose rows are not listed leaves them so
+    final var lazy = createModel(4, 2).getTruthTable();
+    lazy.setOutputColumn(1, column);
+    assertEquals(16, lazy.getVisibleRowCount());
+    for (var idx = 0; idx < 16; idx++) {
+      assertSame(ENTRIES[idx % ENTRIES.length], lazy.getVisibleOutputEntry(idx, 1));
+    }
+  }
+
+  @Test
+  public void testDontCareInput() {
+    final var lazy = createModel(3, 1).getTruthTable();
+    final var listed = createModel(3, 1).getTruthTable();
+    listRows(listed);
+    for (final var table : new TruthTable[] {lazy, listed}) {
+      table.setOutputEntry(2, 0, Entry.ONE);
+      table.setOutputEntry(3, 0, Entry.ONE);
+      table.setOutputEntry(5, 0, Entry.ZERO);
+    }
+    // rows 4 and 5 differ, and only merge when forced, taking the outputs of row 4
+    assertFalse(lazy.setVisibleInputEntry(4, 2, Entry.DONT_CARE, false));
+    assertFalse(listed.setVisibleInputEntry(4, 2, Entry.DONT_CARE, false));
+    assertEquals(8, lazy.getVisibleRowCount());
+    // rows 2 and 3 alike merge
+    assertTrue(lazy.setVisibleInputEntry(2, 2, Entry.DONT_CARE, false));
+    assertTrue(listed.setVisibleInputEntry(2, 2, Entry.DONT_CARE, false));
+    assertSameTable(listed, lazy);
+    assertEquals(7, lazy.getVisibleRowCount());
+    assertTrue(lazy.setVisibleInputEntry(3, 2, Entry.DONT_CARE, true));
+    assertTrue(listed.setVisibleInputEntry(3, 2, Entry.DONT_CARE, true));
+    assertSameTable(listed, lazy);
+    assertSame(Entry.DONT_CARE, lazy.getOutputEntry(5, 0));
+    assertRowsConsistent(lazy);
+    // and split again
+    assertTrue(lazy.setVisibleInputEntry(2, 2, Entry.ONE, false));
+    assertTrue(listed.setVisibleInputEntry(2, 2, Entry.ONE, false));
+    assertSameTable(listed, lazy);
+    assertRowsConsistent(lazy);
+  }
+
+  /** Input columns added, moved, resized and removed, with rows listed or not. */
+  @Test
+  public void testInputColumnChanges() {
+    final var random = new Random(21);
+    final var lazyModel = createModel(3, 2);
+    final var listedModel = createModel(3, 2);
+    final var lazy = lazyModel.getTruthTable();
+    final var listed = listedModel.getTruthTable();
+    listRows(listed);
+    setRandomEntries(random, ENTRIES, lazy, listed);
+    assertSameTable(listed, lazy);
+
+    final var wide = new Var("w", 2);
+    for (final var model : new AnalyzerModel[] {lazyModel, listedModel}) {
+      model.getInputs().add(wide);
+    }
+    assertEquals(32, lazy.getRowCount());
+    assertEquals(32, lazy.getVisibleRowCount());
+    assertSameTable(listed, lazy);
+    // the outputs do not depend on the new input
+    for (var idx = 0; idx < 32; idx++) {
+      for (var col = 0; col < 2; col++) {
+        assertSame(lazy.getOutputEntry(idx & ~3, col), lazy.getOutputEntry(idx, col));
+      }
+    }
+    setRandomEntries(random, ENTRIES, lazy, listed);
+
+    for (final var model : new AnalyzerModel[] {lazyModel, listedModel}) {
+      model.getInputs().move(wide, -2);
+    }
+    assertEquals("w[1]", lazy.getInputHeader(1));
+    assertSameTable(listed, lazy);
+
+    final var narrow = new Var("w", 1);
+    for (final var model : new AnalyzerModel[] {lazyModel, listedModel}) {
+      model.getInputs().replace(wide, narrow);
+    }
+    assertEquals(16, lazy.getRowCount());
+    assertSameTable(listed, lazy);
+
+    final var widened = new Var("w", 3);
+    for (final var model : new AnalyzerModel[] {lazyModel, listedModel}) {
+      model.getInputs().replace(narrow, widened);
+    }
+    assertEquals(64, lazy.getRowCount());
+    assertSameTable(listed, lazy);
+    setRandomEntries(random, ENTRIES, lazy, listed);
+
+    final var i1 = lazy.getInputVariable(2);
+    assertEquals("i1", i1.name);
+    for (final var model : new AnalyzerModel[] {lazyModel, listedModel}) {
+      model.getInputs().remove(i1);
+    }
+    assertEquals(32, lazy.getRowCount());
+    assertSameTable(listed, lazy);
+    assertRowsConsistent(lazy);
+  }
+
+  /** Output columns added, moved, resized and removed keep the entries of the others. */
+  @Test
+  public void testOutputColumnChanges() {
+    final var random = new Random(22);
+    final var model = createModel(4, 3);
+    final var table = model.getTruthTable();
+    setRandomEntries(random, ENTRIES, table);
+    final var before = entries(table);
+    table.compactVisibleRows();
+    final var rows = visibleRows(table);
+
+    final var added = new Var("n", 2);
+    model.getOutputs().add(added);
+    assertEquals(5, table.getOutputColumnCount());
+    assertNull(table.findOutputColumn(3));
+    assertNull(table.findOutputColumn(4));
+    var after = entries(table);
+    for (var col = 0; col < 3; col++) assertArrayEquals(before[col], after[col]);
+    for (var idx = 0; idx < 16; idx++) {
+      assertSame(Entry.DONT_CARE, table.getOutputEntry(idx, 3));
+      assertSame(Entry.DONT_CARE, table.getOutputEntry(idx, 4));
+    }
+    assertEquals(rows.size(), table.getVisibleRowCount());
+    table.setOutputEntry(7, 4, Entry.ONE);
+    assertRowsConsistent(table);
+
+    model.getOutputs().move(added, -3);
+    assertEquals("n[1]", table.getOutputHeader(0));
+    assertSame(Entry.ONE, table.getOutputEntry(7, 1));
+    for (var col = 0; col < 3; col++) {
+      assertArrayEquals(before[col], entries(table)[col + 2]);
+    }
+
+    final var o1 = table.getOutputVariable(2);
+    assertEquals("o1", o1.name);
+    model.getOutputs().remove(o1);
+    assertEquals(4, table.getOutputColumnCount());
+    after = entries(table);
+    assertArrayEquals(before[0], after[2]);
+    assertArrayEquals(before[2], after[3]);
+
+    model.getOutputs().replace(added, new Var("n", 1));
+    assertEquals(3, table.getOutputColumnCount());
+    after = entries(table);
+    assertSame(Entry.ONE, table.getOutputEntry(7, 0));
+    assertArrayEquals(before[0], after[1]);
+    assertArrayEquals(before[2], after[2]);
+    assertRowsConsistent(table);
+  }
+}
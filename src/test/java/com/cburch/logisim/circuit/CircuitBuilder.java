@@ -0,0 +1,133 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.Map;
+
+/**
+ * Builds small circuits for tests. Components are placed in a row, apart from each other, and each
+ * end is connected to a named net by a short wire ending in a tunnel with that label.
+ */
+public class CircuitBuilder {
+  private final LogisimFile file;
+  private final Circuit circuit;
+  private final CircuitMutation mutation;
+  private int nextX = 200;
+
+  public CircuitBuilder(Project proj, String name) {
+    file = proj.getLogisimFile();
+    circuit = new Circuit(name, file, proj);
+    mutation = new CircuitMutation(circuit);
+  }
+
+  /** Returns a project holding an empty file, without any window. */
+  public static Project createProject() {
+    return new Project(LogisimFile.createNew(new Loader(null), null));
+  }
+
+  /** Returns the factory of a gate, by its name in the gates library (e.g. "AND Gate"). */
+  public static ComponentFactory gate(String name) {
+    return ((AddTool) new GatesLibrary().getTool(name)).getFactory();
+  }
+
+  public Component add(ComponentFactory factory, AttributeSet attrs) {
+    // leave room for the wires and tunnels of the ends on both sides
+    final var bds = factory.getOffsetBounds(attrs);
+    final var x = (nextX - bds.getX() + 9) / 10 * 10;
+    nextX = x + bds.getX() + bds.getWidth() + 100;
+    final var loc = Location.create(x, 400, false);
+    final var comp = factory.createComponent(loc, attrs);
+    mutation.add(comp);
+    return comp;
+  }
+
+  /** Connects end {@code end} of {@code comp} to the net labelled {@code net}. */
+  public void connect(Component comp, int end, String net, int width) {
+    final var loc = comp.getEnd(end).getLocation();
+    final var bds = comp.getBounds();
+    // leave through the nearest side, as the ends need not lie exactly on the bounds
+    final var left = loc.getX() - bds.getX();
+    final var right = bds.getX() + bds.getWidth() - loc.getX();
+    final var top = loc.getY() - bds.getY();
+    final var bottom = bds.getY() + bds.getHeight() - loc.getY();
+    final var nearest = Math.min(Math.min(left, right), Math.min(top, bottom));
+    final Location far;
+    if (nearest == left) far = loc.translate(-10, 0);
+    else if (nearest == right) far = loc.translate(10, 0);
+    else if (nearest == top) far = loc.translate(0, -10);
+    else far = loc.translate(0, 10);
+    mutation.add(Wire.create(loc, far));
+    mutation.add(tunnel(far, net, width));
+  }
+
+  public Component tunnel(Location loc, String label, int width) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    return Tunnel.FACTORY.createComponent(loc, attrs);
+  }
+
+  /** Adds a pin labelled {@code label}, connected to the net of the same name. */
+  public Component pin(String label, boolean output, int width) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    if (output) {
+      attrs.setValue(Pin.ATTR_TYPE, true);
+      attrs.setValue(StdAttr.FACING, Direction.WEST);
+    }
+    final var comp = add(Pin.FACTORY, attrs);
+    connect(comp, 0, label, width);
+    return comp;
+  }
+
+  /** Adds a component, connecting its ends in order to the given single bit nets. */
+  public Component gate(ComponentFactory factory, String... nets) {
+    final var comp = add(factory, factory.createAttributeSet());
+    for (var i = 0; i < nets.length; i++) connect(comp, i, nets[i], 1);
+    return comp;
+  }
+
+  /**
+   * Adds an instance of {@code sub}, connecting the port of each of its pins to the net that
+   * {@code nets} maps the label of the pin to.
+   */
+  public Component subcircuit(Circuit sub, Map<String, String> nets) {
+    final var factory = sub.getSubcircuitFactory();
+    final var comp = add(factory, factory.createAttributeSet());
+    final var pins = ((CircuitAttributes) comp.getAttributeSet()).getPinInstances();
+    for (var i = 0; i < pins.length; i++) {
+      final var net = nets.get(pins[i].getAttributeValue(StdAttr.LABEL));
+      connect(comp, i, net, comp.getEnd(i).getWidth().getWidth());
+    }
+    return comp;
+  }
+
+  /** Adds the components to the circuit, and the circuit to the file of the project. */
+  public Circuit build() {
+    mutation.execute();
+    file.addCircuit(circuit);
+    return circuit;
+  }
+}
@@ -0,0 +1,326 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Constant;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.PullResistor;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.util.CollectionUtil;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+
+public class CircuitWiresTest extends TestBase {
+
+  private static Location randomLocation(Random random) {
+    return Location.create(10 * random.nextInt(8), 10 * random.nextInt(8), false);
+  }
+
+  private static Component randomComponent(Random random) {
+    final var kind = random.nextInt(10);
+    if (kind < 6) {
+      final var e0 = randomLocation(random);
+      final var e1 =
+          random.nextBoolean()
+              ? Location.create(e0.getX() + 10 * (1 + random.nextInt(2)), e0.getY(), false)
+              : Location.create(e0.getX(), e0.getY() + 10 * (1 + random.nextInt(2)), false);
+      return Wire.create(e0, e1);
+    } else if (kind < 9) {
+      final var attrs = Tunnel.FACTORY.createAttributeSet();
+      attrs.setValue(StdAttr.LABEL, "t" + random.nextInt(3));
+      attrs.setValue(StdAttr.WIDTH, BitWidth.create(1 + random.nextInt(2)));
+      return Tunnel.FACTORY.createComponent(randomLocation(random), attrs);
+    } else {
+      final var attrs = SplitterFactory.instance.createAttributeSet();
+      attrs.setValue(SplitterAttributes.ATTR_FANOUT, 2);
+      attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(2));
+      return SplitterFactory.instance.createComponent(randomLocation(random), attrs);
+    }
+  }
+
+  /** Describes the bundles and threads of a map independently of the objects making it up. */
+  private static HashMap<Location, String> describe(CircuitWires.BundleMap map) {
+    final var ret = new HashMap<Location, String>();
+    for (final var bundle : map.getBundles()) {
+      final var desc = new StringBuilder(new TreeSet<>(bundle.points).toString());
+      desc.append(' ').append(bundle.getWidth()).append(' ').append(bundle.isValid());
+      if (bundle.isValid() && bundle.threads != null) {
+        for (final var thr : bundle.threads) {
+          final var ends = new TreeSet<String>();
+          for (final var tb : thr.getBundles()) {
+            ends.add(new TreeSet<>(tb.b.points).first() + ":" + tb.loc);
+          }
+          desc.append(' ').append(ends);
+        }
+      }
+      for (final var p : bundle.points) ret.put(p, desc.toString());
+    }
+    return ret;
+  }
+
+  /** Checks that the points of each bundle know their numbers in the map. */
+  private static void checkNumbers(CircuitWires.BundleMap map) {
+    for (final var bundle : map.getBundles()) {
+      assertEquals(bundle.points.size(), bundle.pointIndices.length);
+      for (var i = 0; i < bundle.pointIndices.length; i++) {
+        assertEquals(bundle.pointIndices[i], map.locations.get(bundle.pointArray[i]));
+        assertEquals(bundle.pointArray[i], map.locations.getLocation(bundle.pointIndices[i]));
+      }
+    }
+  }
+
+  private static int countThreads(CircuitWires.BundleMap map) {
+    final var threads = new HashSet<WireThread>();
+    for (final var bundle : map.getBundles()) {
+      if (bundle.isValid() && bundle.threads != null) {
+        for (final var thr : bundle.threads) {
+          threads.add(thr);
+          assertTrue(thr.index >= 0 && thr.index < map.threadCount);
+        }
+      }
+    }
+    return threads.size();
+  }
+
+  /**
+   * Adds and removes random wires, tunnels and splitters, and checks after each edit that the
+   * bundle map rebuilt around the edit matches the one computed from scratch.
+   */
+  @Test
+  public void testIncrementalRebuild() throws Exception {
+    final var failure = new Throwable[1];
+    SwingUtilities.invokeAndWait(
+        () -> {
+          try {
+            final var random = new Random(7);
+            final var wires = new CircuitWires();
+            final var present = new ArrayList<Component>();
+            var rebuilt = 0;
+            for (var step = 0; step < 600; step++) {
+              if (present.size() > 40 || (!present.isEmpty() && random.nextInt(3) == 0)) {
+                wires.remove(present.remove(random.nextInt(present.size())));
+              } else {
+                final var comp = randomComponent(random);
+                if (wires.add(comp)) present.add(comp);
+              }
+              final var map = wires.getBundleMap();
+              if (map.keepsThreads) rebuilt++;
+
+              final var fresh = new CircuitWires();
+              for (final var comp : present) fresh.add(comp);
+              final var expected = fresh.getBundleMap();
+              assertEquals(describe(expected), describe(map), "after step " + step);
+              assertEquals(countThreads(map), map.liveThreadCount);
+              checkNumbers(map);
+              // the points that are gone leave only so many holes in the numbering
+              final var live = wires.points.getSplitLocations().size();
+              assertTrue(map.locations.size() <= 3 * live + 128, "after step " + step);
+              assertEquals(
+                  CollectionUtil.isNotEmpty(expected.getWidthIncompatibilityData()),
+                  CollectionUtil.isNotEmpty(map.getWidthIncompatibilityData()));
+            }
+            assertTrue(rebuilt > 100);
+          } catch (Throwable t) {
+            failure[0] = t;
+          }
+        });
+    if (failure[0] instanceof Error e) throw e;
+    if (failure[0] != null) throw new AssertionError(failure[0]);
+  }
+
+  /**
+   * Edits the wiring between a constant and an output pin, and checks the value of the wire at the
+   * pin after each edit. The bundle map is rebuilt before propagating, as painting the canvas does,
+   * so that propagation has to notice the new map on its own.
+   */
+  @Test
+  public void testWireValuesAfterEdits() throws Exception {
+    final var failure = new Throwable[1];
+    SwingUtilities.invokeAndWait(
+        () -> {
+          try {
+            final var proj = CircuitBuilder.createProject();
+            final var builder = new CircuitBuilder(proj, "main");
+            final var constAttrs = Constant.FACTORY.createAttributeSet();
+            constAttrs.setValue(Constant.ATTR_VALUE, 1L);
+            builder.connect(builder.add(Constant.FACTORY, constAttrs), 0, "src", 1);
+            final var pin = builder.pin("dst", true, 1);
+            final var circuit = builder.build();
+            final var state = new CircuitState(proj, circuit);
+            final var pinLoc = pin.getEnd(0).getLocation();
+            Component dstTunnel = null;
+            for (final var comp : circuit.getNonWires()) {
+              if (comp.getFactory() instanceof Tunnel
+                  && "dst".equals(comp.getAttributeSet().getValue(StdAttr.LABEL))) {
+                dstTunnel = comp;
+              }
+            }
+            final var tunnelLoc = dstTunnel.getLocation();
+            state.getPropagator().propagate();
+            assertEquals(Value.UNKNOWN, state.getValue(pinLoc), "unconnected");
+
+            final var srcTunnel = builder.tunnel(tunnelLoc, "src", 1);
+            edit(state, m -> m.add(srcTunnel));
+            assertEquals(Value.TRUE, state.getValue(pinLoc), "tunnel added");
+            edit(state, m -> m.remove(srcTunnel));
+            assertEquals(Value.UNKNOWN, state.getValue(pinLoc), "tunnel removed");
+
+            final var renamed = dstTunnel;
+            edit(state, m -> m.set(renamed, StdAttr.LABEL, "src"));
+            assertEquals(Value.TRUE, state.getValue(pinLoc), "tunnel renamed");
+            edit(state, m -> m.set(renamed, StdAttr.LABEL, "dst"));
+            assertEquals(Value.UNKNOWN, state.getValue(pinLoc), "tunnel renamed back");
+
+            final var pullType = PullResistor.ATTR_PULL_TYPE;
+            final var pullAttrs = PullResistor.FACTORY.createAttributeSet();
+            pullAttrs.setValue(pullType, pullType.parse("1"));
+            final var pull = PullResistor.FACTORY.createComponent(tunnelLoc, pullAttrs);
+            edit(state, m -> m.add(pull));
+            assertEquals(Value.TRUE, state.getValue(pinLoc), "pull resistor added");
+            edit(state, m -> m.set(pull, pullType, pullType.parse("0")));
+            assertEquals(Value.FALSE, state.getValue(pinLoc), "pull type changed");
+          } catch (Throwable t) {
+            failure[0] = t;
+          }
+        });
+    if (failure[0] instanceof Error e) throw e;
+    if (failure[0] != null) throw new AssertionError(failure[0]);
+  }
+
+  /**
+   * Adds and removes tunnels at new places, until the points are numbered anew, and checks that
+   * the value of the wire at a pin follows.
+   */
+  @Test
+  public void testRenumberedPoints() throws Exception {
+    final var failure = new Throwable[1];
+    SwingUtilities.invokeAndWait(
+        () -> {
+          try {
+            final var proj = CircuitBuilder.createProject();
+            final var builder = new CircuitBuilder(proj, "main");
+            final var constAttrs = Constant.FACTORY.createAttributeSet();
+            constAttrs.setValue(Constant.ATTR_VALUE, 1L);
+            builder.connect(builder.add(Constant.FACTORY, constAttrs), 0, "net", 1);
+            final var pin = builder.pin("net", true, 1);
+            final var circuit = builder.build();
+            final var state = new CircuitState(proj, circuit);
+            final var pinLoc = pin.getEnd(0).getLocation();
+            state.getPropagator().propagate();
+            assertEquals(Value.TRUE, state.getValue(pinLoc));
+
+            final var first = circuit.wires.getLocations();
+            for (var i = 0; i < 100; i++) {
+              final var loc = Location.create(1000 + 10 * i, 1000, false);
+              final var tunnel = builder.tunnel(loc, i % 2 == 0 ? "net" : "other", 1);
+              edit(state, m -> m.add(tunnel));
+              assertEquals(Value.TRUE, state.getValue(pinLoc), "tunnel " + i + " added");
+              if (i % 2 == 0) assertEquals(Value.TRUE, state.getValue(loc));
+              edit(state, m -> m.remove(tunnel));
+              assertEquals(Value.TRUE, state.getValue(pinLoc), "tunnel " + i + " removed");
+            }
+            final var last = circuit.wires.getLocations();
+            assertTrue(last != first && last.size() < 100, "renumbered to " + last.size());
+          } catch (Throwable t) {
+            failure[0] = t;
+          }
+        });
+    if (failure[0] instanceof Error e) throw e;
+    if (failure[0] != null) throw new AssertionError(failure[0]);
+  }
+
+  /**
+   * Edits the wiring on the EDT while another thread propagates, as the simulator does, and checks
+   * that the value of the net joining an input and an output pin follows the input all along.
+   */
+  @Test
+  public void testEditsDuringBackgroundPropagation() throws Exception {
+    final var proj = CircuitBuilder.createProject();
+    final var builder = new CircuitBuilder(proj, "main");
+    final var in = builder.pin("net", false, 1);
+    final var out = builder.pin("net", true, 1);
+    final var circuit = builder.build();
+    final var state = new CircuitState(proj, circuit);
+    final var outLoc = out.getEnd(0).getLocation();
+
+    final var failure = new Throwable[1];
+    final var done = new AtomicBoolean();
+    final var propagations = new AtomicInteger();
+    final var simulation =
+        new Thread(
+            () -> {
+              try {
+                var value = Value.FALSE;
+                while (!done.get()) {
+                  value = value.not();
+                  final var pinState = state.getInstanceState(in);
+                  Pin.FACTORY.setValue(pinState, value);
+                  pinState.fireInvalidated();
+                  state.getPropagator().propagate();
+                  assertEquals(value, state.getValue(outLoc), "propagation " + propagations);
+                  propagations.incrementAndGet();
+                }
+              } catch (Throwable t) {
+                failure[0] = t;
+              }
+            });
+    simulation.start();
+    try {
+      for (var i = 0; i < 200 && simulation.isAlive(); i++) {
+        final var loc = Location.create(1000 + 10 * i, 1000, false);
+        final var tunnel = builder.tunnel(loc, i % 2 == 0 ? "net" : "other", 1);
+        SwingUtilities.invokeAndWait(() -> edit(circuit, m -> m.add(tunnel)));
+        SwingUtilities.invokeAndWait(() -> edit(circuit, m -> m.remove(tunnel)));
+      }
+      // let the simulation thread get past the last edit
+      final var last = propagations.get();
+      while (simulation.isAlive() && propagations.get() < last + 2) Thread.sleep(1);
+    } finally {
+      done.set(true);
+      simulation.join(10000);
+    }
+    assertFalse(simulation.isAlive(), "the simulation thread is stuck");
+    if (failure[0] instanceof Error e) throw e;
+    if (failure[0] != null) throw new AssertionError(failure[0]);
+    assertTrue(propagations.get() > 0);
+  }
+
+  /** Applies an edit on the calling thread, and rebuilds the bundle map as the canvas would. */
+  private static void edit(Circuit circuit, Consumer<CircuitMutation> edit) {
+    final var mutation = new CircuitMutation(circuit);
+    edit.accept(mutation);
+    mutation.execute();
+    circuit.wires.getBundleMap();
+  }
+
+  /** Applies an edit, rebuilds the bundle map as the canvas would, and propagates. */
+  private static void edit(CircuitState state, Consumer<CircuitMutation> edit) {
+    edit(state.getCircuit(), edit);
+    state.getPropagator().propagate();
+  }
+}
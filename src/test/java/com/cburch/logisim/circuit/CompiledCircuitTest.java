@@ -0,0 +1,232 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.arith.Adder;
+import com.cburch.logisim.std.memory.Register;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the compiled simulation engine computes the same outputs as the event-driven
+ * {@link Propagator}, and that it declines the circuits it cannot compile.
+ */
+public class CompiledCircuitTest extends TestBase {
+
+  private static final ComponentFactory AND = CircuitBuilder.gate("AND Gate");
+  private static final ComponentFactory OR = CircuitBuilder.gate("OR Gate");
+  private static final ComponentFactory XOR = CircuitBuilder.gate("XOR Gate");
+  private static final Value[] BIT_VALUES = {Value.FALSE, Value.TRUE, Value.UNKNOWN};
+
+  private static Project createCompiledProject() {
+    final var proj = CircuitBuilder.createProject();
+    proj.getOptions()
+        .getAttributeSet()
+        .setValue(Options.ATTR_SIM_ENGINE, Options.SIM_ENGINE_COMPILED);
+    return proj;
+  }
+
+  private static Circuit fullAdder(Project proj) {
+    final var b = new CircuitBuilder(proj, "fa");
+    b.pin("a", false, 1);
+    b.pin("b", false, 1);
+    b.pin("cin", false, 1);
+    b.pin("s", true, 1);
+    b.pin("cout", true, 1);
+    b.gate(XOR, "p", "a", "b");
+    b.gate(XOR, "s", "p", "cin");
+    b.gate(AND, "g", "a", "b");
+    b.gate(AND, "t", "p", "cin");
+    b.gate(OR, "cout", "g", "t");
+    return b.build();
+  }
+
+  private static Component[] pins(Circuit circuit, String... labels) {
+    final var ret = new Component[labels.length];
+    for (final var comp : circuit.getNonWires()) {
+      if (!(comp.getFactory() instanceof Pin)) continue;
+      final var label = comp.getAttributeSet().getValue(StdAttr.LABEL);
+      final var index = Arrays.asList(labels).indexOf(label);
+      if (index >= 0) ret[index] = comp;
+    }
+    return ret;
+  }
+
+  private static Value[] simulateEventDriven(
+      Project proj, Circuit circuit, Component[] inputs, Value[] values, Component[] outputs) {
+    final var state = new CircuitState(proj, circuit);
+    for (var i = 0; i < inputs.length; i++) {
+      Pin.FACTORY.setValue(state.getInstanceState(inputs[i]), values[i]);
+    }
+    state.getPropagator().propagate();
+    final var ret = new Value[outputs.length];
+    for (var i = 0; i < outputs.length; i++) {
+      ret[i] = Pin.FACTORY.getValue(state.getInstanceState(outputs[i]));
+    }
+    return ret;
+  }
+
+  private static Value[] simulateCompiled(
+      CompiledCircuit compiled, Component[] inputs, Value[] values, Component[] outputs) {
+    compiled.reset();
+    for (var i = 0; i < inputs.length; i++) {
+      compiled.setValue(Instance.getInstanceFor(inputs[i]), values[i]);
+    }
+    compiled.propagate();
+    final var ret = new Value[outputs.length];
+    for (var i = 0; i < outputs.length; i++) {
+      ret[i] = compiled.getValue(Instance.getInstanceFor(outputs[i]));
+    }
+    return ret;
+  }
+
+  /** Compiles {@code circuit} and compares both engines on every combination of bit values. */
+  private static void compareAllBitValues(
+      Project proj, Circuit circuit, String[] inputLabels, String[] outputLabels) {
+    final var compiled = CompiledCircuit.create(proj, circuit);
+    assertNotNull(compiled);
+    final var inputs = pins(circuit, inputLabels);
+    final var outputs = pins(circuit, outputLabels);
+    var combinations = 1;
+    for (var i = 0; i < inputs.length; i++) combinations *= BIT_VALUES.length;
+    for (var c = 0; c < combinations; c++) {
+      final var values = new Value[inputs.length];
+      for (int i = 0, rest = c; i < inputs.length; i++, rest /= BIT_VALUES.length) {
+        values[i] = BIT_VALUES[rest % BIT_VALUES.length];
+      }
+      assertArrayEquals(
+          simulateEventDriven(proj, circuit, inputs, values, outputs),
+          simulateCompiled(compiled, inputs, values, outputs),
+          "inputs " + Arrays.toString(values));
+    }
+  }
+
+  @Test
+  public void testGates() {
+    final var proj = createCompiledProject();
+    final var fa = fullAdder(proj);
+    compareAllBitValues(proj, fa, new String[] {"a", "b", "cin"}, new String[] {"s", "cout"});
+    assertArrayEquals(
+        new Value[] {Value.FALSE, Value.TRUE},
+        simulateCompiled(
+            CompiledCircuit.create(proj, fa),
+            pins(fa, "a", "b", "cin"),
+            new Value[] {Value.TRUE, Value.TRUE, Value.FALSE},
+            pins(fa, "s", "cout")));
+  }
+
+  @Test
+  public void testSubcircuits() {
+    final var proj = createCompiledProject();
+    final var fa = fullAdder(proj);
+    final var b = new CircuitBuilder(proj, "ripple");
+    for (final var label : new String[] {"a0", "a1", "b0", "b1", "cin"}) b.pin(label, false, 1);
+    for (final var label : new String[] {"s0", "s1", "cout"}) b.pin(label, true, 1);
+    b.subcircuit(fa, Map.of("a", "a0", "b", "b0", "cin", "cin", "s", "s0", "cout", "c1"));
+    b.subcircuit(fa, Map.of("a", "a1", "b", "b1", "cin", "c1", "s", "s1", "cout", "cout"));
+    compareAllBitValues(
+        proj,
+        b.build(),
+        new String[] {"a0", "a1", "b0", "b1", "cin"},
+        new String[] {"s0", "s1", "cout"});
+  }
+
+  /** An adder on multi-bit wires, whose sum is split into bits and joined again, reversed. */
+  @Test
+  public void testMultiBitWiresAndSplitters() {
+    final var proj = createCompiledProject();
+    final var b = new CircuitBuilder(proj, "wide");
+    b.pin("a", false, 8);
+    b.pin("b", false, 8);
+    b.pin("sum", true, 8);
+    b.pin("reversed", true, 8);
+    b.pin("carry", true, 1);
+    final var adderFactory = new Adder();
+    final var adderAttrs = adderFactory.createAttributeSet();
+    adderAttrs.setValue(StdAttr.WIDTH, BitWidth.create(8));
+    final var adder = b.add(adderFactory, adderAttrs);
+    b.connect(adder, Adder.IN0, "a", 8);
+    b.connect(adder, Adder.IN1, "b", 8);
+    b.connect(adder, Adder.OUT, "sum", 8);
+    b.connect(adder, Adder.C_OUT, "carry", 1);
+    for (final var joined : new String[] {"sum", "reversed"}) {
+      final var attrs = SplitterFactory.instance.createAttributeSet();
+      attrs.setValue(SplitterAttributes.ATTR_FANOUT, 8);
+      attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(8));
+      final var splitter = b.add(SplitterFactory.instance, attrs);
+      b.connect(splitter, 0, joined, 8);
+      for (var i = 0; i < 8; i++) {
+        b.connect(splitter, i + 1, "bit" + (joined.equals("sum") ? i : 7 - i), 1);
+      }
+    }
+    final var circuit = b.build();
+    final var compiled = CompiledCircuit.create(proj, circuit);
+    assertNotNull(compiled);
+    final var inputs = pins(circuit, "a", "b");
+    final var outputs = pins(circuit, "sum", "reversed", "carry");
+    final var random = new Random(3);
+    for (var n = 0; n < 200; n++) {
+      final var values =
+          new Value[] {
+            Value.createKnown(8, random.nextInt(256)), Value.createKnown(8, random.nextInt(256))
+          };
+      if (n % 10 == 0) values[n % 20 == 0 ? 0 : 1] = Value.createUnknown(BitWidth.create(8));
+      assertArrayEquals(
+          simulateEventDriven(proj, circuit, inputs, values, outputs),
+          simulateCompiled(compiled, inputs, values, outputs),
+          "inputs " + Arrays.toString(values));
+    }
+  }
+
+  @Test
+  public void testFallback() {
+    final var proj = createCompiledProject();
+
+    final var loop = new CircuitBuilder(proj, "loop");
+    loop.pin("a", false, 1);
+    loop.pin("q", true, 1);
+    loop.gate(OR, "q", "a", "q");
+    assertNull(CompiledCircuit.create(proj, loop.build()));
+
+    final var state = new CircuitBuilder(proj, "state");
+    state.pin("d", false, 8);
+    state.pin("clk", false, 1);
+    state.pin("q", true, 8);
+    final var registerFactory = new Register();
+    final var register = state.add(registerFactory, registerFactory.createAttributeSet());
+    state.connect(register, Register.IN, "d", 8);
+    state.connect(register, Register.CK, "clk", 1);
+    state.connect(register, Register.OUT, "q", 8);
+    assertNull(CompiledCircuit.create(proj, state.build()));
+
+    final var fa = fullAdder(proj);
+    assertNotNull(CompiledCircuit.create(proj, fa));
+    proj.getOptions()
+        .getAttributeSet()
+        .setValue(Options.ATTR_SIM_ENGINE, Options.SIM_ENGINE_EVENT);
+    assertNull(CompiledCircuit.create(proj, fa));
+  }
+}
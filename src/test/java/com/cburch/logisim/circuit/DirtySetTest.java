@@ -0,0 +1,66 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.cburch.logisim.TestBase;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class DirtySetTest extends TestBase {
+
+  /**
+   * Marks, unmarks and drains random elements, many of which share a slot of the table, and checks
+   * the drains against the order the elements were marked in.
+   */
+  @Test
+  public void testDrainOrder() {
+    final var random = new Random(5);
+    final var set = new DirtySet<Integer>();
+    final var pushed = new ArrayList<Integer>();
+    final var flagged = new HashSet<Integer>();
+    Object[] empty = null;
+    for (var round = 0; round < 500; round++) {
+      final var count = random.nextInt(round % 50 == 0 ? 300 : 20);
+      for (var i = 0; i < count; i++) {
+        // multiples of 64 start probing from the same slot, unless the table has grown large
+        final Integer element =
+            random.nextBoolean() ? 64 * random.nextInt(40) : random.nextInt(100);
+        if (random.nextInt(4) == 0) {
+          set.remove(element);
+          flagged.remove(element);
+        } else {
+          final var added = flagged.add(element);
+          assertEquals(added, set.add(element));
+          if (added) pushed.add(element);
+        }
+      }
+      final var expected = new ArrayList<Integer>();
+      for (final var element : pushed) {
+        if (flagged.remove(element)) expected.add(element);
+      }
+      pushed.clear();
+      final var drained = set.drain();
+      final var actual = new ArrayList<Integer>();
+      for (var i = 0; drained[i] != null; i++) actual.add((Integer) drained[i]);
+      assertEquals(expected, actual, "round " + round);
+      // the two buffers take turns, so draining again always hands out the same empty one
+      final var again = set.drain();
+      assertNull(again[0]);
+      if (empty != null) assertSame(empty, again);
+      empty = again;
+    }
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Bounds;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.InstanceFactory;
+import com.cburch.logisim.instance.InstancePainter;
+import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.Port;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the parallel propagation of {@link ParallelPropagation} gives the same values as the
+ * sequential one after every step of the {@link Propagator}, on circuits large enough to fork, and
+ * that it goes through the components of a state in the order the sequential one does.
+ */
+public class ParallelPropagationTest extends TestBase {
+
+  private static final ComponentFactory[] GATES = {
+    CircuitBuilder.gate("AND Gate"),
+    CircuitBuilder.gate("OR Gate"),
+    CircuitBuilder.gate("XOR Gate"),
+    CircuitBuilder.gate("NAND Gate"),
+    CircuitBuilder.gate("NOR Gate"),
+    CircuitBuilder.gate("XNOR Gate"),
+  };
+
+  /** A component that is not safe to evaluate concurrently, which logs when it is evaluated. */
+  private static final class Recorder extends InstanceFactory {
+    private final List<Component> log;
+
+    Recorder(List<Component> log) {
+      super("Recorder");
+      this.log = log;
+      setOffsetBounds(Bounds.create(-30, -10, 30, 20));
+      setPorts(new Port[] {new Port(0, 0, Port.OUTPUT, 1)});
+    }
+
+    @Override
+    public void paintInstance(InstancePainter painter) {}
+
+    @Override
+    public void propagate(InstanceState state) {
+      log.add(state.getInstance().getComponent());
+      state.setPort(0, Value.TRUE, 1);
+    }
+  }
+
+  private record Simulation(
+      Project proj, Circuit circuit, CircuitState state, List<Component> inputs) {}
+
+  /** Adds gates fed by random nets among the given ones, each driving a new net. */
+  private static void addGates(
+      CircuitBuilder b, Random random, List<String> nets, String prefix, int count) {
+    for (var i = 0; i < count; i++) {
+      final var out = prefix + i;
+      final var gate = GATES[random.nextInt(GATES.length)];
+      final var in0 = nets.get(random.nextInt(nets.size()));
+      final var in1 = nets.get(random.nextInt(nets.size()));
+      b.gate(gate, out, in0, in1);
+      nets.add(out);
+    }
+  }
+
+  /**
+   * Builds, from the seed only, a circuit of gates holding instances of a subcircuit of gates, the
+   * instances being fed by each other, so that the states of the tree all have many components to
+   * evaluate at once.
+   */
+  private static Simulation build(long seed, boolean parallel) {
+    final var random = new Random(seed);
+    final var proj = CircuitBuilder.createProject();
+    proj.getOptions().getAttributeSet().setValue(Options.ATTR_SIM_PARALLEL, parallel);
+
+    final var block = new CircuitBuilder(proj, "block");
+    final var blockNets = new ArrayList<String>();
+    for (var i = 0; i < 4; i++) {
+      block.pin("a" + i, false, 1);
+      blockNets.add("a" + i);
+    }
+    addGates(block, random, blockNets, "n", 40);
+    for (var i = 0; i < 2; i++) {
+      block.pin("y" + i, true, 1);
+      block.gate(GATES[i], "y" + i, blockNets.get(blockNets.size() - 1 - i), blockNets.get(4 + i));
+    }
+    final var sub = block.build();
+
+    final var main = new CircuitBuilder(proj, "main");
+    final var nets = new ArrayList<String>();
+    final var inputs = new ArrayList<Component>();
+    for (var i = 0; i < 4; i++) {
+      inputs.add(main.pin("i" + i, false, 1));
+      nets.add("i" + i);
+    }
+    addGates(main, random, nets, "m", 20);
+    for (var k = 0; k < 4; k++) {
+      final var ports = new HashMap<String, String>();
+      for (var i = 0; i < 4; i++) ports.put("a" + i, nets.get(random.nextInt(nets.size())));
+      ports.put("y0", "b" + k + "y0");
+      ports.put("y1", "b" + k + "y1");
+      main.subcircuit(sub, ports);
+      nets.add("b" + k + "y0");
+      nets.add("b" + k + "y1");
+    }
+    addGates(main, random, nets, "p", 20);
+    final var circuit = main.build();
+    return new Simulation(proj, circuit, new CircuitState(proj, circuit), inputs);
+  }
+
+  /** Records the value at every end of every component of the state and of its substates. */
+  private static void snapshot(CircuitState state, String path, Map<String, Value> values) {
+    for (final var comp : state.getCircuit().getNonWires()) {
+      for (final var end : comp.getEnds()) {
+        values.put(path + end.getLocation(), state.getValue(end.getLocation()));
+      }
+      if (comp.getFactory() instanceof SubcircuitFactory) {
+        snapshot((CircuitState) state.getData(comp), path + comp.getLocation() + "/", values);
+      }
+    }
+  }
+
+  private static Map<String, Value> snapshot(Simulation sim) {
+    final var ret = new TreeMap<String, Value>();
+    snapshot(sim.state(), "", ret);
+    return ret;
+  }
+
+  /** Steps both simulations until they settle, comparing them after every step. */
+  private static int stepBoth(Simulation sequential, Simulation parallel) {
+    final var seqProp = sequential.state().getPropagator();
+    final var parProp = parallel.state().getPropagator();
+    var steps = 0;
+    while (true) {
+      final var seqStepped = seqProp.step(null);
+      final var parStepped = parProp.step(null);
+      assertEquals(seqStepped, parStepped, "step " + steps);
+      assertEquals(snapshot(sequential), snapshot(parallel), "values after step " + steps);
+      if (!seqStepped) return steps;
+      steps++;
+      assertTrue(steps < 10000, "the circuit does not settle");
+    }
+  }
+
+  private static void setInput(Simulation sim, int index, Value value) {
+    final var state = sim.state().getInstanceState(sim.inputs().get(index));
+    Pin.FACTORY.setValue(state, value);
+    state.fireInvalidated();
+  }
+
+  @Test
+  public void testSameValuesAfterEachStep() {
+    for (var seed = 30; seed < 34; seed++) {
+      final var sequential = build(seed, false);
+      final var parallel = build(seed, true);
+      assertTrue(stepBoth(sequential, parallel) > 0);
+      final var random = new Random(seed);
+      for (var round = 0; round < 20; round++) {
+        // change one or more inputs at once
+        do {
+          final var index = random.nextInt(4);
+          final var value = random.nextBoolean() ? Value.TRUE : Value.FALSE;
+          setInput(sequential, index, value);
+          setInput(parallel, index, value);
+        } while (random.nextBoolean());
+        stepBoth(sequential, parallel);
+      }
+    }
+  }
+
+  @Test
+  public void testSameValuesAfterReset() {
+    final var sequential = build(40, false);
+    final var parallel = build(40, true);
+    stepBoth(sequential, parallel);
+    for (var i = 0; i < 4; i++) {
+      setInput(sequential, i, Value.TRUE);
+      setInput(parallel, i, Value.TRUE);
+    }
+    stepBoth(sequential, parallel);
+    sequential.state().getPropagator().reset();
+    parallel.state().getPropagator().reset();
+    stepBoth(sequential, parallel);
+  }
+
+  /** Adds gates and recorders in a random order, returning them. */
+  private static List<Component> addMixed(
+      CircuitBuilder b, Random random, Recorder recorder, String prefix, int gates, int recorders) {
+    final var ret = new ArrayList<Component>();
+    for (var i = 0; i < gates + recorders; i++) {
+      if (random.nextInt(gates + recorders) < recorders) {
+        ret.add(b.gate(recorder, prefix + "r" + i));
+      } else {
+        final var gate = GATES[random.nextInt(GATES.length)];
+        ret.add(b.gate(gate, prefix + "g" + i, prefix + "in", prefix + "in"));
+      }
+    }
+    return ret;
+  }
+
+  @Test
+  public void testSequentialComponentsInDirtyOrder() {
+    final var random = new Random(41);
+    final var log = new ArrayList<Component>();
+    final var recorder = new Recorder(log);
+    final var proj = CircuitBuilder.createProject();
+    proj.getOptions().getAttributeSet().setValue(Options.ATTR_SIM_PARALLEL, true);
+
+    final var block = new CircuitBuilder(proj, "block");
+    block.pin("sin", false, 1);
+    final var subComps = addMixed(block, random, recorder, "s", 30, 4);
+    final var sub = block.build();
+    final var main = new CircuitBuilder(proj, "main");
+    main.pin("min", false, 1);
+    final var mainComps = addMixed(main, random, recorder, "m", 40, 5);
+    final var subcircuit = main.subcircuit(sub, Map.of("sin", "min"));
+    final var circuit = main.build();
+    final var root = new CircuitState(proj, circuit);
+    root.getPropagator().propagate();
+    final var substate = (CircuitState) root.getData(subcircuit);
+
+    // mark the components of both states in a random order, the sequential propagation
+    // evaluating them in that order, the root state first
+    Collections.shuffle(mainComps, random);
+    Collections.shuffle(subComps, random);
+    mainComps.forEach(root::markComponentAsDirty);
+    subComps.forEach(substate::markComponentAsDirty);
+    final var expected = new ArrayList<Component>(mainComps);
+    expected.addAll(subComps);
+
+    // the gates log the values they emit, as the propagator receives them
+    final var propagator =
+        new Propagator(root) {
+          @Override
+          void setValue(CircuitState state, Location pt, Value val, Component cause, int delay) {
+            log.add(cause);
+          }
+        };
+    log.clear();
+    new ParallelPropagation(propagator).processDirtyComponents(root);
+    assertEquals(expected, log);
+  }
+}
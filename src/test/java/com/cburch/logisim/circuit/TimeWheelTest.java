@@ -0,0 +1,66 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class TimeWheelTest extends TestBase {
+
+  /**
+   * Schedules events with short and very long delays, while polling in between as the Propagator
+   * does, and checks that they come out in (time, serialNumber) order.
+   */
+  @Test
+  public void testOrdering() {
+    final var wheel = new TimeWheel();
+    final var random = new Random(42);
+    final var expected = new ArrayList<long[]>();
+    var clock = 0;
+    var serial = 0;
+    for (var round = 0; round < 200; round++) {
+      final var count = random.nextInt(20);
+      for (var i = 0; i < count; i++) {
+        final var delay =
+            random.nextInt(8) == 0 ? 1 + random.nextInt(5000) : 1 + random.nextInt(40);
+        wheel.add(clock + delay, serial, null, null, null, null);
+        expected.add(new long[] {clock + delay, serial});
+        serial++;
+      }
+      if (wheel.isEmpty()) continue;
+      expected.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+      clock = wheel.advance();
+      assertEquals(expected.get(0)[0], clock);
+      for (var data = wheel.poll(clock); data != null; data = wheel.poll(clock)) {
+        final var next = expected.remove(0);
+        assertEquals(next[0], data.time);
+        assertEquals(next[1], data.serialNumber);
+        wheel.recycle(data);
+      }
+      assertTrue(expected.isEmpty() || expected.get(0)[0] > clock);
+    }
+    while (!wheel.isEmpty()) {
+      clock = wheel.advance();
+      for (var data = wheel.poll(clock); data != null; data = wheel.poll(clock)) {
+        final var next = expected.remove(0);
+        assertEquals(next[0], data.time);
+        assertEquals(next[1], data.serialNumber);
+      }
+    }
+    assertTrue(expected.isEmpty());
+    assertNull(wheel.poll(clock));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.cburch.logisim.TestBase;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Checks the values that {@link Value#create(int, long, long, long)} interns and returns. */
+public class ValueTest extends TestBase {
+
+  private static void assertContents(
+      int width, long error, long unknown, long value, Value actual) {
+    final var msg = String.format("width %d, %x/%x/%x", width, error, unknown, value);
+    assertEquals(width, actual.getWidth(), msg);
+    assertEquals(error, actual.getErrorBits(), msg);
+    assertEquals(unknown, actual.getUnknownBits(), msg);
+    assertEquals(value, actual.getValueBits(), msg);
+  }
+
+  @Test
+  public void testKnownValuesOfSmallWidthsAreShared() {
+    for (var width = 2; width <= 8; width++) {
+      for (var value = 0L; value < 1L << width; value++) {
+        final var a = Value.create(width, 0, 0, value);
+        assertSame(a, Value.create(width, 0, 0, value));
+        // bits beyond the width do not make another value
+        assertSame(a, Value.create(width, 0, 0, value | -1L << width));
+        assertSame(a, Value.createKnown(width, value));
+        assertContents(width, 0, 0, value, a);
+      }
+    }
+  }
+
+  @Test
+  public void testCreatedValuesAreEqual() {
+    final var random = new Random(50);
+    for (var n = 0; n < 2000; n++) {
+      final var width = 2 + random.nextInt(63);
+      final var value = random.nextLong();
+      final var unknown = random.nextInt(4) == 0 ? random.nextLong() : 0;
+      final var a = Value.create(width, 0, unknown, value);
+      final var b = Value.create(width, 0, unknown, value);
+      assertEquals(a, b);
+      assertEquals(a.hashCode(), b.hashCode());
+    }
+  }
+
+  @Test
+  public void testMaskingAsBefore() {
+    final var random = new Random(51);
+    for (final var width : new int[] {2, 8, 9, 32, 64}) {
+      for (var n = 0; n < 1000; n++) {
+        // few bits set in the error and unknown bits, so that all combinations occur
+        final var error = random.nextLong() & random.nextLong() & random.nextLong();
+        final var unknown = random.nextLong() & random.nextLong();
+        final var value = random.nextLong();
+        // the masking of the creation before the interning table was changed
+        final var mask = width == 64 ? -1L : ~(-1L << width);
+        final var oldError = error & mask;
+        final var oldUnknown = unknown & mask & ~oldError;
+        final var oldValue = value & mask & ~oldUnknown & ~oldError;
+        assertContents(
+            width, oldError, oldUnknown, oldValue, Value.create(width, error, unknown, value));
+      }
+    }
+  }
+
+  @Test
+  public void testOneBitValues() {
+    assertSame(Value.ERROR, Value.create(1, 1, 1, 1));
+    assertSame(Value.UNKNOWN, Value.create(1, 0, 3, 1));
+    assertSame(Value.TRUE, Value.create(1, 2, 2, 3));
+    assertSame(Value.FALSE, Value.create(1, 0, 0, 2));
+    assertSame(Value.NIL, Value.create(0, 1, 1, 1));
+  }
+
+  @Test
+  public void testValuesOfTheSameSet() {
+    // values with unknown bits, which are all interned, landing in the same set of the table
+    final var width = 16;
+    final var unknown = 1L;
+    final var slot = Value.slot(width, 0, unknown, 2);
+    final var values = new ArrayList<Long>();
+    for (var value = 2L; values.size() < 3; value += 2) {
+      if (Value.slot(width, 0, unknown, value) == slot) values.add(value);
+    }
+    final var a = Value.create(width, 0, unknown, values.get(0));
+    final var b = Value.create(width, 0, unknown, values.get(1));
+    // the set holds both, the first one in its second slot
+    assertSame(a, Value.create(width, 0, unknown, values.get(0)));
+    assertSame(b, Value.create(width, 0, unknown, values.get(1)));
+    final var c = Value.create(width, 0, unknown, values.get(2));
+    assertContents(width, 0, unknown, values.get(2), c);
+    // c took the place of the least recently created one
+    assertSame(c, Value.create(width, 0, unknown, values.get(2)));
+    assertSame(b, Value.create(width, 0, unknown, values.get(1)));
+    // the first one was evicted, so it is created anew, with the same contents
+    final var evicted = Value.create(width, 0, unknown, values.get(0));
+    assertNotSame(a, evicted);
+    assertEquals(a, evicted);
+    assertContents(width, 0, unknown, values.get(0), evicted);
+    for (var i = 0; i < 3; i++) {
+      final var value = values.get(i);
+      assertContents(width, 0, unknown, value, Value.create(width, 0, unknown, value));
+    }
+  }
+}
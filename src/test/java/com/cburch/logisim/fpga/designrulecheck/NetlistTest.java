@@ -0,0 +1,132 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.designrulecheck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.Wire;
+import com.cburch.logisim.data.Location;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/** Checks how {@link Netlist#getWireNets} groups wire segments into nets. */
+public class NetlistTest extends TestBase {
+
+  private static Wire wire(int x0, int y0, int x1, int y1) {
+    return Wire.create(Location.create(x0, y0, false), Location.create(x1, y1, false));
+  }
+
+  private static List<Set<Wire>> nets(List<Wire> wires) {
+    final var ret = new ArrayList<Set<Wire>>();
+    for (final var net : Netlist.getWireNets(wires)) ret.add(net.getWires());
+    return ret;
+  }
+
+  /** Groups the wires as the netlist did before the union-find pass, one search per net. */
+  private static Set<Set<Wire>> oldNets(List<Wire> wires) {
+    final var left = new LinkedHashSet<>(wires);
+    final var ret = new HashSet<Set<Wire>>();
+    while (!left.isEmpty()) {
+      final var net = new HashSet<Wire>();
+      oldGetNet(left, null, net);
+      ret.add(net);
+    }
+    return ret;
+  }
+
+  private static void oldGetNet(Set<Wire> left, Wire wire, Set<Wire> net) {
+    final var it = left.iterator();
+    final var matched = new ArrayList<Wire>();
+    var compWire = wire;
+    while (it.hasNext()) {
+      final var thisWire = it.next();
+      if (compWire == null) {
+        compWire = thisWire;
+        net.add(thisWire);
+        it.remove();
+      } else if (thisWire.sharesEnd(compWire)) {
+        matched.add(thisWire);
+        net.add(thisWire);
+        it.remove();
+      }
+    }
+    for (final var m : matched) oldGetNet(left, m, net);
+  }
+
+  @Test
+  public void testDisjointSegments() {
+    final var a = wire(0, 0, 10, 0);
+    final var b = wire(20, 0, 30, 0);
+    final var c = wire(0, 10, 0, 20);
+    assertEquals(List.of(Set.of(a), Set.of(b), Set.of(c)), nets(List.of(a, b, c)));
+    assertEquals(List.of(), nets(List.of()));
+  }
+
+  @Test
+  public void testJunction() {
+    // three segments meeting at (10, 0), and one passing by it without an end there
+    final var left = wire(0, 0, 10, 0);
+    final var right = wire(10, 0, 20, 0);
+    final var down = wire(10, 0, 10, 20);
+    final var across = wire(0, 10, 20, 10);
+    final var wires = List.of(left, across, right, down);
+    // the nets come in the order of their first segments
+    assertEquals(List.of(Set.of(left, right, down), Set.of(across)), nets(wires));
+    assertEquals(oldNets(wires), new HashSet<>(nets(wires)));
+  }
+
+  @Test
+  public void testLongChain() {
+    // long enough to overflow the stack of the old recursive search
+    final var wires = new ArrayList<Wire>();
+    for (var i = 0; i < 200000; i++) wires.add(wire(10 * i, 0, 10 * i + 10, 0));
+    // added in an order in which the two halves only meet at the end
+    final var shuffled = new ArrayList<Wire>();
+    for (var i = 0; i < wires.size(); i += 2) shuffled.add(wires.get(i));
+    for (var i = 1; i < wires.size(); i += 2) shuffled.add(wires.get(i));
+    final var nets = nets(shuffled);
+    assertEquals(1, nets.size());
+    assertEquals(new HashSet<>(wires), nets.get(0));
+  }
+
+  @Test
+  public void testLoop() {
+    final var top = wire(0, 0, 10, 0);
+    final var right = wire(10, 0, 10, 10);
+    final var bottom = wire(0, 10, 10, 10);
+    final var left = wire(0, 0, 0, 10);
+    final var tail = wire(10, 10, 20, 10);
+    final var other = wire(30, 0, 40, 0);
+    final var wires = List.of(top, bottom, other, right, left, tail);
+    assertEquals(List.of(Set.of(top, right, bottom, left, tail), Set.of(other)), nets(wires));
+  }
+
+  @Test
+  public void testSameNetsAsBefore() {
+    final var random = new Random(110);
+    for (var round = 0; round < 50; round++) {
+      // a small grid, so that the segments often share ends
+      final var wires = new LinkedHashSet<Wire>();
+      for (var i = 0; i < 40; i++) {
+        final var x = 10 * random.nextInt(8);
+        final var y = 10 * random.nextInt(8);
+        wires.add(random.nextBoolean() ? wire(x, y, x + 10, y) : wire(x, y, x, y + 10));
+      }
+      final var list = new ArrayList<>(wires);
+      assertEquals(oldNets(list), new HashSet<>(nets(list)), "round " + round);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitAttributes;
+import com.cburch.logisim.circuit.CircuitBuilder;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HdlCacheTest extends TestBase {
+
+  @TempDir Path dir;
+
+  private Project proj;
+  private Circuit sub;
+  private Component subGate;
+  private Circuit main;
+  private Component mainGate;
+
+  /** Builds a circuit "main" holding a gate and an instance of a circuit "sub" of one gate. */
+  @BeforeEach
+  public void setup() {
+    proj = CircuitBuilder.createProject();
+    final var subBuilder = new CircuitBuilder(proj, "sub");
+    subBuilder.pin("a", false, 1);
+    subBuilder.pin("b", false, 1);
+    subBuilder.pin("y", true, 1);
+    subGate = subBuilder.gate(CircuitBuilder.gate("AND Gate"), "y", "a", "b");
+    sub = subBuilder.build();
+    final var mainBuilder = new CircuitBuilder(proj, "main");
+    mainBuilder.pin("i0", false, 1);
+    mainBuilder.pin("i1", false, 1);
+    mainBuilder.pin("o", true, 1);
+    mainGate = mainBuilder.gate(CircuitBuilder.gate("OR Gate"), "n", "i0", "i1");
+    mainBuilder.subcircuit(sub, Map.of("a", "n", "b", "i1", "y", "o"));
+    main = mainBuilder.build();
+  }
+
+  private String hash(Circuit circuit) {
+    // a new cache each time, as a cache remembers the hashes it computed
+    return new HdlCache(dir.toString()).getCircuitHash(circuit);
+  }
+
+  private File write(String name, String contents) throws IOException {
+    final var file = dir.resolve(name).toFile();
+    Files.writeString(file.toPath(), contents);
+    return file;
+  }
+
+  @Test
+  public void testHashIsStable() {
+    final var cache = new HdlCache(dir.toString());
+    final var hash = cache.getCircuitHash(main);
+    assertEquals(hash, cache.getCircuitHash(main));
+    assertEquals(hash, hash(main));
+    assertEquals(hash(sub), hash(sub));
+    assertNotEquals(hash(sub), hash(main));
+  }
+
+  @Test
+  public void testHashChangesWithAttributes() {
+    final var mainHash = hash(main);
+    final var subHash = hash(sub);
+    mainGate.getAttributeSet().setValue(StdAttr.LABEL, "gate");
+    assertNotEquals(mainHash, hash(main));
+    assertEquals(subHash, hash(sub));
+    final var labelled = hash(main);
+    main.getStaticAttributes().setValue(CircuitAttributes.CIRCUIT_LABEL_ATTR, "top");
+    assertNotEquals(labelled, hash(main));
+  }
+
+  @Test
+  public void testHashChangesWithSubcircuit() {
+    final var mainHash = hash(main);
+    final var subHash = hash(sub);
+    subGate.getAttributeSet().setValue(StdAttr.LABEL, "gate");
+    assertNotEquals(subHash, hash(sub));
+    assertNotEquals(mainHash, hash(main));
+
+    final var labelled = hash(main);
+    final var mutation = new CircuitMutation(sub);
+    final var gate = CircuitBuilder.gate("NOT Gate");
+    mutation.add(gate.createComponent(Location.create(900, 100, false), gate.createAttributeSet()));
+    mutation.execute();
+    assertNotEquals(labelled, hash(main));
+  }
+
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    final var a = write("a.vhd", "entity a");
+    final var b = write("b.vhd", "entity b");
+    final var other = write("other.vhd", "not generated");
+    final var cache = new HdlCache(dir.toString());
+    assertFalse(cache.reuse("k1", List.of(a)));
+    cache.put("k1", List.of(a));
+    cache.put("k2", List.of(b));
+    assertTrue(cache.save());
+    assertTrue(cache.isRecord(dir.resolve(HdlCache.CACHE_FILE_NAME).toFile()));
+    assertFalse(cache.isRecord(a));
+
+    final var loaded = new HdlCache(dir.toString());
+    assertTrue(loaded.isUnchanged(a));
+    assertTrue(loaded.isUnchanged(b));
+    assertFalse(loaded.isUnchanged(other));
+    assertTrue(loaded.reuse("k1", List.of(a)));
+    assertTrue(loaded.reuse("k2", List.of(b)));
+    assertTrue(loaded.save());
+    // saving the same files again gives the same record
+    final var record = Files.readString(dir.resolve(HdlCache.CACHE_FILE_NAME));
+    final var reloaded = new HdlCache(dir.toString());
+    assertTrue(reloaded.reuse("k1", List.of(a)));
+    assertTrue(reloaded.reuse("k2", List.of(b)));
+    assertTrue(reloaded.save());
+    assertEquals(record, Files.readString(dir.resolve(HdlCache.CACHE_FILE_NAME)));
+  }
+
+  @Test
+  public void testUnusedFilesAreRemoved() throws IOException {
+    final var a = write("a.vhd", "entity a");
+    final var b = write("b.vhd", "entity b");
+    final var cache = new HdlCache(dir.toString());
+    cache.put("k1", List.of(a));
+    cache.put("k2", List.of(b));
+    cache.save();
+
+    final var next = new HdlCache(dir.toString());
+    assertTrue(next.reuse("k1", List.of(a)));
+    next.save();
+    assertTrue(a.isFile());
+    assertFalse(b.exists());
+    assertTrue(new HdlCache(dir.toString()).isUnchanged(a));
+  }
+
+  @Test
+  public void testReuseNeedsSameKey() throws IOException {
+    final var a = write("a.vhd", "entity a");
+    final var cache = new HdlCache(dir.toString());
+    cache.put("k1", List.of(a));
+    cache.save();
+    assertFalse(new HdlCache(dir.toString()).reuse("k2", List.of(a)));
+    // the outdated file is removed, to be written again
+    assertFalse(a.exists());
+  }
+
+  @Test
+  public void testReuseNeedsSameLength() throws IOException {
+    final var a = write("a.vhd", "entity a");
+    final var cache = new HdlCache(dir.toString());
+    cache.put("k1", List.of(a));
+    cache.save();
+    final var lastModified = a.lastModified();
+    Files.writeString(a.toPath(), "entity a, edited");
+    assertTrue(a.setLastModified(lastModified));
+    final var next = new HdlCache(dir.toString());
+    assertFalse(next.isUnchanged(a));
+    assertFalse(next.reuse("k1", List.of(a)));
+  }
+
+  @Test
+  public void testReuseNeedsSameModificationTime() throws IOException {
+    final var a = write("a.vhd", "entity a");
+    final var cache = new HdlCache(dir.toString());
+    cache.put("k1", List.of(a));
+    cache.save();
+    assertTrue(a.setLastModified(a.lastModified() - 10000));
+    final var next = new HdlCache(dir.toString());
+    assertFalse(next.isUnchanged(a));
+    assertFalse(next.reuse("k1", List.of(a)));
+  }
+
+  @Test
+  public void testReuseNeedsAllFiles() throws IOException {
+    final var entity = write("a_entity.vhd", "entity a");
+    final var architecture = write("a_behavior.vhd", "architecture a");
+    final var cache = new HdlCache(dir.toString());
+    cache.put("k1", List.of(entity, architecture));
+    cache.save();
+    assertTrue(architecture.delete());
+    assertFalse(new HdlCache(dir.toString()).reuse("k1", List.of(entity, architecture)));
+    assertFalse(entity.exists());
+  }
+
+  @Test
+  public void testUnreadableRecord() throws IOException {
+    final var a = write("a.vhd", "entity a");
+    write(HdlCache.CACHE_FILE_NAME, "k1\tnot a number\t0\t" + a.getPath() + "\n");
+    final var cache = new HdlCache(dir.toString());
+    assertFalse(cache.isUnchanged(a));
+    assertFalse(cache.reuse("k1", List.of(a)));
+    assertTrue(a.exists());
+  }
+}
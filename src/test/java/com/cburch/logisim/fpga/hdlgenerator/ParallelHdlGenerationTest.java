@@ -0,0 +1,192 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.hdlgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitBuilder;
+import com.cburch.logisim.circuit.CircuitHdlGeneratorFactory;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.fpga.designrulecheck.Netlist;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.util.ParallelTasks;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the design rule check and the HDL generation give the same results whether the
+ * sheets are handled one after the other or concurrently.
+ */
+public class ParallelHdlGenerationTest extends TestBase {
+
+  @TempDir Path dir;
+
+  /** The result of a design rule check and of the HDL generation that follows it. */
+  private record Export(
+      int drcResult, List<String> sheets, List<String> messages, Map<String, String> files) {}
+
+  @AfterEach
+  public void restoreThreads() {
+    ParallelTasks.setThreadCount(0);
+  }
+
+  private static void label(Component comp, String label) {
+    comp.getAttributeSet().setValue(StdAttr.LABEL, label);
+  }
+
+  /**
+   * Builds a project whose top-level uses a shared leaf sheet both directly and through two
+   * instances of a middle sheet, which uses it twice as well, and a second leaf used by the middle
+   * sheet only. In an invalid project, the instance of that second leaf has no label.
+   */
+  private static Circuit buildProject(boolean valid) {
+    final var proj = CircuitBuilder.createProject();
+
+    final var half = new CircuitBuilder(proj, "half");
+    half.pin("a", false, 1);
+    half.pin("b", false, 1);
+    half.pin("s", true, 1);
+    half.pin("c", true, 1);
+    label(half.gate(CircuitBuilder.gate("XOR Gate"), "s", "a", "b"), "sum");
+    label(half.gate(CircuitBuilder.gate("AND Gate"), "c", "a", "b"), "carry");
+    final var halfSheet = half.build();
+
+    final var invert = new CircuitBuilder(proj, "invert");
+    invert.pin("x", false, 1);
+    invert.pin("y", true, 1);
+    label(invert.gate(CircuitBuilder.gate("NOT Gate"), "y", "x"), "inverter");
+    final var invertSheet = invert.build();
+
+    final var full = new CircuitBuilder(proj, "full");
+    full.pin("a", false, 1);
+    full.pin("b", false, 1);
+    full.pin("ci", false, 1);
+    full.pin("s", true, 1);
+    full.pin("co", true, 1);
+    label(full.subcircuit(halfSheet, Map.of("a", "a", "b", "b", "s", "s1", "c", "c1")), "h0");
+    label(full.subcircuit(halfSheet, Map.of("a", "s1", "b", "ci", "s", "s", "c", "c2")), "h1");
+    final var inverter = full.subcircuit(invertSheet, Map.of("x", "c1", "y", "n1"));
+    if (valid) label(inverter, "i0");
+    label(full.gate(CircuitBuilder.gate("NAND Gate"), "co", "n1", "c2"), "merge");
+    final var fullSheet = full.build();
+
+    final var top = new CircuitBuilder(proj, "top");
+    for (final var pin : List.of("a0", "a1", "b0", "b1")) top.pin(pin, false, 1);
+    for (final var pin : List.of("s0", "s1", "co", "p")) top.pin(pin, true, 1);
+    label(top.subcircuit(halfSheet, Map.of("a", "a0", "b", "b0", "s", "s0", "c", "c0")), "h");
+    label(
+        top.subcircuit(fullSheet, Map.of("a", "a1", "b", "b1", "ci", "c0", "s", "s1", "co", "co")),
+        "f0");
+    label(
+        top.subcircuit(fullSheet, Map.of("a", "a0", "b", "b1", "ci", "a1", "s", "t", "co", "u")),
+        "f1");
+    label(top.gate(CircuitBuilder.gate("OR Gate"), "p", "t", "u"), "parity");
+    return top.build();
+  }
+
+  /**
+   * Checks and generates the project from scratch. The same project is exported each time, as the
+   * order of the components, and hence of the generated lines, differs between two projects built
+   * alike.
+   */
+  private Export export(Circuit root, int threads, String name) throws IOException {
+    ParallelTasks.setThreadCount(threads);
+    for (final var sheet : root.getProject().getLogisimFile().getCircuits()) {
+      sheet.getNetList().clear();
+    }
+    // the reporter writes to the log when there is no window, which goes to the error stream
+    final var log = new ByteArrayOutputStream();
+    final var err = System.err;
+    final var sheets = new ArrayList<String>();
+    final int drcResult;
+    System.setErr(new PrintStream(log, true, StandardCharsets.UTF_8));
+    try {
+      drcResult = root.getNetList().designRuleCheckResult(true, sheets);
+    } finally {
+      System.setErr(err);
+    }
+    final var messages = new ArrayList<>(log.toString(StandardCharsets.UTF_8).lines().toList());
+    // the sheets of one level are checked in any order, the contents of the results may not differ
+    messages.sort(null);
+    sheets.sort(null);
+
+    final var files = new TreeMap<String, String>();
+    if (drcResult == Netlist.DRC_PASSED) {
+      final var workDir = dir.resolve(name);
+      final var worker =
+          (CircuitHdlGeneratorFactory)
+              root.getSubcircuitFactory().getHDLGenerator(root.getStaticAttributes());
+      assertTrue(
+          worker.generateAllHDLDescriptions(
+              new HashSet<>(), workDir + "/", null, false, null));
+      try (final var paths = Files.walk(workDir)) {
+        for (final var path : paths.filter(Files::isRegularFile).toList()) {
+          files.put(workDir.relativize(path).toString(), Files.readString(path));
+        }
+      }
+    }
+    return new Export(drcResult, sheets, messages, files);
+  }
+
+  @Test
+  public void testSameFiles() throws IOException {
+    final var root = buildProject(true);
+    final var serial = export(root, 1, "serial");
+    final var parallel = export(root, 4, "parallel");
+    assertEquals(Netlist.DRC_PASSED, serial.drcResult());
+    assertEquals(List.of("full", "half", "invert", "top"), serial.sheets());
+    assertEquals(serial.sheets(), parallel.sheets());
+    assertEquals(serial.messages(), parallel.messages());
+    // one file per sheet at least, and the gates
+    assertTrue(serial.files().size() >= 4, () -> "files " + serial.files().keySet());
+    assertEquals(serial.files().keySet(), parallel.files().keySet());
+    for (final var file : serial.files().keySet()) {
+      assertEquals(serial.files().get(file), parallel.files().get(file), file);
+    }
+  }
+
+  @Test
+  public void testRepeatedParallelExports() throws IOException {
+    final var root = buildProject(true);
+    final var serial = export(root, 1, "serial");
+    for (var i = 0; i < 5; i++) {
+      final var parallel = export(root, 3, "parallel" + i);
+      assertEquals(serial.files(), parallel.files());
+    }
+  }
+
+  @Test
+  public void testSameErrors() throws IOException {
+    final var root = buildProject(false);
+    final var serial = export(root, 1, "serial");
+    final var parallel = export(root, 4, "parallel");
+    assertNotEquals(Netlist.DRC_PASSED, serial.drcResult());
+    assertEquals(serial.drcResult(), parallel.drcResult());
+    assertEquals(serial.messages(), parallel.messages());
+    assertEquals(serial.sheets(), parallel.sheets());
+    assertTrue(parallel.files().isEmpty());
+  }
+}
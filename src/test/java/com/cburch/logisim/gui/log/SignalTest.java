@@ -0,0 +1,498 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the samples of a signal read back against those recorded, in memory and put aside in a
+ * {@link HistoryFile}, and the activity returned by {@link Signal.Iterator#skip} against the kinds
+ * of all values in the range skipped, on histories long enough for several levels of runs of
+ * chunks.
+ */
+public class SignalTest extends TestBase {
+  private static final Value[] VALUES = {Value.FALSE, Value.TRUE, Value.UNKNOWN, Value.ERROR};
+  private static final int[] KINDS = {Signal.LOW, Signal.HIGH, Signal.UNKNOWN, Signal.ERROR};
+  private static final int CHUNK = 1024;
+
+  private static SignalInfo info() {
+    return info(1);
+  }
+
+  private static SignalInfo info(int width) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    final Component pin = Pin.FACTORY.createComponent(Location.create(0, 0, false), attrs);
+    return new SignalInfo(new Circuit("test", null, null), new Component[] {pin}, null);
+  }
+
+  /** The samples a signal should hold: their start times and values, and the end time. */
+  private static final class History {
+    final ArrayList<Long> times = new ArrayList<>();
+    final ArrayList<Value> values = new ArrayList<>();
+    long end;
+
+    History(Value value, long duration) {
+      this(0, value, duration);
+    }
+
+    History(long start, Value value, long duration) {
+      times.add(start);
+      values.add(value);
+      end = start + duration;
+    }
+
+    /** Extends the signal, and the samples expected: a value equal to the last extends it. */
+    void extend(Signal signal, Value value, long duration) {
+      signal.extend(value, duration);
+      if (!value.equals(values.get(values.size() - 1))) {
+        times.add(end);
+        values.add(value);
+      }
+      end += duration;
+    }
+
+    int size() {
+      return times.size();
+    }
+
+    long timeOf(int p) {
+      return times.get(p);
+    }
+
+    long endOf(int p) {
+      return p == size() - 1 ? end : times.get(p + 1);
+    }
+  }
+
+  /** Returns a value of the given width, sometimes with unknown or error bits, or all ones. */
+  private static Value randomValue(Random random, int width) {
+    final var all = width == 64 ? -1L : (1L << width) - 1;
+    return switch (random.nextInt(8)) {
+      case 0 -> Value.create(width, random.nextLong() & random.nextLong(), 0, random.nextLong());
+      case 1 -> Value.create(width, 0, random.nextLong() & random.nextLong(), random.nextLong());
+      case 2 -> Value.create(width, random.nextLong() & random.nextLong(), random.nextLong(), 0);
+      case 3 -> Value.createKnown(BitWidth.create(width), all);
+      default -> Value.createKnown(BitWidth.create(width), random.nextLong());
+    };
+  }
+
+  /** Returns a short duration, or now and then one too long for an int. */
+  private static long randomDuration(Random random) {
+    return random.nextInt(500) == 0 ? (1L << 33) + random.nextInt(1000) : 1 + random.nextInt(100);
+  }
+
+  /** Records random samples, starting at time zero. */
+  private static History record(
+      Signal signal, Value initial, long duration, Random random, int samples) {
+    final var history = new History(initial, duration);
+    while (history.size() < samples) {
+      history.extend(signal, randomValue(random, signal.getWidth()), randomDuration(random));
+    }
+    return history;
+  }
+
+  private static void check(Signal signal, History history) {
+    check(signal, history, 0);
+  }
+
+  /**
+   * Checks the values and times read back from the given sample on, the older ones having been
+   * dropped, walking all samples and starting from samples around each chunk boundary, which is
+   * where a chunk put aside meets the next one.
+   */
+  private static void check(Signal signal, History history, int first) {
+    final var n = history.size();
+    assertEquals(history.end, signal.getEndTime());
+    assertEquals(first == 0 ? 0 : history.timeOf(first), signal.omittedDataTime());
+    final var it = signal.new Iterator();
+    for (var p = first; p < n; p++) {
+      final var at = "sample " + p;
+      assertEquals(p - first, it.position, at);
+      assertEquals(history.timeOf(p), it.time, at);
+      assertEquals(history.values.get(p), it.value, at);
+      assertEquals(history.endOf(p) - history.timeOf(p), it.duration, at);
+      assertEquals(p < n - 1, it.advance(), at);
+    }
+    assertNull(it.value);
+    for (var p = first; p < n; p++) {
+      assertEquals(history.values.get(p), signal.getValue(history.timeOf(p)));
+      assertEquals(history.values.get(p), signal.getValue(history.endOf(p) - 1));
+    }
+    assertNull(signal.getValue(history.timeOf(first) - 1));
+    assertNull(signal.getValue(history.end));
+    for (var c = CHUNK; c < n; c += CHUNK) {
+      for (var p = Math.max(first, c - 2); p < Math.min(n, c + 2); p++) {
+        final var from = new Random(p).nextLong(history.timeOf(p), history.endOf(p));
+        final var at = signal.new Iterator(from);
+        assertEquals(p - first, at.position, "from " + from);
+        assertEquals(from, at.time);
+        assertEquals(history.values.get(p), at.value);
+        assertEquals(history.endOf(p) - from, at.duration);
+        for (var q = p + 1; q < Math.min(n, p + 4); q++) {
+          assertTrue(at.advance());
+          assertEquals(history.timeOf(q), at.time);
+          assertEquals(history.values.get(q), at.value);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSpilledSamplesReadBack() throws IOException {
+    for (final var width : new int[] {1, 7, 32, 64}) {
+      final var random = new Random(width);
+      final var file = new HistoryFile();
+      final var initial = randomValue(random, width);
+      final var signal = new Signal(0, info(width), initial, 5, 0, 0);
+      signal.setHistoryFile(file);
+      final var history = record(signal, initial, 5, random, 6 * CHUNK + 17);
+      // all but the last two chunks are put aside
+      assertTrue(file.getUsed() > 0);
+      check(signal, history);
+      file.close();
+    }
+  }
+
+  /** The chunks recorded before the history goes to disk are put aside at once. */
+  @Test
+  public void testSpillRecordedSamples() throws IOException {
+    final var random = new Random(3);
+    final var signal = new Signal(0, info(16), Value.createKnown(16, 0), 1, 0, 0);
+    final var history = record(signal, Value.createKnown(16, 0), 1, random, 5 * CHUNK);
+    final var file = new HistoryFile();
+    assertEquals(0, file.getUsed());
+    signal.setHistoryFile(file);
+    assertTrue(file.getUsed() > 0);
+    check(signal, history);
+    // and the samples that follow are put aside as they come
+    final var used = file.getUsed();
+    while (history.size() < 8 * CHUNK) {
+      history.extend(signal, randomValue(random, 16), randomDuration(random));
+    }
+    assertTrue(file.getUsed() > used);
+    check(signal, history);
+    file.close();
+  }
+
+  /** The history reads the same whether it is put aside or kept in memory. */
+  @Test
+  public void testSpilledSameAsMemory() throws IOException {
+    final var file = new HistoryFile();
+    final var onDisk = new Signal(0, info(40), Value.createKnown(40, 1), 1, 0, 0);
+    final var inMemory = new Signal(0, info(40), Value.createKnown(40, 1), 1, 0, 0);
+    onDisk.setHistoryFile(file);
+    final var random = new Random(4);
+    final var history = new History(Value.createKnown(40, 1), 1);
+    for (var i = 0; i < 4 * CHUNK + 500; i++) {
+      final var value = randomValue(random, 40);
+      final var duration = randomDuration(random);
+      inMemory.extend(value, duration);
+      history.extend(onDisk, value, duration);
+    }
+    check(onDisk, history);
+    check(inMemory, history);
+    file.close();
+  }
+
+  @Test
+  public void testHistoryFileReleasedOnClose() throws IOException {
+    final var random = new Random(5);
+    final var file = new HistoryFile();
+    final var path = file.getPath();
+    assertTrue(file.isOpen());
+    final var signal = new Signal(0, info(8), Value.createKnown(8, 0), 1, 0, 0);
+    signal.setHistoryFile(file);
+    final var history = record(signal, Value.createKnown(8, 0), 1, random, 4 * CHUNK);
+    assertTrue(file.getUsed() > 0);
+    file.close();
+    assertFalse(file.isOpen());
+    assertFalse(Files.exists(path));
+    assertThrows(IOException.class, () -> file.allocate(64));
+    // the samples already put aside stay readable
+    check(signal, history);
+    // and the next ones stay in memory, as the file is gone
+    final var used = file.getUsed();
+    while (history.size() < 7 * CHUNK) {
+      history.extend(signal, randomValue(random, 8), randomDuration(random));
+    }
+    assertEquals(used, file.getUsed());
+    check(signal, history);
+    // closing again changes nothing
+    file.close();
+    check(signal, history);
+  }
+
+  private static Value known(int width, long value) {
+    return Value.createKnown(BitWidth.create(width), value);
+  }
+
+  /** Values of all widths, with unknown and error bits, read back as they were recorded. */
+  @Test
+  public void testValuesRoundTrip() {
+    for (final var width : new int[] {1, 2, 3, 5, 8, 13, 31, 32, 33, 63, 64}) {
+      final var random = new Random(100 + width);
+      final var signal = new Signal(0, info(width), known(width, 0), 3, 0, 0);
+      final var history = new History(known(width, 0), 3);
+      // narrow values first, so that the fields of the first chunk widen once wider ones come
+      while (history.size() < 300) {
+        history.extend(signal, known(width, random.nextInt(4)), 1 + random.nextInt(9));
+      }
+      while (history.size() < 3 * CHUNK + 5) {
+        history.extend(signal, randomValue(random, width), 1 + random.nextInt(9));
+      }
+      check(signal, history);
+    }
+  }
+
+  @Test
+  public void testUnknownAndErrorBits() {
+    final var values =
+        new Value[] {
+          Value.createUnknown(BitWidth.create(64)),
+          Value.createError(BitWidth.create(64)),
+          known(64, -1),
+          known(64, Long.MIN_VALUE),
+          // each kind of bit at the top, in the middle and at the bottom
+          Value.create(64, Long.MIN_VALUE, 1L << 32, 1),
+          Value.create(64, 1, Long.MIN_VALUE, 1L << 32),
+          Value.create(64, 1L << 32, 1, Long.MIN_VALUE),
+          Value.create(64, 0x00ff00ff00ff00ffL, 0x0f0f0f0f0f0f0f0fL, -1),
+          known(64, 0),
+        };
+    final var signal = new Signal(0, info(64), known(64, 5), 2, 0, 0);
+    final var history = new History(known(64, 5), 2);
+    for (final var value : values) history.extend(signal, value, 2);
+    for (var i = values.length - 1; i >= 0; i--) history.extend(signal, values[i], 3);
+    check(signal, history);
+    // single bits have one value per kind
+    final var bit = new Signal(0, info(1), Value.FALSE, 1, 0, 0);
+    final var bits = new History(Value.FALSE, 1);
+    for (final var value : VALUES) bits.extend(bit, value, 1);
+    for (final var value : VALUES) bits.extend(bit, value, 1);
+    check(bit, bits);
+  }
+
+  /** Times and durations past 32 bits, from the start time on. */
+  @Test
+  public void testTimesPast32Bits() {
+    final var start = 3L << 32;
+    final var signal = new Signal(0, info(4), known(4, 0), 1L << 32, start, 0);
+    final var history = new History(start, known(4, 0), 1L << 32);
+    for (var i = 0; i < 2 * CHUNK + 10; i++) {
+      final var duration = i % 3 == 0 ? (5L << 32) + i : 1 + i % 7;
+      history.extend(signal, known(4, i), duration);
+    }
+    assertTrue(history.end > 1L << 42);
+    check(signal, history);
+  }
+
+  @Test
+  public void testReplaceRecent() {
+    final var a = known(8, 1);
+    final var b = known(8, 2);
+    final var c = known(8, 0x80);
+    final var signal = new Signal(0, info(8), a, 10, 0, 0);
+    final var history = new History(a, 10);
+    history.extend(signal, b, 10);
+    // the same duration: the last value is replaced
+    signal.replaceRecent(c, 10);
+    history.values.set(1, c);
+    check(signal, history);
+    // a value equal to the one before merges with it
+    signal.replaceRecent(a, 10);
+    history.times.remove(1);
+    history.values.remove(1);
+    check(signal, history);
+    // a shorter duration ends the last sample earlier
+    signal.replaceRecent(b, 5);
+    history.times.add(15L);
+    history.values.add(b);
+    check(signal, history);
+    // a longer duration than the last sample would replace more than one
+    assertThrows(IllegalStateException.class, () -> signal.replaceRecent(c, 6));
+    check(signal, history);
+  }
+
+  /** The only sample may be replaced for longer than it lasted, moving the start time back. */
+  @Test
+  public void testReplaceOnlySample() {
+    final var signal = new Signal(0, info(8), known(8, 1), 10, 100, 0);
+    signal.replaceRecent(known(8, 2), 30);
+    check(signal, new History(80, known(8, 2), 30));
+    assertThrows(IllegalStateException.class, () -> signal.replaceRecent(known(8, 3), 200));
+  }
+
+  /** Replacing the first sample of a chunk, with the chunk before it put aside or not. */
+  @Test
+  public void testReplaceRecentAtChunkBoundary() throws IOException {
+    for (final var onDisk : new boolean[] {false, true}) {
+      final var file = new HistoryFile();
+      final var signal = new Signal(0, info(8), known(8, 0), 1, 0, 0);
+      if (onDisk) signal.setHistoryFile(file);
+      final var history = new History(known(8, 0), 1);
+      while (history.size() < 3 * CHUNK + 1) {
+        history.extend(signal, known(8, history.size() % 2 == 0 ? 0 : 200), 1);
+      }
+      // the new chunk holds a single sample, which merges with the one before
+      final var last = history.size() - 1;
+      signal.replaceRecent(history.values.get(last - 1), 1);
+      history.times.remove(last);
+      history.values.remove(last);
+      check(signal, history);
+      // and the next one starts the chunk again
+      history.extend(signal, known(8, 77), 4);
+      signal.replaceRecent(known(8, 78), 4);
+      history.values.set(history.size() - 1, known(8, 78));
+      check(signal, history);
+      while (history.size() < 5 * CHUNK) history.extend(signal, known(8, history.size()), 1);
+      check(signal, history);
+      assertEquals(onDisk, file.getUsed() > 0);
+      file.close();
+    }
+  }
+
+  private static Value resize(Value value, int width) {
+    return Value.create(
+        width, value.getErrorBits(), value.getUnknownBits(), value.getValueBits());
+  }
+
+  /** The samples are read back at the current width of the signal. */
+  @Test
+  public void testWidthChange() {
+    final var random = new Random(6);
+    final var info = info(8);
+    final var signal = new Signal(0, info, known(8, 0x5a), 1, 0, 0);
+    final var history = record(signal, known(8, 0x5a), 1, random, 2 * CHUNK + 50);
+
+    info.getComponent().getAttributeSet().setValue(StdAttr.WIDTH, BitWidth.create(16));
+    assertEquals(16, signal.getWidth());
+    final var wide = new History(resize(history.values.get(0), 16), history.endOf(0));
+    for (var p = 1; p < history.size(); p++) {
+      wide.times.add(history.timeOf(p));
+      wide.values.add(resize(history.values.get(p), 16));
+    }
+    wide.end = history.end;
+    check(signal, wide);
+    // values of the new width widen the fields of the last chunk
+    while (wide.size() < 3 * CHUNK) wide.extend(signal, randomValue(random, 16), 2);
+    check(signal, wide);
+
+    info.getComponent().getAttributeSet().setValue(StdAttr.WIDTH, BitWidth.create(4));
+    final var narrow = new History(resize(wide.values.get(0), 4), wide.endOf(0));
+    for (var p = 1; p < wide.size(); p++) {
+      narrow.times.add(wide.timeOf(p));
+      narrow.values.add(resize(wide.values.get(p), 4));
+    }
+    narrow.end = wide.end;
+    check(signal, narrow);
+  }
+
+  @Test
+  public void testChangeCount() {
+    final var signal = new Signal(0, info(4), known(4, 1), 1, 0, 0);
+    var count = signal.getChangeCount();
+    // extending the last sample is no change
+    signal.extend(known(4, 1), 5);
+    signal.extend(3);
+    assertEquals(count, signal.getChangeCount());
+    signal.extend(known(4, 2), 1);
+    assertTrue(signal.getChangeCount() > count);
+    count = signal.getChangeCount();
+    signal.replaceRecent(known(4, 3), 1);
+    assertTrue(signal.getChangeCount() > count);
+    count = signal.getChangeCount();
+    // merging the last sample with the one before is a change too
+    signal.replaceRecent(known(4, 1), 1);
+    assertTrue(signal.getChangeCount() > count);
+    count = signal.getChangeCount();
+    signal.reset(known(4, 0), 1);
+    assertTrue(signal.getChangeCount() > count);
+  }
+
+  /** A limited history keeps the most recent samples, across chunks. */
+  @Test
+  public void testLimitedHistory() {
+    final var random = new Random(7);
+    final var maxSize = 2 * CHUNK + 300;
+    final var signal = new Signal(0, info(12), known(12, 0), 1, 0, maxSize);
+    final var history = record(signal, known(12, 0), 1, random, 5 * CHUNK + 123);
+    check(signal, history, history.size() - maxSize);
+    // shrinking drops the oldest samples
+    signal.resize(CHUNK);
+    check(signal, history, history.size() - CHUNK);
+  }
+
+  /** Records one sample of a random value per time unit, and skips over random ranges. */
+  private static void checkSkip(int samples, int maxSize, long seed) {
+    final var random = new Random(seed);
+    // a clock with a rare unknown or error, so that the runs of chunks differ in what they hold
+    final var values = new int[samples];
+    for (var t = 0; t < samples; t++) {
+      values[t] = random.nextInt(200_000) == 0 ? 2 + random.nextInt(2) : t % 2;
+    }
+    final var signal = new Signal(0, info(), VALUES[values[0]], 1, 0, maxSize);
+    for (var t = 1; t < samples; t++) {
+      signal.extend(VALUES[values[t]], 1);
+      // now and then, the last value turns out to be another one, as the simulation goes on
+      if (random.nextInt(100_000) == 0) {
+        values[t] = 2 + random.nextInt(2);
+        signal.replaceRecent(VALUES[values[t]], 1);
+      }
+    }
+    // how many values of each kind come before each time
+    final var counts = new int[VALUES.length][samples + 1];
+    for (var t = 0; t < samples; t++) {
+      for (var v = 0; v < VALUES.length; v++) counts[v][t + 1] = counts[v][t];
+      counts[values[t]][t + 1]++;
+    }
+    final var start = (int) signal.omittedDataTime();
+    for (var n = 0; n < 5000; n++) {
+      final var from = start + random.nextInt(samples - start);
+      final var length = random.nextInt(4) == 0 ? random.nextInt(50) : random.nextInt(samples);
+      final var to = Math.min(samples, from + 1 + length);
+      var expected = 0;
+      for (var v = 0; v < VALUES.length; v++) {
+        if (counts[v][to] > counts[v][from]) expected |= KINDS[v];
+      }
+      final var it = signal.new Iterator(from);
+      assertEquals(expected, it.skip(to), "from " + from + " to " + to);
+    }
+  }
+
+  @Test
+  public void testSkip() {
+    checkSkip(300_000, 0, 1);
+  }
+
+  /** The runs of chunks move along as the oldest chunks are dropped. */
+  @Test
+  public void testSkipLimited() {
+    checkSkip(1_500_000, 800_000, 2);
+  }
+}
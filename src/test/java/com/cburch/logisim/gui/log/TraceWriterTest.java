@@ -0,0 +1,325 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitBuilder;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.generated.BuildInfo;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the traces written for logged signals: the text of a Value Change Dump, and the changes
+ * read back from a binary trace, written directly and by the log thread of a model.
+ */
+public class TraceWriterTest extends TestBase {
+
+  @TempDir Path dir;
+
+  private static Signal signal(String label, int width, Value initial) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    attrs.setValue(StdAttr.LABEL, label);
+    final Component pin = Pin.FACTORY.createComponent(Location.create(0, 0, false), attrs);
+    final var info = new SignalInfo(new Circuit("test", null, null), new Component[] {pin}, null);
+    return new Signal(0, info, initial, 1, 0, 0);
+  }
+
+  private static TraceWriter.Change change(long time, int index, Value value) {
+    return new TraceWriter.Change(time, index, value);
+  }
+
+  @Test
+  public void testVcd() throws IOException {
+    final var file = dir.resolve("trace.vcd").toFile();
+    final var signals =
+        List.of(
+            signal("clk", 1, Value.FALSE),
+            signal("data bus", 8, Value.createKnown(8, 0)),
+            signal("q", 4, Value.createKnown(4, 0)));
+    final var writer = TraceWriter.create(file, "main circuit", signals);
+    assertTrue(writer instanceof VcdWriter);
+    writer.submit(
+        List.of(
+            change(0, 0, Value.FALSE),
+            change(0, 1, Value.createKnown(8, 0)),
+            change(0, 2, Value.createUnknown(BitWidth.create(4)))));
+    writer.submit(
+        List.of(
+            change(5, 0, Value.TRUE),
+            change(5, 1, Value.create(8, 0b0000_0100, 0b0000_0001, 0b1010_0010))));
+    writer.write();
+    writer.submit(List.of(change(10, 0, Value.FALSE), change(10, 2, Value.createKnown(4, 9))));
+    writer.submitReset();
+    writer.submit(
+        List.of(
+            change(12, 0, Value.ERROR),
+            change(12, 1, Value.createKnown(8, 0xff)),
+            change(12, 2, Value.createError(BitWidth.create(4))),
+            change(5_000_000_000L, 0, Value.UNKNOWN)));
+    writer.close();
+    // closing again writes nothing more
+    writer.close();
+
+    final var text = Files.readString(file.toPath(), StandardCharsets.US_ASCII);
+    final var date = "$date\n  ";
+    assertTrue(text.startsWith(date), text);
+    final var end = text.indexOf("\n$end\n");
+    assertTrue(end > date.length(), text);
+    final var expected =
+        "$version\n"
+            + "  " + BuildInfo.displayName + "\n"
+            + "$end\n"
+            + "$timescale 1ns $end\n"
+            + "$scope module main_circuit $end\n"
+            + "$var wire 1 ! clk $end\n"
+            + "$var wire 8 \" data_bus[7..0] $end\n"
+            + "$var wire 4 # q[3..0] $end\n"
+            + "$upscope $end\n"
+            + "$enddefinitions $end\n"
+            + "#0\n"
+            + "0!\n"
+            + "b00000000 \"\n"
+            + "bzzzz #\n"
+            + "#5\n"
+            + "1!\n"
+            + "b10100x1z \"\n"
+            + "#10\n"
+            + "0!\n"
+            + "b1001 #\n"
+            + "$comment simulator reset $end\n"
+            + "#12\n"
+            + "x!\n"
+            + "b11111111 \"\n"
+            + "bxxxx #\n"
+            + "#5000000000\n"
+            + "z!\n";
+    assertEquals(expected, text.substring(end + "\n$end\n".length()));
+  }
+
+  /** Identifiers of one printable character, then of two, all different. */
+  @Test
+  public void testVcdIdentifiers() throws IOException {
+    final var file = dir.resolve("many.vcd").toFile();
+    final var signals = new ArrayList<Signal>();
+    for (var i = 0; i < 200; i++) signals.add(signal("s" + i, 1, Value.FALSE));
+    TraceWriter.create(file, "many", signals).close();
+    final var ids = new ArrayList<String>();
+    for (final var line : Files.readAllLines(file.toPath())) {
+      if (line.startsWith("$var ")) ids.add(line.split(" ")[3]);
+    }
+    assertEquals(200, ids.size());
+    assertEquals("!", ids.get(0));
+    assertEquals("~", ids.get(93));
+    assertEquals("!!", ids.get(94));
+    assertEquals("\"!", ids.get(95));
+    assertEquals(200, ids.stream().distinct().count());
+    for (final var id : ids) assertTrue(id.chars().allMatch(c -> c > ' ' && c < 127), id);
+  }
+
+  /** A binary trace read back, each change as a string, and a reset as "reset". */
+  private static final class Decoded {
+    String scope;
+    int[] widths;
+    String[] names;
+    final List<String> records = new ArrayList<>();
+  }
+
+  private static long readNumber(InputStream in) throws IOException {
+    var n = 0L;
+    for (var shift = 0; ; shift += 7) {
+      final var b = in.read();
+      if (b < 0) throw new IOException("truncated number");
+      n |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) return n;
+    }
+  }
+
+  private static String readString(InputStream in) throws IOException {
+    final var bytes = in.readNBytes((int) readNumber(in));
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static String describe(long time, int index, Value value) {
+    return time + " " + index + " " + value.toDisplayString();
+  }
+
+  private static Decoded decode(File file) throws IOException {
+    final var in = new ByteArrayInputStream(Files.readAllBytes(file.toPath()));
+    assertArrayEquals(BinaryTraceWriter.MAGIC, in.readNBytes(BinaryTraceWriter.MAGIC.length));
+    final var ret = new Decoded();
+    ret.scope = readString(in);
+    final var count = (int) readNumber(in);
+    ret.widths = new int[count];
+    ret.names = new String[count];
+    for (var i = 0; i < count; i++) {
+      ret.widths[i] = (int) readNumber(in);
+      ret.names[i] = readString(in);
+    }
+    var time = 0L;
+    while (in.available() > 0) {
+      final var code = readNumber(in);
+      if (code == 0) {
+        time += readNumber(in);
+      } else if (code == 1) {
+        ret.records.add("reset");
+      } else {
+        final var index = (int) ((code - 2) / 2);
+        final var value = readNumber(in);
+        final var unknown = code % 2 == 0 ? 0 : readNumber(in);
+        final var error = code % 2 == 0 ? 0 : readNumber(in);
+        ret.records.add(
+            describe(time, index, Value.create(ret.widths[index], error, unknown, value)));
+      }
+    }
+    return ret;
+  }
+
+  private static Value randomValue(Random random, int width) {
+    return switch (random.nextInt(4)) {
+      case 0 -> Value.create(width, random.nextLong() & random.nextLong(), 0, random.nextLong());
+      case 1 -> Value.create(width, 0, random.nextLong() & random.nextLong(), random.nextLong());
+      default -> Value.createKnown(BitWidth.create(width), random.nextLong());
+    };
+  }
+
+  @Test
+  public void testBinaryTrace() throws IOException {
+    final var file = dir.resolve("trace.ltrace").toFile();
+    final var widths = new int[] {1, 7, 32, 64};
+    final var signals = new ArrayList<Signal>();
+    for (var i = 0; i < widths.length; i++) {
+      signals.add(signal("s" + i, widths[i], Value.createKnown(widths[i], 0)));
+    }
+    final var writer = TraceWriter.create(file, "top", signals);
+    assertTrue(writer instanceof BinaryTraceWriter);
+    final var random = new Random(18);
+    final var expected = new ArrayList<String>();
+    var time = 0L;
+    for (var batch = 0; batch < 50; batch++) {
+      final var changes = new ArrayList<TraceWriter.Change>();
+      for (var n = random.nextInt(200); n > 0; n--) {
+        // times past 32 bits, and several changes at once
+        time += random.nextInt(3) == 0 ? 0 : random.nextInt(10) == 0 ? 1L << 35 : 1;
+        final var index = random.nextInt(widths.length);
+        final var value = randomValue(random, widths[index]);
+        changes.add(change(time, index, value));
+        expected.add(describe(time, index, value));
+      }
+      writer.submit(changes);
+      if (random.nextInt(5) == 0) {
+        writer.submitReset();
+        // resets with no change between them are written once
+        if (expected.isEmpty() || !expected.get(expected.size() - 1).equals("reset")) {
+          expected.add("reset");
+        }
+      }
+      // written now and then, as the log thread does
+      if (random.nextBoolean()) writer.write();
+    }
+    writer.close();
+
+    final var decoded = decode(file);
+    assertEquals("top", decoded.scope);
+    assertArrayEquals(widths, decoded.widths);
+    assertArrayEquals(new String[] {"s0", "s1[6..0]", "s2[31..0]", "s3[63..0]"}, decoded.names);
+    // a reset is written with the change after it, and a final one is dropped
+    while (expected.get(expected.size() - 1).equals("reset")) expected.remove(expected.size() - 1);
+    assertEquals(expected, decoded.records);
+  }
+
+  /**
+   * Records enough steps through a model for the log thread to write several batches while the
+   * simulation goes on, and checks that the trace holds all the changes, in order.
+   */
+  @Test
+  public void testLogThreadBatches() throws IOException {
+    final var proj = CircuitBuilder.createProject();
+    final var builder = new CircuitBuilder(proj, "main");
+    final var widths = new int[] {1, 5, 16};
+    final var pins = new ArrayList<Component>();
+    for (var i = 0; i < widths.length; i++) pins.add(builder.pin("p" + i, false, widths[i]));
+    final var circuit = builder.build();
+    final var state = new CircuitState(proj, circuit);
+    final var model = new Model(state);
+    assertEquals(widths.length, model.getSignalCount());
+
+    final var values = new Value[widths.length];
+    for (var i = 0; i < widths.length; i++) {
+      values[i] = model.getSignal(i).info.fetchValue(state);
+      assertSame(pins.get(i), model.getSignal(i).info.getComponent());
+    }
+    final var expected = new ArrayList<String>();
+    for (var i = 0; i < widths.length; i++) expected.add(describe(0, i, values[i]));
+
+    final var file = dir.resolve("log.ltrace").toFile();
+    model.setSelected(true);
+    model.setFile(file);
+    final var random = new Random(19);
+    var offset = 0L;
+    final var steps = LogThread.TRACE_BATCH / 2 + LogThread.TRACE_BATCH / 4;
+    for (var step = 0; step < steps; step++) {
+      if (step == steps / 2) {
+        // the trace goes on after a reset, all values being written again
+        offset += model.getEndTime();
+        model.simulatorReset();
+        expected.add("reset");
+        for (var i = 0; i < widths.length; i++) expected.add(describe(offset, i, values[i]));
+      }
+      final var time = offset + model.getEndTime();
+      for (var i = 0; i < widths.length; i++) {
+        if (i > 0 && random.nextInt(3) == 0) continue;
+        final var value = randomValue(random, widths[i]);
+        final var pinState = state.getInstanceState(pins.get(i));
+        Pin.FACTORY.setValue(pinState, value);
+        if (value.equals(values[i])) continue;
+        values[i] = value;
+        expected.add(describe(time, i, value));
+      }
+      model.propagationCompleted(false, false, true);
+    }
+    assertTrue(expected.size() > LogThread.TRACE_BATCH);
+    // stopping the log closes the trace, with all changes written
+    model.setSelected(false);
+
+    final var decoded = decode(file);
+    assertEquals("main", decoded.scope);
+    assertArrayEquals(widths, decoded.widths);
+    assertEquals(expected.size(), decoded.records.size());
+    for (var i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i), decoded.records.get(i), "record " + i);
+    }
+    assertEquals(List.of(), Arrays.asList(dir.toFile().list((d, name) -> name.endsWith(".tmp"))));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.CircuitBuilder;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.tools.AddTool;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Runs many jobs of a manifest at once, all of them on the circuits of a single file. */
+public class BatchRunnerTest extends TestBase {
+  private static final int JOBS = 48;
+
+  @TempDir Path dir;
+
+  private void write(String name, String... lines) throws Exception {
+    Files.write(dir.resolve(name), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testJobsSharingFile() throws Exception {
+    // the file saves only the components of its own libraries
+    final var loader = new Loader(null);
+    final var file = LogisimFile.createNew(loader, null);
+    file.addLibrary(loader.getBuiltin().getLibrary("Wiring"));
+    file.addLibrary(loader.getBuiltin().getLibrary("Gates"));
+    final var proj = new Project(file);
+    for (final var gate : new String[] {"AND", "XOR"}) {
+      final var builder = new CircuitBuilder(proj, gate.toLowerCase());
+      builder.pin("a", false, 1);
+      builder.pin("b", false, 1);
+      builder.pin("q", true, 1);
+      final var tool = (AddTool) file.getLibrary("Gates").getTool(gate + " Gate");
+      builder.gate(tool.getFactory(), "q", "a", "b");
+      builder.build();
+    }
+    assertTrue(loader.save(file, dir.resolve("gates.circ").toFile()));
+    write("and.txt", "a b q", "0 0 0", "0 1 0", "1 0 0", "1 1 1");
+    write("xor.txt", "a b q", "0 0 0", "0 1 1", "1 0 1", "1 1 0");
+    final var manifest = new StringBuilder();
+    for (var i = 0; i < JOBS; i++) {
+      // the last job checks the and gate against the vectors of the xor gate
+      final var circuit = i % 2 == 0 || i == JOBS - 1 ? "and" : "xor";
+      final var vector = i % 2 == 0 ? "and.txt" : "xor.txt";
+      manifest.append("gates.circ\t").append(circuit).append('\t').append(vector).append('\n');
+    }
+    write("manifest.txt", manifest.toString());
+
+    final var report = new ByteArrayOutputStream();
+    final var status =
+        BatchRunner.run(
+            dir.resolve("manifest.txt").toFile(),
+            Map.<File, File>of(),
+            new PrintStream(report, true, StandardCharsets.UTF_8));
+    assertEquals(1, status);
+    final var lines = report.toString(StandardCharsets.UTF_8).split("\\R");
+    assertEquals(JOBS + 1, lines.length);
+    for (var i = 0; i < JOBS; i++) {
+      final var fields = lines[i + 1].split(",");
+      final var expected = i == JOBS - 1 ? "fail,4,1,3" : "pass,4,4,0";
+      assertEquals(expected, String.join(",", fields[3], fields[4], fields[5], fields[6]));
+    }
+  }
+}
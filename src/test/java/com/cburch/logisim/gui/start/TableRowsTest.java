@@ -0,0 +1,226 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.analyze.model.TruthTable;
+import com.cburch.logisim.circuit.BitSlicedCircuit;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitBuilder;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.CompiledCircuit;
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeOption;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.arith.Adder;
+import com.cburch.logisim.std.memory.Mem;
+import com.cburch.logisim.std.memory.Ram;
+import com.cburch.logisim.std.memory.RamAppearance;
+import com.cburch.logisim.std.wiring.Constant;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the rows of a truth table evaluated by {@link TableRows}, with any of the engines,
+ * are those of evaluating each row on a new {@link CircuitState}.
+ */
+public class TableRowsTest extends TestBase {
+
+  private record Table(Project proj, Circuit circuit, List<Instance> inputs, List<Instance> pins) {
+    int inputCount() {
+      var ret = 0;
+      for (final var pin : inputs) ret += pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      return ret;
+    }
+
+    /** Evaluates the rows with {@link TableRows}, a few at a time, on the calling thread. */
+    Value[][] evaluate(BitSlicedCircuit sliced, int chunk) {
+      final var rows = new TableRows(proj, circuit, inputs, pins, inputCount(), sliced);
+      final var ret = new Value[1 << inputCount()][];
+      for (var first = 0; first < ret.length; first += chunk) {
+        final var count = Math.min(chunk, ret.length - first);
+        System.arraycopy(rows.evaluate(first, count), 0, ret, first, count);
+      }
+      return ret;
+    }
+
+    /** Evaluates each row on a new circuit state, as the table analysis always did. */
+    Value[][] evaluatePerRow() {
+      final var ret = new Value[1 << inputCount()][];
+      for (var row = 0; row < ret.length; row++) {
+        final var state = new CircuitState(proj, circuit);
+        final var values = new Value[pins.size()];
+        var incol = 0;
+        for (var i = 0; i < inputs.size(); i++) {
+          final var width = inputs.get(i).getAttributeValue(StdAttr.WIDTH).getWidth();
+          final var v = new Value[width];
+          for (var b = width - 1; b >= 0; b--) {
+            v[b] = TruthTable.isInputSet(row, incol++, inputCount()) ? Value.TRUE : Value.FALSE;
+          }
+          values[i] = Value.create(v);
+          Pin.FACTORY.setValue(state.getInstanceState(inputs.get(i)), values[i]);
+        }
+        final var prop = state.getPropagator();
+        prop.propagate();
+        for (var i = inputs.size(); i < values.length; i++) {
+          final var pin = pins.get(i);
+          values[i] =
+              prop.isOscillating()
+                  ? Value.createError(pin.getAttributeValue(StdAttr.WIDTH))
+                  : Pin.FACTORY.getValue(state.getInstanceState(pin));
+        }
+        ret[row] = values;
+      }
+      return ret;
+    }
+  }
+
+  private static Project createProject(AttributeOption engine) {
+    final var proj = CircuitBuilder.createProject();
+    proj.getOptions().getAttributeSet().setValue(Options.ATTR_SIM_ENGINE, engine);
+    return proj;
+  }
+
+  private static Table table(Project proj, CircuitBuilder builder, String[] in, String[] out) {
+    final var circuit = builder.build();
+    final var inputs = new ArrayList<Instance>();
+    final var pins = new ArrayList<Instance>();
+    for (final var labels : new String[][] {in, out}) {
+      for (final var label : labels) {
+        for (final var comp : circuit.getNonWires()) {
+          if (comp.getFactory() instanceof Pin
+              && label.equals(comp.getAttributeSet().getValue(StdAttr.LABEL))) {
+            pins.add(Instance.getInstanceFor(comp));
+          }
+        }
+      }
+    }
+    inputs.addAll(pins.subList(0, in.length));
+    return new Table(proj, circuit, inputs, pins);
+  }
+
+  /** Two 3-bit numbers, their sum, its carry, and the carry anded with a third input. */
+  private static Table adder(Project proj) {
+    final var builder = new CircuitBuilder(proj, "adder");
+    builder.pin("a", false, 3);
+    builder.pin("b", false, 3);
+    builder.pin("c", false, 1);
+    builder.pin("sum", true, 3);
+    builder.pin("carry", true, 1);
+    builder.pin("both", true, 1);
+    final var adderFactory = new Adder();
+    final var adderAttrs = adderFactory.createAttributeSet();
+    adderAttrs.setValue(StdAttr.WIDTH, BitWidth.create(3));
+    final var adder = builder.add(adderFactory, adderAttrs);
+    builder.connect(adder, Adder.IN0, "a", 3);
+    builder.connect(adder, Adder.IN1, "b", 3);
+    builder.connect(adder, Adder.OUT, "sum", 3);
+    builder.connect(adder, Adder.C_OUT, "carry", 1);
+    builder.gate(CircuitBuilder.gate("AND Gate"), "both", "carry", "c");
+    return table(
+        proj, builder, new String[] {"a", "b", "c"}, new String[] {"sum", "carry", "both"});
+  }
+
+  @Test
+  public void testEngines() {
+    final var eventProj = createProject(Options.SIM_ENGINE_EVENT);
+    final var event = adder(eventProj);
+    final var expected = event.evaluatePerRow();
+    assertNull(CompiledCircuit.create(eventProj, event.circuit()));
+    assertArrayEquals(expected, event.evaluate(null, 5));
+
+    final var compiledProj = createProject(Options.SIM_ENGINE_COMPILED);
+    final var compiled = adder(compiledProj);
+    assertArrayEquals(expected, compiled.evaluatePerRow());
+    assertArrayEquals(expected, compiled.evaluate(null, 5));
+    final var sliced =
+        BitSlicedCircuit.create(
+            CompiledCircuit.create(compiledProj, compiled.circuit()), compiled.inputs());
+    assertNotNull(sliced);
+    assertArrayEquals(expected, compiled.evaluate(sliced, BitSlicedCircuit.LANES));
+  }
+
+  /** Evaluates the rows from several threads at once, as the table analysis does. */
+  @Test
+  public void testThreads() throws Exception {
+    final var proj = createProject(Options.SIM_ENGINE_EVENT);
+    final var table = adder(proj);
+    final var expected = table.evaluatePerRow();
+    final var rows =
+        new TableRows(
+            proj, table.circuit(), table.inputs(), table.pins(), table.inputCount(), null);
+    final var actual = new Value[expected.length][];
+    final var pool = Executors.newFixedThreadPool(4);
+    try {
+      final var futures = new ArrayList<Future<?>>();
+      for (var first = 0; first < actual.length; first += 3) {
+        final var start = first;
+        final var count = Math.min(3, actual.length - first);
+        futures.add(
+            pool.submit(
+                () -> System.arraycopy(rows.evaluate(start, count), 0, actual, start, count)));
+      }
+      for (final var future : futures) future.get();
+    } finally {
+      pool.shutdown();
+    }
+    assertArrayEquals(expected, actual);
+  }
+
+  /**
+   * A non-volatile RAM, written while {@code read} is low and read back in the other rows, which
+   * must not see what the rows before wrote.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testNonVolatileMemory() {
+    final var proj = createProject(Options.SIM_ENGINE_EVENT);
+    final var builder = new CircuitBuilder(proj, "memory");
+    builder.pin("read", false, 1);
+    builder.pin("d", false, 1);
+    builder.pin("q", true, 1);
+    builder.gate(CircuitBuilder.gate("NOT Gate"), "write", "read");
+    final var oneAttrs = Constant.FACTORY.createAttributeSet();
+    builder.connect(builder.add(Constant.FACTORY, oneAttrs), 0, "one", 1);
+    final var zeroAttrs = Constant.FACTORY.createAttributeSet();
+    zeroAttrs.setValue(Constant.ATTR_VALUE, 0L);
+    builder.connect(builder.add(Constant.FACTORY, zeroAttrs), 0, "zero", 1);
+    final var ramFactory = new Ram();
+    final var ramAttrs = ramFactory.createAttributeSet();
+    ramAttrs.setValue(Mem.ADDR_ATTR, BitWidth.create(1));
+    ramAttrs.setValue(Mem.DATA_ATTR, BitWidth.create(1));
+    final var asyncRead = (Attribute<Boolean>) ramAttrs.getAttribute("asyncread");
+    ramAttrs.setValue(asyncRead, true);
+    ramAttrs.setValue(StdAttr.TRIGGER, StdAttr.TRIG_HIGH);
+    final var type = (Attribute<AttributeOption>) ramAttrs.getAttribute("type");
+    ramAttrs.setValue(type, type.parse("nonvolatile"));
+    final var ram = builder.add(ramFactory, ramAttrs);
+    builder.connect(ram, RamAppearance.getAddrIndex(0, ramAttrs), "zero", 1);
+    builder.connect(ram, RamAppearance.getDataInIndex(0, ramAttrs), "d", 1);
+    builder.connect(ram, RamAppearance.getDataOutIndex(0, ramAttrs), "q", 1);
+    builder.connect(ram, RamAppearance.getOEIndex(0, ramAttrs), "one", 1);
+    builder.connect(ram, RamAppearance.getWEIndex(0, ramAttrs), "write", 1);
+    final var table = table(proj, builder, new String[] {"read", "d"}, new String[] {"q"});
+    assertArrayEquals(table.evaluatePerRow(), table.evaluate(null, 8));
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.soc.nios2.Nios2Support;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the instructions both processors execute on one clock edge: as many as set for them
+ * while they only access memories, and up to the first one the circuit has to take part in.
+ */
+public class ProcessorBurstTest extends TestBase {
+
+  private static final int BURST = 8;
+  private static final int DATA = 0x200; // a word of the memory, away from the programs
+
+  private static final int RV32_ADDI = 0x00108093; // addi x1, x1, 1
+  private static final int RV32_LOAD_PIO = 0x40002103; // lw x2, 0x400(x0)
+  private static final int RV32_STORE = 0x20102023; // sw x1, 0x200(x0)
+  private static final int RV32_LOAD = 0x20002103; // lw x2, 0x200(x0)
+  private static final int RV32_LOOP = 0xff5ff06f; // j pc-12
+
+  private static final int NIOS2_ADDI = Nios2Support.getITypeInstructionCode(1, 1, 1, 0x04);
+  private static final int NIOS2_LOAD_PIO =
+      Nios2Support.getITypeInstructionCode(0, 2, SocTestSystem.PIO, 0x17);
+  private static final int NIOS2_STORE = Nios2Support.getITypeInstructionCode(0, 1, DATA, 0x15);
+  private static final int NIOS2_LOAD = Nios2Support.getITypeInstructionCode(0, 2, DATA, 0x17);
+  private static final int NIOS2_LOOP = Nios2Support.getITypeInstructionCode(0, 0, -16, 0x06);
+  /* custom 0, r3, r1, r2 */
+  private static final int NIOS2_CUSTOM =
+      Nios2Support.getCustomInstructionCode(1, 2, 3, 1 << 8, 0x32);
+
+  private static int[] repeat(int word, int count) {
+    final var words = new int[count];
+    Arrays.fill(words, word);
+    return words;
+  }
+
+  private static void assertStopsAtInstructionsPerClock(SocTestSystem system, int addi) {
+    system.write(0, repeat(addi, 3 * BURST));
+    system.clock();
+    assertEquals(4 * BURST, system.getProgramCounter());
+    assertEquals(BURST, system.getRegisterValue(1));
+    system.clock();
+    assertEquals(8 * BURST, system.getProgramCounter());
+    assertEquals(2 * BURST, system.getRegisterValue(1));
+  }
+
+  private static void assertStopsAfter(SocTestSystem system, int addi, int stop) {
+    system.write(0, addi, stop);
+    system.write(8, repeat(addi, 2 * BURST));
+    system.clock();
+    assertEquals(8, system.getProgramCounter());
+    assertEquals(1, system.getRegisterValue(1));
+  }
+
+  /* the program stores an incremented word and loads it back, over and over */
+  private static void assertRunsFullBurst(SocTestSystem system, int... loop) {
+    system.write(0, loop);
+    final var traced = system.getNrOfTracedTransactions();
+    system.clock();
+    // two rounds of the loop
+    assertEquals(0, system.getProgramCounter());
+    assertEquals(2, system.getRegisterValue(1));
+    assertEquals(2, system.getRegisterValue(2));
+    // each instruction fetched, and each store and load, over the bus
+    assertEquals(traced + BURST + 4, system.getNrOfTracedTransactions());
+    system.clock();
+    assertEquals(0, system.getProgramCounter());
+    assertEquals(4, system.getRegisterValue(1));
+    assertEquals(4, system.getRegisterValue(2));
+  }
+
+  @Test
+  public void testRv32imStopsAtInstructionsPerClock() {
+    assertStopsAtInstructionsPerClock(SocTestSystem.rv32im(BURST), RV32_ADDI);
+  }
+
+  @Test
+  public void testNios2StopsAtInstructionsPerClock() {
+    assertStopsAtInstructionsPerClock(SocTestSystem.nios2(BURST), NIOS2_ADDI);
+  }
+
+  @Test
+  public void testRv32imStopsAfterCircuitVisibleLoad() {
+    final var system = SocTestSystem.rv32im(BURST);
+    assertStopsAfter(system, RV32_ADDI, RV32_LOAD_PIO);
+    // the next edge goes on where the burst stopped
+    system.clock();
+    assertEquals(8 + 4 * BURST, system.getProgramCounter());
+    assertEquals(1 + BURST, system.getRegisterValue(1));
+  }
+
+  @Test
+  public void testNios2StopsAfterCircuitVisibleLoad() {
+    final var system = SocTestSystem.nios2(BURST);
+    assertStopsAfter(system, NIOS2_ADDI, NIOS2_LOAD_PIO);
+    system.clock();
+    assertEquals(8 + 4 * BURST, system.getProgramCounter());
+    assertEquals(1 + BURST, system.getRegisterValue(1));
+  }
+
+  @Test
+  public void testNios2StopsAfterCustomInstruction() {
+    // the circuit answers the custom instruction, so no later edge is simulated here
+    assertStopsAfter(SocTestSystem.nios2(BURST), NIOS2_ADDI, NIOS2_CUSTOM);
+  }
+
+  @Test
+  public void testRv32imRunsFullBurstOnMemory() {
+    assertRunsFullBurst(
+        SocTestSystem.rv32im(BURST), RV32_ADDI, RV32_STORE, RV32_LOAD, RV32_LOOP);
+  }
+
+  @Test
+  public void testNios2RunsFullBurstOnMemory() {
+    assertRunsFullBurst(
+        SocTestSystem.nios2(BURST), NIOS2_ADDI, NIOS2_STORE, NIOS2_LOAD, NIOS2_LOOP);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc;
+
+import com.cburch.logisim.circuit.CircuitBuilder;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.soc.bus.SocBus;
+import com.cburch.logisim.soc.bus.SocBusAttributes;
+import com.cburch.logisim.soc.data.SocBusInfo;
+import com.cburch.logisim.soc.data.SocBusStateInfo;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import com.cburch.logisim.soc.data.SocSimulationManager;
+import com.cburch.logisim.soc.memory.SocMemory;
+import com.cburch.logisim.soc.memory.SocMemoryAttributes;
+import com.cburch.logisim.soc.memory.SocMemoryState;
+import com.cburch.logisim.soc.nios2.Nios2;
+import com.cburch.logisim.soc.nios2.Nios2Attributes;
+import com.cburch.logisim.soc.nios2.Nios2State;
+import com.cburch.logisim.soc.pio.SocPio;
+import com.cburch.logisim.soc.rv32im.RV32imAttributes;
+import com.cburch.logisim.soc.rv32im.RV32imState;
+import com.cburch.logisim.soc.rv32im.Rv32imRiscV;
+
+/**
+ * A processor on a bus with a memory of 1 KiB at address 0, where it starts, and a PIO right
+ * above it, at {@link #PIO}, which the circuit sees. The processor is run by calling {@link
+ * #clock}, as the rising edges of its clock would.
+ */
+public class SocTestSystem {
+  public static final int MEMORY_SIZE = 1 << 10;
+  public static final int PIO = MEMORY_SIZE;
+
+  private final CircuitState state;
+  private final Component processor;
+  private final Component bus;
+  private final Component memory;
+  private final SocSimulationManager manager;
+  private final String busId;
+
+  private SocTestSystem(ComponentFactory cpu, int instructionsPerClock) {
+    final var builder = new CircuitBuilder(CircuitBuilder.createProject(), "soc");
+    final var busAttrs = new SocBus().createAttributeSet();
+    busId = busAttrs.getValue(SocBusAttributes.SOC_BUS_ID).getBusId();
+    bus = builder.add(new SocBus(), busAttrs);
+    final var mem = new SocMemory();
+    final var memAttrs = mem.createAttributeSet();
+    memAttrs.setValue(SocMemoryAttributes.START_ADDRESS, 0);
+    memAttrs.setValue(SocMemoryAttributes.MEM_SIZE, BitWidth.create(10));
+    memAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, new SocBusInfo(busId));
+    memory = builder.add(mem, memAttrs);
+    final var pio = new SocPio();
+    final var pioAttrs = pio.createAttributeSet();
+    pioAttrs.setValue(SocMemoryAttributes.START_ADDRESS, PIO);
+    pioAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, new SocBusInfo(busId));
+    builder.add(pio, pioAttrs);
+    final var cpuAttrs = cpu.createAttributeSet();
+    cpuAttrs.setValue(
+        cpu instanceof Nios2
+            ? Nios2Attributes.INSTRUCTIONS_PER_CLOCK
+            : RV32imAttributes.INSTRUCTIONS_PER_CLOCK,
+        instructionsPerClock);
+    cpuAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, new SocBusInfo(busId));
+    processor = builder.add(cpu, cpuAttrs);
+    final var circuit = builder.build();
+    manager = circuit.getSocSimulationManager();
+    state = new CircuitState(circuit.getProject(), circuit);
+    // makes the state of every component, the processor one stopped
+    state.getPropagator().propagate();
+    if (state.getData(processor) instanceof RV32imState.ProcessorState cpuState) {
+      cpuState.simButtonPressed();
+    } else {
+      ((Nios2State.ProcessorState) state.getData(processor)).simButtonPressed();
+    }
+  }
+
+  public static SocTestSystem rv32im(int instructionsPerClock) {
+    return new SocTestSystem(new Rv32imRiscV(), instructionsPerClock);
+  }
+
+  public static SocTestSystem nios2(int instructionsPerClock) {
+    return new SocTestSystem(new Nios2(), instructionsPerClock);
+  }
+
+  public CircuitState getCircuitState() {
+    return state;
+  }
+
+  public SocBusInfo getAttachedBus() {
+    return processor.getAttributeSet().getValue(SocSimulationManager.SOC_BUS_SELECT);
+  }
+
+  public SocBusStateInfo getBus() {
+    return manager.getSocBusState(busId);
+  }
+
+  /** Returns the transactions of the trace of the bus. */
+  public int getNrOfTracedTransactions() {
+    return ((SocBusStateInfo.SocBusState) state.getData(bus)).getNrOfEntires();
+  }
+
+  /** Writes the given words from an address on, over the bus, as loading a program does. */
+  public void write(int address, int... words) {
+    for (var i = 0; i < words.length; i++) {
+      final var trans =
+          new SocBusTransaction(
+              SocBusTransaction.WRITE_TRANSACTION,
+              address + 4 * i,
+              words[i],
+              SocBusTransaction.WORD_ACCESS,
+              "test");
+      trans.setAsHiddenTransaction();
+      manager.initializeTransaction(trans, busId, state);
+      if (trans.hasError()) throw new IllegalStateException(trans.getErrorMessage());
+    }
+  }
+
+  /** Changes a word of the memory without the bus, as the bus would not know of it. */
+  public void poke(int address, int word) {
+    ((SocMemoryState.SocMemoryInfo) state.getData(memory)).writeWord(address, word);
+  }
+
+  /** Executes the instructions of one rising edge of the clock. */
+  public void clock() {
+    if (state.getData(processor) instanceof RV32imState.ProcessorState cpuState) {
+      cpuState.execute(state);
+    } else {
+      ((Nios2State.ProcessorState) state.getData(processor)).execute(state);
+    }
+  }
+
+  public int getProgramCounter() {
+    if (state.getData(processor) instanceof RV32imState.ProcessorState cpuState) {
+      return cpuState.getProgramCounter();
+    }
+    return ((Nios2State.ProcessorState) state.getData(processor)).getProgramCounter();
+  }
+
+  public int getRegisterValue(int index) {
+    if (state.getData(processor) instanceof RV32imState.ProcessorState cpuState) {
+      return cpuState.getRegisterValue(index);
+    }
+    return ((Nios2State.ProcessorState) state.getData(processor)).getRegisterValue(index);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.soc.gui.CpuDrawSupport;
+import com.cburch.logisim.soc.rv32im.RV32imAssembler;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/** Checks the order of the instructions kept by an {@link InstructionTrace}, and their text. */
+public class InstructionTraceTest extends TestBase {
+
+  /** The word of "addi x1, x0, imm", shown as "li ra,imm". */
+  private static int addi(int imm) {
+    return ((imm & 0xfff) << 20) | (1 << 7) | 0x13;
+  }
+
+  private static String disassemble(int instruction) {
+    final var assembler = new RV32imAssembler();
+    assembler.decode(instruction);
+    return assembler.getExeUnit().getAsmInstruction();
+  }
+
+  /** Checks that the trace holds the given number of the n instructions recorded, newest first. */
+  private static void assertLast(InstructionTrace trace, int n, int count) {
+    assertEquals(count, trace.size());
+    assertEquals(count == 0, trace.isEmpty());
+    for (var index = 0; index < count; index++) {
+      final var k = n - 1 - index;
+      final var info = trace.get(index);
+      assertEquals(0x1000 + 4 * k, info.getProgramCounter(), "index " + index);
+      assertEquals(addi(k), info.getInstruction(), "index " + index);
+      assertEquals(k % 7 == 3, info.hasError(), "index " + index);
+    }
+    assertNull(trace.get(count));
+    assertNull(trace.get(-1));
+  }
+
+  private static void record(InstructionTrace trace, int k) {
+    trace.add(0x1000 + 4 * k, addi(k), k % 7 == 3);
+  }
+
+  @Test
+  public void testWraparound() {
+    final var depth = CpuDrawSupport.NR_OF_TRACES;
+    assertEquals(21, depth);
+    final var trace = new InstructionTrace(new RV32imAssembler(), depth);
+    assertEquals(depth, trace.getDepth());
+    assertLast(trace, 0, 0);
+    for (var n = 1; n <= 3 * depth + 5; n++) {
+      record(trace, n - 1);
+      assertLast(trace, n, Math.min(n, depth));
+    }
+  }
+
+  @Test
+  public void testClearAndDepth() {
+    final var trace = new InstructionTrace(new RV32imAssembler(), CpuDrawSupport.NR_OF_TRACES);
+    for (var k = 0; k < 30; k++) record(trace, k);
+    trace.clear();
+    assertLast(trace, 0, 0);
+    // recording starts again wherever the ring was left
+    for (var k = 0; k < 25; k++) {
+      record(trace, k);
+      assertLast(trace, k + 1, Math.min(k + 1, 21));
+    }
+    trace.setDepth(21);
+    assertLast(trace, 25, 21);
+    trace.setDepth(5);
+    assertEquals(5, trace.getDepth());
+    assertLast(trace, 0, 0);
+    for (var k = 0; k < 12; k++) record(trace, k);
+    assertLast(trace, 12, 5);
+  }
+
+  @Test
+  public void testDisassembly() {
+    final var trace = new InstructionTrace(new RV32imAssembler(), 2);
+    record(trace, 5);
+    final var first = trace.get(0).getAsmInstruction();
+    assertEquals(disassemble(addi(5)), first);
+    assertEquals("li ra,5", first.replaceAll("\\s+", " "));
+    // the same entry shown again keeps its text, an entry overwritten gets a new one
+    assertEquals(first, trace.get(0).getAsmInstruction());
+    record(trace, 6);
+    record(trace, 9);
+    assertEquals(disassemble(addi(9)), trace.get(0).getAsmInstruction());
+    assertNotEquals(first, trace.get(0).getAsmInstruction());
+    assertEquals(disassemble(addi(6)), trace.get(1).getAsmInstruction());
+  }
+
+  /**
+   * Entries read while a processor records are whole, and those read at once under the lock of the
+   * trace, which holds off the processor, follow each other.
+   */
+  @Test
+  public void testReadWhileRecording() throws InterruptedException {
+    final var depth = CpuDrawSupport.NR_OF_TRACES;
+    final var trace = new InstructionTrace(new RV32imAssembler(), depth);
+    final var count = 200_000;
+    final var failure = new AtomicReference<Throwable>();
+    final var processor =
+        new Thread(
+            () -> {
+              for (var k = 0; k < count; k++) record(trace, k);
+            });
+    processor.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+    processor.start();
+    var newest = -1;
+    for (var reads = 0; processor.isAlive() || reads == 0; reads++) {
+      assertTrue(trace.size() <= depth);
+      final var info = trace.get(0);
+      if (info == null) continue;
+      final var k = (info.getProgramCounter() - 0x1000) / 4;
+      assertEquals(addi(k), info.getInstruction());
+      assertEquals(k % 7 == 3, info.hasError());
+      assertTrue(k >= newest, "newest " + newest + " then " + k);
+      newest = k;
+      if (reads % 100 == 0) assertEquals(disassemble(addi(k)), info.getAsmInstruction());
+      synchronized (trace) {
+        final var n = (trace.get(0).getProgramCounter() - 0x1000) / 4 + 1;
+        assertLast(trace, n, Math.min(n, depth));
+      }
+    }
+    processor.join();
+    assertNull(failure.get());
+    assertFalse(trace.isEmpty());
+    assertLast(trace, count, depth);
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.instance.InstanceComponent;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the slaves a {@link SocMemMapModel} routes an address to against those that answer for
+ * it, for slaves that overlap, touch or leave gaps, as slaves are added, moved and removed, and
+ * the slaves it finds overlapping when the map is built.
+ */
+public class SocMemMapModelTest extends TestBase {
+
+  /** A slave answering for a range of addresses, which may be moved. */
+  private static final class Slave implements SocBusSlaveInterface {
+    private final String name;
+    private int start;
+    private int size;
+    private final List<SocBusSlaveListener> listeners = new ArrayList<>();
+
+    Slave(String name, long start, int size) {
+      this.name = name;
+      this.start = (int) start;
+      this.size = size;
+    }
+
+    void move(long start, int size) {
+      this.start = (int) start;
+      this.size = size;
+      for (final var listener : new ArrayList<>(listeners)) listener.memoryMapChanged();
+    }
+
+    @Override
+    public boolean canHandleTransaction(SocBusTransaction trans) {
+      final var addr = SocSupport.convUnsignedInt(trans.getAddress());
+      final var first = SocSupport.convUnsignedInt(start);
+      return addr >= first && addr < first + size;
+    }
+
+    @Override
+    public void handleTransaction(SocBusTransaction trans) {}
+
+    @Override
+    public Integer getStartAddress() {
+      return start;
+    }
+
+    @Override
+    public Integer getMemorySize() {
+      return size;
+    }
+
+    @Override
+    public boolean isCircuitVisible() {
+      return false;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public void registerListener(SocBusSlaveListener l) {
+      if (!listeners.contains(l)) listeners.add(l);
+    }
+
+    @Override
+    public void removeListener(SocBusSlaveListener l) {
+      listeners.remove(l);
+    }
+
+    @Override
+    public InstanceComponent getComponent() {
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private static Set<SocBusSlaveInterface> routed(SocMemMapModel model, long address) {
+    return new HashSet<>(List.of(model.getSlaves((int) address)));
+  }
+
+  /** The slaves that answer for an address, as all of them were asked before. */
+  private static Set<SocBusSlaveInterface> answering(SocMemMapModel model, long address) {
+    final var trans =
+        new SocBusTransaction(
+            SocBusTransaction.READ_TRANSACTION,
+            (int) address,
+            0,
+            SocBusTransaction.WORD_ACCESS,
+            "test");
+    final var ret = new HashSet<SocBusSlaveInterface>();
+    for (final var slave : model.getSlaves()) {
+      if (slave.canHandleTransaction(trans)) ret.add(slave);
+    }
+    return ret;
+  }
+
+  /** Checks the addresses around the ends of every slave and of the address space, and others. */
+  private static void checkRouting(SocMemMapModel model, Random random) {
+    final var addresses = new TreeSet<Long>(List.of(0L, 1L, 0xFFFF_FFFEL, 0xFFFF_FFFFL));
+    for (final var slave : model.getSlaves()) {
+      final var start = SocSupport.convUnsignedInt(slave.getStartAddress());
+      final var end = start + slave.getMemorySize();
+      for (var offset = -2; offset <= 2; offset++) {
+        addresses.add((start + offset) & 0xFFFF_FFFFL);
+        addresses.add((end + offset) & 0xFFFF_FFFFL);
+      }
+    }
+    for (var n = 0; n < 50; n++) addresses.add(random.nextInt() & 0xFFFF_FFFFL);
+    for (final var address : addresses) {
+      assertEquals(
+          answering(model, address),
+          routed(model, address),
+          String.format("0x%08X in %s", address, model.getSlaves()));
+    }
+  }
+
+  /** Checks the overlapping slaves against the ranges of all pairs of slaves. */
+  private static void checkOverlaps(SocMemMapModel model) {
+    final var expected = new ArrayList<SocBusSlaveInterface>();
+    for (final var slave : model.getSlaves()) {
+      final var start = SocSupport.convUnsignedInt(slave.getStartAddress());
+      final var end = start + slave.getMemorySize();
+      for (final var other : model.getSlaves()) {
+        final var otherStart = SocSupport.convUnsignedInt(other.getStartAddress());
+        final var otherEnd = otherStart + other.getMemorySize();
+        if (other != slave && start < otherEnd && otherStart < end) {
+          expected.add(slave);
+          break;
+        }
+      }
+    }
+    assertEquals(expected, model.getOverlappingSlaves());
+  }
+
+  private static Set<SocBusSlaveInterface> set(SocBusSlaveInterface... slaves) {
+    return new HashSet<>(List.of(slaves));
+  }
+
+  @Test
+  public void testNoSlaves() {
+    final var model = new SocMemMapModel();
+    assertEquals(0, model.getSlaves(0).length);
+    assertEquals(0, model.getSlaves(-1).length);
+  }
+
+  @Test
+  public void testAdjacentSlavesAndGaps() {
+    final var model = new SocMemMapModel();
+    final var low = new Slave("low", 0, 0x400);
+    final var next = new Slave("next", 0x400, 0x100);
+    final var far = new Slave("far", 0x1000, 8);
+    final var top = new Slave("top", 0xFFFF_FF00L, 0x100);
+    for (final var slave : List.of(far, top, next, low)) model.registerSocBusSlave(slave);
+    assertEquals(set(low), routed(model, 0));
+    assertEquals(set(low), routed(model, 0x3FF));
+    assertEquals(set(next), routed(model, 0x400));
+    assertEquals(set(next), routed(model, 0x4FF));
+    assertEquals(set(), routed(model, 0x500));
+    assertEquals(set(), routed(model, 0xFFF));
+    assertEquals(set(far), routed(model, 0x1007));
+    assertEquals(set(), routed(model, 0x1008));
+    assertEquals(set(), routed(model, 0xFFFF_FEFFL));
+    assertEquals(set(top), routed(model, 0xFFFF_FF00L));
+    assertEquals(set(top), routed(model, 0xFFFF_FFFFL));
+    checkRouting(model, new Random(22));
+  }
+
+  @Test
+  public void testOverlappingSlaves() {
+    final var model = new SocMemMapModel();
+    final var big = new Slave("big", 0x1000, 0x1000);
+    final var inner = new Slave("inner", 0x1800, 0x10);
+    final var across = new Slave("across", 0x1FF0, 0x20);
+    final var same = new Slave("same", 0x1000, 0x1000);
+    for (final var slave : List.of(big, inner, across, same)) model.registerSocBusSlave(slave);
+    assertEquals(set(big, same), routed(model, 0x1000));
+    assertEquals(set(big, same, inner), routed(model, 0x180F));
+    assertEquals(set(big, same), routed(model, 0x1810));
+    assertEquals(set(big, same, across), routed(model, 0x1FFF));
+    assertEquals(set(across), routed(model, 0x2000));
+    assertEquals(set(), routed(model, 0x2010));
+    checkRouting(model, new Random(23));
+  }
+
+  @Test
+  public void testOverlapsFlagged() {
+    final var model = new SocMemMapModel();
+    final var a = new Slave("a", 0x100, 0x100);
+    final var b = new Slave("b", 0x200, 0x100);
+    final var c = new Slave("c", 0x400, 0x10);
+    for (final var slave : List.of(a, b, c)) model.registerSocBusSlave(slave);
+    // touching slaves do not overlap
+    assertEquals(List.of(), model.getOverlappingSlaves());
+    c.move(0x2FF, 0x10);
+    assertEquals(List.of(b, c), model.getOverlappingSlaves());
+    a.move(0, 0x1000);
+    assertEquals(List.of(a, b, c), model.getOverlappingSlaves());
+    model.removeSocBusSlave(a);
+    c.move(0x300, 0x10);
+    assertEquals(List.of(), model.getOverlappingSlaves());
+  }
+
+  @Test
+  public void testSlavesAddedMovedAndRemoved() {
+    final var model = new SocMemMapModel();
+    final var a = new Slave("a", 0x100, 0x100);
+    final var b = new Slave("b", 0x300, 0x100);
+    model.registerSocBusSlave(a);
+    assertEquals(set(), routed(model, 0x300));
+    model.registerSocBusSlave(b);
+    assertEquals(set(b), routed(model, 0x300));
+    // registering again changes nothing
+    model.registerSocBusSlave(b);
+    assertEquals(2, model.getSlaves().size());
+    b.move(0x180, 0x100);
+    assertEquals(set(a, b), routed(model, 0x1C0));
+    assertEquals(set(), routed(model, 0x300));
+    model.removeSocBusSlave(a);
+    assertEquals(set(b), routed(model, 0x1C0));
+    assertEquals(set(), routed(model, 0x100));
+    // a slave removed no longer moves the map
+    a.move(0x300, 0x100);
+    assertEquals(set(), routed(model, 0x300));
+    model.removeSocBusSlave(b);
+    assertEquals(set(), routed(model, 0x1C0));
+    checkRouting(model, new Random(24));
+  }
+
+  @Test
+  public void testRandomMaps() {
+    final var random = new Random(25);
+    final var model = new SocMemMapModel();
+    final var slaves = new ArrayList<Slave>();
+    for (var n = 0; n < 300; n++) {
+      final var action = slaves.isEmpty() ? 0 : random.nextInt(3);
+      // slaves in a small range, so that they often touch and overlap
+      final var start = random.nextInt(4) == 0 ? random.nextInt() : random.nextInt(64) * 4;
+      final var size = 4 << random.nextInt(6);
+      if (action == 0) {
+        final var slave = new Slave("s" + n, start & 0xFFFF_FFFFL, size);
+        slaves.add(slave);
+        model.registerSocBusSlave(slave);
+      } else if (action == 1) {
+        slaves.get(random.nextInt(slaves.size())).move(start & 0xFFFF_FFFFL, size);
+      } else {
+        model.removeSocBusSlave(slaves.remove(random.nextInt(slaves.size())));
+      }
+      assertEquals(new HashSet<>(slaves), new HashSet<>(model.getSlaves()));
+      checkRouting(model, random);
+      checkOverlaps(model);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import com.cburch.logisim.soc.data.SocProcessorInterface;
+import com.cburch.logisim.soc.memory.SocMemoryState;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Checks the segments of an ELF file written to memory, a word at a time where aligned. */
+public class ProcessorReadElfTest extends TestBase {
+
+  /** A processor whose transactions go straight to one memory, and are recorded. */
+  private static final class Processor implements SocProcessorInterface {
+    final SocMemoryState memory = new SocMemoryState();
+    final SocMemoryState.SocMemoryInfo contents = memory.getNewState();
+    final List<SocBusTransaction> transactions = new ArrayList<>();
+
+    Processor(int start, int sizeBits) {
+      memory.setStartAddress(start);
+      memory.setSize(BitWidth.create(sizeBits));
+    }
+
+    @Override
+    public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
+      transactions.add(trans);
+      if (!memory.canHandleTransaction(trans)) {
+        trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
+      } else {
+        contents.write(trans.getAddress(), trans.getWriteData(), trans.getAccessType());
+      }
+    }
+
+    @Override
+    public void setEntryPointandReset(
+        CircuitState state, long entryPoint, ElfProgramHeader progInfo, ElfSectionHeader sect) {}
+
+    @Override
+    public int getEntryPoint(CircuitState cState) {
+      return 0;
+    }
+
+    int readByte(long address) {
+      return contents.read((int) address, SocBusTransaction.BYTE_ACCESS);
+    }
+  }
+
+  private static byte[] randomBytes(Random random, int length) {
+    final var ret = new byte[length];
+    random.nextBytes(ret);
+    return ret;
+  }
+
+  /** Loads a segment, and checks the bytes in memory and the transactions used. */
+  private static void checkLoad(long start, int fileSize, int memSize) {
+    final var buffer = randomBytes(new Random(start + fileSize + memSize), fileSize);
+    final var cpu = new Processor(0, 16);
+    if (start + memSize > 1 << 16) cpu.memory.setStartAddress(0xFFFF_0000);
+    assertTrue(ProcessorReadElf.loadSegment(cpu, null, buffer, start, memSize));
+    for (var j = 0; j < memSize; j++) {
+      final var expected = j < fileSize ? buffer[j] & 0xFF : 0;
+      assertEquals(expected, cpu.readByte(start + j), "byte " + j + " from " + start);
+    }
+    var covered = 0;
+    for (final var trans : cpu.transactions) {
+      final var address = trans.getAddress() & 0xFFFF_FFFFL;
+      assertTrue(trans.isWriteTransaction());
+      if (trans.getAccessType() == SocBusTransaction.WORD_ACCESS) {
+        assertEquals(0, address & 3);
+        covered += 4;
+      } else {
+        assertEquals(SocBusTransaction.BYTE_ACCESS, trans.getAccessType());
+        // bytes only where no whole aligned word is left
+        final var wordStart = (address + 3) & ~3L;
+        assertTrue(address != wordStart || wordStart + 4 > start + memSize, "byte at " + address);
+        covered += 1;
+      }
+    }
+    assertEquals(memSize, covered);
+    assertTrue(cpu.transactions.size() <= memSize / 4 + 6);
+  }
+
+  @Test
+  public void testAlignedSegment() {
+    checkLoad(0x100, 64, 64);
+    checkLoad(0x100, 4096, 4096);
+  }
+
+  @Test
+  public void testUnalignedSegments() {
+    for (var start = 0x200; start < 0x204; start++) {
+      for (var size = 0; size < 12; size++) checkLoad(start, size, size);
+      checkLoad(start, 1001, 1001);
+    }
+  }
+
+  /** Memory past the bytes in the file is cleared, as for uninitialized data. */
+  @Test
+  public void testPaddedSegment() {
+    checkLoad(0x300, 10, 64);
+    checkLoad(0x301, 0, 9);
+    checkLoad(0x302, 7, 4099);
+  }
+
+  @Test
+  public void testSegmentAtEndOfAddressSpace() {
+    checkLoad(0xFFFF_FF00L, 256, 256);
+    checkLoad(0xFFFF_FFF1L, 13, 15);
+  }
+
+  @Test
+  public void testSegmentOutsideMemory() {
+    final var cpu = new Processor(0x1000, 10);
+    final var buffer = randomBytes(new Random(24), 64);
+    assertFalse(ProcessorReadElf.loadSegment(cpu, null, buffer, 0x1400 - 32, 64));
+    // the segment is written up to the end of the memory, and no further once a write failed
+    for (var j = 0; j < 32; j++) assertEquals(buffer[j] & 0xFF, cpu.readByte(0x1400 - 32 + j));
+    assertEquals(9, cpu.transactions.size());
+    assertFalse(ProcessorReadElf.loadSegment(cpu, null, buffer, 0x800, 64));
+    assertEquals(10, cpu.transactions.size());
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the bytes, halfwords and words written to the pages of a memory against the bytes they
+ * hold, around the boundaries of the pages and of their tables, and at both ends of the address
+ * space.
+ */
+public class SocMemoryStateTest extends TestBase {
+
+  private static final int PAGE = 4 << 10; // bytes in a page
+  private static final int TABLE = 4 << 20; // bytes covered by a table of pages
+
+  private static final int[] TYPES = {
+    SocBusTransaction.BYTE_ACCESS, SocBusTransaction.HALF_WORD_ACCESS, SocBusTransaction.WORD_ACCESS
+  };
+
+  private static int bytes(int type) {
+    return type == SocBusTransaction.WORD_ACCESS
+        ? 4
+        : type == SocBusTransaction.HALF_WORD_ACCESS ? 2 : 1;
+  }
+
+  /** Addresses on both sides of the boundaries of pages and tables, and at the ends. */
+  private static ArrayList<Integer> edges() {
+    final var ret = new ArrayList<Integer>();
+    for (final var boundary :
+        new int[] {0, PAGE, 2 * PAGE, TABLE - PAGE, TABLE, 7 * TABLE, 0x8000_0000, -PAGE, -TABLE}) {
+      for (var offset = -8; offset < 8; offset++) ret.add(boundary + offset);
+    }
+    return ret;
+  }
+
+  /** The bytes written, by address, and the memory they were written to. */
+  private static final class Written {
+    final SocMemoryState.SocMemoryInfo info = new SocMemoryState().getNewState();
+    final Map<Integer, Integer> bytes = new HashMap<>();
+
+    void write(int address, int data, int type) {
+      address &= -bytes(type);
+      info.write(address, data, type);
+      for (var i = 0; i < bytes(type); i++) bytes.put(address + i, (data >>> (8 * i)) & 0xFF);
+    }
+
+    /** Checks every access that only reads bytes written. */
+    void check() {
+      for (final var address : bytes.keySet()) {
+        for (final var type : TYPES) {
+          final var aligned = address & -bytes(type);
+          var expected = 0;
+          var known = true;
+          for (var i = bytes(type) - 1; i >= 0; i--) {
+            final var b = bytes.get(aligned + i);
+            if (b == null) known = false;
+            else expected = (expected << 8) | b;
+          }
+          if (!known) continue;
+          assertEquals(
+              expected,
+              info.read(aligned, type),
+              String.format("%d bytes at 0x%08X", bytes(type), aligned));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testEveryAccessAtEdges() {
+    for (final var writeType : TYPES) {
+      final var written = new Written();
+      var data = 0x12345678;
+      for (final var address : edges()) {
+        data = data * 0x01000193 + 0x9e3779b9;
+        written.write(address, data, writeType);
+      }
+      written.check();
+    }
+  }
+
+  @Test
+  public void testMixedAccesses() {
+    final var random = new Random(21);
+    final var edges = edges();
+    final var written = new Written();
+    for (var n = 0; n < 20000; n++) {
+      final var address =
+          random.nextInt(4) == 0 ? random.nextInt() : edges.get(random.nextInt(edges.size()));
+      written.write(address, random.nextInt(), TYPES[random.nextInt(TYPES.length)]);
+    }
+    written.check();
+  }
+
+  @Test
+  public void testBytesOfWords() {
+    final var info = new SocMemoryState().getNewState();
+    for (final var address : new int[] {0, PAGE - 4, -4}) {
+      info.write(address, 0x44332211, SocBusTransaction.WORD_ACCESS);
+      assertEquals(0x11, info.read(address, SocBusTransaction.BYTE_ACCESS));
+      assertEquals(0x22, info.read(address + 1, SocBusTransaction.BYTE_ACCESS));
+      assertEquals(0x33, info.read(address + 2, SocBusTransaction.BYTE_ACCESS));
+      assertEquals(0x44, info.read(address + 3, SocBusTransaction.BYTE_ACCESS));
+      assertEquals(0x2211, info.read(address, SocBusTransaction.HALF_WORD_ACCESS));
+      assertEquals(0x4433, info.read(address + 2, SocBusTransaction.HALF_WORD_ACCESS));
+      info.write(address + 3, 0xAB, SocBusTransaction.BYTE_ACCESS);
+      info.write(address, 0xCDEF, SocBusTransaction.HALF_WORD_ACCESS);
+      assertEquals(0xAB33CDEF, info.getWord(address));
+      // only the bits of the access are written
+      info.write(address + 2, 0xFFFF0102, SocBusTransaction.HALF_WORD_ACCESS);
+      info.write(address + 1, 0xFFFFFF03, SocBusTransaction.BYTE_ACCESS);
+      assertEquals(0x010203EF, info.read(address, SocBusTransaction.WORD_ACCESS));
+    }
+  }
+
+  /** Words never written read as random values, but keep them once their page exists. */
+  @Test
+  public void testUnwrittenWords() {
+    final var info = new SocMemoryState().getNewState();
+    info.writeWord(PAGE, 1);
+    final var first = new int[PAGE / 4];
+    for (var i = 1; i < first.length; i++) first[i] = info.getWord(PAGE + 4 * i);
+    for (var i = 1; i < first.length; i++) assertEquals(first[i], info.getWord(PAGE + 4 * i));
+    var same = 0;
+    for (var i = 0; i < 64; i++) {
+      if (info.getWord(2 * PAGE) == info.getWord(2 * PAGE)) same++;
+    }
+    assertTrue(same < 64);
+    assertEquals(1, info.getWord(PAGE));
+  }
+
+  @Test
+  public void testAddressRange() {
+    final var state = new SocMemoryState();
+    state.setSize(BitWidth.create(10));
+    state.setStartAddress(0xFFFF_FC00);
+    assertTrue(handles(state, 0xFFFF_FC00));
+    assertTrue(handles(state, 0xFFFF_FFFF));
+    assertFalse(handles(state, 0xFFFF_FBFF));
+    assertFalse(handles(state, 0));
+    state.setStartAddress(0);
+    assertTrue(handles(state, 0));
+    assertTrue(handles(state, 0x3FF));
+    assertFalse(handles(state, 0x400));
+    assertFalse(handles(state, 0xFFFF_FFFF));
+  }
+
+  private static boolean handles(SocMemoryState state, int address) {
+    return state.canHandleTransaction(
+        new SocBusTransaction(
+            SocBusTransaction.READ_TRANSACTION, address, 0, SocBusTransaction.BYTE_ACCESS, "test"));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.soc.SocTestSystem;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import com.cburch.logisim.soc.rv32im.RV32imAssembler;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the execution units an {@link InstructionCache} keeps: by the word decoded at each
+ * address, and, for the instructions fetched over a bus, until the bus carries a write to them.
+ */
+public class InstructionCacheTest extends TestBase {
+
+  private static final int ADDI_X1 = 0x00108093; // addi x1, x1, 1
+  private static final int ADDI_X2 = 0x00210113; // addi x2, x2, 2
+  private static final int ADD = 0x002081b3; // add x3, x1, x2
+  private static final int SPAN = 4 << 12; // bytes between the addresses of the same entry
+
+  private static SocBusTransaction fetch(
+      InstructionCache cache, SocTestSystem system, int address) {
+    final var traced = system.getNrOfTracedTransactions();
+    final var trans =
+        new SocBusTransaction(
+            SocBusTransaction.READ_TRANSACTION, address, 0, SocBusTransaction.WORD_ACCESS, "cpu");
+    cache.fetch(trans, system.getAttachedBus(), system.getCircuitState());
+    assertFalse(trans.hasError(), trans.getErrorMessage());
+    // hit or not, the fetch shows in the trace of the bus
+    assertEquals(traced + 1, system.getNrOfTracedTransactions());
+    return trans;
+  }
+
+  private static AssemblerExecutionInterface fetched(
+      InstructionCache cache, SocTestSystem system, int address) {
+    final var trans =
+        new SocBusTransaction(
+            SocBusTransaction.READ_TRANSACTION, address, 0, SocBusTransaction.WORD_ACCESS, "cpu");
+    return cache.fetch(trans, system.getAttachedBus(), system.getCircuitState());
+  }
+
+  @Test
+  public void testHitReturnsTheSameUnit() {
+    final var cache = new InstructionCache(new RV32imAssembler());
+    final var exe = cache.decode(0, ADDI_X1);
+    assertEquals(ADDI_X1, exe.getBinInstruction());
+    assertSame(exe, cache.decode(0, ADDI_X1));
+    // the unit keeps its operands, as others of its kind are decoded elsewhere
+    final var other = cache.decode(4, ADDI_X2);
+    assertNotSame(exe, other);
+    assertEquals(ADDI_X1, exe.getBinInstruction());
+    assertEquals(ADDI_X2, other.getBinInstruction());
+    assertSame(exe, cache.decode(0, ADDI_X1));
+    assertNull(cache.decode(8, 0));
+  }
+
+  @Test
+  public void testChangedWordIsDecodedAgain() {
+    final var cache = new InstructionCache(new RV32imAssembler());
+    final var exe = cache.decode(0x100, ADDI_X1);
+    final var changed = cache.decode(0x100, ADD);
+    assertNotSame(exe, changed);
+    assertEquals(ADD, changed.getBinInstruction());
+    assertSame(changed, cache.decode(0x100, ADD));
+    assertNotSame(changed, cache.decode(0x100, ADDI_X1));
+  }
+
+  @Test
+  public void testSameEntryEvicts() {
+    final var cache = new InstructionCache(new RV32imAssembler());
+    final var low = cache.decode(0x40, ADDI_X1);
+    final var high = cache.decode(0x40 + SPAN, ADDI_X1);
+    assertNotSame(low, high);
+    final var again = cache.decode(0x40, ADDI_X1);
+    assertNotSame(low, again);
+    assertNotSame(high, cache.decode(0x40 + SPAN, ADDI_X1));
+    // the neighbours of the entry are left as they are
+    final var next = cache.decode(0x44, ADD);
+    cache.decode(0x40, ADDI_X2);
+    assertSame(next, cache.decode(0x44, ADD));
+  }
+
+  @Test
+  public void testHitSkipsTheBus() {
+    final var system = SocTestSystem.rv32im(1);
+    final var cache = new InstructionCache(new RV32imAssembler());
+    system.write(0, ADDI_X1, ADD);
+    final var miss = fetch(cache, system, 0);
+    final var exe = fetched(cache, system, 0);
+    assertEquals(ADDI_X1, exe.getBinInstruction());
+    // a word changed without the bus knowing of it, and the memory is not read again
+    system.poke(0, ADDI_X2);
+    final var hit = fetch(cache, system, 0);
+    assertEquals(ADDI_X1, hit.getReadData());
+    assertSame(miss.getTransactionResponder(), hit.getTransactionResponder());
+    assertSame(exe, fetched(cache, system, 0));
+  }
+
+  @Test
+  public void testBusWriteInvalidates() {
+    final var system = SocTestSystem.rv32im(1);
+    final var cache = new InstructionCache(new RV32imAssembler());
+    system.write(0, ADDI_X1, ADD);
+    final var first = fetched(cache, system, 0);
+    final var second = fetched(cache, system, 4);
+    system.write(0, ADDI_X2);
+    final var trans = fetch(cache, system, 0);
+    assertEquals(ADDI_X2, trans.getReadData());
+    final var rewritten = fetched(cache, system, 0);
+    assertNotSame(first, rewritten);
+    assertEquals(ADDI_X2, rewritten.getBinInstruction());
+    // only the word written is fetched again
+    assertSame(second, fetched(cache, system, 4));
+    // as for a byte written within a word
+    final var store =
+        new SocBusTransaction(
+            SocBusTransaction.WRITE_TRANSACTION, 6, 0x12, SocBusTransaction.BYTE_ACCESS, "cpu");
+    system.getBus().initializeTransaction(store, system.getAttachedBus().getBusId());
+    assertFalse(store.hasError());
+    final var patched = fetched(cache, system, 4);
+    assertNotSame(second, patched);
+    assertEquals((ADD & 0xFF00FFFF) | 0x120000, patched.getBinInstruction());
+  }
+
+  @Test
+  public void testCircuitVisibleWordsAreNotKept() {
+    final var system = SocTestSystem.rv32im(1);
+    final var cache = new InstructionCache(new RV32imAssembler());
+    fetch(cache, system, SocTestSystem.PIO);
+    final var trans = fetch(cache, system, SocTestSystem.PIO);
+    assertTrue(trans.isCircuitVisible());
+  }
+}